@@ -0,0 +1,109 @@
+package edu.uci.plrg.cfi.x86.merge.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.uci.plrg.cfi.common.log.Log;
+import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ApplicationGraph;
+import edu.uci.plrg.cfi.x86.merge.graph.hash.HashMergeDebugLog;
+import edu.uci.plrg.cfi.x86.merge.graph.hash.HashMergeResults;
+import edu.uci.plrg.cfi.x86.merge.graph.hash.HashMergeSession;
+import edu.uci.plrg.cfi.x86.merge.graph.tag.TagMergeResults;
+import edu.uci.plrg.cfi.x86.merge.graph.tag.TagMergeSession;
+import edu.uci.plrg.cfi.x86.merge.util.MergeLog;
+
+/**
+ * Merges one synthetic run of a module into another with each merge strategy. The merge log is written to a scratch
+ * file, at <code>INFO</code> (the default of the merge tools, which logs every added indirect edge and module-relative
+ * hash match of a tag merge) and at <code>ERROR</code>, which drops those messages, so the two results of a merge give
+ * its time with and without the logging. Pending messages are written at the end of each iteration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MergeBenchmark {
+
+	@Param({ "10000", "100000" })
+	int nodeCount;
+
+	@Param({ "2" })
+	int fanOut;
+
+	@Param({ "0.01", "0.1" })
+	double hashCollisionRate;
+
+	@Param({ "0.05" })
+	double indirectEdgeDensity;
+
+	@Param({ "0.1" })
+	double divergence;
+
+	@Param({ "INFO", "ERROR" })
+	MergeLog.Level logLevel;
+
+	private final HashMergeDebugLog debugLog = new HashMergeDebugLog();
+	private File logFile;
+
+	private SyntheticGraphGenerator generator;
+	private ApplicationGraph left;
+	private ApplicationGraph right;
+
+	// each combination of parameters runs in its own fork, so the output is only added once
+	@Setup(Level.Trial)
+	public void openLog() throws IOException {
+		logFile = File.createTempFile("merge-benchmark", ".log");
+		Log.addOutput(logFile);
+		MergeLog.setLevel(logLevel);
+	}
+
+	@TearDown(Level.Iteration)
+	public void flushLog() {
+		MergeLog.flush();
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteLog() {
+		logFile.delete();
+	}
+
+	@Setup(Level.Trial)
+	public void generateLeft() {
+		generator = new SyntheticGraphGenerator(nodeCount, fanOut, hashCollisionRate, indirectEdgeDensity, 1L);
+		left = generator.generate("left", 1L, divergence);
+	}
+
+	// the tag merge adds the left nodes to the right graph, so each merge gets a fresh one
+	@Setup(Level.Invocation)
+	public void generateRight() {
+		right = generator.generate("right", 2L, divergence);
+	}
+
+	@Benchmark
+	public ApplicationGraph tagMerge() {
+		return TagMergeSession.mergeTwoGraphs(left.graph, right.graph, new TagMergeResults());
+	}
+
+	@Benchmark
+	public ApplicationGraph hashMerge() {
+		return HashMergeSession.mergeTwoGraphs(left.graph, right.graph, HashMergeResults.Empty.INSTANCE,
+				new HashMergeSession.DefaultEvaluator(), debugLog);
+	}
+}
@@ -0,0 +1,68 @@
+package edu.uci.plrg.cfi.x86.merge.bench;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ApplicationGraph;
+import edu.uci.plrg.cfi.x86.merge.graph.report.ExecutionReport;
+import edu.uci.plrg.cfi.x86.merge.graph.report.ModuleReportGenerator;
+import edu.uci.plrg.cfi.x86.merge.graph.report.ProgramEventFrequencies;
+
+/**
+ * Reports a synthetic execution against a synthetic dataset of the same module. The report keeps the new nodes and
+ * edges in an overlay, so neither graph changes and both are generated once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ModuleReportBenchmark {
+
+	@Param({ "10000", "100000" })
+	int nodeCount;
+
+	@Param({ "2" })
+	int fanOut;
+
+	@Param({ "0.05", "0.3" })
+	double indirectEdgeDensity;
+
+	@Param({ "0.01", "0.1" })
+	double divergence;
+
+	private final ProgramEventFrequencies.ProgramPropertyReader frequencies = new ProgramEventFrequencies.ProgramPropertyReader(
+			new Properties(), new Properties());
+
+	private ApplicationGraph execution;
+	private ApplicationGraph dataset;
+
+	@Setup(Level.Trial)
+	public void generate() {
+		SyntheticGraphGenerator generator = new SyntheticGraphGenerator(nodeCount, fanOut, 0.01, indirectEdgeDensity,
+				1L);
+		execution = generator.generate("execution", 1L, divergence);
+		dataset = generator.generate("dataset");
+	}
+
+	@Benchmark
+	public ExecutionReport addModuleReportEntries() {
+		ExecutionReport report = new ExecutionReport(frequencies);
+		ModuleReportGenerator.addModuleReportEntries(report, execution, dataset);
+		return report;
+	}
+}
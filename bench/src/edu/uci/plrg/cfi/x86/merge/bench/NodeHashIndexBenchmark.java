@@ -0,0 +1,90 @@
+package edu.uci.plrg.cfi.x86.merge.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.uci.plrg.cfi.x86.graph.data.graph.NodeHashMap;
+import edu.uci.plrg.cfi.x86.graph.data.graph.NodeList;
+import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ApplicationGraph;
+import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ModuleNode;
+import edu.uci.plrg.cfi.x86.merge.util.NodeHashIndex;
+
+/**
+ * Looks up the nodes of a set of hashes, half of which are in the graph, in the <code>NodeHashIndex</code> of the
+ * graph and in its <code>NodeHashMap</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class NodeHashIndexBenchmark {
+
+	private static final int LOOKUP_COUNT = 10000;
+
+	@Param({ "10000", "1000000" })
+	int nodeCount;
+
+	@Param({ "0.01", "0.1" })
+	double hashCollisionRate;
+
+	private final long[] hashes = new long[LOOKUP_COUNT];
+
+	private NodeHashMap<ModuleNode<?>> nodesByHash;
+	private NodeHashIndex<ModuleNode<?>> index;
+
+	@Setup(Level.Trial)
+	public void generate() {
+		ApplicationGraph graph = new SyntheticGraphGenerator(nodeCount, 1, hashCollisionRate, 0.0, 1L)
+				.generate("index");
+		nodesByHash = graph.graph.getGraphData().nodesByHash;
+		index = NodeHashIndex.build(nodesByHash);
+
+		Long[] graphHashes = nodesByHash.keySet().toArray(new Long[0]);
+		Random random = new Random(2L);
+		for (int i = 0; i < LOOKUP_COUNT; i++)
+			hashes[i] = ((i % 2) == 0) ? graphHashes[random.nextInt(graphHashes.length)] : random.nextLong();
+	}
+
+	@Benchmark
+	public int nodeHashIndex() {
+		int found = 0;
+		for (long hash : hashes) {
+			for (int entry = index.first(hash); entry != NodeHashIndex.NONE; entry = index.next(entry)) {
+				if (index.getNode(entry) != null)
+					found++;
+			}
+		}
+		return found;
+	}
+
+	@Benchmark
+	public int nodeHashMap() {
+		int found = 0;
+		for (long hash : hashes) {
+			NodeList<ModuleNode<?>> nodes = nodesByHash.get(hash);
+			if (nodes == null)
+				continue;
+
+			for (int i = 0; i < nodes.size(); i++) {
+				if (nodes.get(i) != null)
+					found++;
+			}
+		}
+		return found;
+	}
+}
@@ -0,0 +1,108 @@
+package edu.uci.plrg.cfi.x86.merge.bench;
+
+import java.util.Random;
+
+import edu.uci.plrg.cfi.x86.graph.data.application.ApplicationModule;
+import edu.uci.plrg.cfi.x86.graph.data.application.ApplicationModuleSet;
+import edu.uci.plrg.cfi.x86.graph.data.graph.Edge;
+import edu.uci.plrg.cfi.x86.graph.data.graph.EdgeType;
+import edu.uci.plrg.cfi.x86.graph.data.graph.MetaNodeType;
+import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ApplicationGraph;
+import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ModuleNode;
+
+/**
+ * Generates module graphs of a given shape for the benchmarks. The structure of a graph (node count, edges and their
+ * types) is determined by the seed alone, so two graphs generated with the same seed and different variant seeds share
+ * their structure and differ only in the nodes that diverge, which is the shape of two runs of the same module.
+ *
+ * <ul>
+ * <li><code>fanOut</code>: outgoing edges per node, each on its own ordinal</li>
+ * <li><code>hashCollisionRate</code>: fraction of nodes that reuse the hash of an earlier node at a different tag</li>
+ * <li><code>indirectEdgeDensity</code>: fraction of edges that are indirect, and go to a random node</li>
+ * </ul>
+ */
+public class SyntheticGraphGenerator {
+
+	public static final String MODULE_NAME = "synthetic-module.dll";
+
+	// relative tags of divergent nodes start here, so they never coincide with the tag of a shared node
+	private static final long DIVERGENT_TAG_BASE = 0x40000000L;
+	private static final long TAG_STRIDE = 0x10L;
+
+	private final int nodeCount;
+	private final int fanOut;
+	private final double hashCollisionRate;
+	private final double indirectEdgeDensity;
+	private final long seed;
+
+	public SyntheticGraphGenerator(int nodeCount, int fanOut, double hashCollisionRate, double indirectEdgeDensity,
+			long seed) {
+		if (nodeCount < 1)
+			throw new IllegalArgumentException("The node count must be at least 1");
+		if (fanOut < 1)
+			throw new IllegalArgumentException("The fan-out must be at least 1");
+
+		this.nodeCount = nodeCount;
+		this.fanOut = fanOut;
+		this.hashCollisionRate = hashCollisionRate;
+		this.indirectEdgeDensity = indirectEdgeDensity;
+		this.seed = seed;
+	}
+
+	public static ApplicationModule getModule() {
+		return ApplicationModuleSet.getInstance().establishModuleByFileSystemName(MODULE_NAME);
+	}
+
+	public ApplicationGraph generate(String name) {
+		return generate(name, 0L, 0.0);
+	}
+
+	/**
+	 * @param divergence
+	 *            fraction of the nodes that are replaced by a node with a hash and tag of their own, chosen by
+	 *            <code>variantSeed</code>
+	 */
+	public ApplicationGraph generate(String name, long variantSeed, double divergence) {
+		Random structure = new Random(seed);
+		Random variant = new Random(variantSeed);
+		ApplicationGraph graph = new ApplicationGraph(name, getModule());
+
+		ModuleNode<?> entry = graph.addNode(structure.nextLong(), getModule(), 0L, MetaNodeType.MODULE_ENTRY);
+
+		long[] hashes = new long[nodeCount];
+		ModuleNode<?>[] nodes = new ModuleNode<?>[nodeCount];
+		for (int i = 0; i < nodeCount; i++) {
+			long hash = structure.nextLong();
+			if ((i > 0) && (structure.nextDouble() < hashCollisionRate))
+				hash = hashes[structure.nextInt(i)];
+			hashes[i] = hash;
+
+			long relativeTag = (i + 1) * TAG_STRIDE;
+			if (variant.nextDouble() < divergence) {
+				hash = variant.nextLong();
+				relativeTag = DIVERGENT_TAG_BASE + relativeTag;
+			}
+			nodes[i] = graph.addNode(hash, getModule(), relativeTag, MetaNodeType.NORMAL);
+		}
+
+		addEdge(entry, nodes[0], EdgeType.MODULE_ENTRY, 0);
+		for (int i = 0; i < nodeCount; i++) {
+			for (int ordinal = 0; ordinal < fanOut; ordinal++) {
+				if (structure.nextDouble() < indirectEdgeDensity) {
+					addEdge(nodes[i], nodes[structure.nextInt(nodeCount)], EdgeType.INDIRECT, ordinal);
+				} else {
+					int target = i + 1 + ordinal;
+					if (target < nodeCount)
+						addEdge(nodes[i], nodes[target], EdgeType.DIRECT, ordinal);
+				}
+			}
+		}
+		return graph;
+	}
+
+	private static void addEdge(ModuleNode<?> from, ModuleNode<?> to, EdgeType type, int ordinal) {
+		Edge<ModuleNode<?>> edge = new Edge<ModuleNode<?>>(from, to, type, ordinal);
+		from.addOutgoingEdge(edge);
+		to.addIncomingEdge(edge);
+	}
+}
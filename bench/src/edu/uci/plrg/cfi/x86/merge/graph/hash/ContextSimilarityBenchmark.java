@@ -0,0 +1,96 @@
+package edu.uci.plrg.cfi.x86.merge.graph.hash;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.uci.plrg.cfi.x86.graph.data.graph.NodeList;
+import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ApplicationGraph;
+import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ModuleNode;
+import edu.uci.plrg.cfi.x86.merge.bench.SyntheticGraphGenerator;
+import edu.uci.plrg.cfi.x86.merge.graph.ModuleMergeProfile;
+
+/**
+ * Walks the context of node pairs with equal hashes in two synthetic runs of a module, without the memo of
+ * <code>HashMatchEngine.evaluateContext()</code>, so each operation is a full walk of every pair.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ContextSimilarityBenchmark {
+
+	private static final int PAIR_COUNT = 1000;
+
+	@Param({ "100000" })
+	int nodeCount;
+
+	@Param({ "2", "4" })
+	int fanOut;
+
+	@Param({ "0.01", "0.1" })
+	double hashCollisionRate;
+
+	@Param({ "0.05", "0.3" })
+	double indirectEdgeDensity;
+
+	@Param({ "10" })
+	int depth;
+
+	private final List<ModuleNode<?>> leftNodes = new ArrayList<ModuleNode<?>>();
+	private final List<ModuleNode<?>> rightNodes = new ArrayList<ModuleNode<?>>();
+
+	private HashMergeSession session;
+	private HashMatchEngine engine;
+
+	@Setup(Level.Trial)
+	public void generate() {
+		SyntheticGraphGenerator generator = new SyntheticGraphGenerator(nodeCount, fanOut, hashCollisionRate,
+				indirectEdgeDensity, 1L);
+		ApplicationGraph left = generator.generate("left", 1L, 0.1);
+		ApplicationGraph right = generator.generate("right", 2L, 0.1);
+
+		session = new HashMergeSession(left.graph, right.graph, HashMergeResults.Empty.INSTANCE,
+				new ModuleMergeProfile(), new HashMergeDebugLog());
+		engine = new HashMatchEngine(session);
+
+		for (ModuleNode<?> leftNode : left.graph.getAllNodes()) {
+			NodeList<ModuleNode<?>> candidates = right.graph.getGraphData().nodesByHash.get(leftNode.getHash());
+			if (candidates == null)
+				continue;
+
+			for (int i = 0; (i < candidates.size()) && (leftNodes.size() < PAIR_COUNT); i++) {
+				leftNodes.add(leftNode);
+				rightNodes.add(candidates.get(i));
+			}
+			if (leftNodes.size() == PAIR_COUNT)
+				break;
+		}
+	}
+
+	@Benchmark
+	public int getContextSimilarity() {
+		int matchedNodeCount = 0;
+		for (int i = 0; i < leftNodes.size(); i++) {
+			session.contextRecord.reset(leftNodes.get(i), rightNodes.get(i));
+			engine.getContextSimilarity(leftNodes.get(i), rightNodes.get(i), depth);
+			matchedNodeCount += session.contextRecord.getCurrentState().getMatchedNodeCount();
+		}
+		return matchedNodeCount;
+	}
+}
@@ -0,0 +1,88 @@
+package edu.uci.plrg.cfi.x86.merge.graph.tag;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.uci.plrg.cfi.x86.graph.data.graph.Edge;
+import edu.uci.plrg.cfi.x86.graph.data.graph.OrdinalEdgeList;
+import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ApplicationGraph;
+import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ModuleNode;
+import edu.uci.plrg.cfi.x86.merge.bench.SyntheticGraphGenerator;
+
+/**
+ * Feeds the edges of a synthetic graph to <code>TagMergedSubgraphs.edgeAdded()</code>, with a fraction of the nodes
+ * added as unmatched, as the tag merge does for the nodes and edges it adds to the dataset.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TagMergedSubgraphsBenchmark {
+
+	@Param({ "100000" })
+	int nodeCount;
+
+	@Param({ "2" })
+	int fanOut;
+
+	@Param({ "0.05" })
+	double indirectEdgeDensity;
+
+	@Param({ "0.1", "1.0" })
+	double unmatchedFraction;
+
+	private final List<ModuleNode<?>> unmatchedNodes = new ArrayList<ModuleNode<?>>();
+	private final List<Edge<?>> edges = new ArrayList<Edge<?>>();
+
+	private TagMergedSubgraphs subgraphs;
+
+	@Setup(Level.Trial)
+	public void generate() {
+		ApplicationGraph graph = new SyntheticGraphGenerator(nodeCount, fanOut, 0.0, indirectEdgeDensity, 1L)
+				.generate("subgraphs");
+		Random random = new Random(2L);
+		for (ModuleNode<?> node : graph.graph.getAllNodes()) {
+			if (random.nextDouble() < unmatchedFraction)
+				unmatchedNodes.add(node);
+
+			OrdinalEdgeList<ModuleNode<?>> outgoing = node.getOutgoingEdges();
+			try {
+				for (Edge<ModuleNode<?>> edge : outgoing)
+					edges.add(edge);
+			} finally {
+				outgoing.release();
+			}
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void addUnmatchedNodes() {
+		subgraphs = new TagMergedSubgraphs();
+		for (ModuleNode<?> node : unmatchedNodes)
+			subgraphs.nodeAdded(node);
+	}
+
+	@Benchmark
+	public int edgeAdded() {
+		for (int i = 0; i < edges.size(); i++)
+			subgraphs.edgeAdded(edges.get(i));
+		return subgraphs.getTotalUnmatchedEdges();
+	}
+}
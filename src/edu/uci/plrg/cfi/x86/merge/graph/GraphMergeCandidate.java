@@ -21,6 +21,8 @@ import edu.uci.plrg.cfi.x86.graph.io.execution.ExecutionTraceDirectory;
 import edu.uci.plrg.cfi.x86.graph.io.modular.ModularTraceDataSource;
 import edu.uci.plrg.cfi.x86.graph.io.modular.ModularTraceDirectory;
 import edu.uci.plrg.cfi.x86.merge.graph.hash.HashMergeDebugLog;
+import edu.uci.plrg.cfi.x86.merge.graph.mapped.ColumnarDataset;
+import edu.uci.plrg.cfi.x86.merge.graph.mapped.ColumnarDatasetCatalog;
 
 public interface GraphMergeCandidate {
 
@@ -107,9 +109,16 @@ public interface GraphMergeCandidate {
 		private final HashMergeDebugLog debugLog;
 
 		private ModularTraceDataSource dataSource;
-		private ModuleGraphLoadSession loadSession;
 		private Graph.Process.Builder summaryBuilder = Graph.Process.newBuilder();
 
+		// modules may be loaded concurrently by merge workers, so each thread gets its own load session
+		private final ThreadLocal<ModuleGraphLoadSession> loadSession = new ThreadLocal<ModuleGraphLoadSession>() {
+			@Override
+			protected ModuleGraphLoadSession initialValue() {
+				return new ModuleGraphLoadSession(dataSource);
+			}
+		};
+
 		private final Map<ApplicationModule, ModuleGraph<?>> graphs = new HashMap<ApplicationModule, ModuleGraph<?>>();
 
 		public Modular(File directory, HashMergeDebugLog debugLog) throws TraceDataSourceException, IOException {
@@ -127,7 +136,7 @@ public interface GraphMergeCandidate {
 
 		@Override
 		public void loadData() throws IOException {
-			loadSession = new ModuleGraphLoadSession(dataSource);
+			loadSession.set(new ModuleGraphLoadSession(dataSource));
 		}
 
 		@Override
@@ -137,7 +146,10 @@ public interface GraphMergeCandidate {
 
 		@Override
 		public void summarizeModule(ApplicationModule module) {
-			ModuleGraph<?> graph = graphs.remove(module);
+			ModuleGraph<?> graph;
+			synchronized (graphs) {
+				graph = graphs.remove(module);
+			}
 			if (graph != null) {
 				summaryBuilder.addModule(graph.summarize(graph.module.isAnonymous));
 
@@ -165,16 +177,128 @@ public interface GraphMergeCandidate {
 
 		@Override
 		public ModuleGraph<?> getModuleGraph(ApplicationModule module) throws IOException {
-			ModuleGraph<?> graph = loadSession.loadModuleGraph(module, debugLog);
+			ModuleGraph<?> graph = loadSession.get().loadModuleGraph(module, debugLog);
 			if (graph != null) {
-				graphs.put(module, graph);
+				synchronized (graphs) {
+					graphs.put(module, graph);
+				}
 			}
 			return graph;
 		}
 
 		@Override
 		public ApplicationAnonymousGraphs getAnonymousGraph() throws IOException {
-			return loadSession.loadAnonymousGraphs();
+			return loadSession.get().loadAnonymousGraphs();
+		}
+
+		/**
+		 * Drop the reference to the graph of <code>module</code> that is kept for <code>summarizeModule()</code>.
+		 */
+		void releaseModule(ApplicationModule module) {
+			synchronized (graphs) {
+				graphs.remove(module);
+			}
+		}
+	}
+
+	/**
+	 * A modular trace whose module graphs stay loaded after first use, for a dataset that is compared against many
+	 * executions. A client that changes a module graph must evict it, and it is reloaded on the next request.
+	 */
+	static class Resident extends Modular {
+
+		private final Map<ApplicationModule, ModuleGraph<?>> residentGraphs = new HashMap<ApplicationModule, ModuleGraph<?>>();
+
+		public Resident(File directory, HashMergeDebugLog debugLog) throws TraceDataSourceException, IOException {
+			super(directory, debugLog);
+		}
+
+		@Override
+		public ModuleGraph<?> getModuleGraph(ApplicationModule module) throws IOException {
+			synchronized (residentGraphs) {
+				ModuleGraph<?> graph = residentGraphs.get(module);
+				if (graph == null) {
+					graph = super.getModuleGraph(module);
+					releaseModule(module); // this candidate holds the only reference
+					if (graph != null)
+						residentGraphs.put(module, graph);
+				}
+				return graph;
+			}
+		}
+
+		/**
+		 * Load every static module graph of the trace now, rather than on first use.
+		 */
+		public void loadStaticModules() throws IOException {
+			for (ApplicationModule module : getRepresentedModules()) {
+				if (!module.isAnonymous)
+					getModuleGraph(module);
+			}
+		}
+
+		public void evictModule(ApplicationModule module) {
+			synchronized (residentGraphs) {
+				residentGraphs.remove(module);
+			}
+		}
+
+		public int getResidentModuleCount() {
+			synchronized (residentGraphs) {
+				return residentGraphs.size();
+			}
+		}
+	}
+
+	/**
+	 * A dataset whose static modules are read from their columnar datasets (written by <code>MergeTwoGraphs -g</code>),
+	 * which are mapped instead of loaded, so that a read-only client builds only the nodes it uses (see
+	 * <code>ColumnarDataset.materializeFragment()</code>). A module that has no columnar dataset, and every anonymous
+	 * module, is loaded and kept resident as for <code>Resident</code>.
+	 */
+	static class Mapped extends Resident {
+
+		private final File directory;
+		private final ColumnarDatasetCatalog catalog;
+
+		// null for the modules that have no columnar dataset, or a stale one
+		private final Map<ApplicationModule, ColumnarDataset> mappedDatasets = new HashMap<ApplicationModule, ColumnarDataset>();
+
+		public Mapped(File directory, HashMergeDebugLog debugLog) throws TraceDataSourceException, IOException {
+			super(directory, debugLog);
+			this.directory = directory;
+			catalog = ColumnarDatasetCatalog.scan(directory);
+		}
+
+		/**
+		 * @return the mapped columnar dataset of <code>module</code>, or null if it has none or it is stale
+		 */
+		public ColumnarDataset getMappedDataset(ApplicationModule module) throws IOException {
+			synchronized (mappedDatasets) {
+				if (mappedDatasets.containsKey(module))
+					return mappedDatasets.get(module);
+
+				ColumnarDataset dataset = module.isAnonymous ? null : catalog.open(module);
+				mappedDatasets.put(module, dataset);
+				return dataset;
+			}
+		}
+
+		/**
+		 * Map every static module of the trace now, loading only the modules that have no columnar dataset.
+		 */
+		@Override
+		public void loadStaticModules() throws IOException {
+			int mappedCount = 0;
+			for (ApplicationModule module : getRepresentedModules()) {
+				if (module.isAnonymous)
+					continue;
+				if (getMappedDataset(module) == null)
+					getModuleGraph(module);
+				else
+					mappedCount++;
+			}
+			Log.log("Mapped %d static modules of %s", mappedCount, directory.getName());
 		}
 	}
 
@@ -2,6 +2,7 @@ package edu.uci.plrg.cfi.x86.merge.graph;
 
 import com.google.protobuf.GeneratedMessage;
 
+import edu.uci.plrg.cfi.x86.graph.data.application.ApplicationModule;
 import edu.uci.plrg.cfi.x86.graph.data.results.Graph;
 
 
@@ -12,4 +13,16 @@ public interface MergeResults {
 	GeneratedMessage getResults();
 	
 	GraphMergeStrategy getStrategy();
+
+	/**
+	 * Append the per-module results collected by another instance of the same strategy, e.g. by a worker merging one
+	 * module in parallel with the others. Modules appear in the results in the order they are appended.
+	 */
+	void appendModuleResults(MergeResults moduleResults);
+
+	/**
+	 * Record the phase profile of <code>module</code> in its results, after all of its phases are complete. A module
+	 * that has no results (e.g. because it was copied from one side) is ignored.
+	 */
+	void setPhaseProfile(ApplicationModule module, ModuleMergeProfile profile);
 }
@@ -0,0 +1,120 @@
+package edu.uci.plrg.cfi.x86.merge.graph;
+
+import edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile;
+
+/**
+ * Timers and counters of one module merge, persisted in the module's merge results so that a slow merge can be
+ * broken down by phase without a profiler. A phase may be timed in several pieces; phases that the merge strategy does
+ * not have are left out of the results.
+ *
+ * The heap is sampled at the end of each piece of a phase, and it belongs to the whole process, so the peak of a
+ * module that was merged concurrently with others includes their allocations.
+ */
+public class ModuleMergeProfile {
+
+	public enum Phase {
+		LOAD,
+		NODE_MATCHING,
+		EDGE_ENQUEUE,
+		EDGE_ADD,
+		METADATA_MERGE,
+		SUBGRAPH_ANALYSIS,
+		REACHABILITY,
+		WRITE
+	}
+
+	private static final Phase[] PHASES = Phase.values();
+
+	private final long[] elapsedNanos = new long[PHASES.length];
+	private final boolean[] timed = new boolean[PHASES.length];
+
+	private int nodeCount = 0;
+	private int edgeCount = 0;
+	private long peakHeapBytes = 0L;
+
+	/**
+	 * Add the time since <code>startNanos</code> (from <code>System.nanoTime()</code>) to <code>phase</code>.
+	 */
+	public void phaseCompleted(Phase phase, long startNanos) {
+		addElapsed(phase, System.nanoTime() - startNanos);
+	}
+
+	public void addElapsed(Phase phase, long nanos) {
+		elapsedNanos[phase.ordinal()] += nanos;
+		timed[phase.ordinal()] = true;
+
+		Runtime runtime = Runtime.getRuntime();
+		peakHeapBytes = Math.max(peakHeapBytes, runtime.totalMemory() - runtime.freeMemory());
+	}
+
+	public long getElapsedNanos(Phase phase) {
+		return elapsedNanos[phase.ordinal()];
+	}
+
+	/**
+	 * Set the size of the merged input, from which the throughput is computed.
+	 */
+	public void setInputSize(int nodeCount, int edgeCount) {
+		this.nodeCount = nodeCount;
+		this.edgeCount = edgeCount;
+	}
+
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * Throughput is measured over the merge itself, i.e. all phases except loading and writing.
+	 */
+	public MergeProfile.MergePhaseProfile summarize() {
+		MergeProfile.MergePhaseProfile.Builder builder = MergeProfile.MergePhaseProfile.newBuilder();
+		long mergeNanos = 0L;
+		for (Phase phase : PHASES) {
+			if (!timed[phase.ordinal()])
+				continue;
+
+			long nanos = elapsedNanos[phase.ordinal()];
+			switch (phase) {
+				case LOAD:
+					builder.setLoadNanos(nanos);
+					break;
+				case NODE_MATCHING:
+					builder.setNodeMatchingNanos(nanos);
+					break;
+				case EDGE_ENQUEUE:
+					builder.setEdgeEnqueueNanos(nanos);
+					break;
+				case EDGE_ADD:
+					builder.setEdgeAddNanos(nanos);
+					break;
+				case METADATA_MERGE:
+					builder.setMetadataMergeNanos(nanos);
+					break;
+				case SUBGRAPH_ANALYSIS:
+					builder.setSubgraphAnalysisNanos(nanos);
+					break;
+				case REACHABILITY:
+					builder.setReachabilityNanos(nanos);
+					break;
+				case WRITE:
+					builder.setWriteNanos(nanos);
+					break;
+			}
+			if ((phase != Phase.LOAD) && (phase != Phase.WRITE))
+				mergeNanos += nanos;
+		}
+
+		builder.setNodeCount(nodeCount);
+		builder.setEdgeCount(edgeCount);
+		if (mergeNanos > 0L) {
+			builder.setNodesPerSecond(nodeCount / (mergeNanos / 1e9));
+			builder.setEdgesPerSecond(edgeCount / (mergeNanos / 1e9));
+		}
+		builder.setPeakHeapBytes(peakHeapBytes);
+		return builder.build();
+	}
+}
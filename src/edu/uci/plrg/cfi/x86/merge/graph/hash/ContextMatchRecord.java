@@ -1,11 +1,11 @@
 package edu.uci.plrg.cfi.x86.merge.graph.hash;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
 
 import edu.uci.plrg.cfi.x86.graph.data.graph.Node;
+import edu.uci.plrg.cfi.x86.merge.util.NodeIdMap;
 
 public class ContextMatchRecord {
 
@@ -24,6 +24,7 @@ public class ContextMatchRecord {
 
 	private static final int INITIAL_COMPARISON_COUNT = 100;
 	private static final int INITIAL_STATE_COUNT = 20;
+	private static final int INITIAL_COMPARED_NODE_COUNT = 1024;
 
 	private final ContextMatchState currentState = new ContextMatchState();
 	private HashMergeSession.MergeEvaluator evaluator;
@@ -31,9 +32,13 @@ public class ContextMatchRecord {
 	private final List<EdgeComparison> edges = new ArrayList<EdgeComparison>(INITIAL_COMPARISON_COUNT);
 
 	// In case of recursively compute the similarity of cyclic graph, record
-	// the compared nodes every time getContextSimilarity is called
-	private final Set<Node<?>> comparedNodeSet = new HashSet<Node<?>>();
-	private final List<Node<?>> comparedNodeList = new ArrayList<Node<?>>();
+	// the compared nodes every time getContextSimilarity is called. A node is
+	// compared in the current walk when its stamp equals the walk generation.
+	private final NodeIdMap<Node<?>> comparedNodeIds = new NodeIdMap<Node<?>>(INITIAL_COMPARED_NODE_COUNT);
+	private int[] comparedNodeStamps = new int[INITIAL_COMPARED_NODE_COUNT];
+	private int[] comparedNodeStack = new int[INITIAL_COMPARED_NODE_COUNT];
+	private int comparedNodeCount = 0;
+	private int generation = 1;
 
 	private int stateIndex;
 	private final List<ContextMatchState> stateStack = new ArrayList<ContextMatchState>();
@@ -67,23 +72,42 @@ public class ContextMatchRecord {
 		currentState.complete = true;
 		stateIndex = 0;
 
-		comparedNodeSet.clear();
-		comparedNodeList.clear();
+		comparedNodeCount = 0;
+		if (++generation == Integer.MAX_VALUE) {
+			Arrays.fill(comparedNodeStamps, 0);
+			generation = 1;
+		}
 
 		this.leftSubtreeRoot = leftSubtreeRoot;
 		this.rightSubtreeRoot = rightSubtreeRoot;
 	}
 
+	/**
+	 * Reset to the outcome of an earlier walk between the same subtree roots.
+	 */
+	void restore(Node<?> leftSubtreeRoot, Node<?> rightSubtreeRoot, ContextMatchState outcome) {
+		reset(leftSubtreeRoot, rightSubtreeRoot);
+		outcome.copyOutcomeTo(currentState);
+	}
+
+	ContextMatchState getCurrentState() {
+		return currentState;
+	}
+
 	void setEvaluator(HashMergeSession.MergeEvaluator evaluator) {
 		this.evaluator = evaluator;
 	}
 
 	public void fail(String format, Object... args) {
+		// Log.log(String.format("Fail at level %d: %s", stateIndex, format), args);
+
+		fail();
+	}
+
+	public void fail() {
 		if ((leftSubtreeRoot.getKey().equals(rightSubtreeRoot.getKey())) && (stateIndex == 0))
 			currentState.mismatch = true; // could store location of mismatch by taking current L/R pair as args
 
-		// Log.log(String.format("Fail at level %d: %s", stateIndex, format), args);
-
 		currentState.fail = true;
 	}
 
@@ -92,26 +116,33 @@ public class ContextMatchRecord {
 	}
 
 	public void addComparedNode(Node<?> node) {
-		comparedNodeSet.add(node);
-		comparedNodeList.add(node);
+		int id = comparedNodeIds.assignId(node);
+		if (id == comparedNodeStamps.length)
+			comparedNodeStamps = Arrays.copyOf(comparedNodeStamps, id * 2);
+		if (comparedNodeCount == comparedNodeStack.length)
+			comparedNodeStack = Arrays.copyOf(comparedNodeStack, comparedNodeCount * 2);
+
+		comparedNodeStamps[id] = generation;
+		comparedNodeStack[comparedNodeCount++] = id;
 	}
 
 	public boolean isAlreadyCompared(Node<?> node) {
-		return comparedNodeSet.contains(node);
+		int id = comparedNodeIds.getId(node);
+		return (id != NodeIdMap.NONE) && (comparedNodeStamps[id] == generation);
 	}
 
 	public void saveState() {
 		if (stateIndex == stateStack.size())
 			stateStack.add(new ContextMatchState());
-		currentState.comparedNodeCount = comparedNodeList.size();
+		currentState.comparedNodeCount = comparedNodeCount;
 		currentState.copyTo(stateStack.get(stateIndex++));
 	}
 
 	public void rewindState() {
 		stateStack.get(--stateIndex).copyTo(currentState);
 
-		while (comparedNodeList.size() > currentState.comparedNodeCount) {
-			comparedNodeSet.remove(comparedNodeList.remove(comparedNodeList.size() - 1));
+		while (comparedNodeCount > currentState.comparedNodeCount) {
+			comparedNodeStamps[comparedNodeStack[--comparedNodeCount]] = 0;
 		}
 	}
 
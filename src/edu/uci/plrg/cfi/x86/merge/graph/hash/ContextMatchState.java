@@ -20,6 +20,15 @@ public class ContextMatchState {
 		target.complete = complete;
 		target.fail = false;
 	}
+
+	/**
+	 * Copy the complete outcome of a context walk, including failure and mismatch.
+	 */
+	void copyOutcomeTo(ContextMatchState target) {
+		copyTo(target);
+		target.fail = fail;
+		target.mismatch = mismatch;
+	}
 	
 	public boolean isFailed() {
 		return fail;
@@ -0,0 +1,143 @@
+package edu.uci.plrg.cfi.x86.merge.graph.hash;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.uci.plrg.cfi.x86.graph.data.graph.Node;
+import edu.uci.plrg.cfi.x86.merge.util.NodeIdMap;
+
+/**
+ * Remembers the outcome of each context similarity walk by its (left root, right root, depth) for the duration of a
+ * hash merge. The graphs do not change during the merge, so the outcome of a walk only depends on the match status of
+ * the nodes it queried. Those nodes are recorded during the walk, and an entry is dropped when any of them is matched
+ * or unmatched.
+ */
+class ContextSimilarityMemo {
+
+	// bounds on the memory held by the memo; it starts over when either is reached
+	private static final int MAXIMUM_ENTRY_COUNT = 1 << 18;
+	private static final int MAXIMUM_DEPENDENCY_COUNT = 1 << 22;
+
+	private static class Entry {
+		final ContextMatchState state = new ContextMatchState();
+		final long key;
+
+		Entry(long key) {
+			this.key = key;
+		}
+	}
+
+	private final HashMergeStatistics statistics;
+
+	// the node ids of the session
+	private final NodeIdMap<Node<?>> leftIds;
+	private final NodeIdMap<Node<?>> rightIds;
+
+	private final Map<Long, Entry> entries = new HashMap<Long, Entry>();
+
+	// node id -> keys of the entries depending on the node's match status (may include keys already dropped)
+	private final List<List<Long>> leftDependents = new ArrayList<List<Long>>();
+	private final List<List<Long>> rightDependents = new ArrayList<List<Long>>();
+
+	private int dependencyCount = 0;
+
+	private boolean recording = false;
+	private final List<Node<?>> recordedLeftNodes = new ArrayList<Node<?>>();
+	private final List<Node<?>> recordedRightNodes = new ArrayList<Node<?>>();
+
+	ContextSimilarityMemo(HashMergeStatistics statistics, NodeIdMap<Node<?>> leftIds, NodeIdMap<Node<?>> rightIds) {
+		this.statistics = statistics;
+		this.leftIds = leftIds;
+		this.rightIds = rightIds;
+	}
+
+	void clear() {
+		entries.clear();
+		for (List<Long> dependents : leftDependents)
+			dependents.clear();
+		for (List<Long> dependents : rightDependents)
+			dependents.clear();
+		dependencyCount = 0;
+		recording = false;
+	}
+
+	/**
+	 * @return the outcome of an earlier walk from the same roots at the same depth, or null
+	 */
+	ContextMatchState lookup(Node<?> left, Node<?> right, int depth) {
+		Entry entry = entries.get(getKey(left, right, depth));
+		if (entry == null) {
+			statistics.contextMemoMiss();
+			return null;
+		}
+		statistics.contextMemoHit();
+		return entry.state;
+	}
+
+	void beginWalk() {
+		recording = true;
+		recordedLeftNodes.clear();
+		recordedRightNodes.clear();
+	}
+
+	/**
+	 * Notes that the walk in progress queried the match status of <code>left</code> and <code>right</code>.
+	 */
+	void dependsOn(Node<?> left, Node<?> right) {
+		if (recording) {
+			recordedLeftNodes.add(left);
+			recordedRightNodes.add(right);
+		}
+	}
+
+	void endWalk(Node<?> left, Node<?> right, int depth, ContextMatchState outcome) {
+		recording = false;
+		if ((entries.size() == MAXIMUM_ENTRY_COUNT) || (dependencyCount > MAXIMUM_DEPENDENCY_COUNT))
+			clear();
+		dependencyCount += recordedLeftNodes.size() + recordedRightNodes.size();
+
+		Entry entry = new Entry(getKey(left, right, depth));
+		outcome.copyOutcomeTo(entry.state);
+		entries.put(entry.key, entry);
+
+		for (Node<?> node : recordedLeftNodes)
+			getDependents(leftDependents, leftIds.assignId(node)).add(entry.key);
+		for (Node<?> node : recordedRightNodes)
+			getDependents(rightDependents, rightIds.assignId(node)).add(entry.key);
+	}
+
+	void leftStatusChanged(Node<?> left) {
+		int id = leftIds.getId(left);
+		if ((id != NodeIdMap.NONE) && (id < leftDependents.size()))
+			invalidate(leftDependents.get(id));
+	}
+
+	void rightStatusChanged(Node<?> right) {
+		int id = rightIds.getId(right);
+		if ((id != NodeIdMap.NONE) && (id < rightDependents.size()))
+			invalidate(rightDependents.get(id));
+	}
+
+	private void invalidate(List<Long> dependents) {
+		for (Long key : dependents) {
+			if (entries.remove(key) != null)
+				statistics.contextMemoInvalidation();
+		}
+		dependents.clear();
+	}
+
+	// the search depth is at most 15 (PURE_SEARCH_DEPTH), which leaves 32 bits for the left id and 28 for the right
+	private long getKey(Node<?> left, Node<?> right, int depth) {
+		long leftId = leftIds.assignId(left);
+		long rightId = rightIds.assignId(right);
+		return (((leftId << 28) | rightId) << 4) | (depth & 0xf);
+	}
+
+	private static List<Long> getDependents(List<List<Long>> dependentsById, int id) {
+		while (dependentsById.size() <= id)
+			dependentsById.add(new ArrayList<Long>(2));
+		return dependentsById.get(id);
+	}
+}
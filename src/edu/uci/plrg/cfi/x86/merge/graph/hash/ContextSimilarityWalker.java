@@ -0,0 +1,255 @@
+package edu.uci.plrg.cfi.x86.merge.graph.hash;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.uci.plrg.cfi.x86.graph.data.graph.EdgeType;
+import edu.uci.plrg.cfi.x86.graph.data.graph.Node;
+import edu.uci.plrg.cfi.x86.graph.data.graph.OrdinalEdgeList;
+import edu.uci.plrg.cfi.x86.merge.graph.hash.ContextMatchRecord.EdgeMatchType;
+
+/**
+ * Walks the context of a (left, right) node pair for <code>HashMatchEngine.getContextSimilarity()</code> on an explicit
+ * stack of pooled frames, in the same order and with the same effects on the context record as the recursive walk.
+ * Each frame holds the position of its walk over the outgoing ordinals of its pair and over the edge pairs of the
+ * current ordinal, so a child walk resumes its parent where the recursion would have returned.
+ */
+class ContextSimilarityWalker {
+
+	private enum EdgeGroup {
+		DIRECT,
+		INDIRECT,
+		OTHER
+	}
+
+	private static class Frame {
+		Node<?> left;
+		Node<?> right;
+		int depth;
+
+		int ordinal;
+		int ordinalCount;
+		OrdinalEdgeList<? extends Node<?>> leftEdges;
+		OrdinalEdgeList<? extends Node<?>> rightEdges;
+		EdgeGroup group;
+		int leftIndex;
+		int rightIndex;
+		int matchCount;
+
+		void releaseEdges() {
+			if (leftEdges != null) {
+				leftEdges.release();
+				leftEdges = null;
+			}
+			if (rightEdges != null) {
+				rightEdges.release();
+				rightEdges = null;
+			}
+		}
+	}
+
+	private final HashMergeSession session;
+
+	private final List<Frame> frames = new ArrayList<Frame>();
+	private int frameCount = 0;
+
+	ContextSimilarityWalker(HashMergeSession session) {
+		this.session = session;
+	}
+
+	void walk(Node<?> leftRoot, Node<?> rightRoot, int depth) {
+		if (!enter(leftRoot, rightRoot, depth))
+			return;
+
+		while (frameCount > 0) {
+			Frame frame = frames.get(frameCount - 1);
+			if (frame.leftEdges == null) {
+				if (!beginOrdinal(frame))
+					popFrame();
+				continue;
+			}
+
+			Node<?> leftChild = null;
+			Node<?> rightChild = null;
+			while (frame.leftIndex < frame.leftEdges.size()) {
+				if (frame.rightIndex == frame.rightEdges.size()) {
+					frame.rightIndex = 0;
+					frame.leftIndex++;
+					continue;
+				}
+				Node<?> leftTo = frame.leftEdges.get(frame.leftIndex).getToNode();
+				Node<?> rightTo = frame.rightEdges.get(frame.rightIndex++).getToNode();
+				if (leftTo.getHash() != rightTo.getHash())
+					continue;
+
+				if (frame.group == EdgeGroup.DIRECT) {
+					// Check if leftEdge.toNode was already matched to another node; if so, fail
+					session.contextMemo.dependsOn(leftTo, rightTo);
+					if (session.matchedNodes.containsLeft(leftTo) && !session.matchedNodes.hasPair(leftTo, rightTo)) {
+						frame.matchCount++;
+						continue;
+					}
+				} else {
+					session.contextRecord.saveState();
+				}
+				leftChild = leftTo;
+				rightChild = rightTo;
+				break;
+			}
+
+			if (leftChild != null) {
+				if (!enter(leftChild, rightChild, frame.depth - 1))
+					childCompleted(frame);
+				continue;
+			}
+
+			if (!endOrdinal(frame))
+				popFrame();
+		}
+	}
+
+	/**
+	 * Start the walk of a node pair, which pushes its frame unless the pair is resolved without visiting its edges.
+	 *
+	 * @return true if a frame was pushed
+	 */
+	private boolean enter(Node<?> left, Node<?> right, int depth) {
+		session.contextMemo.dependsOn(left, right);
+
+		// Check if either node was already matched to another node; if so, fail
+		if (!session.matchedNodes.hasPair(left, right)) {
+			if (session.matchedNodes.containsLeft(left) || session.matchedNodes.containsRight(right)) {
+				session.contextRecord.fail();
+				return false;
+			}
+		}
+
+		if (depth <= 0)
+			return false;
+
+		// In order to avoid cyclic graph
+		if (session.contextRecord.isAlreadyCompared(right))
+			return false;
+
+		session.contextRecord.addComparedNode(right);
+
+		if (!left.hasCompatibleEdges(right)) {
+			session.contextRecord.fail();
+			return false;
+		}
+
+		// At least one node has no outgoing edges!!
+		if (!left.hasOutgoingEdges() || !right.hasOutgoingEdges()) {
+			// Just think that they might be similar...
+			OrdinalEdgeList<?> leftEdges = left.getOutgoingEdges();
+			OrdinalEdgeList<?> rightEdges = right.getOutgoingEdges();
+			try {
+				for (int i = 0; i < (leftEdges.size() + rightEdges.size()); i++)
+					session.contextRecord.addEdge(depth, EdgeMatchType.ONE_SIDE_ONLY);
+			} finally {
+				leftEdges.release();
+				rightEdges.release();
+			}
+		}
+
+		if (frameCount == frames.size())
+			frames.add(new Frame());
+		Frame frame = frames.get(frameCount++);
+		frame.left = left;
+		frame.right = right;
+		frame.depth = depth;
+		frame.ordinal = 0;
+		frame.ordinalCount = Math.min(left.getOutgoingOrdinalCount(), right.getOutgoingOrdinalCount());
+		return true;
+	}
+
+	/**
+	 * Load the edges of the next ordinal that has edges on both sides.
+	 *
+	 * @return false if the frame has no more ordinals
+	 */
+	private boolean beginOrdinal(Frame frame) {
+		while (frame.ordinal < frame.ordinalCount) {
+			frame.leftEdges = frame.left.getOutgoingEdges(frame.ordinal);
+			frame.rightEdges = frame.right.getOutgoingEdges(frame.ordinal);
+			if (frame.leftEdges.isEmpty() || frame.rightEdges.isEmpty()) {
+				if (!(frame.leftEdges.isEmpty() && frame.rightEdges.isEmpty()))
+					session.contextRecord.addEdge(frame.depth, EdgeMatchType.ONE_SIDE_ONLY);
+				frame.releaseEdges();
+				frame.ordinal++;
+				continue;
+			}
+
+			frame.group = getEdgeGroup(frame.leftEdges.get(0).getEdgeType());
+			// edges of other types are not compared, so their pairs are skipped
+			frame.leftIndex = (frame.group == EdgeGroup.OTHER) ? frame.leftEdges.size() : 0;
+			frame.rightIndex = 0;
+			frame.matchCount = 0;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Conclude the edges of the current ordinal after all their pairs have been walked.
+	 *
+	 * @return false if the walk of the frame is complete
+	 */
+	private boolean endOrdinal(Frame frame) {
+		if (frame.group == EdgeGroup.DIRECT) {
+			if (frame.matchCount == Math.min(frame.leftEdges.size(), frame.rightEdges.size())) {
+				session.contextRecord.addEdge(frame.depth, EdgeMatchType.DIRECT_MATCH);
+			} else {
+				// Context similarity rejected on direct edge
+				session.contextRecord.fail();
+				return false;
+			}
+		}
+		frame.releaseEdges();
+		frame.ordinal++;
+		return true;
+	}
+
+	/**
+	 * Apply the outcome of a child walk to the edge pair of <code>parent</code> that started it.
+	 */
+	private void childCompleted(Frame parent) {
+		if (parent.group == EdgeGroup.DIRECT) {
+			if (!session.contextRecord.isFailed())
+				parent.matchCount++;
+		} else {
+			// In the case of a failure, just leave it alone because of lack of information
+			if (session.contextRecord.isFailed()) {
+				session.contextRecord.rewindState();
+			} else {
+				session.contextRecord.commitState();
+				session.contextRecord.addEdge(parent.depth, EdgeMatchType.INDIRECT_UNIQUE_MATCH);
+			}
+		}
+	}
+
+	private void popFrame() {
+		Frame frame = frames.get(--frameCount);
+		frame.releaseEdges();
+		frame.left = null;
+		frame.right = null;
+
+		if (frameCount > 0)
+			childCompleted(frames.get(frameCount - 1));
+	}
+
+	private static EdgeGroup getEdgeGroup(EdgeType type) {
+		switch (type) {
+			case DIRECT:
+			case CALL_CONTINUATION:
+			case EXCEPTION_CONTINUATION:
+				return EdgeGroup.DIRECT;
+			case INDIRECT:
+			case GENCODE_PERM:
+			case GENCODE_WRITE:
+				return EdgeGroup.INDIRECT;
+			default:
+				return EdgeGroup.OTHER;
+		}
+	}
+}
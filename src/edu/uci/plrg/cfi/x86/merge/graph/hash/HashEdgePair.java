@@ -18,6 +18,16 @@ public class HashEdgePair {
 	private Node<?> rightParentNode;
 
 	public HashEdgePair(Node<?> leftParentNode, Edge<? extends Node<?>> rightEdge, Node<?> rightParentNode) {
+		assign(leftParentNode, rightEdge, rightParentNode);
+	}
+
+	/**
+	 * Creates a cursor over the entries of an edge queue, which is assigned each entry in turn.
+	 */
+	HashEdgePair() {
+	}
+
+	void assign(Node<?> leftParentNode, Edge<? extends Node<?>> rightEdge, Node<?> rightParentNode) {
 		this.leftParentNode = leftParentNode;
 		this.rightEdge = rightEdge;
 		this.rightParentNode = rightParentNode;
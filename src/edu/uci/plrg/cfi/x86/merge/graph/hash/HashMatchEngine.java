@@ -6,12 +6,10 @@ import java.util.List;
 import edu.uci.plrg.cfi.common.exception.WrongEdgeTypeException;
 import edu.uci.plrg.cfi.common.log.Log;
 import edu.uci.plrg.cfi.x86.graph.data.graph.Edge;
-import edu.uci.plrg.cfi.x86.graph.data.graph.EdgeType;
 import edu.uci.plrg.cfi.x86.graph.data.graph.MetaNodeType;
 import edu.uci.plrg.cfi.x86.graph.data.graph.Node;
 import edu.uci.plrg.cfi.x86.graph.data.graph.NodeList;
 import edu.uci.plrg.cfi.x86.graph.data.graph.OrdinalEdgeList;
-import edu.uci.plrg.cfi.x86.merge.graph.hash.ContextMatchRecord.EdgeMatchType;
 
 public class HashMatchEngine {
 
@@ -35,130 +33,32 @@ public class HashMatchEngine {
 	private static final float VALID_SCORE_LIMIT = 0.5f;
 
 	private final HashMergeSession session;
+	private final ContextSimilarityWalker contextWalker;
 
 	HashMatchEngine(HashMergeSession session) {
 		this.session = session;
+		contextWalker = new ContextSimilarityWalker(session);
 	}
 
-	public void getContextSimilarity(Node<?> leftNode, Node<?> rightNode, int depth) {
-		// Check if either node was already matched to another node; if so, fail
-		if (!session.matchedNodes.hasPair(leftNode.getKey(), rightNode.getKey())) {
-			if (session.matchedNodes.containsLeftKey(leftNode.getKey())) {
-				session.contextRecord.fail("Already matched %s", leftNode);
-				return;
-			}
-			if (session.matchedNodes.containsRightKey(rightNode.getKey())) {
-				session.contextRecord.fail("Already matched %s", rightNode);
-				return;
-			}
-		}
-
-		if (depth <= 0)
-			return;
-
-		// In order to avoid cyclic graph
-		if (session.contextRecord.isAlreadyCompared(rightNode))
-			return;
-
-		session.contextRecord.addComparedNode(rightNode);
-
-		if (!leftNode.hasCompatibleEdges(rightNode)) {
-			session.contextRecord.fail("Incompatible edges: %s and %s", leftNode, rightNode);
+	/**
+	 * Evaluate the context similarity of two subtree roots into the session's context record, reusing the outcome of
+	 * an earlier walk between the same roots when no node it depends on has changed match status since.
+	 */
+	void evaluateContext(Node<?> leftNode, Node<?> rightNode, int depth) {
+		ContextMatchState outcome = session.contextMemo.lookup(leftNode, rightNode, depth);
+		if (outcome != null) {
+			session.contextRecord.restore(leftNode, rightNode, outcome);
 			return;
 		}
 
-		// At least one node has no outgoing edges!!
-		if (!leftNode.hasOutgoingEdges() || !rightNode.hasOutgoingEdges()) {
-			// Just think that they might be similar...
-
-			OrdinalEdgeList<?> leftEdges = leftNode.getOutgoingEdges();
-			OrdinalEdgeList<?> rightEdges = rightNode.getOutgoingEdges();
-			try {
-				for (int i = 0; i < leftEdges.size(); i++) {
-					session.contextRecord.addEdge(depth, EdgeMatchType.ONE_SIDE_ONLY);
-				}
-				for (int i = 0; i < rightEdges.size(); i++) {
-					session.contextRecord.addEdge(depth, EdgeMatchType.ONE_SIDE_ONLY);
-				}
-			} finally {
-				leftEdges.release();
-				rightEdges.release();
-			}
-		}
+		session.contextRecord.reset(leftNode, rightNode);
+		session.contextMemo.beginWalk();
+		getContextSimilarity(leftNode, rightNode, depth);
+		session.contextMemo.endWalk(leftNode, rightNode, depth, session.contextRecord.getCurrentState());
+	}
 
-		int minOrdinal = Math.min(leftNode.getOutgoingOrdinalCount(), rightNode.getOutgoingOrdinalCount());
-		for (int ordinal = 0; ordinal < minOrdinal; ordinal++) {
-			List<? extends Edge<? extends Node<?>>> leftEdges = leftNode.getOutgoingEdges(ordinal);
-			List<? extends Edge<? extends Node<?>>> rightEdges = rightNode.getOutgoingEdges(ordinal);
-			if (leftEdges.isEmpty() || rightEdges.isEmpty()) {
-				if (!(leftEdges.isEmpty() && rightEdges.isEmpty()))
-					session.contextRecord.addEdge(depth, EdgeMatchType.ONE_SIDE_ONLY);
-				continue;
-			}
-			EdgeType type = leftEdges.get(0).getEdgeType();
-			switch (type) {
-				case DIRECT:
-				case CALL_CONTINUATION:
-				case EXCEPTION_CONTINUATION:
-					int matchCount = 0;
-					for (Edge<? extends Node<?>> leftEdge : leftEdges) {
-						for (Edge<? extends Node<?>> rightEdge : rightEdges) {
-							if (leftEdge.getToNode().getHash() != rightEdge.getToNode().getHash()) {
-								continue;
-							}
-							// Check if leftEdge.toNode was already matched to another node; if so, fail
-							if (session.matchedNodes.containsLeftKey(leftEdge.getToNode().getKey())
-									&& !session.matchedNodes.hasPair(leftEdge.getToNode().getKey(), rightEdge
-											.getToNode().getKey())) {
-								matchCount++;
-								continue;
-							}
-
-							getContextSimilarity(leftEdge.getToNode(), rightEdge.getToNode(), depth - 1);
-							if (!session.contextRecord.isFailed())
-								matchCount++;
-						}
-					}
-					if (matchCount == Math.min(leftEdges.size(), rightEdges.size())) {
-						session.contextRecord.addEdge(depth, EdgeMatchType.DIRECT_MATCH);
-						/*
-						 * } else if ((leftEdges.size() > 1) || (rightEdges.size() > 1)) {
-						 * session.contextRecord.addEdge(depth, EdgeMatchType.DIRECT_MATCH);
-						 */
-					} else {
-						session.contextRecord.fail("Context similarity rejected on direct edge at ordinal %d of %s",
-								ordinal, leftNode);
-						return;
-					}
-					break;
-				case INDIRECT:
-				case GENCODE_PERM:
-				case GENCODE_WRITE:
-					for (Edge<? extends Node<?>> leftEdge : leftEdges) {
-						for (Edge<? extends Node<?>> rightEdge : rightEdges) {
-							// TODO: what about existing PairNodes?
-
-							// Either indirect or unexpected edges, keep tracing
-							// down. If the pair of node does not match, that does
-							// not mean the context is different.
-							if (leftEdge.getToNode().getHash() == rightEdge.getToNode().getHash()) {
-								session.contextRecord.saveState();
-								getContextSimilarity(leftEdge.getToNode(), rightEdge.getToNode(), depth - 1);
-								// In the case of res == -1, just leave it alone
-								// because of lack of information
-								if (session.contextRecord.isFailed()) {
-									session.contextRecord.rewindState();
-								} else {
-									session.contextRecord.commitState();
-									session.contextRecord.addEdge(depth, EdgeMatchType.INDIRECT_UNIQUE_MATCH);
-									// TODO: ambiguous indirect matches
-								}
-							}
-						}
-					}
-					break;
-			}
-		}
+	public void getContextSimilarity(Node<?> leftNode, Node<?> rightNode, int depth) {
+		contextWalker.walk(leftNode, rightNode, depth);
 	}
 
 	// In PureHeuristicsNonExistingMismatch, almost all scores are 1, currently
@@ -174,9 +74,9 @@ public class HashMatchEngine {
 		session.statistics.tryPureHeuristicMatch();
 
 		// First check if this is a node already merged
-		Node.Key leftNodeKey = session.matchedNodes.getMatchByRightKey(rightNode.getKey());
-		if (leftNodeKey != null) {
-			return session.left.module.getNode(leftNodeKey);
+		Node<?> matchedLeftNode = session.matchedNodes.getMatchByRight(rightNode);
+		if (matchedLeftNode != null) {
+			return matchedLeftNode;
 		}
 
 		// This node is not in the left graph and is not yet merged
@@ -197,7 +97,7 @@ public class HashMatchEngine {
 				continue;
 
 			if (leftNode.isModuleRelativeEquivalent(rightNode)) {
-				if (session.matchedNodes.containsLeftKey(leftNode.getKey()))
+				if (session.matchedNodes.containsLeft(leftNode))
 					continue; // doh!
 				return leftNode;
 			}
@@ -206,13 +106,12 @@ public class HashMatchEngine {
 				continue;
 
 			// If the node is already merged, skip it
-			if (session.matchedNodes.containsLeftKey(leftNode.getKey()))
+			if (session.matchedNodes.containsLeft(leftNode))
 				continue;
 
 			// If the score is below the threshold, we just don't think it is
 			// a potential candidate
-			session.contextRecord.reset(leftNode, rightNode);
-			getContextSimilarity(leftNode, rightNode, PURE_SEARCH_DEPTH);
+			evaluateContext(leftNode, rightNode, PURE_SEARCH_DEPTH);
 			if (session.acceptContext(leftNode)) {
 				if (leftNode.isModuleRelativeMismatch(rightNode))
 					Log.log("Mismatch candidate %s accepted for %s with score %d", leftNode, rightNode,
@@ -295,7 +194,7 @@ public class HashMatchEngine {
 						|| (leftEdge.isModuleEntry() && rightEdge.isModuleEntry())) {
 					if (leftEdge.getToNode().getHash() == rightToNode.getHash()) {
 
-						if (session.matchedNodes.containsLeftKey(leftEdge.getToNode().getKey()))
+						if (session.matchedNodes.containsLeft(leftEdge.getToNode()))
 							continue;
 						// && leftEdge.getEdgeType() != EdgeType.MODULE_ENTRY)
 						// return leftEdge.getToNode();
@@ -325,8 +224,7 @@ public class HashMatchEngine {
 												leftEdge.getEdgeType(), rightEdge.getEdgeType()));
 						}
 
-						session.contextRecord.reset(leftEdge.getToNode(), rightEdge.getToNode());
-						getContextSimilarity(leftEdge.getToNode(), rightEdge.getToNode(), DIRECT_SEARCH_DEPTH);
+						evaluateContext(leftEdge.getToNode(), rightEdge.getToNode(), DIRECT_SEARCH_DEPTH);
 						if (session.acceptContext(leftEdge.getToNode())) {
 							candidates.add(leftEdge.getToNode());
 						}
@@ -386,9 +284,8 @@ public class HashMatchEngine {
 		Node<?> rightToNode = rightEdge.getToNode();
 
 		// First check if the current node is already matched
-		if (session.matchedNodes.containsRightKey(rightToNode.getKey())) {
-			Node<?> alreadyMatched = session.left.module.getNode(session.matchedNodes.getMatchByRightKey(rightToNode
-					.getKey()));
+		if (session.matchedNodes.containsRight(rightToNode)) {
+			Node<?> alreadyMatched = session.matchedNodes.getMatchByRight(rightToNode);
 			return alreadyMatched;
 		}
 
@@ -396,21 +293,20 @@ public class HashMatchEngine {
 		for (Edge<? extends Node<?>> leftParentEdge : leftParentNode.getOutgoingEdges(rightEdge.getOrdinal())) {
 			Node<?> leftChild = leftParentEdge.getToNode();
 			if (leftChild.isModuleRelativeEquivalent(rightToNode)) {
-				if (session.matchedNodes.containsLeftKey(leftChild.getKey()))
+				if (session.matchedNodes.containsLeft(leftChild))
 					continue; // doh!
 				return leftChild;
 			}
 			if ((leftChild.getHash() == rightToNode.getHash())
 					&& leftChild.getModule().isEquivalent(rightToNode.getModule())) {
-				if (session.matchedNodes.containsLeftKey(leftChild.getKey()))
+				if (session.matchedNodes.containsLeft(leftChild))
 					continue;
 
 				// narrow by tag
 				if (leftChild.isModuleRelativeMismatch(rightToNode))
 					continue;
 
-				session.contextRecord.reset(leftChild, rightToNode);
-				getContextSimilarity(leftChild, rightToNode, INDIRECT_SEARCH_DEPTH);
+				evaluateContext(leftChild, rightToNode, INDIRECT_SEARCH_DEPTH);
 				if (session.acceptContext(leftChild)) {
 					if (leftChild.isModuleRelativeMismatch(rightToNode))
 						Log.log("Mismatch candidate %s accepted for %s with score %d", leftChild, rightToNode,
@@ -444,7 +340,7 @@ public class HashMatchEngine {
 					OrdinalEdgeList<?> edgeList = candidate.getIncomingEdges();
 					try {
 						for (Edge<? extends Node<?>> incoming : edgeList) {
-							if (!session.matchedNodes.containsLeftKey(incoming.getFromNode().getKey()))
+							if (!session.matchedNodes.containsLeft(incoming.getFromNode()))
 								return null;
 						}
 					} finally {
@@ -1,16 +1,118 @@
 package edu.uci.plrg.cfi.x86.merge.graph.hash;
 
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
 
 import edu.uci.plrg.cfi.common.log.Log;
+import edu.uci.plrg.cfi.x86.graph.data.graph.Edge;
 import edu.uci.plrg.cfi.x86.graph.data.graph.Node;
+import edu.uci.plrg.cfi.x86.merge.graph.hash.HashNodeMatch.MatchType;
 
+/**
+ * The work queues of the hash merge. Each queue is a growable ring buffer holding its entries as parallel arrays, so
+ * queueing does not allocate once the buffers have grown to the size of the merge. A dequeued match or indirect edge is
+ * returned in a cursor that is reused by the next dequeue of the same queue.
+ */
 class HashMatchState {
+
+	/**
+	 * FIFO ring buffer over parallel columns of references; the slot of an entry is the same in every column.
+	 */
+	private static class RingQueue {
+		private static final int INITIAL_CAPACITY = 256;
+
+		private final Object[][] columns;
+		private int head = 0;
+		private int size = 0;
+		private int mask = INITIAL_CAPACITY - 1;
+
+		RingQueue(int columnCount) {
+			columns = new Object[columnCount][INITIAL_CAPACITY];
+		}
+
+		/**
+		 * @return the slot of the new last entry, to be filled by <code>set()</code>
+		 */
+		int add() {
+			if (size == columns[0].length)
+				grow();
+			return (head + size++) & mask;
+		}
+
+		/**
+		 * @return the slot of the removed first entry, which remains readable until it is released
+		 */
+		int remove() {
+			if (size == 0)
+				throw new NoSuchElementException();
+			int slot = head;
+			head = (head + 1) & mask;
+			size--;
+			return slot;
+		}
+
+		void release(int slot) {
+			for (Object[] column : columns)
+				column[slot] = null;
+		}
+
+		void set(int column, int slot, Object value) {
+			columns[column][slot] = value;
+		}
+
+		Object get(int column, int slot) {
+			return columns[column][slot];
+		}
+
+		int size() {
+			return size;
+		}
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+		void clear() {
+			for (Object[] column : columns)
+				Arrays.fill(column, null);
+			head = 0;
+			size = 0;
+		}
+
+		private void grow() {
+			int capacity = columns[0].length;
+			for (int i = 0; i < columns.length; i++) {
+				Object[] column = new Object[capacity * 2];
+				System.arraycopy(columns[i], head, column, 0, capacity - head);
+				System.arraycopy(columns[i], 0, column, capacity - head, head);
+				columns[i] = column;
+			}
+			head = 0;
+			mask = (capacity * 2) - 1;
+		}
+	}
+
+	private static final int LEFT_NODE = 0;
+	private static final int RIGHT_NODE = 1;
+	private static final int MATCH_TYPE = 2;
+
+	private static final int UNMATCHED_NODE = 0;
+
+	private static final int LEFT_PARENT_NODE = 0;
+	private static final int RIGHT_EDGE = 1;
+	private static final int RIGHT_PARENT_NODE = 2;
+
 	private final HashMergeSession session;
 
-	private final LinkedList<HashNodeMatch> matchedQueue = new LinkedList<HashNodeMatch>();
-	private final LinkedList<Node<?>> unmatchedQueue = new LinkedList<Node<?>>();
-	private final LinkedList<HashEdgePair> indirectChildren = new LinkedList<HashEdgePair>();
+	private final RingQueue matchedQueue = new RingQueue(3);
+	private final RingQueue unmatchedQueue = new RingQueue(1);
+	private final RingQueue indirectChildren = new RingQueue(3);
+
+	// cursors over the entries of the queues, for the caller and for the debug log
+	private final HashNodeMatch enqueuedMatch = new HashNodeMatch();
+	private final HashNodeMatch dequeuedMatch = new HashNodeMatch();
+	private final HashEdgePair enqueuedEdge = new HashEdgePair();
+	private final HashEdgePair dequeuedEdge = new HashEdgePair();
 
 	HashMatchState(HashMergeSession session) {
 		this.session = session;
@@ -22,19 +124,32 @@ class HashMatchState {
 		indirectChildren.clear();
 	}
 
-	void enqueueMatch(HashNodeMatch match) {
-		matchedQueue.add(match);
-		session.debugLog.matchEnqueued(match);
+	void enqueueMatch(Node<?> left, Node<?> right, MatchType type) {
+		HashNodeMatch.checkEntryTypes(left, right);
 
-		if (!match.isValid()) {
-			Log.log("Mismatch: %s to %s on %s!", match.getLeftNode(), match.getRightNode(), match.type);
+		int slot = matchedQueue.add();
+		matchedQueue.set(LEFT_NODE, slot, left);
+		matchedQueue.set(RIGHT_NODE, slot, right);
+		matchedQueue.set(MATCH_TYPE, slot, type);
+
+		enqueuedMatch.assign(left, right, type);
+		session.debugLog.matchEnqueued(enqueuedMatch);
+
+		if (!enqueuedMatch.isValid()) {
+			Log.log("Mismatch: %s to %s on %s!", left, right, type);
 		}
 	}
 
+	/**
+	 * @return a cursor on the dequeued match, which is only valid until the next call
+	 */
 	HashNodeMatch dequeueMatch() {
-		HashNodeMatch unmatched = matchedQueue.remove();
-		session.debugLog.matchDequeued(unmatched);
-		return unmatched;
+		int slot = matchedQueue.remove();
+		dequeuedMatch.assign((Node<?>) matchedQueue.get(LEFT_NODE, slot),
+				(Node<?>) matchedQueue.get(RIGHT_NODE, slot), (MatchType) matchedQueue.get(MATCH_TYPE, slot));
+		matchedQueue.release(slot);
+		session.debugLog.matchDequeued(dequeuedMatch);
+		return dequeuedMatch;
 	}
 
 	int getMatchCount() {
@@ -50,12 +165,14 @@ class HashMatchState {
 	}
 
 	void enqueueUnmatch(Node<?> unmatch) {
-		unmatchedQueue.add(unmatch);
+		unmatchedQueue.set(UNMATCHED_NODE, unmatchedQueue.add(), unmatch);
 		session.debugLog.unmatchEnqueued(unmatch);
 	}
 
 	Node<?> dequeueUnmatch() {
-		Node<?> unmatch = unmatchedQueue.remove();
+		int slot = unmatchedQueue.remove();
+		Node<?> unmatch = (Node<?>) unmatchedQueue.get(UNMATCHED_NODE, slot);
+		unmatchedQueue.release(slot);
 		session.debugLog.unmatchDequeued(unmatch);
 		return unmatch;
 	}
@@ -64,15 +181,28 @@ class HashMatchState {
 		return !unmatchedQueue.isEmpty();
 	}
 
-	void enqueueIndirectEdge(HashEdgePair rightEdge) {
-		indirectChildren.add(rightEdge);
-		session.debugLog.indirectEdgeEnqueued(rightEdge);
+	void enqueueIndirectEdge(Node<?> leftParentNode, Edge<? extends Node<?>> rightEdge, Node<?> rightParentNode) {
+		int slot = indirectChildren.add();
+		indirectChildren.set(LEFT_PARENT_NODE, slot, leftParentNode);
+		indirectChildren.set(RIGHT_EDGE, slot, rightEdge);
+		indirectChildren.set(RIGHT_PARENT_NODE, slot, rightParentNode);
+
+		enqueuedEdge.assign(leftParentNode, rightEdge, rightParentNode);
+		session.debugLog.indirectEdgeEnqueued(enqueuedEdge);
 	}
 
+	/**
+	 * @return a cursor on the dequeued edge, which is only valid until the next call
+	 */
+	@SuppressWarnings("unchecked")
 	HashEdgePair dequeueIndirectEdge() {
-		HashEdgePair rightEdge = indirectChildren.remove();
-		session.debugLog.indirectEdgeDequeued(rightEdge);
-		return rightEdge;
+		int slot = indirectChildren.remove();
+		dequeuedEdge.assign((Node<?>) indirectChildren.get(LEFT_PARENT_NODE, slot),
+				(Edge<? extends Node<?>>) indirectChildren.get(RIGHT_EDGE, slot),
+				(Node<?>) indirectChildren.get(RIGHT_PARENT_NODE, slot));
+		indirectChildren.release(slot);
+		session.debugLog.indirectEdgeDequeued(dequeuedEdge);
+		return dequeuedEdge;
 	}
 
 	boolean hasIndirectEdges() {
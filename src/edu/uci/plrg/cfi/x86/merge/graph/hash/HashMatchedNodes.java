@@ -1,5 +1,6 @@
 package edu.uci.plrg.cfi.x86.merge.graph.hash;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -10,79 +11,194 @@ import com.google.common.collect.HashBiMap;
 
 import edu.uci.plrg.cfi.common.log.Log;
 import edu.uci.plrg.cfi.x86.graph.data.graph.Node;
+import edu.uci.plrg.cfi.x86.merge.exception.MergedFailedException;
+import edu.uci.plrg.cfi.x86.merge.util.MergeLog;
+import edu.uci.plrg.cfi.x86.merge.util.NodeIdMap;
 
 /**
  * MatchedNodes contains pairs of matched nodes. It maintains one-to-one map that maps the matched nodes, an arraylist
  * that records matched nodes in a chronological order. It also records the speculatively matched nodes and its matching
  * confidence in order to rewind the speculative matching.
- * 
+ *
+ * In the default <code>DENSE</code> mode, the matches are kept in int arrays indexed by the sequential node ids that
+ * the session assigns to all the nodes of either graph when it is created (see <code>HashMergeTarget</code>), so the
+ * node-based queries of the match engines neither hash a <code>Node.Key</code> nor look a node up in its graph. The
+ * key-based methods are only used by the statistics and analysis after the merge, and resolve each key in its graph
+ * first. The <code>KEYED</code> mode keeps the original map of node keys, and <code>VALIDATE</code> maintains both and
+ * fails the merge on the first query where they disagree.
+ *
  * @author peizhaoo
- * 
+ *
  */
 public class HashMatchedNodes {
 
+	public enum IndexMode {
+		DENSE("dense"),
+		KEYED("keyed"),
+		VALIDATE("validate");
+
+		public final String id;
+
+		private IndexMode(String id) {
+			this.id = id;
+		}
+
+		public static IndexMode forId(String id) {
+			for (IndexMode mode : IndexMode.values()) {
+				if (mode.id.equals(id))
+					return mode;
+			}
+			return null;
+		}
+	}
+
+	private static final int NONE = NodeIdMap.NONE;
+
 	private final HashMergeSession session;
 
+	private final boolean keyed;
+	private final boolean dense;
+
 	private final BiMap<Node.Key, Node.Key> matchedNodesLeftRight = HashBiMap.create();
 
 	// Maps index of node1 and its matching score with nodes
 	// If they are matched directly, then their score should be 0
 	private final Map<Node.Key, Integer> matchingScore = new HashMap<Node.Key, Integer>();
 
+	private final NodeIdMap<Node<?>> leftIds;
+	private final NodeIdMap<Node<?>> rightIds;
+	private int[] rightIdByLeftId;
+	private int[] leftIdByRightId;
+	private int[] scoreByLeftId;
+	private int denseMatchCount = 0;
+
 	public final Set<Node.Key> HACK_leftMismatchedNodes = new HashSet<Node.Key>();
 	public final Set<Node.Key> HACK_rightMismatchedNodes = new HashSet<Node.Key>();
 
-	HashMatchedNodes(HashMergeSession session) {
+	HashMatchedNodes(HashMergeSession session, IndexMode indexMode) {
 		this.session = session;
+
+		keyed = (indexMode != IndexMode.DENSE);
+		dense = (indexMode != IndexMode.KEYED);
+
+		leftIds = session.left.nodeIds;
+		rightIds = session.right.nodeIds;
+		rightIdByLeftId = createIdArray(leftIds.size());
+		leftIdByRightId = createIdArray(rightIds.size());
+		scoreByLeftId = new int[rightIdByLeftId.length];
 	}
 
 	public void clear() {
 		matchedNodesLeftRight.clear();
 		matchingScore.clear();
+		Arrays.fill(rightIdByLeftId, NONE);
+		Arrays.fill(leftIdByRightId, NONE);
+		denseMatchCount = 0;
 		HACK_leftMismatchedNodes.clear();
 		HACK_rightMismatchedNodes.clear();
 	}
 
 	public Set<Node.Key> getLeftKeySet() {
-		return matchedNodesLeftRight.keySet();
+		if (!dense)
+			return matchedNodesLeftRight.keySet();
+
+		Set<Node.Key> leftKeys = new HashSet<Node.Key>();
+		for (int leftId = 0; leftId < leftIds.size(); leftId++) {
+			if (rightIdByLeftId[leftId] != NONE)
+				leftKeys.add(leftIds.getObject(leftId).getKey());
+		}
+		if (keyed)
+			validate(leftKeys.equals(matchedNodesLeftRight.keySet()), "left key set");
+		return leftKeys;
 	}
 
 	public Set<Node.Key> getRightKeySet() {
-		return matchedNodesLeftRight.values();
+		if (!dense)
+			return matchedNodesLeftRight.values();
+
+		Set<Node.Key> rightKeys = new HashSet<Node.Key>();
+		for (int rightId = 0; rightId < rightIds.size(); rightId++) {
+			if (leftIdByRightId[rightId] != NONE)
+				rightKeys.add(rightIds.getObject(rightId).getKey());
+		}
+		if (keyed)
+			validate(rightKeys.equals(matchedNodesLeftRight.values()), "right key set");
+		return rightKeys;
+	}
+
+	public boolean hasPair(Node<?> left, Node<?> right) {
+		if (!dense)
+			return hasKeyedPair(left.getKey(), right.getKey());
+
+		int rightId = getMatchId(rightIdByLeftId, leftIds.getId(left));
+		boolean hasPair = (rightId != NONE) && (rightIds.getObject(rightId) == right);
+		if (keyed)
+			validate(hasPair == hasKeyedPair(left.getKey(), right.getKey()), "pair %s <-> %s", left, right);
+		return hasPair;
 	}
 
 	public boolean hasPair(Node.Key leftKey, Node.Key rightKey) {
-		if (!matchedNodesLeftRight.containsKey(leftKey)) {
-			return false;
-		}
-		return matchedNodesLeftRight.get(leftKey).equals(rightKey);
+		if (!dense)
+			return hasKeyedPair(leftKey, rightKey);
+
+		Node<?> left = session.left.module.getNode(leftKey);
+		Node<?> right = session.right.module.getNode(rightKey);
+		return (left != null) && (right != null) && hasPair(left, right);
 	}
 
 	public boolean addPair(Node<?> left, Node<?> right, int score) {
 		session.debugLog.nodesMatched(left, right);
 
-		Node.Key leftKey = left.getKey();
-		Node.Key rightKey = right.getKey();
-		if (hasPair(leftKey, rightKey))
+		if (hasPair(left, right))
 			return true;
-		if ((matchedNodesLeftRight.containsKey(leftKey) || matchedNodesLeftRight.containsValue(rightKey))
-				&& !(left.isMetaNode() && right.isMetaNode())) {
+		if ((containsLeft(left) || containsRight(right)) && !(left.isMetaNode() && right.isMetaNode())) {
 			if (session.engine.matcher.isHashIdenticalSubgraph(left, right)) {
-				Log.log("Eliding match collision between %s and %s because the two subgraphs are hash identical.",
-						left, right);
+				MergeLog.log(MergeLog.Level.INFO,
+						"Eliding match collision between %s and %s because the two subgraphs are hash identical.", left,
+						right);
 				return false;
 			}
 
-			Log.log("Node " + left.getKey() + " of the left graph is already matched!");
-			Log.log("Node pair need to be matched: " + left.getKey() + "<->" + right.getKey());
-			Log.log("Prematched nodes: " + left.getKey() + "<->"
-					+ session.matchedNodes.getMatchByLeftKey(left.getKey()));
-			Log.log(session.matchedNodes.getMatchByRightKey(right.getKey()));
+			MergeLog.log(MergeLog.Level.INFO, "Node %s of the left graph is already matched!", left.getKey());
+			MergeLog.log(MergeLog.Level.INFO, "Node pair need to be matched: %s<->%s", left.getKey(), right.getKey());
+			MergeLog.log(MergeLog.Level.INFO, "Prematched nodes: %s<->%s", left.getKey(),
+					session.matchedNodes.getMatchByLeftKey(left.getKey()));
+			MergeLog.log(MergeLog.Level.INFO, "%s", session.matchedNodes.getMatchByRightKey(right.getKey()));
 
 			return false;
 		}
-		matchedNodesLeftRight.put(leftKey, rightKey);
-		matchingScore.put(leftKey, score);
+
+		// a meta node may be re-paired, which also changes the status of its previous match
+		Node<?> previousRight = getMatchByLeft(left);
+		if (previousRight != null)
+			session.contextMemo.rightStatusChanged(previousRight);
+		session.contextMemo.leftStatusChanged(left);
+		session.contextMemo.rightStatusChanged(right);
+
+		if (keyed) {
+			Node.Key leftKey = left.getKey();
+			matchedNodesLeftRight.put(leftKey, right.getKey());
+			matchingScore.put(leftKey, score);
+		}
+		if (dense) {
+			// every node of the two graphs already has an id, so this only assigns one to a node outside them
+			int leftId = leftIds.assignId(left);
+			int rightId = rightIds.assignId(right);
+			if (leftId >= rightIdByLeftId.length) {
+				rightIdByLeftId = ensureIdCapacity(rightIdByLeftId, leftId);
+				scoreByLeftId = Arrays.copyOf(scoreByLeftId, rightIdByLeftId.length);
+			}
+			leftIdByRightId = ensureIdCapacity(leftIdByRightId, rightId);
+
+			// same as the BiMap: a meta node may be re-paired on the left, but not claimed twice on the right
+			if (leftIdByRightId[rightId] != NONE)
+				throw new IllegalArgumentException("value already present: " + right.getKey());
+			removeDenseMatchOfLeft(leftId);
+			rightIdByLeftId[leftId] = rightId;
+			leftIdByRightId[rightId] = leftId;
+			scoreByLeftId[leftId] = score;
+			denseMatchCount++;
+		}
 
 		if (left.isModuleRelativeMismatch(right)) {
 			HACK_leftMismatchedNodes.add(left.getKey());
@@ -93,41 +209,216 @@ public class HashMatchedNodes {
 	}
 
 	public void removeLeftKey(Node.Key leftKey) {
-		matchedNodesLeftRight.remove(leftKey);
-		matchingScore.remove(leftKey);
+		Node<?> left = session.left.module.getNode(leftKey);
+		if (left != null)
+			matchStatusRemoved(left, getMatchByLeft(left));
+
+		if (keyed) {
+			matchedNodesLeftRight.remove(leftKey);
+			matchingScore.remove(leftKey);
+		}
+		if (dense && (left != null))
+			removeDenseMatchOfLeft(leftIds.getId(left));
 	}
 
 	public void removeRightKey(Node.Key rightKey) {
-		Node.Key leftKey = matchedNodesLeftRight.inverse().remove(rightKey);
-		if (leftKey != null)
-			matchingScore.remove(leftKey);
+		Node<?> right = session.right.module.getNode(rightKey);
+		if (right != null)
+			matchStatusRemoved(getMatchByRight(right), right);
+
+		if (keyed) {
+			Node.Key leftKey = matchedNodesLeftRight.inverse().remove(rightKey);
+			if (leftKey != null)
+				matchingScore.remove(leftKey);
+		}
+		if (dense && (right != null))
+			removeDenseMatchOfRight(rightIds.getId(right));
+	}
+
+	public boolean containsLeft(Node<?> left) {
+		if (!dense)
+			return matchedNodesLeftRight.containsKey(left.getKey());
+
+		boolean contains = getMatchId(rightIdByLeftId, leftIds.getId(left)) != NONE;
+		if (keyed)
+			validate(contains == matchedNodesLeftRight.containsKey(left.getKey()), "left match of %s", left);
+		return contains;
+	}
+
+	public boolean containsRight(Node<?> right) {
+		if (!dense)
+			return matchedNodesLeftRight.containsValue(right.getKey());
+
+		boolean contains = getMatchId(leftIdByRightId, rightIds.getId(right)) != NONE;
+		if (keyed)
+			validate(contains == matchedNodesLeftRight.containsValue(right.getKey()), "right match of %s", right);
+		return contains;
 	}
 
 	public boolean containsLeftKey(Node.Key leftKey) {
-		return matchedNodesLeftRight.containsKey(leftKey);
+		if (!dense)
+			return matchedNodesLeftRight.containsKey(leftKey);
+
+		Node<?> left = session.left.module.getNode(leftKey);
+		return (left != null) && containsLeft(left);
 	}
 
 	public boolean containsRightKey(Node.Key rightKey) {
-		return matchedNodesLeftRight.containsValue(rightKey);
+		if (!dense)
+			return matchedNodesLeftRight.containsValue(rightKey);
+
+		Node<?> right = session.right.module.getNode(rightKey);
+		return (right != null) && containsRight(right);
+	}
+
+	/**
+	 * @return the right node matched to <code>left</code>, or null
+	 */
+	public Node<?> getMatchByLeft(Node<?> left) {
+		if (!dense)
+			return getNode(session.right, matchedNodesLeftRight.get(left.getKey()));
+
+		int rightId = getMatchId(rightIdByLeftId, leftIds.getId(left));
+		Node<?> right = (rightId == NONE) ? null : rightIds.getObject(rightId);
+		if (keyed)
+			validate(right == getNode(session.right, matchedNodesLeftRight.get(left.getKey())), "left match of %s",
+					left);
+		return right;
+	}
+
+	/**
+	 * @return the left node matched to <code>right</code>, or null
+	 */
+	public Node<?> getMatchByRight(Node<?> right) {
+		if (!dense)
+			return getNode(session.left, matchedNodesLeftRight.inverse().get(right.getKey()));
+
+		int leftId = getMatchId(leftIdByRightId, rightIds.getId(right));
+		Node<?> left = (leftId == NONE) ? null : leftIds.getObject(leftId);
+		if (keyed)
+			validate(left == getNode(session.left, matchedNodesLeftRight.inverse().get(right.getKey())),
+					"right match of %s", right);
+		return left;
 	}
 
 	public Node.Key getMatchByLeftKey(Node.Key leftKey) {
-		return matchedNodesLeftRight.get(leftKey);
+		if (!dense)
+			return matchedNodesLeftRight.get(leftKey);
+
+		Node<?> left = session.left.module.getNode(leftKey);
+		Node<?> right = (left == null) ? null : getMatchByLeft(left);
+		return (right == null) ? null : right.getKey();
 	}
 
 	public Node.Key getMatchByRightKey(Node.Key rightKey) {
-		return matchedNodesLeftRight.inverse().get(rightKey);
+		if (!dense)
+			return matchedNodesLeftRight.inverse().get(rightKey);
+
+		Node<?> right = session.right.module.getNode(rightKey);
+		Node<?> left = (right == null) ? null : getMatchByRight(right);
+		return (left == null) ? null : left.getKey();
 	}
 
 	public int getScoreByLeftKey(Node.Key leftKey) {
-		return matchingScore.get(leftKey);
+		if (!dense)
+			return matchingScore.get(leftKey);
+
+		Node<?> left = session.left.module.getNode(leftKey);
+		int leftId = (left == null) ? NONE : leftIds.getId(left);
+		if (getMatchId(rightIdByLeftId, leftId) == NONE)
+			throw new NullPointerException("No score for unmatched left node " + leftKey);
+		if (keyed)
+			validate(scoreByLeftId[leftId] == matchingScore.get(leftKey), "score of %s", leftKey);
+		return scoreByLeftId[leftId];
 	}
 
 	public int size() {
-		return matchedNodesLeftRight.size();
+		if (!dense)
+			return matchedNodesLeftRight.size();
+
+		if (keyed)
+			validate(denseMatchCount == matchedNodesLeftRight.size(), "match count");
+		return denseMatchCount;
 	}
 
 	public String toString() {
-		return matchedNodesLeftRight.toString();
+		if (!dense)
+			return matchedNodesLeftRight.toString();
+
+		StringBuilder buffer = new StringBuilder("{");
+		for (int leftId = 0; leftId < leftIds.size(); leftId++) {
+			int rightId = rightIdByLeftId[leftId];
+			if (rightId != NONE) {
+				if (buffer.length() > 1)
+					buffer.append(", ");
+				buffer.append(leftIds.getObject(leftId).getKey());
+				buffer.append("=");
+				buffer.append(rightIds.getObject(rightId).getKey());
+			}
+		}
+		buffer.append("}");
+		return buffer.toString();
+	}
+
+	private void matchStatusRemoved(Node<?> left, Node<?> right) {
+		if (left != null)
+			session.contextMemo.leftStatusChanged(left);
+		if (right != null)
+			session.contextMemo.rightStatusChanged(right);
+	}
+
+	private boolean hasKeyedPair(Node.Key leftKey, Node.Key rightKey) {
+		Node.Key match = matchedNodesLeftRight.get(leftKey);
+		return (match != null) && match.equals(rightKey);
+	}
+
+	private void removeDenseMatchOfLeft(int leftId) {
+		int rightId = getMatchId(rightIdByLeftId, leftId);
+		if (rightId != NONE) {
+			rightIdByLeftId[leftId] = NONE;
+			leftIdByRightId[rightId] = NONE;
+			denseMatchCount--;
+		}
+	}
+
+	private void removeDenseMatchOfRight(int rightId) {
+		int leftId = getMatchId(leftIdByRightId, rightId);
+		if (leftId != NONE) {
+			rightIdByLeftId[leftId] = NONE;
+			leftIdByRightId[rightId] = NONE;
+			denseMatchCount--;
+		}
+	}
+
+	private void validate(boolean agrees, String format, Object... args) {
+		if (!agrees)
+			throw new MergedFailedException("Dense match index disagrees with the keyed index on the %s",
+					String.format(format, args));
+	}
+
+	private static Node<?> getNode(HashMergeTarget target, Node.Key key) {
+		return (key == null) ? null : target.module.getNode(key);
+	}
+
+	private static int getMatchId(int[] matchIds, int id) {
+		if ((id == NONE) || (id >= matchIds.length))
+			return NONE;
+		return matchIds[id];
+	}
+
+	private static int[] createIdArray(int size) {
+		int[] array = new int[Math.max(16, size)];
+		Arrays.fill(array, NONE);
+		return array;
+	}
+
+	private static int[] ensureIdCapacity(int[] array, int id) {
+		if (id < array.length)
+			return array;
+
+		int oldLength = array.length;
+		array = Arrays.copyOf(array, Math.max(id + 1, oldLength * 2));
+		Arrays.fill(array, oldLength, array.length, NONE);
+		return array;
 	}
-}
\ No newline at end of file
+}
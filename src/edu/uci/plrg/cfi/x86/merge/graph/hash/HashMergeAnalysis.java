@@ -23,8 +23,10 @@ import edu.uci.plrg.cfi.x86.graph.data.graph.OrdinalEdgeList;
 import edu.uci.plrg.cfi.x86.graph.data.results.Graph;
 import edu.uci.plrg.cfi.x86.graph.util.EdgeCounter;
 import edu.uci.plrg.cfi.x86.merge.graph.GraphMergeStrategy;
+import edu.uci.plrg.cfi.x86.merge.graph.MergeResults;
+import edu.uci.plrg.cfi.x86.merge.graph.ModuleMergeProfile;
 import edu.uci.plrg.cfi.x86.merge.graph.results.HashMerge;
-import edu.uci.plrg.cfi.x86.merge.util.AnalysisUtil;
+import edu.uci.plrg.cfi.x86.merge.util.LongHashSet;
 
 public class HashMergeAnalysis implements HashMergeResults {
 
@@ -50,6 +52,9 @@ public class HashMergeAnalysis implements HashMergeResults {
 		private final Map<Set<Node.Key>, Set<Node.Key>> HACK_missedSubgraphs = new IdentityHashMap<Set<Node.Key>, Set<Node.Key>>();
 		private int averageMissedSubgraphSize = 0;
 
+		// position of this module in the merge list of the results, once its merge is completed
+		private int mergeIndex = -1;
+
 		ClusterResults(HashMergeSession session) {
 			this.session = session;
 
@@ -59,22 +64,24 @@ public class HashMergeAnalysis implements HashMergeResults {
 		void mergeCompleted() {
 			computeResults();
 			reportUnmatchedNodes();
+			long subgraphStart = System.nanoTime();
 			computeMissedSubgraphs();
+			session.profile.phaseCompleted(ModuleMergeProfile.Phase.SUBGRAPH_ANALYSIS, subgraphStart);
 			outputMergedGraphInfo();
 
+			mergeIndex = builder.results.getMergeCount();
 			builder.results.addMerge(builder.merge.build());
 		}
 
 		private void computeResults() {
-			Set<Long> hashIntersection = AnalysisUtil.intersection(
-					session.left.module.getGraphData().nodesByHash.keySet(),
-					session.right.module.getGraphData().nodesByHash.keySet());
-			Set<Long> hashUnion = AnalysisUtil.union(session.left.module.getGraphData().nodesByHash.keySet(),
-					session.right.module.getGraphData().nodesByHash.keySet());
+			LongHashSet leftHashes = LongHashSet.copyOf(session.left.module.getGraphData().nodesByHash.keySet());
+			LongHashSet rightHashes = LongHashSet.copyOf(session.right.module.getGraphData().nodesByHash.keySet());
+			LongHashSet hashIntersection = leftHashes.intersection(rightHashes);
 			hashIntersectionSize = hashIntersection.size();
-			hashUnionSize = hashUnion.size();
+			hashUnionSize = (leftHashes.size() + rightHashes.size()) - hashIntersectionSize;
 
-			for (Long hash : hashIntersection) {
+			for (int i = 0; i < hashIntersection.size(); i++) {
+				long hash = hashIntersection.get(i);
 				hashIntersectionBlockCount += session.mergedGraphBuilder.graph.getGraphData().nodesByHash.get(hash)
 						.size();
 				hashIntersectionLeftBlockCount += session.left.module.getGraphData().nodesByHash.get(hash).size();
@@ -269,6 +276,10 @@ public class HashMergeAnalysis implements HashMergeResults {
 			builder.summary.setExceptionContinuationEdgesMatched(session.statistics
 					.getExceptionContinuationMatchCount());
 			builder.summary.setPossiblyRewrittenBlocks(session.statistics.getPossibleRewrites());
+			Log.log("Context similarity memo: %d hits, %d misses (%.1f%% hit rate), %d invalidations",
+					session.statistics.getContextMemoHitCount(), session.statistics.getContextMemoMissCount(),
+					session.statistics.getContextMemoHitRate() * 100f,
+					session.statistics.getContextMemoInvalidationCount());
 			builder.summary.setModuleRelativeTagMismatches(session.matchedNodes.HACK_leftMismatchedNodes.size()
 					+ HACK_moduleRelativeTagMisses.size());
 			builder.summary.setMismatchedSubgraphCount(HACK_missedSubgraphs.size());
@@ -321,6 +332,28 @@ public class HashMergeAnalysis implements HashMergeResults {
 		return GraphMergeStrategy.HASH;
 	}
 
+	@Override
+	public void appendModuleResults(MergeResults moduleResults) {
+		HashMergeAnalysis other = (HashMergeAnalysis) moduleResults;
+		int mergeOffset = builder.results.getMergeCount();
+		builder.results.addAllMerge(other.builder.results.getMergeList());
+		for (ClusterResults cluster : other.resultsByCluster.values()) {
+			if (cluster.mergeIndex >= 0)
+				cluster.mergeIndex += mergeOffset;
+		}
+		resultsByCluster.putAll(other.resultsByCluster);
+	}
+
+	@Override
+	public void setPhaseProfile(ApplicationModule module, ModuleMergeProfile profile) {
+		ClusterResults cluster = resultsByCluster.get(module);
+		if ((cluster == null) || (cluster.mergeIndex < 0))
+			return;
+
+		builder.results.setMerge(cluster.mergeIndex, builder.results.getMerge(cluster.mergeIndex).toBuilder()
+				.setPhaseProfile(profile.summarize()));
+	}
+
 	@Override
 	public void beginCluster(HashMergeSession session) {
 		currentCluster = new ClusterResults(session);
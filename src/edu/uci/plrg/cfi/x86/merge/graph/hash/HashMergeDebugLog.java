@@ -67,7 +67,12 @@ public class HashMergeDebugLog implements GraphLoadEventListener {
 	}
 
 	private final Set<TrackedNodeKey> trackedNodes = new HashSet<TrackedNodeKey>();
-	private final TrackedNodeKey trackedNodeLookupKey = new TrackedNodeKey();
+	private final ThreadLocal<TrackedNodeKey> trackedNodeLookupKey = new ThreadLocal<TrackedNodeKey>() {
+		@Override
+		protected TrackedNodeKey initialValue() {
+			return new TrackedNodeKey();
+		}
+	};
 	private final List<Long> debugRelativeTags = new ArrayList<Long>();
 
 	public HashMergeDebugLog() {
@@ -94,7 +99,7 @@ public class HashMergeDebugLog implements GraphLoadEventListener {
 	}
 
 	private boolean isTracked(Node<?> node) {
-		return trackedNodes.contains(trackedNodeLookupKey.assign(node));
+		return trackedNodes.contains(trackedNodeLookupKey.get().assign(node));
 	}
 
 	void nodesMatched(Node<?> left, Node<?> right) {
@@ -167,7 +172,7 @@ public class HashMergeDebugLog implements GraphLoadEventListener {
 	// 2% hot during load!
 	@Override
 	public void nodeLoadReference(long tag, long hash, LoadTarget target) {
-		if (trackedNodes.contains(trackedNodeLookupKey.assign(tag, hash)))
+		if (trackedNodes.contains(trackedNodeLookupKey.get().assign(tag, hash)))
 			Log.log("Node 0x%x(0x%x) referenced during %s load.", tag, hash, target.displayName);
 	}
 
@@ -139,14 +139,14 @@ class HashMergeEngine {
 					session.right.visitedEdges.add(rightEdge);
 
 					if (leftChild != null) {
-						if (session.matchedNodes.containsLeftKey(leftChild.getKey()))
+						if (session.matchedNodes.containsLeft(leftChild))
 							continue;
 
-						session.matchState.enqueueMatch(new HashNodeMatch(leftChild, rightEdge.getToNode(),
-								MatchType.DIRECT_BRANCH));
+						session.matchState.enqueueMatch(leftChild, rightEdge.getToNode(),
+								MatchType.DIRECT_BRANCH);
 
 						// Update matched relationship
-						if (!session.matchedNodes.hasPair(leftChild.getKey(), rightEdge.getToNode().getKey())) {
+						if (!session.matchedNodes.hasPair(leftChild, rightEdge.getToNode())) {
 							if (!session.matchedNodes.addPair(leftChild, rightEdge.getToNode(),
 									session.getScore(leftChild))) {
 								session.contextRecord.fail("Already matched %s", rightNode);
@@ -162,8 +162,8 @@ class HashMergeEngine {
 				} else {
 					// Add the indirect node to the queue
 					// to delay its matching
-					if (!session.matchedNodes.containsRightKey(rightEdge.getToNode().getKey())) {
-						session.matchState.enqueueIndirectEdge(new HashEdgePair(leftNode, rightEdge, rightNode));
+					if (!session.matchedNodes.containsRight(rightEdge.getToNode())) {
+						session.matchState.enqueueIndirectEdge(leftNode, rightEdge, rightNode);
 					}
 				}
 			}
@@ -182,11 +182,11 @@ class HashMergeEngine {
 
 		Node<?> leftChild = matcher.getCorrespondingIndirectChildNode(leftParentNode, rightEdge);
 		if (leftChild != null) {
-			session.matchState.enqueueMatch(new HashNodeMatch(leftChild, rightEdge.getToNode(),
-					MatchType.INDIRECT_BRANCH));
+			session.matchState.enqueueMatch(leftChild, rightEdge.getToNode(),
+					MatchType.INDIRECT_BRANCH);
 
 			// Update matched relationship
-			if (!session.matchedNodes.hasPair(leftChild.getKey(), rightEdge.getToNode().getKey())) {
+			if (!session.matchedNodes.hasPair(leftChild, rightEdge.getToNode())) {
 				session.matchedNodes.addPair(leftChild, rightEdge.getToNode(), session.getScore(leftChild));
 			}
 		} else {
@@ -201,7 +201,7 @@ class HashMergeEngine {
 
 		Node<?> leftChild = matcher.matchByHashThenContext(rightNode);
 		if (leftChild != null) {
-			session.matchState.enqueueMatch(new HashNodeMatch(leftChild, rightNode, MatchType.HEURISTIC));
+			session.matchState.enqueueMatch(leftChild, rightNode, MatchType.HEURISTIC);
 		} else {
 			// Simply push unvisited neighbors to unmatchedQueue
 			OrdinalEdgeList<?> edgeList = rightNode.getOutgoingEdges();
@@ -233,6 +233,7 @@ class HashMergeEngine {
 
 		// Copy edges from left
 		// Traverse edges by outgoing edges
+		int leftEdgeCount = 0;
 		for (Node<? extends Node<?>> leftNode : session.left.module.getAllNodes()) {
 			OrdinalEdgeList<?> leftEdges = leftNode.getOutgoingEdges();
 			try {
@@ -247,11 +248,13 @@ class HashMergeEngine {
 					mergedFromNode.addOutgoingEdge(mergedEdge);
 					mergedToNode.addIncomingEdge(mergedEdge);
 					session.debugLog.edgeMergedFromLeft(leftEdge);
+					leftEdgeCount++;
 				}
 			} finally {
 				leftEdges.release();
 			}
 		}
+		session.profile.setInputSize(leftNode2MergedNode.size(), leftEdgeCount);
 
 		// Copy nodes from right
 		Map<Node<?>, ModuleNode<?>> rightNode2MergedNode = new HashMap<Node<?>, ModuleNode<?>>();
@@ -259,7 +262,7 @@ class HashMergeEngine {
 			if (session.isMutuallyUnreachable(rightNode))
 				continue;
 
-			if (!session.matchedNodes.containsRightKey(rightNode.getKey())) {
+			if (!session.matchedNodes.containsRight(rightNode)) {
 				ModuleNode<?> mergedNode = session.mergedGraphBuilder.addNode(rightNode.getHash(),
 						rightNode.getModule(), rightNode.getRelativeTag(), rightNode.getType());
 				// TODO: fails to add the corresponding edges when creating a new version of a node
@@ -293,10 +296,10 @@ class HashMergeEngine {
 					if (session.isMutuallyUnreachable(rightToNode))
 						continue;
 
-					ModuleNode<?> mergedFromNode = leftNode2MergedNode.get(session.left.module
-							.getNode(session.matchedNodes.getMatchByRightKey(rightFromNode.getKey())));
-					ModuleNode<?> mergedToNode = leftNode2MergedNode.get(session.left.module
-							.getNode(session.matchedNodes.getMatchByRightKey(rightToNode.getKey())));
+					ModuleNode<?> mergedFromNode = leftNode2MergedNode.get(session.matchedNodes
+							.getMatchByRight(rightFromNode));
+					ModuleNode<?> mergedToNode = leftNode2MergedNode.get(session.matchedNodes
+							.getMatchByRight(rightToNode));
 					// rightNode2MergedNode.get(rightToNode .getKey());
 					if ((mergedFromNode != null) && (mergedToNode != null)) {
 						// Both are shared nodes, need to check if there are
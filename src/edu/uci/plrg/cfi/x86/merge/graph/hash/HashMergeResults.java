@@ -2,9 +2,11 @@ package edu.uci.plrg.cfi.x86.merge.graph.hash;
 
 import com.google.protobuf.GeneratedMessage;
 
+import edu.uci.plrg.cfi.x86.graph.data.application.ApplicationModule;
 import edu.uci.plrg.cfi.x86.graph.data.results.Graph;
 import edu.uci.plrg.cfi.x86.merge.graph.GraphMergeStrategy;
 import edu.uci.plrg.cfi.x86.merge.graph.MergeResults;
+import edu.uci.plrg.cfi.x86.merge.graph.ModuleMergeProfile;
 
 public interface HashMergeResults extends MergeResults {
 
@@ -30,6 +32,14 @@ public interface HashMergeResults extends MergeResults {
 			return null;
 		}
 
+		@Override
+		public void appendModuleResults(MergeResults moduleResults) {
+		}
+
+		@Override
+		public void setPhaseProfile(ApplicationModule module, ModuleMergeProfile profile) {
+		}
+
 		@Override
 		public void beginCluster(HashMergeSession session) {
 		}
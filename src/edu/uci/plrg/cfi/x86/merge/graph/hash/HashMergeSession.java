@@ -6,6 +6,7 @@ import java.util.Map;
 import edu.uci.plrg.cfi.x86.graph.data.graph.ModuleGraph;
 import edu.uci.plrg.cfi.x86.graph.data.graph.Node;
 import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ApplicationGraph;
+import edu.uci.plrg.cfi.x86.merge.graph.ModuleMergeProfile;
 import edu.uci.plrg.cfi.x86.merge.graph.hash.HashNodeMatch.MatchType;
 
 public class HashMergeSession {
@@ -64,7 +65,7 @@ public class HashMergeSession {
 			MergeEvaluator mergeEvaluator, HashMergeDebugLog debugLog) {
 		mergeEvaluator.reset();
 		HashMergeSession session = new HashMergeSession(left, right,
-				HashMergeResults.Empty.INSTANCE, debugLog);
+				HashMergeResults.Empty.INSTANCE, new ModuleMergeProfile(), debugLog);
 
 		if (!mergeEvaluator.attemptMerge(session))
 			return false;
@@ -80,15 +81,31 @@ public class HashMergeSession {
 
 	public static ApplicationGraph mergeTwoGraphs(ModuleGraph<?> left, ModuleGraph<?> right,
 			HashMergeResults results, MergeEvaluator mergeEvaluator, HashMergeDebugLog debugLog) {
+		return mergeTwoGraphs(left, right, results, new ModuleMergeProfile(), mergeEvaluator, debugLog);
+	}
+
+	public static ApplicationGraph mergeTwoGraphs(ModuleGraph<?> left, ModuleGraph<?> right,
+			HashMergeResults results, ModuleMergeProfile profile, MergeEvaluator mergeEvaluator,
+			HashMergeDebugLog debugLog) {
+		return mergeTwoGraphs(left, right, results, profile, HashMatchedNodes.IndexMode.DENSE, mergeEvaluator,
+				debugLog);
+	}
+
+	/**
+	 * Same as above, keeping the matched nodes in the index of <code>indexMode</code>.
+	 */
+	public static ApplicationGraph mergeTwoGraphs(ModuleGraph<?> left, ModuleGraph<?> right,
+			HashMergeResults results, ModuleMergeProfile profile, HashMatchedNodes.IndexMode indexMode,
+			MergeEvaluator mergeEvaluator, HashMergeDebugLog debugLog) {
 		mergeEvaluator.reset();
-		HashMergeSession session = new HashMergeSession(left, right, results, debugLog);
+		HashMergeSession session = new HashMergeSession(left, right, results, profile, indexMode, debugLog);
 		return mergeTwoGraphs(session, mergeEvaluator);
 	}
 
 	public static ApplicationGraph mergeTwoGraphs(ModuleGraph<?> left, ModuleGraph<?> right,
 			MergeEvaluator mergeEvaluator, HashMergeResults results, HashMergeDebugLog debugLog) {
 		mergeEvaluator.reset();
-		HashMergeSession session = new HashMergeSession(left, right, results, debugLog);
+		HashMergeSession session = new HashMergeSession(left, right, results, new ModuleMergeProfile(), debugLog);
 		session.contextRecord.setEvaluator(mergeEvaluator);
 		return mergeTwoGraphs(session, mergeEvaluator);
 	}
@@ -98,10 +115,14 @@ public class HashMergeSession {
 			return null;
 
 		HashMergeEngine engine = new HashMergeEngine(session);
+		long start = System.nanoTime();
 		engine.mergeGraph();
+		session.profile.phaseCompleted(ModuleMergeProfile.Phase.NODE_MATCHING, start);
 		session.results.clusterMergeCompleted();
 		if (mergeEvaluator.acceptGraphs(session)) {
+			start = System.nanoTime();
 			engine.buildMergedGraph();
+			session.profile.phaseCompleted(ModuleMergeProfile.Phase.EDGE_ADD, start);
 			return session.mergedGraphBuilder;
 		} else {
 			return null;
@@ -123,12 +144,14 @@ public class HashMergeSession {
 
 	final HashMergeStatistics statistics;
 	final HashMergeResults results;
+	final ModuleMergeProfile profile;
 	final HashMergeDebugLog debugLog;
 
 	final HashMatchedNodes matchedNodes;
 	final HashMatchState matchState;
 
 	final ContextMatchRecord contextRecord = new ContextMatchRecord();
+	final ContextSimilarityMemo contextMemo;
 
 	private final Map<Node<?>, Integer> scoresByLeftNode = new HashMap<Node<?>, Integer>();
 
@@ -136,17 +159,24 @@ public class HashMergeSession {
 
 	final HashMergeEngine engine = new HashMergeEngine(this);
 
-	HashMergeSession(ModuleGraph<?> left, ModuleGraph<?> right, HashMergeResults results,
+	HashMergeSession(ModuleGraph<?> left, ModuleGraph<?> right, HashMergeResults results, ModuleMergeProfile profile,
 			HashMergeDebugLog debugLog) {
+		this(left, right, results, profile, HashMatchedNodes.IndexMode.DENSE, debugLog);
+	}
+
+	HashMergeSession(ModuleGraph<?> left, ModuleGraph<?> right, HashMergeResults results, ModuleMergeProfile profile,
+			HashMatchedNodes.IndexMode indexMode, HashMergeDebugLog debugLog) {
 		this.left = new HashMergeTarget(left);
 		this.right = new HashMergeTarget(right);
 		this.results = results;
+		this.profile = profile;
 		results.beginCluster(this);
 		this.debugLog = debugLog;
 
-		matchedNodes = new HashMatchedNodes(this);
+		matchedNodes = new HashMatchedNodes(this, indexMode);
 		matchState = new HashMatchState(this);
 		statistics = new HashMergeStatistics(this);
+		contextMemo = new ContextSimilarityMemo(statistics, this.left.nodeIds, this.right.nodeIds);
 		mergedGraphBuilder = new ApplicationGraph(String.format("merge of %s and %s", left.name, right.name), left.module);
 	}
 
@@ -154,6 +184,7 @@ public class HashMergeSession {
 		right.visitedEdges.clear();
 		right.visitedAsUnmatched.clear();
 		matchedNodes.clear();
+		contextMemo.clear();
 		matchState.clear();
 		statistics.reset();
 		hasConflict = false;
@@ -167,7 +198,7 @@ public class HashMergeSession {
 				debugLog.debugCheck(rightNode);
 
 				if (leftNode.hasCompatibleEdges(rightNode)) {
-					matchState.enqueueMatch(new HashNodeMatch(leftNode, rightNode, MatchType.ENTRY_POINT));
+					matchState.enqueueMatch(leftNode, rightNode, MatchType.ENTRY_POINT);
 					matchedNodes.addPair(leftNode, rightNode, 0);
 					statistics.directMatch();
 					continue;
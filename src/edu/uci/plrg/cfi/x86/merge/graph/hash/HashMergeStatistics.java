@@ -15,6 +15,9 @@ public class HashMergeStatistics {
 	private int callContinuationMatchCount = 0;
 	private int exceptionContinuationMatchCount = 0;
 	private int possibleRewrites = 0;
+	private int contextMemoHitCount = 0;
+	private int contextMemoMissCount = 0;
+	private int contextMemoInvalidationCount = 0;
 
 	public HashMergeStatistics(HashMergeSession session) {
 		this.session = session;
@@ -30,6 +33,9 @@ public class HashMergeStatistics {
 		callContinuationMatchCount = 0;
 		exceptionContinuationMatchCount = 0;
 		possibleRewrites = 0;
+		contextMemoHitCount = 0;
+		contextMemoMissCount = 0;
+		contextMemoInvalidationCount = 0;
 	}
 
 	public int getCallContinuationMatchCount() {
@@ -52,6 +58,23 @@ public class HashMergeStatistics {
 		return pureHeuristicMatchCount;
 	}
 
+	public int getContextMemoHitCount() {
+		return contextMemoHitCount;
+	}
+
+	public int getContextMemoMissCount() {
+		return contextMemoMissCount;
+	}
+
+	public int getContextMemoInvalidationCount() {
+		return contextMemoInvalidationCount;
+	}
+
+	public float getContextMemoHitRate() {
+		int lookupCount = contextMemoHitCount + contextMemoMissCount;
+		return (lookupCount == 0) ? 0f : (contextMemoHitCount / (float) lookupCount);
+	}
+
 	public void tryDirectMatch() {
 		directEdgeTrialCnt++;
 	}
@@ -88,12 +111,24 @@ public class HashMergeStatistics {
 		possibleRewrites++;
 	}
 
+	public void contextMemoHit() {
+		contextMemoHitCount++;
+	}
+
+	public void contextMemoMiss() {
+		contextMemoMissCount++;
+	}
+
+	public void contextMemoInvalidation() {
+		contextMemoInvalidationCount++;
+	}
+
 	/**
 	 * <pre>
 	public ArrayList<Node<?>> unmatchedGraph1Nodes() {
 		ArrayList<Node<?>> unmatchedNodes = new ArrayList<Node<?>>();
 		for (Node<?> n : session.left.cluster.getAllNodes()) {
-			if (!session.matchedNodes.containsLeftKey(n.getKey())) {
+			if (!session.matchedNodes.containsLeft(n)) {
 				unmatchedNodes.add(n);
 			}
 		}
@@ -103,7 +138,7 @@ public class HashMergeStatistics {
 	public ArrayList<Node<?>> unmatchedGraph2Nodes() {
 		ArrayList<Node<?>> unmatchedNodes = new ArrayList<Node<?>>();
 		for (Node<?> n : session.right.cluster.getAllNodes()) {
-			if (!session.matchedNodes.containsRightKey(n.getKey())) {
+			if (!session.matchedNodes.containsRight(n)) {
 				unmatchedNodes.add(n);
 			}
 		}
@@ -6,15 +6,23 @@ import java.util.Set;
 import edu.uci.plrg.cfi.x86.graph.data.graph.Edge;
 import edu.uci.plrg.cfi.x86.graph.data.graph.ModuleGraph;
 import edu.uci.plrg.cfi.x86.graph.data.graph.Node;
+import edu.uci.plrg.cfi.x86.merge.util.NodeIdMap;
 
 public class HashMergeTarget {
 
 	final ModuleGraph<? extends Node<?>> module;
 
+	// sequential ids of the nodes of the module, assigned when the session is created, for per-node state in arrays
+	final NodeIdMap<Node<?>> nodeIds;
+
 	final Set<Edge<? extends Node<?>>> visitedEdges = new HashSet<Edge<? extends Node<?>>>();
 	final Set<Node<?>> visitedAsUnmatched = new HashSet<Node<?>>();
 
 	HashMergeTarget(ModuleGraph<? extends Node<?>> module) {
 		this.module = module;
+
+		nodeIds = new NodeIdMap<Node<?>>(module.getNodeCount());
+		for (Node<?> node : module.getAllNodes())
+			nodeIds.assignId(node);
 	}
 }
@@ -13,15 +13,29 @@ public class HashNodeMatch {
 	}
 
 	private Node<?> leftNode, rightNode;
-	public final MatchType type;
+	public MatchType type;
 
 	// The level of the BFS traverse
 
 	public HashNodeMatch(Node<?> left, Node<?> right, MatchType type) {
+		assign(left, right, type);
+	}
+
+	/**
+	 * Creates a cursor over the entries of a match queue, which is assigned each entry in turn.
+	 */
+	HashNodeMatch() {
+	}
+
+	void assign(Node<?> left, Node<?> right, MatchType type) {
+		checkEntryTypes(left, right);
+
 		this.leftNode = left;
 		this.rightNode = right;
 		this.type = type;
+	}
 
+	static void checkEntryTypes(Node<?> left, Node<?> right) {
 		if ((left.getType() == MetaNodeType.MODULE_ENTRY) != (right.getType() == MetaNodeType.MODULE_ENTRY))
 			throw new IllegalArgumentException(String.format(
 					"Cannot match a cluster entry node to some other kind of node! Left: %s, right: %s",
@@ -0,0 +1,154 @@
+package edu.uci.plrg.cfi.x86.merge.graph.main;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import edu.uci.plrg.cfi.common.log.Log;
+import edu.uci.plrg.cfi.x86.graph.data.graph.Edge;
+import edu.uci.plrg.cfi.x86.graph.data.graph.EdgeType;
+import edu.uci.plrg.cfi.x86.graph.data.graph.MetaNodeType;
+import edu.uci.plrg.cfi.x86.graph.data.graph.ModuleGraph;
+import edu.uci.plrg.cfi.x86.graph.data.graph.Node;
+import edu.uci.plrg.cfi.x86.graph.data.graph.OrdinalEdgeList;
+
+/**
+ * Compares two datasets of the same module by their node and edge content. Instance ids depend on the order in which
+ * nodes were merged, so nodes are identified by module-relative tag, hash and type instead of by key.
+ */
+class DatasetEquivalence {
+
+	private static final int MAX_REPORTED_DIFFERENCES = 20;
+
+	private static class NodeSignature {
+		final long relativeTag;
+		final long hash;
+		final MetaNodeType type;
+
+		NodeSignature(Node<?> node) {
+			relativeTag = node.getRelativeTag();
+			hash = node.getHash();
+			type = node.getType();
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + (int) (hash ^ (hash >>> 32));
+			result = prime * result + (int) (relativeTag ^ (relativeTag >>> 32));
+			result = prime * result + type.hashCode();
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			NodeSignature other = (NodeSignature) obj;
+			return (hash == other.hash) && (relativeTag == other.relativeTag) && (type == other.type);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s(0x%x-0x%x)", type, relativeTag, hash);
+		}
+	}
+
+	private static class EdgeSignature {
+		final NodeSignature from;
+		final NodeSignature to;
+		final EdgeType type;
+		final int ordinal;
+
+		EdgeSignature(Edge<?> edge) {
+			from = new NodeSignature(edge.getFromNode());
+			to = new NodeSignature(edge.getToNode());
+			type = edge.getEdgeType();
+			ordinal = edge.getOrdinal();
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + from.hashCode();
+			result = prime * result + to.hashCode();
+			result = prime * result + type.hashCode();
+			result = prime * result + ordinal;
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			EdgeSignature other = (EdgeSignature) obj;
+			return from.equals(other.from) && to.equals(other.to) && (type == other.type)
+					&& (ordinal == other.ordinal);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s -%s(%d)-> %s", from, type, ordinal, to);
+		}
+	}
+
+	private final Set<NodeSignature> nodes = new HashSet<NodeSignature>();
+	private final Set<EdgeSignature> edges = new HashSet<EdgeSignature>();
+
+	DatasetEquivalence(ModuleGraph<?> dataset) {
+		for (Node<?> node : dataset.getAllNodes()) {
+			nodes.add(new NodeSignature(node));
+
+			OrdinalEdgeList<?> edgeList = node.getOutgoingEdges();
+			try {
+				for (Edge<?> edge : edgeList)
+					edges.add(new EdgeSignature(edge));
+			} finally {
+				edgeList.release();
+			}
+		}
+	}
+
+	/**
+	 * Logs the nodes and edges that appear on only one side, and returns true if there are none.
+	 */
+	boolean isEquivalent(DatasetEquivalence other, String leftName, String rightName) {
+		int differenceCount = 0;
+		differenceCount += reportMissing(nodes, other.nodes, "Node", leftName, rightName);
+		differenceCount += reportMissing(other.nodes, nodes, "Node", rightName, leftName);
+		differenceCount += reportMissing(edges, other.edges, "Edge", leftName, rightName);
+		differenceCount += reportMissing(other.edges, edges, "Edge", rightName, leftName);
+
+		if (differenceCount == 0) {
+			Log.log("The %s and %s datasets are equivalent (%d nodes, %d edges).", leftName, rightName, nodes.size(),
+					edges.size());
+		} else {
+			Log.log("Error! The %s and %s datasets differ by %d nodes and edges.", leftName, rightName,
+					differenceCount);
+		}
+		return differenceCount == 0;
+	}
+
+	private static <T> int reportMissing(Set<T> present, Set<T> other, String label, String presentName,
+			String otherName) {
+		int missingCount = 0;
+		for (T item : present) {
+			if (!other.contains(item)) {
+				if (missingCount < MAX_REPORTED_DIFFERENCES)
+					Log.log("\t%s %s appears in the %s dataset but not in the %s dataset", label, item, presentName,
+							otherName);
+				missingCount++;
+			}
+		}
+		return missingCount;
+	}
+}
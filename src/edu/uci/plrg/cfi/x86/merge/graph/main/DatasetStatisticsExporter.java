@@ -20,6 +20,7 @@ import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ModuleNode;
 import edu.uci.plrg.cfi.x86.graph.main.CommonMergeOptions;
 import edu.uci.plrg.cfi.x86.merge.graph.GraphMergeCandidate;
 import edu.uci.plrg.cfi.x86.merge.graph.hash.HashMergeDebugLog;
+import edu.uci.plrg.cfi.x86.merge.graph.mapped.ColumnarDataset;
 import edu.uci.plrg.cfi.x86.merge.graph.report.ModuleEventFrequencies;
 import edu.uci.plrg.cfi.x86.merge.graph.report.ProgramEventFrequencies;
 
@@ -30,6 +31,8 @@ public class DatasetStatisticsExporter {
 			"stats-exporter.log"); // or the app name?
 	private static final OptionArgumentMap.StringOption exportFilenameOption = OptionArgumentMap.createStringOption(
 			'f', "dataset.statistics.properties"); // or the app name?
+	private static final OptionArgumentMap.BooleanOption mappedDatasetOption = OptionArgumentMap.createBooleanOption(
+			'x', false);
 
 	private final CommonMergeOptions options;
 
@@ -94,12 +97,25 @@ public class DatasetStatisticsExporter {
 				continue;
 			}
 
-			ModuleGraph<ModuleNode<?>> graph = (ModuleGraph<ModuleNode<?>>) dataset.getModuleGraph(cluster);
 			ModuleEventFrequencies moduleEventFrequencies = new ModuleEventFrequencies(moduleId++);
 			moduleEventMap.put(cluster, moduleEventFrequencies);
+			moduleStatistics.setProperty(cluster.name, String.valueOf(moduleEventFrequencies.moduleId));
+
+			ColumnarDataset mappedDataset = null;
+			if (dataset instanceof GraphMergeCandidate.Mapped)
+				mappedDataset = ((GraphMergeCandidate.Mapped) dataset).getMappedDataset(cluster);
+			if (mappedDataset != null) {
+				moduleEventFrequencies.extractStatistics(mappedDataset, programEventFrequencies);
+				programEventFrequencies.countMetadataEvents(mappedDataset);
+
+				if (mappedDataset.isMainModule() && mappedDataset.hasHeadExecution())
+					mainId = mappedDataset.getHeadExecutionId();
+				continue;
+			}
+
+			ModuleGraph<ModuleNode<?>> graph = (ModuleGraph<ModuleNode<?>>) dataset.getModuleGraph(cluster);
 			moduleEventFrequencies.extractStatistics(graph, programEventFrequencies);
 			programEventFrequencies.countMetadataEvents(graph.metadata);
-			moduleStatistics.setProperty(cluster.name, String.valueOf(moduleEventFrequencies.moduleId));
 			System.gc();
 
 			if (graph.metadata.isMain() && graph.metadata.getRootSequence() != null)
@@ -137,7 +153,11 @@ public class DatasetStatisticsExporter {
 			printUsageAndExit();
 		}
 
-		GraphMergeCandidate candidate = new GraphMergeCandidate.Modular(directory, debugLog);
+		GraphMergeCandidate candidate;
+		if (mappedDatasetOption.getValue())
+			candidate = new GraphMergeCandidate.Mapped(directory, debugLog);
+		else
+			candidate = new GraphMergeCandidate.Modular(directory, debugLog);
 		candidate.loadData();
 		return candidate;
 	}
@@ -146,13 +166,15 @@ public class DatasetStatisticsExporter {
 		System.out.println("Usage:");
 		System.out.println(String.format("%s: -e <execution-graph> -d <dataset> -f <report-file>",
 				DatasetStatisticsExporter.class.getSimpleName()));
+		System.out.println("\t-x: map the columnar datasets of <dataset> (see merge -g) instead of loading its modules");
 		System.exit(1);
 	}
 
 	public static void main(String[] args) {
 		ArgumentStack stack = new ArgumentStack(args);
 		DatasetStatisticsExporter main = new DatasetStatisticsExporter(new CommonMergeOptions(stack,
-				CommonMergeOptions.crowdSafeCommonDir, datasetOption, logFilenameOption, exportFilenameOption));
+				CommonMergeOptions.crowdSafeCommonDir, datasetOption, logFilenameOption, exportFilenameOption,
+				mappedDatasetOption));
 		main.run(stack, 1);
 		main.toString();
 	}
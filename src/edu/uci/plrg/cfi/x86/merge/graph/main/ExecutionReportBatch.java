@@ -0,0 +1,137 @@
+package edu.uci.plrg.cfi.x86.merge.graph.main;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.uci.plrg.cfi.common.log.Log;
+import edu.uci.plrg.cfi.x86.merge.graph.GraphMergeCandidate;
+
+/**
+ * Reports each run of a run catalog against one resident dataset, up to <code>threadCount</code> runs at a time, and
+ * logs the percentiles of the per-run latency. Each report is written next to its run (see
+ * <code>ExecutionReporter.getReportFile()</code>). A failed run is logged and does not stop the batch, and the latencies
+ * of failed runs are logged apart from the others.
+ */
+class ExecutionReportBatch {
+
+	private static final double[] LATENCY_PERCENTILES = { 0.5, 0.9, 0.99 };
+
+	private final ExecutionReporter reporter;
+	private final GraphMergeCandidate.Resident dataset;
+	private final int threadCount;
+
+	ExecutionReportBatch(ExecutionReporter reporter, GraphMergeCandidate.Resident dataset, int threadCount) {
+		if (threadCount < 1)
+			throw new IllegalArgumentException("The thread count must be at least 1");
+
+		this.reporter = reporter;
+		this.dataset = dataset;
+		this.threadCount = threadCount;
+	}
+
+	void reportRuns(List<File> runDirectories) throws IOException {
+		if (runDirectories.isEmpty()) {
+			Log.log("The run catalog is empty");
+			return;
+		}
+
+		// written by each worker before its future completes, so they are visible after get()
+		final long[] latencies = new long[runDirectories.size()];
+		final boolean[] failed = new boolean[runDirectories.size()];
+		final AtomicInteger failureCount = new AtomicInteger();
+
+		long loadStart = System.currentTimeMillis();
+		dataset.loadStaticModules();
+		Log.log("Loaded %d dataset modules in %.3f seconds", dataset.getResidentModuleCount(),
+				(System.currentTimeMillis() - loadStart) / 1000.0);
+
+		long batchStart = System.currentTimeMillis();
+		ExecutorService workers = Executors.newFixedThreadPool(Math.min(threadCount, runDirectories.size()));
+		try {
+			List<Future<?>> reports = new ArrayList<Future<?>>();
+			for (int i = 0; i < runDirectories.size(); i++) {
+				final int runIndex = i;
+				final File runDirectory = runDirectories.get(i);
+				reports.add(workers.submit(new Runnable() {
+					@Override
+					public void run() {
+						long start = System.nanoTime();
+						try {
+							reporter.reportExecution(runDirectory, dataset);
+						} catch (Throwable t) {
+							failed[runIndex] = true;
+							failureCount.incrementAndGet();
+							Log.log("\t@@@@ Execution report for run %s failed with %s @@@@", runDirectory.getName(), t
+									.getClass().getSimpleName());
+							Log.log(t);
+						}
+						latencies[runIndex] = System.nanoTime() - start;
+					}
+				}));
+			}
+
+			for (Future<?> report : reports) {
+				try {
+					report.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while waiting for a run report", e);
+				} catch (ExecutionException e) {
+					throw new IllegalStateException("Run report failed", e.getCause());
+				}
+			}
+		} finally {
+			workers.shutdownNow();
+		}
+
+		double batchTime = (System.currentTimeMillis() - batchStart) / 1000.0;
+		Log.log("Reported %d runs (%d failed) in %.3f seconds on %d threads: %.2f runs per second",
+				runDirectories.size(), failureCount.get(), batchTime, Math.min(threadCount, runDirectories.size()),
+				runDirectories.size() / batchTime);
+
+		long[] reportedLatencies = new long[latencies.length - failureCount.get()];
+		long[] failedLatencies = new long[failureCount.get()];
+		int reportedCount = 0;
+		int failedCount = 0;
+		for (int i = 0; i < latencies.length; i++) {
+			if (failed[i])
+				failedLatencies[failedCount++] = latencies[i];
+			else
+				reportedLatencies[reportedCount++] = latencies[i];
+		}
+		logLatencies("Run latency", reportedLatencies);
+		logLatencies("Failed run latency", failedLatencies);
+	}
+
+	private static void logLatencies(String label, long[] latencies) {
+		if (latencies.length == 0)
+			return;
+
+		long[] sorted = Arrays.copyOf(latencies, latencies.length);
+		Arrays.sort(sorted);
+
+		StringBuilder buffer = new StringBuilder(label).append(":");
+		for (double percentile : LATENCY_PERCENTILES) {
+			buffer.append(String.format(" p%d %.3fs,", Math.round(percentile * 100),
+					getPercentile(sorted, percentile) / 1e9));
+		}
+		buffer.append(String.format(" max %.3fs", sorted[sorted.length - 1] / 1e9));
+		Log.log(buffer.toString());
+	}
+
+	/**
+	 * @return the nearest-rank <code>percentile</code> of the ascending <code>sorted</code>
+	 */
+	private static long getPercentile(long[] sorted, double percentile) {
+		int rank = (int) Math.ceil(percentile * sorted.length);
+		return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+	}
+}
@@ -0,0 +1,244 @@
+package edu.uci.plrg.cfi.x86.merge.graph.main;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import edu.uci.plrg.cfi.common.log.Log;
+import edu.uci.plrg.cfi.x86.merge.graph.GraphMergeCandidate;
+
+/**
+ * Reports executions against a dataset that stays loaded between them, along with the reporter's statistics and
+ * alphas. Executions arrive either as directories moved into a spool directory, or as directory paths sent one per line
+ * to a socket on the loopback interface, which answers each line with the path of the report or an error. Each report
+ * is written next to its execution, as <code>&lt;execution&gt;.report</code>, and a spooled execution that already has
+ * a report is skipped (e.g. after a restart).
+ *
+ * Report generation keeps the execution's new nodes and edges in a per-report overlay, so the resident dataset is
+ * never changed, and up to <code>threadCount</code> reports are generated concurrently against it.
+ */
+class ExecutionReportServer {
+
+	private final ExecutionReporter reporter;
+	private final GraphMergeCandidate.Resident dataset;
+
+	private final ExecutorService reportPool;
+	private final AtomicInteger reportCount = new AtomicInteger();
+
+	// spooled executions that are queued or being reported, so that a rescan of the spool does not repeat them
+	private final Set<File> pendingExecutions = new HashSet<File>();
+
+	ExecutionReportServer(ExecutionReporter reporter, GraphMergeCandidate.Resident dataset, int threadCount) {
+		this.reporter = reporter;
+		this.dataset = dataset;
+		reportPool = Executors.newFixedThreadPool(threadCount);
+	}
+
+	/**
+	 * Serve until the process is stopped.
+	 *
+	 * @param spoolDirectory
+	 *            directory to watch for executions, or null
+	 * @param port
+	 *            loopback port on which to accept executions, or -1
+	 */
+	void serve(File spoolDirectory, int port) throws IOException, InterruptedException {
+		loadDataset();
+
+		if (port >= 0) {
+			final ServerSocket serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+			Log.log("Accepting executions on port %d", serverSocket.getLocalPort());
+			if (spoolDirectory == null) {
+				try {
+					serveSocket(serverSocket);
+				} finally {
+					reportPool.shutdown();
+				}
+				return;
+			}
+
+			Thread socketThread = new Thread("execution-report-socket") {
+				@Override
+				public void run() {
+					try {
+						serveSocket(serverSocket);
+					} catch (IOException e) {
+						Log.log("Execution report socket failed: %s", e.getMessage());
+						Log.log(e);
+					}
+				}
+			};
+			socketThread.setDaemon(true);
+			socketThread.start();
+		}
+
+		try {
+			watchSpool(spoolDirectory);
+		} finally {
+			reportPool.shutdown();
+		}
+	}
+
+	private void loadDataset() throws IOException {
+		long start = System.currentTimeMillis();
+		dataset.loadStaticModules();
+		Log.log("Loaded %d dataset modules in %.3f seconds", dataset.getResidentModuleCount(),
+				(System.currentTimeMillis() - start) / 1000.0);
+	}
+
+	private void watchSpool(File spoolDirectory) throws IOException, InterruptedException {
+		WatchService watcher = FileSystems.getDefault().newWatchService();
+		try {
+			spoolDirectory.toPath().register(watcher, StandardWatchEventKinds.ENTRY_CREATE);
+			Log.log("Watching spool directory %s", spoolDirectory.getAbsolutePath());
+
+			// executions spooled before the watch was registered
+			scanSpool(spoolDirectory);
+
+			while (true) {
+				WatchKey key = watcher.take();
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+						scanSpool(spoolDirectory);
+					else
+						reportSpooledExecution(new File(spoolDirectory, ((Path) event.context()).toString()));
+				}
+				if (!key.reset()) {
+					Log.log("Spool directory %s is no longer accessible", spoolDirectory.getAbsolutePath());
+					return;
+				}
+			}
+		} finally {
+			watcher.close();
+		}
+	}
+
+	private void scanSpool(File spoolDirectory) {
+		File[] entries = spoolDirectory.listFiles();
+		if (entries == null)
+			return;
+
+		Arrays.sort(entries);
+		for (File entry : entries)
+			reportSpooledExecution(entry);
+	}
+
+	private void reportSpooledExecution(final File entry) {
+		if (!entry.isDirectory() || ExecutionReporter.getReportFile(entry).exists())
+			return;
+		synchronized (pendingExecutions) {
+			if (!pendingExecutions.add(entry))
+				return;
+		}
+
+		reportPool.submit(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					reportExecution(entry);
+				} finally {
+					synchronized (pendingExecutions) {
+						pendingExecutions.remove(entry);
+					}
+				}
+			}
+		});
+	}
+
+	private void serveSocket(ServerSocket serverSocket) throws IOException {
+		ExecutorService connectionPool = Executors.newCachedThreadPool();
+		try {
+			while (true) {
+				final Socket client = serverSocket.accept();
+				connectionPool.submit(new Runnable() {
+					@Override
+					public void run() {
+						serveConnection(client);
+					}
+				});
+			}
+		} finally {
+			connectionPool.shutdown();
+			serverSocket.close();
+		}
+	}
+
+	/**
+	 * Report the executions sent on one connection, in order. Separate connections are served concurrently.
+	 */
+	private void serveConnection(Socket client) {
+		try {
+			try {
+				BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream()));
+				PrintWriter out = new PrintWriter(new OutputStreamWriter(client.getOutputStream()), true);
+				String path;
+				while ((path = in.readLine()) != null) {
+					path = path.trim();
+					if (path.isEmpty())
+						continue;
+
+					final File executionDirectory = new File(path);
+					if (!executionDirectory.isDirectory()) {
+						out.println("error: no such directory " + path);
+						continue;
+					}
+					File reportFile = reportPool.submit(new Callable<File>() {
+						@Override
+						public File call() {
+							return reportExecution(executionDirectory);
+						}
+					}).get();
+					if (reportFile == null)
+						out.println("error: the report for " + path + " failed");
+					else
+						out.println(reportFile.getAbsolutePath());
+				}
+			} finally {
+				client.close();
+			}
+		} catch (IOException e) {
+			Log.log("Execution report connection failed: %s", e.getMessage());
+		} catch (InterruptedException e) {
+			Log.log("Execution report connection was interrupted");
+		} catch (ExecutionException e) {
+			Log.log("Execution report connection failed: %s", e.getCause().getMessage());
+			Log.log(e.getCause());
+		}
+	}
+
+	/**
+	 * @return the report file, or null if the report failed
+	 */
+	private File reportExecution(File executionDirectory) {
+		try {
+			Log.log("Execution report #%d for %s", reportCount.incrementAndGet(), executionDirectory.getAbsolutePath());
+
+			return reporter.reportExecution(executionDirectory, dataset);
+		} catch (Throwable t) {
+			Log.log("\t@@@@ Execution report for %s failed with %s @@@@", executionDirectory.getName(), t.getClass()
+					.getSimpleName());
+			Log.log(t);
+			return null;
+		}
+	}
+}
@@ -1,11 +1,17 @@
 package edu.uci.plrg.cfi.x86.merge.graph.main;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import edu.uci.plrg.cfi.common.log.Log;
 import edu.uci.plrg.cfi.common.log.LogFile;
@@ -20,6 +26,7 @@ import edu.uci.plrg.cfi.x86.graph.io.modular.ModularTraceDataSink;
 import edu.uci.plrg.cfi.x86.graph.main.CommonMergeOptions;
 import edu.uci.plrg.cfi.x86.merge.graph.GraphMergeCandidate;
 import edu.uci.plrg.cfi.x86.merge.graph.hash.HashMergeDebugLog;
+import edu.uci.plrg.cfi.x86.merge.graph.mapped.ColumnarDataset;
 import edu.uci.plrg.cfi.x86.merge.graph.report.AnonymousModuleReportGenerator;
 import edu.uci.plrg.cfi.x86.merge.graph.report.ExecutionReport;
 import edu.uci.plrg.cfi.x86.merge.graph.report.ModuleReportGenerator;
@@ -55,10 +62,20 @@ public class ExecutionReporter {
 		}
 	}
 
+	static final String REPORT_EXTENSION = ".report";
+
 	private static double elapsedTime(long start) {
 		return (System.currentTimeMillis() - start) / 1000.0;
 	}
 
+	/**
+	 * @return the report file of an execution that is reported by directory, which is written next to the execution
+	 */
+	static File getReportFile(File executionDirectory) {
+		return new File(executionDirectory.getAbsoluteFile().getParentFile(), executionDirectory.getName()
+				+ REPORT_EXTENSION);
+	}
+
 	private static final OptionArgumentMap.StringOption executionGraphOption = OptionArgumentMap
 			.createStringOption('e');
 	private static final OptionArgumentMap.StringOption datasetOption = OptionArgumentMap.createStringOption('d');
@@ -70,18 +87,38 @@ public class ExecutionReporter {
 			'f', "execution.log"); // or the app name?
 	private static final OptionArgumentMap.BooleanOption stdoutOption = OptionArgumentMap.createBooleanOption('o',
 			false);
+	private static final OptionArgumentMap.StringOption spoolOption = OptionArgumentMap.createStringOption('w');
+	private static final OptionArgumentMap.StringOption portOption = OptionArgumentMap.createStringOption('g');
+	private static final OptionArgumentMap.StringOption threadsOption = OptionArgumentMap.createStringOption('j',
+			String.valueOf(Runtime.getRuntime().availableProcessors()));
+	private static final OptionArgumentMap.StringOption moduleThreadCountOption = OptionArgumentMap
+			.createStringOption('t', "1");
+	private static final OptionArgumentMap.StringOption runCatalogOption = OptionArgumentMap.createStringOption('r');
+	private static final OptionArgumentMap.BooleanOption mappedDatasetOption = OptionArgumentMap.createBooleanOption(
+			'x', false);
 
 	private final CommonMergeOptions options;
 	private final HashMergeDebugLog debugLog = new HashMergeDebugLog();
 
 	private ProgramEventFrequencies.ProgramPropertyReader programEventFrequencies;
 
-	private long start;
+	private int moduleThreadCount = 1;
 
 	public ExecutionReporter(CommonMergeOptions options) {
 		this.options = options;
 	}
 
+	/**
+	 * Number of static modules reported concurrently within each execution. A single thread reports the modules in
+	 * order on the calling thread.
+	 */
+	void setModuleThreadCount(int moduleThreadCount) {
+		if (moduleThreadCount < 1)
+			throw new IllegalArgumentException("The module thread count must be at least 1");
+
+		this.moduleThreadCount = moduleThreadCount;
+	}
+
 	void run(ArgumentStack args, int iterationCount) {
 		boolean parsingArguments = true;
 
@@ -95,9 +132,32 @@ public class ExecutionReporter {
 			if (stdoutOption.getValue())
 				Log.addOutput(System.out);
 
-			File reportFile = LogFile.create(reportFilenameOption.getValue(), LogFile.CollisionMode.AVOID,
-					LogFile.NoSuchPathMode.ERROR);
-			System.out.println("Generating report file " + reportFile.getAbsolutePath());
+			File spoolDirectory = null;
+			if (spoolOption.hasValue()) {
+				spoolDirectory = new File(spoolOption.getValue());
+				if (!spoolDirectory.isDirectory())
+					throw new IllegalArgumentException("No such spool directory " + spoolDirectory);
+			}
+			int port = -1;
+			if (portOption.hasValue())
+				port = Integer.parseInt(portOption.getValue());
+			int threadCount = Integer.parseInt(threadsOption.getValue());
+			setModuleThreadCount(Integer.parseInt(moduleThreadCountOption.getValue()));
+			boolean serving = (spoolDirectory != null) || (port >= 0);
+
+			File runCatalog = null;
+			if (runCatalogOption.hasValue()) {
+				runCatalog = new File(runCatalogOption.getValue());
+				if (!runCatalog.isFile())
+					throw new IllegalArgumentException("No such run catalog " + runCatalog);
+			}
+
+			File reportFile = null;
+			if (!serving && (runCatalog == null)) {
+				reportFile = LogFile.create(reportFilenameOption.getValue(), LogFile.CollisionMode.AVOID,
+						LogFile.NoSuchPathMode.ERROR);
+				System.out.println("Generating report file " + reportFile.getAbsolutePath());
+			}
 
 			File statisticsFile = new File(statisticsOption.getValue());
 			Properties statisticsProperties = new Properties();
@@ -117,26 +177,42 @@ public class ExecutionReporter {
 
 			parsingArguments = false;
 
+			if (runCatalog != null) {
+				List<File> runDirectories = readRunCatalog(runCatalog);
+				if (runDirectories == null)
+					return;
+
+				Log.log("Execution reports for %d runs of catalog %s, based on dataset %s", runDirectories.size(),
+						runCatalog.getAbsolutePath(), rightPath);
+
+				options.initializeGraphEnvironment();
+
+				new ExecutionReportBatch(this, loadResidentDataset(rightPath), threadCount).reportRuns(runDirectories);
+				return;
+			}
+
+			if (serving) {
+				Log.log("Serving execution reports based on dataset %s", rightPath);
+
+				options.initializeGraphEnvironment();
+
+				new ExecutionReportServer(this, loadResidentDataset(rightPath), threadCount).serve(spoolDirectory,
+						port);
+				return;
+			}
+
 			Log.log("Execution report for %s, based on dataset %s", leftPath, rightPath);
 
 			options.initializeGraphEnvironment();
 
 			GraphMergeCandidate leftCandidate = loadMergeCandidate(leftPath);
-			GraphMergeCandidate rightCandidate = (leftPath.equals(rightPath) ? leftCandidate
-					: loadMergeCandidate(rightPath));
-
-			start = System.currentTimeMillis();
-
-			ExecutionReport report = generateReport(leftCandidate, rightCandidate);
-			Log.log("\n > Sorting report entries at %.3f < \n", elapsedTime(start));
-			report.sort();
-			Log.log("\n > Printing report entries at %.3f < \n", elapsedTime(start));
-			report.print(reportFile);
+			GraphMergeCandidate rightCandidate;
+			if (mappedDatasetOption.getValue())
+				rightCandidate = loadResidentDataset(rightPath);
+			else
+				rightCandidate = (leftPath.equals(rightPath) ? leftCandidate : loadMergeCandidate(rightPath));
 
-			// Log.log("The whole program has %d indirects with %d distinct targets",
-			// programEventFrequencies.getTotalIndirectCount(),
-			// programEventFrequencies.getUniqueIndirectTargetCount());
-			Log.log("\n > Report complete at %.3f < \n", elapsedTime(start));
+			reportExecution(leftCandidate, rightCandidate, reportFile);
 		} catch (Log.OutputException e) {
 			e.printStackTrace();
 		} catch (Throwable t) {
@@ -152,8 +228,38 @@ public class ExecutionReporter {
 		}
 	}
 
+	void reportExecution(GraphMergeCandidate leftCandidate, GraphMergeCandidate rightCandidate, File reportFile)
+			throws IOException {
+		long start = System.currentTimeMillis();
+
+		ExecutionReport report = generateReport(leftCandidate, rightCandidate, start);
+		Log.log("\n > Sorting report entries at %.3f < \n", elapsedTime(start));
+		report.sort();
+		Log.log("\n > Printing report entries at %.3f < \n", elapsedTime(start));
+		report.print(reportFile);
+
+		// Log.log("The whole program has %d indirects with %d distinct targets",
+		// programEventFrequencies.getTotalIndirectCount(),
+		// programEventFrequencies.getUniqueIndirectTargetCount());
+		Log.log("\n > Report complete at %.3f < \n", elapsedTime(start));
+	}
+
+	/**
+	 * Report the execution in <code>executionDirectory</code> against <code>dataset</code>.
+	 *
+	 * @return the report file
+	 */
+	File reportExecution(File executionDirectory, GraphMergeCandidate dataset) throws IOException {
+		File reportFile = getReportFile(executionDirectory);
+		GraphMergeCandidate execution = new GraphMergeCandidate.Modular(executionDirectory, debugLog);
+		execution.loadData();
+		reportExecution(execution, dataset, reportFile);
+		return reportFile;
+	}
+
 	@SuppressWarnings("unchecked")
-	ExecutionReport generateReport(GraphMergeCandidate leftData, GraphMergeCandidate rightData) throws IOException {
+	ExecutionReport generateReport(GraphMergeCandidate leftData, GraphMergeCandidate rightData, long start)
+			throws IOException {
 		ExecutionReport report = new ExecutionReport(programEventFrequencies);
 		List<ModuleGraph<ModuleNode<?>>> leftAnonymousGraphs = new ArrayList<ModuleGraph<ModuleNode<?>>>();
 		List<ModuleGraph<ModuleNode<?>>> rightAnonymousGraphs = new ArrayList<ModuleGraph<ModuleNode<?>>>();
@@ -161,29 +267,23 @@ public class ExecutionReporter {
 		Log.log("Reporting %d represented modules", leftData.getRepresentedModules().size());
 
 		// compile program events from the execution
+		List<ApplicationModule> leftStaticModules = new ArrayList<ApplicationModule>();
 		for (ApplicationModule leftModule : leftData.getRepresentedModules()) {
 			if (leftModule.isAnonymous) {
 				Log.log("\n > Loading left anonymous cluster %s at %.3f < \n", leftModule.name, elapsedTime(start));
 				leftAnonymousGraphs.add((ModuleGraph<ModuleNode<?>>) leftData.getModuleGraph(leftModule));
 				continue;
 			}
+			leftStaticModules.add(leftModule);
+		}
 
-			Log.log("\n > Loading left static module %s at %.3f < \n", leftModule.name, elapsedTime(start));
-
-			ApplicationGraph leftGraph = new ApplicationGraph(
-					(ModuleGraph<ModuleNode<?>>) leftData.getModuleGraph(leftModule));
-			ApplicationGraph rightGraph = null;
-			if (rightData.getRepresentedModules().contains(leftModule)) {
-				Log.log("\n > Loading right static module %s at %.3f < \n", leftModule.name, elapsedTime(start));
-				rightGraph = new ApplicationGraph((ModuleGraph<ModuleNode<?>>) rightData.getModuleGraph(leftModule));
-				Log.log("\n > Counting metadata for right module %s at %.3f < \n", leftModule.name, elapsedTime(start));
-			} else {
-				Log.log("\n > Skipping right static module %s because it is not represented among %d dataset modules < \n",
-						leftModule.name, rightData.getRepresentedModules().size());
+		if ((moduleThreadCount == 1) || (leftStaticModules.size() < 2)) {
+			for (ApplicationModule leftModule : leftStaticModules) {
+				report.appendModuleReport(generateModuleReport(report, leftModule, leftData, rightData, start));
+				System.gc();
 			}
-			Log.log("\n > Generating report for static module %s at %.3f < \n", leftModule.name, elapsedTime(start));
-			ModuleReportGenerator.addModuleReportEntries(report, leftGraph, rightGraph);
-			System.gc();
+		} else {
+			generateModuleReportsInParallel(report, leftStaticModules, leftData, rightData, start);
 		}
 
 		for (ApplicationModule rightModule : rightData.getRepresentedModules()) {
@@ -201,6 +301,119 @@ public class ExecutionReporter {
 		return report;
 	}
 
+	/**
+	 * Each worker reports one module into its own report, which is appended to <code>report</code> in the order of
+	 * <code>leftModules</code>, so the report is the same as for a sequential report.
+	 */
+	private void generateModuleReportsInParallel(final ExecutionReport report, List<ApplicationModule> leftModules,
+			final GraphMergeCandidate leftData, final GraphMergeCandidate rightData, final long start)
+			throws IOException {
+		ExecutorService workers = Executors.newFixedThreadPool(Math.min(moduleThreadCount, leftModules.size()));
+		try {
+			List<Future<ExecutionReport>> moduleReports = new ArrayList<Future<ExecutionReport>>();
+			for (final ApplicationModule leftModule : leftModules) {
+				moduleReports.add(workers.submit(new Callable<ExecutionReport>() {
+					@Override
+					public ExecutionReport call() throws IOException {
+						return generateModuleReport(report, leftModule, leftData, rightData, start);
+					}
+				}));
+			}
+
+			for (Future<ExecutionReport> moduleReport : moduleReports) {
+				try {
+					report.appendModuleReport(moduleReport.get());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while waiting for a module report", e);
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof IOException)
+						throw (IOException) e.getCause();
+					if (e.getCause() instanceof RuntimeException)
+						throw (RuntimeException) e.getCause();
+					if (e.getCause() instanceof Error)
+						throw (Error) e.getCause();
+					throw new IllegalStateException("Module report failed", e.getCause());
+				}
+			}
+		} finally {
+			workers.shutdownNow();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private ExecutionReport generateModuleReport(ExecutionReport report, ApplicationModule leftModule,
+			GraphMergeCandidate leftData, GraphMergeCandidate rightData, long start) throws IOException {
+		ExecutionReport moduleReport = report.createModuleReport();
+
+		Log.log("\n > Loading left static module %s at %.3f < \n", leftModule.name, elapsedTime(start));
+
+		ApplicationGraph leftGraph = new ApplicationGraph(
+				(ModuleGraph<ModuleNode<?>>) leftData.getModuleGraph(leftModule));
+		ApplicationGraph rightGraph = null;
+		ColumnarDataset mappedDataset = null;
+		if (rightData instanceof GraphMergeCandidate.Mapped)
+			mappedDataset = ((GraphMergeCandidate.Mapped) rightData).getMappedDataset(leftModule);
+		if (mappedDataset != null) {
+			Log.log("\n > Materializing the matches of static module %s in the mapped dataset at %.3f < \n",
+					leftModule.name, elapsedTime(start));
+			rightGraph = mappedDataset.materializeFragment(leftGraph.graph);
+		} else if (rightData.getRepresentedModules().contains(leftModule)) {
+			Log.log("\n > Loading right static module %s at %.3f < \n", leftModule.name, elapsedTime(start));
+			rightGraph = new ApplicationGraph((ModuleGraph<ModuleNode<?>>) rightData.getModuleGraph(leftModule));
+			Log.log("\n > Counting metadata for right module %s at %.3f < \n", leftModule.name, elapsedTime(start));
+		} else {
+			Log.log("\n > Skipping right static module %s because it is not represented among %d dataset modules < \n",
+					leftModule.name, rightData.getRepresentedModules().size());
+		}
+		Log.log("\n > Generating report for static module %s at %.3f < \n", leftModule.name, elapsedTime(start));
+		ModuleReportGenerator.addModuleReportEntries(moduleReport, leftGraph, rightGraph);
+		return moduleReport;
+	}
+
+	/**
+	 * The run catalog lists the run directories one per line, as for <code>DynamicCodeAnalyzer</code>.
+	 *
+	 * @return the run directories, or null if the catalog lists an invalid run directory
+	 */
+	private List<File> readRunCatalog(File runCatalog) throws IOException {
+		List<File> runDirectories = new ArrayList<File>();
+		BufferedReader in = new BufferedReader(new FileReader(runCatalog));
+		try {
+			while (in.ready()) {
+				String runPath = in.readLine();
+				if (runPath.length() == 0)
+					continue;
+				File runDirectory = new File(runPath);
+				if (!(runDirectory.exists() && runDirectory.isDirectory())) {
+					Log.error("Run catalog contains an invalid run directory: %s. Exiting now.",
+							runDirectory.getAbsolutePath());
+					return null;
+				}
+				runDirectories.add(runDirectory);
+			}
+		} finally {
+			in.close();
+		}
+		return runDirectories;
+	}
+
+	private GraphMergeCandidate.Resident loadResidentDataset(String path) throws IOException {
+		File directory = new File(path);
+		if (!(directory.exists() && directory.isDirectory())) {
+			Log.log("Illegal argument '" + directory + "'; no such directory.");
+			printUsageAndExit();
+		}
+
+		GraphMergeCandidate.Resident dataset;
+		if (mappedDatasetOption.getValue())
+			dataset = new GraphMergeCandidate.Mapped(directory, debugLog);
+		else
+			dataset = new GraphMergeCandidate.Resident(directory, debugLog);
+		dataset.loadData();
+		return dataset;
+	}
+
 	private GraphMergeCandidate loadMergeCandidate(String path) throws IOException {
 		File directory = new File(path);
 		if (!(directory.exists() && directory.isDirectory())) {
@@ -217,6 +430,15 @@ public class ExecutionReporter {
 		System.out.println("Usage:");
 		System.out.println(String.format("%s: -e <execution-graph> -d <dataset> -f <report-file>",
 				ExecutionReporter.class.getSimpleName()));
+		System.out.println(String.format("%s: -d <dataset> { -w <spool-dir> | -g <port> }",
+				ExecutionReporter.class.getSimpleName()));
+		System.out.println("\t-w: report each execution directory moved into <spool-dir>");
+		System.out.println("\t-g: report each execution directory sent (one path per line) to <port> on localhost");
+		System.out.println(String.format("%s: -d <dataset> -r <run-catalog>", ExecutionReporter.class.getSimpleName()));
+		System.out.println("\t-r: report each run directory listed (one per line) in <run-catalog>");
+		System.out.println("\t-j <threads>: number of executions to report concurrently (default: one per processor)");
+		System.out.println("\t-t <threads>: number of modules to report concurrently within an execution (default: 1)");
+		System.out.println("\t-x: map the columnar datasets of <dataset> (see merge -g) instead of loading its modules");
 		System.exit(1);
 	}
 
@@ -224,7 +446,8 @@ public class ExecutionReporter {
 		ArgumentStack stack = new ArgumentStack(args);
 		ExecutionReporter main = new ExecutionReporter(new CommonMergeOptions(stack,
 				CommonMergeOptions.crowdSafeCommonDir, executionGraphOption, datasetOption, alphasOption,
-				statisticsOption, logFilenameOption, reportFilenameOption, stdoutOption));
+				statisticsOption, logFilenameOption, reportFilenameOption, stdoutOption, spoolOption, portOption, threadsOption, moduleThreadCountOption, runCatalogOption,
+				mappedDatasetOption));
 		main.run(stack, 1);
 		main.toString();
 	}
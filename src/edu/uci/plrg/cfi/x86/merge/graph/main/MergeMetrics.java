@@ -0,0 +1,264 @@
+package edu.uci.plrg.cfi.x86.merge.graph.main;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.uci.plrg.cfi.common.log.Log;
+import edu.uci.plrg.cfi.x86.merge.graph.ModuleMergeProfile;
+
+/**
+ * Progress of a long merge run (training or round-robin), for watching the run while it is in progress: merges
+ * completed, running and queued, the merge each thread is working on and for how long, node and edge throughput, heap
+ * use and cache hit rates. When a metrics file is given, it is rewritten as JSON every few seconds and once more when
+ * the run ends. The file is replaced by a rename, so a reader never sees a partial file.
+ *
+ * A merge is counted when it completes, so the throughput of a run with a few large merges moves in steps.
+ */
+class MergeMetrics {
+
+	interface CacheCounts {
+		long getHitCount();
+
+		long getMissCount();
+	}
+
+	private static class ThreadActivity {
+		final String mergeName;
+		final long startMillis = System.currentTimeMillis();
+
+		ThreadActivity(String mergeName) {
+			this.mergeName = mergeName;
+		}
+	}
+
+	private static final long WRITE_INTERVAL_MILLIS = 5000L;
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private final File metricsFile;
+	private final long startMillis = System.currentTimeMillis();
+
+	private final AtomicInteger totalMerges = new AtomicInteger();
+	private final AtomicInteger completedMerges = new AtomicInteger();
+	private final AtomicInteger failedMerges = new AtomicInteger();
+	private final AtomicLong mergedNodes = new AtomicLong();
+	private final AtomicLong mergedEdges = new AtomicLong();
+
+	private final Map<String, ThreadActivity> activityByThread = new ConcurrentHashMap<String, ThreadActivity>();
+	private final Map<String, CacheCounts> caches = new LinkedHashMap<String, CacheCounts>();
+
+	// throughput since the previous write, only accessed in write()
+	private long lastWriteMillis = startMillis;
+	private long lastMergedNodes = 0L;
+	private long lastMergedEdges = 0L;
+
+	private Thread writer = null;
+
+	/**
+	 * @param metricsFile
+	 *            file to rewrite with the metrics, or null to only count
+	 */
+	MergeMetrics(File metricsFile) {
+		this.metricsFile = metricsFile;
+	}
+
+	void addMerges(int mergeCount) {
+		totalMerges.addAndGet(mergeCount);
+	}
+
+	synchronized void addCache(String name, CacheCounts cache) {
+		caches.put(name, cache);
+	}
+
+	void mergeStarted(String mergeName) {
+		activityByThread.put(Thread.currentThread().getName(), new ThreadActivity(mergeName));
+	}
+
+	/**
+	 * @param profile
+	 *            profile of the merge, or null if the module was skipped
+	 */
+	void mergeCompleted(ModuleMergeProfile profile) {
+		activityByThread.remove(Thread.currentThread().getName());
+		completedMerges.incrementAndGet();
+		if (profile != null) {
+			mergedNodes.addAndGet(profile.getNodeCount());
+			mergedEdges.addAndGet(profile.getEdgeCount());
+		}
+	}
+
+	void mergeFailed() {
+		activityByThread.remove(Thread.currentThread().getName());
+		failedMerges.incrementAndGet();
+	}
+
+	synchronized void start() {
+		if ((metricsFile == null) || (writer != null))
+			return;
+
+		writer = new Thread("merge-metrics-writer") {
+			@Override
+			public void run() {
+				while (true) {
+					try {
+						Thread.sleep(WRITE_INTERVAL_MILLIS);
+					} catch (InterruptedException e) {
+						return;
+					}
+					writeMetrics();
+				}
+			}
+		};
+		writer.setDaemon(true);
+		writer.start();
+		Log.log("Writing merge metrics to %s every %d seconds", metricsFile.getAbsolutePath(),
+				WRITE_INTERVAL_MILLIS / 1000L);
+	}
+
+	/**
+	 * Stop the periodic writes and write the final metrics.
+	 */
+	void stop() {
+		Thread stoppedWriter;
+		synchronized (this) {
+			stoppedWriter = writer;
+			writer = null;
+		}
+		if (stoppedWriter == null)
+			return;
+
+		stoppedWriter.interrupt();
+		try {
+			stoppedWriter.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		writeMetrics();
+	}
+
+	private void writeMetrics() {
+		try {
+			write();
+		} catch (IOException e) {
+			Log.log("Failed to write the merge metrics to %s: %s", metricsFile.getAbsolutePath(), e.getMessage());
+		}
+	}
+
+	private synchronized void write() throws IOException {
+		long now = System.currentTimeMillis();
+		long nodes = mergedNodes.get();
+		long edges = mergedEdges.get();
+		double elapsedSeconds = Math.max(1L, now - startMillis) / 1000.0;
+		double intervalSeconds = Math.max(1L, now - lastWriteMillis) / 1000.0;
+
+		Map<String, ThreadActivity> activities = new TreeMap<String, ThreadActivity>(activityByThread);
+		int completed = completedMerges.get();
+		int failed = failedMerges.get();
+		Runtime runtime = Runtime.getRuntime();
+
+		StringBuilder json = new StringBuilder("{\n");
+		json.append(format("  \"timestamp\": %d,\n", now));
+		json.append(format("  \"elapsed_seconds\": %.1f,\n", elapsedSeconds));
+		json.append("  \"merges\": {\n");
+		json.append(format("    \"total\": %d,\n", totalMerges.get()));
+		json.append(format("    \"completed\": %d,\n", completed));
+		json.append(format("    \"failed\": %d,\n", failed));
+		json.append(format("    \"running\": %d,\n", activities.size()));
+		json.append(format("    \"queued\": %d\n",
+				Math.max(0, totalMerges.get() - completed - failed - activities.size())));
+		json.append("  },\n");
+		json.append("  \"throughput\": {\n");
+		json.append(format("    \"nodes_merged\": %d,\n", nodes));
+		json.append(format("    \"edges_merged\": %d,\n", edges));
+		json.append(format("    \"nodes_per_second\": %.1f,\n", nodes / elapsedSeconds));
+		json.append(format("    \"edges_per_second\": %.1f,\n", edges / elapsedSeconds));
+		json.append(format("    \"recent_nodes_per_second\": %.1f,\n", (nodes - lastMergedNodes)
+				/ intervalSeconds));
+		json.append(format("    \"recent_edges_per_second\": %.1f\n", (edges - lastMergedEdges)
+				/ intervalSeconds));
+		json.append("  },\n");
+		json.append("  \"heap\": {\n");
+		json.append(format("    \"used_bytes\": %d,\n", runtime.totalMemory() - runtime.freeMemory()));
+		json.append(format("    \"committed_bytes\": %d,\n", runtime.totalMemory()));
+		json.append(format("    \"max_bytes\": %d\n", runtime.maxMemory()));
+		json.append("  },\n");
+
+		json.append("  \"caches\": {");
+		boolean first = true;
+		for (Map.Entry<String, CacheCounts> cache : caches.entrySet()) {
+			long hits = cache.getValue().getHitCount();
+			long misses = cache.getValue().getMissCount();
+			json.append(first ? "\n" : ",\n");
+			json.append(format("    %s: { \"hits\": %d, \"misses\": %d, \"hit_rate\": %.3f }",
+					quote(cache.getKey()), hits, misses, ((hits + misses) == 0L) ? 0.0 : hits
+							/ (double) (hits + misses)));
+			first = false;
+		}
+		json.append(first ? "},\n" : "\n  },\n");
+
+		json.append("  \"threads\": [");
+		first = true;
+		for (Map.Entry<String, ThreadActivity> activity : activities.entrySet()) {
+			json.append(first ? "\n" : ",\n");
+			json.append(format("    { \"thread\": %s, \"merge\": %s, \"seconds\": %.1f }",
+					quote(activity.getKey()), quote(activity.getValue().mergeName),
+					(now - activity.getValue().startMillis) / 1000.0));
+			first = false;
+		}
+		json.append(first ? "]\n" : "\n  ]\n");
+		json.append("}\n");
+
+		File partialFile = new File(metricsFile.getPath() + ".partial");
+		Writer out = new OutputStreamWriter(new FileOutputStream(partialFile), UTF_8);
+		try {
+			out.write(json.toString());
+		} finally {
+			out.close();
+		}
+		Files.move(partialFile.toPath(), metricsFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+
+		lastWriteMillis = now;
+		lastMergedNodes = nodes;
+		lastMergedEdges = edges;
+	}
+
+	// JSON numbers need a decimal point whatever the default locale
+	private static String format(String format, Object... args) {
+		return String.format(Locale.US, format, args);
+	}
+
+	private static String quote(String value) {
+		StringBuilder quoted = new StringBuilder("\"");
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '"':
+					quoted.append("\\\"");
+					break;
+				case '\\':
+					quoted.append("\\\\");
+					break;
+				default:
+					if (c < 0x20)
+						quoted.append(format("\\u%04x", (int) c));
+					else
+						quoted.append(c);
+			}
+		}
+		return quoted.append('"').toString();
+	}
+}
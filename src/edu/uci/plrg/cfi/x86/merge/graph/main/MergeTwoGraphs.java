@@ -3,6 +3,13 @@ package edu.uci.plrg.cfi.x86.merge.graph.main;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import edu.uci.plrg.cfi.common.log.Log;
 import edu.uci.plrg.cfi.common.log.LogFile;
@@ -23,11 +30,17 @@ import edu.uci.plrg.cfi.x86.graph.main.CommonMergeOptions;
 import edu.uci.plrg.cfi.x86.merge.graph.GraphMergeCandidate;
 import edu.uci.plrg.cfi.x86.merge.graph.GraphMergeStrategy;
 import edu.uci.plrg.cfi.x86.merge.graph.MergeResults;
+import edu.uci.plrg.cfi.x86.merge.graph.ModuleMergeProfile;
+import edu.uci.plrg.cfi.x86.merge.graph.hash.HashMatchedNodes;
 import edu.uci.plrg.cfi.x86.merge.graph.hash.HashMergeAnalysis;
 import edu.uci.plrg.cfi.x86.merge.graph.hash.HashMergeDebugLog;
 import edu.uci.plrg.cfi.x86.merge.graph.hash.HashMergeSession;
+import edu.uci.plrg.cfi.x86.merge.graph.mapped.ColumnarDatasetFormat;
+import edu.uci.plrg.cfi.x86.merge.graph.mapped.ColumnarDatasetWriter;
+import edu.uci.plrg.cfi.x86.merge.graph.tag.TagMergeFragment;
 import edu.uci.plrg.cfi.x86.merge.graph.tag.TagMergeResults;
 import edu.uci.plrg.cfi.x86.merge.graph.tag.TagMergeSession;
+import edu.uci.plrg.cfi.x86.merge.util.MergeLog;
 
 public class MergeTwoGraphs {
 
@@ -40,10 +53,20 @@ public class MergeTwoGraphs {
 	public static class WriteCompletedGraphs implements MergeCompletion {
 		private final ModularTraceDataSink dataSink;
 		private final String filenameFormat;
+		private final File columnarDirectory;
 
 		public WriteCompletedGraphs(ModularTraceDataSink dataSink, String filenameFormat) {
+			this(dataSink, filenameFormat, null);
+		}
+
+		/**
+		 * @param columnarDirectory
+		 *            directory in which to also write each module graph in the columnar dataset format, or null
+		 */
+		public WriteCompletedGraphs(ModularTraceDataSink dataSink, String filenameFormat, File columnarDirectory) {
 			this.dataSink = dataSink;
 			this.filenameFormat = filenameFormat;
+			this.columnarDirectory = columnarDirectory;
 		}
 
 		@Override
@@ -52,6 +75,12 @@ public class MergeTwoGraphs {
 			ModuleGraphWriter writer = new ModuleGraphWriter(mergedGraph.graph, dataSink);
 			writer.writeGraph();
 			writer.close();
+
+			if (columnarDirectory != null) {
+				String columnarFilename = String.format(filenameFormat, mergedGraph.graph.module.name,
+						ColumnarDatasetFormat.STREAM, ColumnarDatasetFormat.EXTENSION);
+				ColumnarDatasetWriter.write(mergedGraph.graph, new File(columnarDirectory, columnarFilename));
+			}
 		}
 
 		@Override
@@ -83,6 +112,72 @@ public class MergeTwoGraphs {
 		return String.format("%s.dynamic.log", resultsFilename);
 	}
 
+	/**
+	 * Holds the completed graphs of one module worker until the merging thread hands them to the real completion, so
+	 * that the data sinks (which are not thread-safe) are written by one thread and in module order.
+	 */
+	private static class DeferredMergeCompletion implements MergeCompletion {
+		private final List<ApplicationGraph> mergedGraphs = new ArrayList<ApplicationGraph>();
+		private final List<ApplicationAnonymousGraphs> anonymousGraphs = new ArrayList<ApplicationAnonymousGraphs>();
+
+		@Override
+		public void mergeCompleted(ApplicationGraph mergedGraph) throws IOException {
+			mergedGraphs.add(mergedGraph);
+		}
+
+		@Override
+		public void mergeCompleted(ApplicationAnonymousGraphs anonymousGraphs) throws IOException {
+			this.anonymousGraphs.add(anonymousGraphs);
+		}
+
+		void completeTo(MergeCompletion completion) throws IOException {
+			for (ApplicationGraph mergedGraph : mergedGraphs)
+				completion.mergeCompleted(mergedGraph);
+			for (ApplicationAnonymousGraphs anonymous : anonymousGraphs)
+				completion.mergeCompleted(anonymous);
+			mergedGraphs.clear();
+			anonymousGraphs.clear();
+		}
+	}
+
+	private class ModuleMergeTask implements Callable<MergeResults> {
+		private final ApplicationModule leftCluster;
+		private final GraphMergeCandidate leftData;
+		private final GraphMergeCandidate rightData;
+		private final GraphMergeStrategy strategy;
+		private final DeferredMergeCompletion completion = new DeferredMergeCompletion();
+
+		private MergeResults moduleResults;
+		private ModuleMergeProfile profile;
+
+		ModuleMergeTask(ApplicationModule leftCluster, GraphMergeCandidate leftData, GraphMergeCandidate rightData,
+				GraphMergeStrategy strategy) {
+			this.leftCluster = leftCluster;
+			this.leftData = leftData;
+			this.rightData = rightData;
+			this.strategy = strategy;
+		}
+
+		@Override
+		public MergeResults call() throws IOException {
+			moduleResults = createResults(strategy);
+			profile = mergeModule(leftCluster, leftData, rightData, strategy, moduleResults, completion);
+			return moduleResults;
+		}
+
+		/**
+		 * Write the merged graphs of this module through <code>completion</code>, adding the time to its profile.
+		 */
+		void completeTo(MergeCompletion completion) throws IOException {
+			long start = System.nanoTime();
+			this.completion.completeTo(completion);
+			if (profile != null) {
+				profile.phaseCompleted(ModuleMergeProfile.Phase.WRITE, start);
+				moduleResults.setPhaseProfile(leftCluster, profile);
+			}
+		}
+	}
+
 	private static final OptionArgumentMap.StringOption logFilenameOption = OptionArgumentMap.createStringOption('l',
 			"merge.log");
 	private static final OptionArgumentMap.StringOption strategyOption = OptionArgumentMap.createStringOption('s',
@@ -91,10 +186,21 @@ public class MergeTwoGraphs {
 	private static final OptionArgumentMap.StringOption outputOption = OptionArgumentMap.createStringOption('o');
 	private static final OptionArgumentMap.StringOption inPlaceOption = OptionArgumentMap.createStringOption('i');
 	private static final OptionArgumentMap.BooleanOption verboseOption = OptionArgumentMap.createBooleanOption('v');
+	private static final OptionArgumentMap.StringOption threadCountOption = OptionArgumentMap.createStringOption('t',
+			"1");
+	private static final OptionArgumentMap.StringOption matchIndexOption = OptionArgumentMap.createStringOption('k',
+			HashMatchedNodes.IndexMode.DENSE.id);
+	private static final OptionArgumentMap.StringOption reachabilityOption = OptionArgumentMap.createStringOption('p',
+			ReachabilityAnalysis.Mode.INCREMENTAL.id);
+	private static final OptionArgumentMap.BooleanOption columnarOption = OptionArgumentMap.createBooleanOption('g');
 
 	private final CommonMergeOptions options;
 	private final HashMergeDebugLog debugLog = new HashMergeDebugLog();
 
+	private int moduleThreadCount = 1;
+	private HashMatchedNodes.IndexMode matchIndexMode = HashMatchedNodes.IndexMode.DENSE;
+	private ReachabilityAnalysis.Mode reachabilityMode = ReachabilityAnalysis.Mode.INCREMENTAL;
+
 	public MergeTwoGraphs(CommonMergeOptions options) {
 		this.options = options;
 	}
@@ -105,8 +211,10 @@ public class MergeTwoGraphs {
 		try {
 			options.parseOptions();
 
-			if (verboseOption.getValue())
+			if (verboseOption.getValue()) {
 				Log.addOutput(System.out);
+				MergeLog.setLevel(MergeLog.Level.DEBUG);
+			}
 
 			File logFile = null;
 			if (logFilenameOption.getValue() != null) {
@@ -150,6 +258,16 @@ public class MergeTwoGraphs {
 			if (strategy == null)
 				throw new IllegalArgumentException("Unknown merge strategy " + strategyOption.getValue());
 
+			setModuleThreadCount(Integer.parseInt(threadCountOption.getValue()));
+
+			matchIndexMode = HashMatchedNodes.IndexMode.forId(matchIndexOption.getValue());
+			if (matchIndexMode == null)
+				throw new IllegalArgumentException("Unknown match index " + matchIndexOption.getValue());
+
+			reachabilityMode = ReachabilityAnalysis.Mode.forId(reachabilityOption.getValue());
+			if (reachabilityMode == null)
+				throw new IllegalArgumentException("Unknown reachability mode " + reachabilityOption.getValue());
+
 			if (args.size() > 0)
 				Log.log("Ignoring %d extraneous command-line arguments", args.size());
 
@@ -179,10 +297,12 @@ public class MergeTwoGraphs {
 				} else {
 					filenameFormat = String.format(filenameFormat, rightCandidate.parseTraceName());
 				}
-				completion = new WriteCompletedGraphs(dataSink, filenameFormat);
+				completion = new WriteCompletedGraphs(dataSink, filenameFormat, columnarOption.getValue() ? outputDir
+						: null);
 			}
 
 			merge(leftCandidate, rightCandidate, strategy, logFile, completion);
+			MergeLog.flush();
 
 		} catch (Log.OutputException e) {
 			e.printStackTrace();
@@ -198,63 +318,57 @@ public class MergeTwoGraphs {
 		}
 	}
 
-	@SuppressWarnings("unchecked")
-	void merge(GraphMergeCandidate leftData, GraphMergeCandidate rightData, GraphMergeStrategy strategy, File logFile,
-			MergeCompletion completion) throws IOException {
-		long mergeStart = System.currentTimeMillis();
+	/**
+	 * Number of modules merged concurrently by <code>merge()</code>. A single thread merges the modules in order on
+	 * the calling thread.
+	 */
+	void setModuleThreadCount(int moduleThreadCount) {
+		if (moduleThreadCount < 1)
+			throw new IllegalArgumentException("The module thread count must be at least 1");
 
-		MergeResults results;
+		this.moduleThreadCount = moduleThreadCount;
+	}
+
+	void setMatchIndexMode(HashMatchedNodes.IndexMode matchIndexMode) {
+		this.matchIndexMode = matchIndexMode;
+	}
+
+	void setReachabilityMode(ReachabilityAnalysis.Mode reachabilityMode) {
+		this.reachabilityMode = reachabilityMode;
+	}
+
+	static MergeResults createResults(GraphMergeStrategy strategy) {
 		switch (strategy) {
 			case HASH:
-				results = new HashMergeAnalysis();
-				break;
+				return new HashMergeAnalysis();
 			case TAG:
-				results = new TagMergeResults();
-				break;
+				return new TagMergeResults();
 			default:
 				throw new IllegalArgumentException("Unknown merge strategy " + strategy);
 		}
+	}
+
+	@SuppressWarnings("unchecked")
+	void merge(GraphMergeCandidate leftData, GraphMergeCandidate rightData, GraphMergeStrategy strategy, File logFile,
+			MergeCompletion completion) throws IOException {
+		long mergeStart = System.currentTimeMillis();
+
+		MergeResults results = createResults(strategy);
 
-		// cs-todo: this can be multi-threaded for large training datasets
+		List<ApplicationModule> leftClusters = new ArrayList<ApplicationModule>();
 		for (ApplicationModule leftCluster : leftData.getRepresentedModules()) {
 			if (leftCluster.isAnonymous || !options.includeModule(leftCluster))
 				continue;
+			leftClusters.add(leftCluster);
+		}
 
-			Log.log("\n > Loading cluster %s < \n", leftCluster.name);
-
-			ApplicationGraph mergedGraph = null;
-			ModuleGraph<?> leftGraph = leftData.getModuleGraph(leftCluster);
-			ModuleGraph<?> rightGraph = rightData.getModuleGraph(leftCluster);
-			if (rightGraph == null) {
-				if (strategy == GraphMergeStrategy.TAG) {
-					Log.log("Copying left cluster %s because it does not appear in the right side.", leftCluster.name);
-					mergedGraph = new ApplicationGraph((ModuleGraph<ModuleNode<?>>) leftGraph);
-				} else {
-					Log.log("Skipping left cluster %s because it does not appear in the right side and has incompatible format with the merge data.",
-							leftCluster.name);
-					continue;
-				}
-			} else {
-				switch (strategy) {
-					case HASH:
-						mergedGraph = HashMergeSession.mergeTwoGraphs(leftGraph, rightGraph,
-								(HashMergeAnalysis) results, new HashMergeSession.DefaultEvaluator(), debugLog);
-						break;
-					case TAG:
-						mergedGraph = TagMergeSession.mergeTwoGraphs(leftGraph,
-								(ModuleGraph<ModuleNode<?>>) rightGraph, (TagMergeResults) results);
-						break;
-					default:
-						throw new IllegalArgumentException("Unknown merge strategy " + strategy);
-				}
-
-				Log.log("Checking reachability on the merged graph.");
-				mergedGraph.graph.resetAnalysis();
-				mergedGraph.graph.analyzeGraph(true);
+		if ((moduleThreadCount == 1) || (leftClusters.size() < 2)) {
+			for (ApplicationModule leftCluster : leftClusters) {
+				mergeModule(leftCluster, leftData, rightData, strategy, results, completion);
+				System.gc();
 			}
-
-			completion.mergeCompleted(mergedGraph);
-			System.gc();
+		} else {
+			mergeModulesInParallel(leftClusters, leftData, rightData, strategy, results, completion);
 		}
 
 		if ((strategy == GraphMergeStrategy.TAG) && (rightData != leftData)) {
@@ -296,6 +410,126 @@ public class MergeTwoGraphs {
 		}
 	}
 
+	/**
+	 * Each worker merges one module into its own results. In the order of <code>leftClusters</code>, the calling
+	 * thread then writes the merged graphs of each module through <code>completion</code> and appends its results to
+	 * <code>results</code>, so both the output and the results file are the same as for a sequential merge. (The log
+	 * lines of modules that are merged at the same time are interleaved.)
+	 */
+	private void mergeModulesInParallel(List<ApplicationModule> leftClusters, GraphMergeCandidate leftData,
+			GraphMergeCandidate rightData, GraphMergeStrategy strategy, MergeResults results,
+			MergeCompletion completion) throws IOException {
+		Log.log("Merging %d modules on %d threads", leftClusters.size(), moduleThreadCount);
+
+		ExecutorService workers = Executors.newFixedThreadPool(Math.min(moduleThreadCount, leftClusters.size()));
+		try {
+			List<ModuleMergeTask> tasks = new ArrayList<ModuleMergeTask>();
+			List<Future<MergeResults>> moduleResults = new ArrayList<Future<MergeResults>>();
+			for (ApplicationModule leftCluster : leftClusters) {
+				ModuleMergeTask task = new ModuleMergeTask(leftCluster, leftData, rightData, strategy);
+				tasks.add(task);
+				moduleResults.add(workers.submit(task));
+			}
+
+			for (int i = 0; i < moduleResults.size(); i++) {
+				try {
+					MergeResults moduleResult = moduleResults.get(i).get();
+					tasks.get(i).completeTo(completion);
+					results.appendModuleResults(moduleResult);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while waiting for a module merge", e);
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof IOException)
+						throw (IOException) e.getCause();
+					if (e.getCause() instanceof RuntimeException)
+						throw (RuntimeException) e.getCause();
+					if (e.getCause() instanceof Error)
+						throw (Error) e.getCause();
+					throw new IllegalStateException("Module merge failed", e.getCause());
+				}
+			}
+		} finally {
+			workers.shutdownNow();
+		}
+	}
+
+	/**
+	 * @return the profile of the merge, or null if the module was skipped
+	 */
+	@SuppressWarnings("unchecked")
+	ModuleMergeProfile mergeModule(ApplicationModule leftCluster, GraphMergeCandidate leftData,
+			GraphMergeCandidate rightData, GraphMergeStrategy strategy, MergeResults results,
+			MergeCompletion completion) throws IOException {
+		Log.log("\n > Loading cluster %s < \n", leftCluster.name);
+
+		ModuleMergeProfile profile = new ModuleMergeProfile();
+		ApplicationGraph mergedGraph = null;
+		long start = System.nanoTime();
+		ModuleGraph<?> leftGraph = leftData.getModuleGraph(leftCluster);
+		ModuleGraph<?> rightGraph = rightData.getModuleGraph(leftCluster);
+		profile.phaseCompleted(ModuleMergeProfile.Phase.LOAD, start);
+		if (rightGraph == null) {
+			if (strategy == GraphMergeStrategy.TAG) {
+				Log.log("Copying left cluster %s because it does not appear in the right side.", leftCluster.name);
+				mergedGraph = new ApplicationGraph((ModuleGraph<ModuleNode<?>>) leftGraph);
+			} else {
+				Log.log("Skipping left cluster %s because it does not appear in the right side and has incompatible format with the merge data.",
+						leftCluster.name);
+				return null;
+			}
+		} else {
+			mergedGraph = mergeModuleGraphs(leftGraph, rightGraph, strategy, results, profile);
+		}
+
+		start = System.nanoTime();
+		completion.mergeCompleted(mergedGraph);
+		profile.phaseCompleted(ModuleMergeProfile.Phase.WRITE, start);
+		results.setPhaseProfile(leftCluster, profile);
+		return profile;
+	}
+
+	/**
+	 * Merge one module of the left side into the same module of the right side and check reachability on the result.
+	 * The tag strategy merges in place, so the returned graph wraps <code>rightGraph</code>.
+	 */
+	ApplicationGraph mergeModuleGraphs(ModuleGraph<?> leftGraph, ModuleGraph<?> rightGraph,
+			GraphMergeStrategy strategy, MergeResults results) {
+		return mergeModuleGraphs(leftGraph, rightGraph, strategy, results, new ModuleMergeProfile());
+	}
+
+	/**
+	 * Same as above, timing each phase of the merge in <code>profile</code>.
+	 */
+	@SuppressWarnings("unchecked")
+	ApplicationGraph mergeModuleGraphs(ModuleGraph<?> leftGraph, ModuleGraph<?> rightGraph,
+			GraphMergeStrategy strategy, MergeResults results, ModuleMergeProfile profile) {
+		ApplicationGraph mergedGraph;
+		TagMergeFragment mergeFragment = null;
+		switch (strategy) {
+			case HASH:
+				mergedGraph = HashMergeSession.mergeTwoGraphs(leftGraph, rightGraph, (HashMergeAnalysis) results,
+						profile, matchIndexMode, new HashMergeSession.DefaultEvaluator(), debugLog);
+				break;
+			case TAG:
+				TagMergeSession session = new TagMergeSession(leftGraph, (ModuleGraph<ModuleNode<?>>) rightGraph,
+						(TagMergeResults) results, profile);
+				mergedGraph = session.merge();
+				mergeFragment = session.getMergeFragment();
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown merge strategy " + strategy);
+		}
+
+		Log.log("Checking reachability on the merged graph.");
+		long start = System.nanoTime();
+		synchronized (mergedGraph.graph) {
+			ReachabilityAnalysis.analyze(mergedGraph.graph, reachabilityMode, mergeFragment);
+		}
+		profile.phaseCompleted(ModuleMergeProfile.Phase.REACHABILITY, start);
+		return mergedGraph;
+	}
+
 	private GraphMergeCandidate loadMergeCandidate(String path) throws IOException {
 		File directory = new File(path.substring(path.indexOf(':') + 1));
 		if (!(directory.exists() && directory.isDirectory())) {
@@ -322,7 +556,7 @@ public class MergeTwoGraphs {
 		return candidate;
 	}
 
-	private void writeResults(MergeResults results, String resultsFilename, File logFile) throws IOException {
+	static void writeResults(MergeResults results, String resultsFilename, File logFile) throws IOException {
 		String resultsPath = new File(logFile.getParentFile(), resultsFilename).getPath();
 		File resultsFile = LogFile.create(resultsPath, LogFile.CollisionMode.ERROR, LogFile.NoSuchPathMode.ERROR);
 		FileOutputStream out = new FileOutputStream(resultsFile);
@@ -347,6 +581,10 @@ public class MergeTwoGraphs {
 						.format("in-place: %s [ -c <cluster-name>,... ] [ -d <crowd-safe-common-dir> ] [ -l <log-dir> ]\n\t-i { c: | e: }<in-place-trace-dir> { c: | e: }<other-trace-dir>",
 								MergeTwoGraphs.class.getSimpleName()));
 		System.out.println("-s { hash | tag } (merge strategy)");
+		System.out.println("-t <thread-count> (merge this many modules concurrently; output is written in module order, log lines interleave)");
+		System.out.println("-k { dense | keyed | validate } (index of hash-matched nodes)");
+		System.out.println("-p { serial | parallel | incremental | validate } (reachability analysis of merged modules)");
+		System.out.println("-g (also write each merged module as a columnar dataset)");
 		System.out.println("-c <cluster-name>,... (include only these clusters)");
 		System.out.println("-x <cluster-name>,... (exclude these clusters)");
 		System.out.println("-d <crowd-safe-common-dir>");
@@ -358,7 +596,8 @@ public class MergeTwoGraphs {
 		MergeTwoGraphs main = new MergeTwoGraphs(new CommonMergeOptions(stack, CommonMergeOptions.crowdSafeCommonDir,
 				CommonMergeOptions.restrictedModuleOption, CommonMergeOptions.unitModuleOption,
 				CommonMergeOptions.excludeModuleOption, logFilenameOption, nameOption, strategyOption, outputOption,
-				inPlaceOption, verboseOption));
+				inPlaceOption, verboseOption, threadCountOption, matchIndexOption,
+				reachabilityOption, columnarOption));
 		main.run(stack);
 
 		main.toString();
@@ -6,12 +6,16 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import edu.uci.plrg.cfi.common.log.Log;
 import edu.uci.plrg.cfi.common.log.LogFile;
@@ -21,7 +25,6 @@ import edu.uci.plrg.cfi.common.util.OptionArgumentMap;
 import edu.uci.plrg.cfi.x86.graph.data.application.ApplicationModuleSet;
 import edu.uci.plrg.cfi.x86.graph.data.application.ApplicationModule;
 import edu.uci.plrg.cfi.x86.graph.data.graph.ModuleGraph;
-import edu.uci.plrg.cfi.x86.graph.data.graph.anonymous.ApplicationAnonymousGraphs;
 import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ApplicationGraph;
 import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ModuleNode;
 import edu.uci.plrg.cfi.x86.graph.data.graph.modular.loader.ModuleGraphLoadSession;
@@ -30,9 +33,12 @@ import edu.uci.plrg.cfi.x86.graph.io.modular.ModularTraceDataSink;
 import edu.uci.plrg.cfi.x86.graph.io.modular.ModularTraceDataSource;
 import edu.uci.plrg.cfi.x86.graph.io.modular.ModularTraceDirectory;
 import edu.uci.plrg.cfi.x86.graph.main.CommonMergeOptions;
-import edu.uci.plrg.cfi.x86.merge.graph.GraphMergeCandidate;
 import edu.uci.plrg.cfi.x86.merge.graph.GraphMergeStrategy;
-import edu.uci.plrg.cfi.x86.merge.graph.hash.HashMergeDebugLog;
+import edu.uci.plrg.cfi.x86.merge.graph.MergeResults;
+import edu.uci.plrg.cfi.x86.merge.graph.ModuleMergeProfile;
+import edu.uci.plrg.cfi.x86.merge.graph.hash.HashMatchedNodes;
+import edu.uci.plrg.cfi.x86.merge.graph.tag.TagMergeSession;
+import edu.uci.plrg.cfi.x86.merge.util.MergeLog;
 
 public class ModularGraphTraining {
 
@@ -58,159 +64,218 @@ public class ModularGraphTraining {
 		}
 	}
 
-	private class TrainingThread extends Thread {
+	private enum TrainingMode {
+		SEGMENTED("segmented"),
+		TREE("tree"),
+		SEQUENTIAL("sequential");
 
-		private class TrainingDataset implements GraphMergeCandidate {
-			private ApplicationGraph graph;
-			private final Graph.Process.Builder summaryBuilder = Graph.Process.newBuilder();
+		final String id;
 
-			@Override
-			public ModuleGraph<?> getModuleGraph(ApplicationModule module) throws IOException {
-				return graph.graph;
-			}
+		private TrainingMode(String id) {
+			this.id = id;
+		}
 
-			@Override
-			public ApplicationAnonymousGraphs getAnonymousGraph() throws IOException {
-				throw new UnsupportedOperationException("Not implemented");
+		static TrainingMode forId(String id) {
+			for (TrainingMode mode : TrainingMode.values()) {
+				if (mode.id.equals(id))
+					return mode;
 			}
+			return null;
+		}
+	}
 
-			@Override
-			public Collection<ApplicationModule> getRepresentedModules() {
-				return Collections.singleton(currentConfiguration.module);
-			}
+	/**
+	 * Trains one module by reducing its runs as a merge tree on the fork/join pool: each segment of runs is folded
+	 * into the first run of the segment, and the partial datasets are then merged pairwise.
+	 */
+	private class ModuleTraining extends RecursiveAction {
+		private final ModuleTrainingConfiguration configuration;
+		private final List<Integer> runIndexes;
+		private final long estimatedCost;
+		private final int segmentSize;
+
+		private PrintWriter sequenceWriter;
+
+		ModuleTraining(ModuleTrainingConfiguration configuration, List<Integer> runIndexes, long estimatedCost,
+				int segmentSize) {
+			this.configuration = configuration;
+			this.runIndexes = runIndexes;
+			this.estimatedCost = estimatedCost;
+			this.segmentSize = segmentSize;
+		}
 
-			@Override
-			public void loadData() throws IOException {
-				ModuleGraphLoadSession loadSession = new ModuleGraphLoadSession(dataSources.get(datasetIndex));
-				graph = new ApplicationGraph(loadSession.loadModuleGraph(currentConfiguration.module));
-			}
+		@Override
+		protected void compute() {
+			long start = System.currentTimeMillis();
+			try {
+				Log.sharedLog("Training module %s on %d runs (estimated cost %d)", configuration.module.name,
+						runIndexes.size(), estimatedCost);
 
-			@Override
-			public String parseTraceName() {
-				return "dataset";
-			}
+				sequenceWriter = new PrintWriter(configuration.sequenceFile);
+				try {
+					ModuleGraph<ModuleNode<?>> dataset = new RunReduction(this, 0, runIndexes.size()).compute();
+					if (verifyOption.getValue() && (segmentSize < runIndexes.size()))
+						verifyAgainstSequentialTraining(dataset);
 
-			@Override
-			public void summarizeModule(ApplicationModule module) {
-			}
+					ModularTraceDataSink dataSink = new ModularTraceDirectory(outputDir);
+					MergeTwoGraphs.WriteCompletedGraphs completion = new MergeTwoGraphs.WriteCompletedGraphs(dataSink,
+							"dataset.%s.%s.%s", columnarOption.getValue() ? outputDir : null);
+					completion.mergeCompleted(new ApplicationGraph(dataset));
+				} finally {
+					sequenceWriter.flush();
+					sequenceWriter.close();
+				}
 
-			@Override
-			public Graph.Process summarizeGraph() {
-				summaryBuilder.clear().setName("dataset");
-				summaryBuilder.addModule(graph.graph.summarize(graph.graph.module.isAnonymous));
-				return summaryBuilder.build();
+				Log.sharedLog("Trained module %s in %f seconds", configuration.module.name,
+						((System.currentTimeMillis() - start) / 1000.));
+			} catch (Throwable t) {
+				failedTrainingCount.incrementAndGet();
+				fail(t, String.format("\t@@@@ Training of module %s failed with %s @@@@", configuration.module.name,
+						t.getClass().getSimpleName()));
 			}
 		}
 
-		private class TrainingInstance implements GraphMergeCandidate {
-			private ModuleGraph<?> graph;
-			private final Graph.Process.Builder summaryBuilder = Graph.Process.newBuilder();
-
-			@Override
-			public ModuleGraph<?> getModuleGraph(ApplicationModule module) throws IOException {
-				return graph;
+		/**
+		 * Folds all the runs into the first one again, as a sequential training would, and checks that the result has
+		 * the same nodes and edges as the reduced dataset.
+		 */
+		private void verifyAgainstSequentialTraining(ModuleGraph<ModuleNode<?>> dataset) throws IOException {
+			logTo("verify.log");
+			Log.log("Verifying the %s training of module %s against a sequential training", mode.id,
+					configuration.module.name);
+
+			ModuleGraph<ModuleNode<?>> sequentialDataset = loadRun(0);
+			for (int i = 1; i < runIndexes.size(); i++) {
+				ModuleGraph<ModuleNode<?>> instance = loadRun(i);
+				sequentialDataset = createExecutor().mergeModuleGraphs(instance, sequentialDataset, strategy,
+						MergeTwoGraphs.createResults(strategy)).graph;
 			}
 
-			@Override
-			public ApplicationAnonymousGraphs getAnonymousGraph() throws IOException {
-				throw new UnsupportedOperationException("Not implemented");
+			if (new DatasetEquivalence(dataset).isEquivalent(new DatasetEquivalence(sequentialDataset), mode.id,
+					"sequential")) {
+				Log.sharedLog("Verified the %s training of module %s", mode.id, configuration.module.name);
+			} else {
+				Log.sharedLog("Error! The %s training of module %s differs from the sequential training (see %s)",
+						mode.id, configuration.module.name, new File(configuration.moduleLogDir, "verify.log"));
 			}
+		}
 
-			@Override
-			public Collection<ApplicationModule> getRepresentedModules() {
-				return Collections.singleton(currentConfiguration.module);
-			}
+		String getRunId(int runPosition) {
+			return runIds.get(runIndexes.get(runPosition));
+		}
 
-			@Override
-			public void loadData() throws IOException {
-				ModuleGraphLoadSession loadSession = new ModuleGraphLoadSession(dataSources.get(instanceIndex));
-				graph = loadSession.loadModuleGraph(currentConfiguration.module);
-			}
+		/**
+		 * Directs this thread's log to the named file in the module log directory. A fork/join worker may run other
+		 * tasks while it waits on a join, so each step sets its own log before writing to it.
+		 */
+		File logTo(String logFilename) throws IOException {
+			File logFile = new File(configuration.moduleLogDir, logFilename);
+			MergeLog.setThreadScoped(true);
+			Log.clearThreadOutputs();
+			Log.addThreadOutput(logFile);
+			return logFile;
+		}
 
-			@Override
-			public String parseTraceName() {
-				return runIds.get(instanceIndex);
-			}
+		ModuleGraph<ModuleNode<?>> loadRun(int runPosition) throws IOException {
+			ModuleGraphLoadSession loadSession = new ModuleGraphLoadSession(dataSources.get(runIndexes
+					.get(runPosition)));
+			return loadSession.loadModuleGraph(configuration.module);
+		}
 
-			@Override
-			public void summarizeModule(ApplicationModule module) {
+		ModuleGraph<ModuleNode<?>> merge(ModuleGraph<ModuleNode<?>> instance, String instanceName,
+				ModuleGraph<ModuleNode<?>> dataset, File logFile) throws IOException {
+			String resultsFilename = MergeTwoGraphs.getCorrespondingResultsFilename(logFile);
+			synchronized (this) {
+				sequenceWriter.println(resultsFilename);
 			}
 
-			@Override
-			public Graph.Process summarizeGraph() {
-				summaryBuilder.clear().setName(parseTraceName());
-				summaryBuilder.addModule(graph.summarize(graph.module.isAnonymous));
-				return summaryBuilder.build();
+			MergeResults results = MergeTwoGraphs.createResults(strategy);
+			ModuleMergeProfile profile = new ModuleMergeProfile();
+			ApplicationGraph mergedGraph;
+			metrics.mergeStarted(String.format("%s:%s", configuration.module.name, instanceName));
+			try {
+				mergedGraph = createExecutor().mergeModuleGraphs(instance, dataset, strategy, results, profile);
+			} catch (Throwable t) {
+				metrics.mergeFailed();
+				throw t;
+			} finally {
+				MergeLog.flushThread();
 			}
+			metrics.mergeCompleted(profile);
+			results.setPhaseProfile(instance.module, profile);
+			results.setGraphSummaries(summarizeGraph(instanceName, instance), summarizeGraph("dataset", dataset));
+			MergeTwoGraphs.writeResults(results, resultsFilename, logFile);
+			return mergedGraph.graph;
 		}
+	}
 
-		private final int index = THREAD_INDEX++;
-		private final MergeTwoGraphs executor = new MergeTwoGraphs(commonOptions);
-		private final HashMergeDebugLog debugLog = new HashMergeDebugLog();
+	private class RunReduction extends RecursiveTask<ModuleGraph<ModuleNode<?>>> {
+		private final ModuleTraining training;
+		private final int start;
+		private final int end;
 
-		private ModuleTrainingConfiguration currentConfiguration;
-		private final TrainingDataset dataset = new TrainingDataset();
-		private final TrainingInstance instance = new TrainingInstance();
-		private int datasetIndex;
-		private int instanceIndex;
+		RunReduction(ModuleTraining training, int start, int end) {
+			this.training = training;
+			this.start = start;
+			this.end = end;
+		}
 
 		@Override
-		public void run() {
+		protected ModuleGraph<ModuleNode<?>> compute() {
 			try {
-				while (true) {
-					currentConfiguration = getNextModule();
-					if (currentConfiguration == null)
-						break;
-
-					for (datasetIndex = 0; datasetIndex < dataSources.size(); datasetIndex++) {
-						if (dataSources.get(datasetIndex).getReprsentedModules().contains(currentConfiguration.module))
-							break;
-					}
-
-					if (datasetIndex == dataSources.size()) {
-						Log.log("Skipping module %s because no runs contain it.", currentConfiguration.module.name);
-						continue;
-					}
-
-					File logFile = new File(currentConfiguration.moduleLogDir, "dataset.load.log");
-					Log.clearThreadOutputs();
-					Log.addThreadOutput(logFile);
-					dataset.loadData();
+				if ((end - start) <= training.segmentSize)
+					return foldRuns();
+
+				int middle = (start + end) >>> 1;
+				RunReduction laterRuns = new RunReduction(training, middle, end);
+				laterRuns.fork();
+				ModuleGraph<ModuleNode<?>> dataset = new RunReduction(training, start, middle).compute();
+				ModuleGraph<ModuleNode<?>> partialDataset = laterRuns.join();
+
+				String partialName = String.format("%s-%s", training.getRunId(middle), training.getRunId(end - 1));
+				File logFile = training.logTo(String.format("%s.merge.log", partialName));
+				Log.log("Merging the partial dataset of runs %s into the partial dataset of runs %s-%s", partialName,
+						training.getRunId(start), training.getRunId(middle - 1));
+				return training.merge(partialDataset, partialName, dataset, logFile);
+			} catch (IOException e) {
+				throw new IllegalStateException(String.format("Failed to train module %s on runs %s-%s",
+						training.configuration.module.name, training.getRunId(start), training.getRunId(end - 1)), e);
+			}
+		}
 
-					ModularTraceDataSink dataSink = new ModularTraceDirectory(outputDir);
-					String filenameFormat = "dataset.%s.%s.%s";
-					MergeTwoGraphs.WriteCompletedGraphs completion = new MergeTwoGraphs.WriteCompletedGraphs(dataSink,
-							filenameFormat);
-
-					PrintWriter sequenceWriter = new PrintWriter(currentConfiguration.sequenceFile);
-					try {
-						Log.sharedLog("Thread %d training module %s", index, currentConfiguration.module.name);
-						for (instanceIndex = datasetIndex + 1; instanceIndex < dataSources.size(); instanceIndex++) {
-							if (!dataSources.get(instanceIndex).getReprsentedModules()
-									.contains(currentConfiguration.module))
-								continue;
-
-							logFile = new File(currentConfiguration.moduleLogDir, String.format("%s.merge.log",
-									runIds.get(instanceIndex)));
-							Log.clearThreadOutputs();
-							Log.addThreadOutput(logFile);
-
-							instance.loadData();
-							sequenceWriter.println(MergeTwoGraphs.getCorrespondingResultsFilename(logFile));
-							executor.merge(instance, dataset, strategy, logFile, completion);
-						}
-					} finally {
-						sequenceWriter.flush();
-						sequenceWriter.close();
-					}
-				}
-			} catch (Throwable t) {
-				fail(t, String.format("\t@@@@ Merge %s on thread %d failed with %s @@@@",
-						currentConfiguration.module.name, index, t.getClass().getSimpleName()));
+		private ModuleGraph<ModuleNode<?>> foldRuns() throws IOException {
+			training.logTo(start == 0 ? "dataset.load.log" : String.format("%s.load.log", training.getRunId(start)));
+			ModuleGraph<ModuleNode<?>> dataset = training.loadRun(start);
+
+			for (int i = start + 1; i < end; i++) {
+				String runId = training.getRunId(i);
+				File logFile = training.logTo(String.format("%s.merge.log", runId));
+				ModuleGraph<ModuleNode<?>> instance = training.loadRun(i);
+				dataset = training.merge(instance, runId, dataset, logFile);
 			}
+			return dataset;
 		}
 	}
 
+	/**
+	 * A new merge executor for each merge, since the merges run concurrently on the pool and the executor keeps
+	 * per-merge state (such as its debug log). Each one merges with the match index and reachability modes of the
+	 * training options.
+	 */
+	private MergeTwoGraphs createExecutor() {
+		MergeTwoGraphs executor = new MergeTwoGraphs(commonOptions);
+		executor.setMatchIndexMode(matchIndexMode);
+		executor.setReachabilityMode(reachabilityMode);
+		return executor;
+	}
+
+	private static Graph.Process summarizeGraph(String name, ModuleGraph<?> graph) {
+		Graph.Process.Builder summaryBuilder = Graph.Process.newBuilder();
+		summaryBuilder.setName(name);
+		summaryBuilder.addModule(graph.summarize(graph.module.isAnonymous));
+		return summaryBuilder.build();
+	}
+
 	private static void fail(Throwable t, String sharedLogMessage) {
 		Log.sharedLog(sharedLogMessage);
 		Log.sharedLog(t);
@@ -222,7 +287,8 @@ public class ModularGraphTraining {
 
 	private static final String MAIN_LOG_FILENAME = "train.log";
 
-	private static int THREAD_INDEX = 0;
+	// modules with fewer runs than this are folded sequentially by a single task
+	private static final int MIN_SEGMENT_SIZE = 4;
 
 	private final OptionArgumentMap.StringOption logPathOption = OptionArgumentMap.createStringOption('l',
 			OptionArgumentMap.OptionMode.REQUIRED);
@@ -235,12 +301,26 @@ public class ModularGraphTraining {
 			OptionArgumentMap.OptionMode.REQUIRED);
 	private final OptionArgumentMap.StringOption moduleListOption = OptionArgumentMap.createStringOption('c',
 			OptionArgumentMap.OptionMode.REQUIRED);
+	private final OptionArgumentMap.StringOption modeOption = OptionArgumentMap.createStringOption('m',
+			TrainingMode.SEGMENTED.id);
+	private final OptionArgumentMap.BooleanOption verifyOption = OptionArgumentMap.createBooleanOption('v');
+	private final OptionArgumentMap.StringOption metricsOption = OptionArgumentMap.createStringOption('w');
+	private final OptionArgumentMap.BooleanOption columnarOption = OptionArgumentMap.createBooleanOption('g');
+	private final OptionArgumentMap.StringOption matchIndexOption = OptionArgumentMap.createStringOption('k',
+			HashMatchedNodes.IndexMode.DENSE.id);
+	private final OptionArgumentMap.StringOption reachabilityOption = OptionArgumentMap.createStringOption('p',
+			ReachabilityAnalysis.Mode.INCREMENTAL.id);
 
 	private File logDir;
 	private File outputDir;
 	private final ArgumentStack args;
 	private final CommonMergeOptions commonOptions;
 	private GraphMergeStrategy strategy;
+	private TrainingMode mode;
+	private HashMatchedNodes.IndexMode matchIndexMode;
+	private ReachabilityAnalysis.Mode reachabilityMode;
+	private MergeMetrics metrics;
+	private final AtomicInteger failedTrainingCount = new AtomicInteger();
 
 	private final List<String> moduleNames = new ArrayList<String>();
 	private final List<ModularTraceDataSource> dataSources = new ArrayList<ModularTraceDataSource>();
@@ -251,7 +331,8 @@ public class ModularGraphTraining {
 		this.args = args;
 		commonOptions = new CommonMergeOptions(args, CommonMergeOptions.crowdSafeCommonDir,
 				CommonMergeOptions.unitModuleOption, logPathOption, threadCountOption, outputDirectoryOption,
-				runListOption, moduleListOption);
+				runListOption, moduleListOption, modeOption, verifyOption, metricsOption, columnarOption,
+				matchIndexOption, reachabilityOption);
 	}
 
 	void run() {
@@ -273,9 +354,37 @@ public class ModularGraphTraining {
 
 			strategy = GraphMergeStrategy.forId(strategyOption.getValue());
 			if (strategy == null)
-				Log.log("Unknown merge strategy %s. Exiting now.", strategyOption.getValue());
+				throw new IllegalArgumentException("Unknown merge strategy " + strategyOption.getValue());
+
+			mode = TrainingMode.forId(modeOption.getValue());
+			if (mode == null)
+				throw new IllegalArgumentException("Unknown training mode " + modeOption.getValue());
+			// only the tag merge can merge one partial dataset into another
+			if ((mode != TrainingMode.SEQUENTIAL) && (strategy != GraphMergeStrategy.TAG))
+				throw new IllegalArgumentException(String.format(
+						"The %s training mode requires the tag merge strategy", mode.id));
+
+			matchIndexMode = HashMatchedNodes.IndexMode.forId(matchIndexOption.getValue());
+			if (matchIndexMode == null)
+				throw new IllegalArgumentException("Unknown match index " + matchIndexOption.getValue());
+
+			reachabilityMode = ReachabilityAnalysis.Mode.forId(reachabilityOption.getValue());
+			if (reachabilityMode == null)
+				throw new IllegalArgumentException("Unknown reachability mode " + reachabilityOption.getValue());
 
 			outputDir = new File(outputDirectoryOption.getValue());
+			metrics = new MergeMetrics(metricsOption.hasValue() ? new File(metricsOption.getValue()) : null);
+			metrics.addCache("tag_merge_hash_index", new MergeMetrics.CacheCounts() {
+				@Override
+				public long getHitCount() {
+					return TagMergeSession.getHashIndexHitCount();
+				}
+
+				@Override
+				public long getMissCount() {
+					return TagMergeSession.getHashIndexMissCount();
+				}
+			});
 
 			parsingArguments = false;
 
@@ -297,27 +406,38 @@ public class ModularGraphTraining {
 							.add(new ModuleTrainingConfiguration(module, sequenceFile, moduleLogDirectory));
 				}
 
-				List<TrainingThread> threads = new ArrayList<TrainingThread>();
 				int threadCount = Integer.parseInt(threadCountOption.getValue());
-				int moduleCount = trainingConfigurations.size();
-				int mergeCount = moduleCount * moduleNames.size();
-				int partitionSize = mergeCount / threadCount;
-
-				Log.log("Starting %d threads to train %d modules (~%d merges each)", threadCount,
-						trainingConfigurations.size(), partitionSize);
-
-				for (int i = 0; i < threadCount; i++) {
-					TrainingThread thread = new TrainingThread();
-					thread.start();
-					threads.add(thread);
-				}
-
-				for (TrainingThread thread : threads) {
-					thread.join();
+				List<ModuleTraining> trainings = scheduleTraining(threadCount);
+				int moduleCount = trainings.size();
+				int mergeCount = 0;
+				for (ModuleTraining training : trainings)
+					mergeCount += (training.runIndexes.size() - 1);
+
+				Log.log("Starting %d threads to train %d modules (%d merges) in %s mode", threadCount, moduleCount,
+						mergeCount, mode.id);
+				metrics.addMerges(mergeCount);
+
+				ForkJoinPool pool = new ForkJoinPool(threadCount);
+				metrics.start();
+				try {
+					for (ModuleTraining training : trainings)
+						pool.execute(training);
+					for (ModuleTraining training : trainings)
+						training.join();
+				} finally {
+					pool.shutdown();
+					metrics.stop();
 				}
 
 				Log.log("\nTraining of %d modules (%d merges) on %d threads in %f seconds.", moduleCount, mergeCount,
 						threadCount, ((System.currentTimeMillis() - trainingStart) / 1000.));
+
+				if (failedTrainingCount.get() > 0) {
+					Log.log("Error! Training of %d of %d modules failed (see %s).", failedTrainingCount.get(),
+							moduleCount, new File(logDir, MAIN_LOG_FILENAME));
+					System.err.println(String.format("!! Training of %d modules failed !!", failedTrainingCount.get()));
+					System.exit(1);
+				}
 			}
 
 		} catch (Throwable t) {
@@ -380,16 +500,79 @@ public class ModularGraphTraining {
 		}
 	}
 
-	private synchronized ModuleTrainingConfiguration getNextModule() {
-		if (trainingConfigurations.isEmpty())
-			return null;
-		return trainingConfigurations.remove(trainingConfigurations.size() - 1);
+	/**
+	 * Creates a training task for each module that appears in at least one run, ordered with the most expensive module
+	 * first so the largest merge trees start while the other threads pick up the small modules. In segmented mode,
+	 * large modules are split into about one segment of runs per thread; tree mode merges the runs pairwise in a
+	 * balanced binary tree, and sequential mode folds every run into the first one.
+	 */
+	private List<ModuleTraining> scheduleTraining(int threadCount) {
+		List<ModuleTraining> trainings = new ArrayList<ModuleTraining>();
+		for (ModuleTrainingConfiguration configuration : trainingConfigurations) {
+			List<Integer> runIndexes = new ArrayList<Integer>();
+			long estimatedCost = 0L;
+			for (int i = 0; i < dataSources.size(); i++) {
+				if (dataSources.get(i).getReprsentedModules().contains(configuration.module)) {
+					runIndexes.add(i);
+					estimatedCost += estimateNodeCount(dataSources.get(i), configuration.module);
+				}
+			}
+
+			if (runIndexes.isEmpty()) {
+				Log.log("Skipping module %s because no runs contain it.", configuration.module.name);
+				continue;
+			}
+
+			int segmentSize;
+			switch (mode) {
+				case TREE:
+					segmentSize = 1;
+					break;
+				case SEQUENTIAL:
+					segmentSize = runIndexes.size();
+					break;
+				default:
+					segmentSize = Math.max(MIN_SEGMENT_SIZE, (runIndexes.size() + threadCount - 1) / threadCount);
+			}
+			trainings.add(new ModuleTraining(configuration, runIndexes, estimatedCost, segmentSize));
+		}
+
+		Collections.sort(trainings, new Comparator<ModuleTraining>() {
+			@Override
+			public int compare(ModuleTraining first, ModuleTraining second) {
+				if (first.estimatedCost == second.estimatedCost)
+					return 0;
+				return (first.estimatedCost > second.estimatedCost) ? -1 : 1;
+			}
+		});
+		return trainings;
+	}
+
+	/**
+	 * The node stream of a module has one fixed-size entry per node, so its file size is proportional to the node
+	 * count. This avoids loading every module just to decide the order of training.
+	 */
+	private static long estimateNodeCount(ModularTraceDataSource dataSource, ApplicationModule module) {
+		File[] files = dataSource.getDirectory().listFiles();
+		if (files == null)
+			return 0L;
+
+		long nodeStreamSize = 0L;
+		for (File file : files) {
+			int streamStart = file.getName().indexOf(".graph-node.");
+			if (streamStart < 0)
+				continue;
+			String prefix = file.getName().substring(0, streamStart);
+			if (prefix.endsWith("." + module.name) || prefix.endsWith("." + module.filename))
+				nodeStreamSize += file.length();
+		}
+		return nodeStreamSize;
 	}
 
 	private void printUsageAndExit() {
 		System.out
 				.println(String
-						.format("Usage: %s -l <log-path> [ -c <cluster-name>,... ]\n\t[ -d <crowd-safe-common-dir> ][ -t <thread-count> ]\n\t[ -u (include unity merge) ] <run-list-file>",
+						.format("Usage: %s -l <log-path> [ -c <cluster-name>,... ]\n\t[ -d <crowd-safe-common-dir> ][ -t <thread-count> ]\n\t[ -u (include unity merge) ] [ -m { segmented | tree | sequential } ] [ -v (verify against sequential) ]\n\t[ -w <metrics-file> ] [ -g (also write columnar datasets) ]\n\t[ -k { dense | keyed | validate } ] [ -p { serial | parallel | incremental | validate } ] <run-list-file>",
 								getClass().getSimpleName()));
 		System.exit(1);
 	}
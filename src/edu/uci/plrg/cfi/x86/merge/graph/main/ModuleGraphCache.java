@@ -0,0 +1,388 @@
+package edu.uci.plrg.cfi.x86.merge.graph.main;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.uci.plrg.cfi.common.log.Log;
+import edu.uci.plrg.cfi.x86.graph.data.application.ApplicationModule;
+import edu.uci.plrg.cfi.x86.graph.data.graph.ModuleGraph;
+import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ApplicationGraph;
+import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ModuleNode;
+import edu.uci.plrg.cfi.x86.graph.data.graph.modular.loader.ModuleGraphLoadSession;
+import edu.uci.plrg.cfi.x86.graph.data.graph.modular.writer.ModuleGraphWriter;
+import edu.uci.plrg.cfi.x86.graph.data.results.Graph;
+import edu.uci.plrg.cfi.x86.graph.io.modular.ModularTraceDataSink;
+import edu.uci.plrg.cfi.x86.graph.io.modular.ModularTraceDataSource;
+import edu.uci.plrg.cfi.x86.graph.io.modular.ModularTraceDirectory;
+import edu.uci.plrg.cfi.x86.merge.graph.hash.HashMergeDebugLog;
+
+/**
+ * Keeps the most recently used module graphs of a set of runs in memory, within a budget on their estimated heap size.
+ * A graph is pinned from <code>acquire()</code> until the matching <code>release()</code>, and only unpinned graphs are
+ * evicted. Evicted graphs are reloaded from their run directory on the next request. The summary of each module is
+ * kept after eviction, so summarizing a run does not require its graphs to stay resident.
+ *
+ * A graph that is acquired for modification (the right side of a tag merge, which merges into it in place) is dirty
+ * until it is evicted. Eviction then writes it to a spill directory first, outside the cache lock, and the graph is
+ * reloaded from there on the next request, so no merged changes are lost. Requests for a graph that is being spilled
+ * wait until the write completes.
+ */
+class ModuleGraphCache implements MergeMetrics.CacheCounts {
+
+	/**
+	 * Rough heap footprint of a loaded node with its edges, used to estimate the size of a module graph from its node
+	 * count.
+	 */
+	static final long ESTIMATED_BYTES_PER_NODE = 512L;
+
+	private static class Key {
+		final ModularTraceDataSource dataSource;
+		final ApplicationModule module;
+
+		Key(ModularTraceDataSource dataSource, ApplicationModule module) {
+			this.dataSource = dataSource;
+			this.module = module;
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + System.identityHashCode(dataSource);
+			result = prime * result + module.hashCode();
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			Key other = (Key) obj;
+			return (dataSource == other.dataSource) && module.equals(other.module);
+		}
+	}
+
+	private static class Entry {
+		final Key key;
+		ModuleGraph<ModuleNode<?>> graph;
+		long estimatedSize;
+		int pinCount;
+		boolean loaded;
+		boolean failed;
+		// modified since it was loaded, so it must be spilled before it is evicted
+		boolean dirty;
+		boolean spilling;
+
+		Entry(Key key) {
+			this.key = key;
+		}
+	}
+
+	private final long heapBudget;
+	private final File spillDirectory;
+	private final HashMergeDebugLog debugLog;
+
+	// access order, so iteration starts at the least recently used graph
+	private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+	private final Map<Key, Graph.Module> summaries = new HashMap<Key, Graph.Module>();
+	// where each spilled graph is reloaded from, and the directory of its latest spill
+	private final Map<Key, ModularTraceDataSource> spilledSources = new HashMap<Key, ModularTraceDataSource>();
+	private final Map<Key, File> spilledDirectories = new HashMap<Key, File>();
+
+	private long residentSize = 0L;
+	private long peakResidentSize = 0L;
+	private int hitCount = 0;
+	private int missCount = 0;
+	private int evictionCount = 0;
+	private int spillCount = 0;
+	private int spillDirectoryIndex = 0;
+
+	/**
+	 * @param spillDirectory
+	 *            directory in which modified graphs are written when they are evicted
+	 */
+	ModuleGraphCache(long heapBudget, File spillDirectory, HashMergeDebugLog debugLog) {
+		this.heapBudget = heapBudget;
+		this.spillDirectory = spillDirectory;
+		this.debugLog = debugLog;
+	}
+
+	ModuleGraph<ModuleNode<?>> acquire(ModularTraceDataSource dataSource, ApplicationModule module)
+			throws IOException {
+		return acquire(dataSource, module, false);
+	}
+
+	/**
+	 * Returns the graph of <code>module</code> in the run of <code>dataSource</code>, loading it if necessary, and
+	 * pins it until <code>release()</code> is called with the same arguments. Returns null if the run does not contain
+	 * the module.
+	 * 
+	 * @param modify
+	 *            whether the caller modifies the graph, which then is written back before it is evicted
+	 */
+	ModuleGraph<ModuleNode<?>> acquire(ModularTraceDataSource dataSource, ApplicationModule module, boolean modify)
+			throws IOException {
+		Key key = new Key(dataSource, module);
+		Entry entry;
+		ModularTraceDataSource loadSource;
+		synchronized (this) {
+			entry = entries.get(key);
+			if (entry != null) {
+				hitCount++;
+				entry.pinCount++;
+				while (!entry.loaded || entry.spilling) {
+					if (entry.failed) {
+						entry.pinCount--;
+						throw new IOException(String.format("Failed to load module %s from %s", module.name,
+								dataSource.getDirectory()));
+					}
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						entry.pinCount--;
+						Thread.currentThread().interrupt();
+						throw new IOException("Interrupted while waiting for a module graph to load", e);
+					}
+				}
+				if (modify && (entry.graph != null)) {
+					entry.dirty = true;
+					summaries.remove(key);
+				}
+				return entry.graph;
+			}
+
+			missCount++;
+			entry = new Entry(key);
+			entry.pinCount = 1;
+			entries.put(key, entry);
+			loadSource = spilledSources.containsKey(key) ? spilledSources.get(key) : dataSource;
+		}
+
+		// load outside the lock so that other threads can use the cache meanwhile
+		ModuleGraph<ModuleNode<?>> graph = null;
+		boolean loadCompleted = false;
+		List<Entry> spills = null;
+		try {
+			ModuleGraphLoadSession loadSession = new ModuleGraphLoadSession(loadSource);
+			graph = loadSession.loadModuleGraph(module, debugLog);
+			loadCompleted = true;
+		} finally {
+			synchronized (this) {
+				if (loadCompleted) {
+					entry.graph = graph;
+					entry.loaded = true;
+					if (graph != null) {
+						entry.estimatedSize = graph.getNodeCount() * ESTIMATED_BYTES_PER_NODE;
+						if (!summaries.containsKey(key))
+							summaries.put(key, graph.summarize(graph.module.isAnonymous));
+						if (modify) {
+							entry.dirty = true;
+							summaries.remove(key);
+						}
+
+						residentSize += entry.estimatedSize;
+						peakResidentSize = Math.max(peakResidentSize, residentSize);
+						spills = evict();
+					}
+				} else {
+					entry.failed = true;
+					entries.remove(key);
+				}
+				notifyAll();
+			}
+		}
+
+		try {
+			spill(spills);
+		} catch (IOException e) {
+			// the caller does not get the graph, so it will not release it
+			synchronized (this) {
+				entry.pinCount--;
+			}
+			throw e;
+		}
+		return graph;
+	}
+
+	void release(ModularTraceDataSource dataSource, ApplicationModule module) throws IOException {
+		List<Entry> spills = null;
+		synchronized (this) {
+			Entry entry = entries.get(new Key(dataSource, module));
+			if (entry == null || entry.pinCount == 0)
+				throw new IllegalStateException(String.format("Release of module %s from %s, which is not acquired",
+						module.name, dataSource.getDirectory()));
+
+			entry.pinCount--;
+			if (entry.pinCount == 0) {
+				// a merge into the graph may have grown it
+				if (entry.dirty) {
+					long estimatedSize = entry.graph.getNodeCount() * ESTIMATED_BYTES_PER_NODE;
+					residentSize += (estimatedSize - entry.estimatedSize);
+					peakResidentSize = Math.max(peakResidentSize, residentSize);
+					entry.estimatedSize = estimatedSize;
+				}
+				spills = evict();
+			}
+		}
+		spill(spills);
+	}
+
+	/**
+	 * Summarizes all the modules of a run, loading any module that has not been summarized yet.
+	 */
+	Graph.Process summarizeRun(String name, ModularTraceDataSource dataSource) throws IOException {
+		Graph.Process.Builder summaryBuilder = Graph.Process.newBuilder();
+		summaryBuilder.setName(name);
+
+		List<ApplicationModule> unsummarizedModules = new ArrayList<ApplicationModule>();
+		synchronized (this) {
+			for (ApplicationModule module : dataSource.getReprsentedModules()) {
+				if (!summaries.containsKey(new Key(dataSource, module)))
+					unsummarizedModules.add(module);
+			}
+		}
+		for (ApplicationModule module : unsummarizedModules) {
+			ModuleGraph<ModuleNode<?>> graph = acquire(dataSource, module);
+			try {
+				// a modified graph that is still resident has no summary of its current state yet
+				if (graph != null) {
+					Graph.Module summary = graph.summarize(graph.module.isAnonymous);
+					synchronized (this) {
+						summaries.put(new Key(dataSource, module), summary);
+					}
+				}
+			} finally {
+				release(dataSource, module);
+			}
+		}
+
+		synchronized (this) {
+			for (ApplicationModule module : dataSource.getReprsentedModules()) {
+				Graph.Module summary = summaries.get(new Key(dataSource, module));
+				if (summary != null)
+					summaryBuilder.addModule(summary);
+			}
+		}
+		return summaryBuilder.buildPartial();
+	}
+
+	@Override
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	@Override
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	synchronized void logStatistics() {
+		Log.log("Module graph cache: %d hits, %d misses, %d evictions (%d written back); peak resident size ~%d MB of %d MB budget",
+				hitCount, missCount, evictionCount, spillCount, peakResidentSize / (1024 * 1024),
+				heapBudget / (1024 * 1024));
+	}
+
+	/**
+	 * Evicts unpinned graphs in LRU order until the resident size is within the budget. Dirty graphs are not evicted
+	 * here, but marked as spilling and returned, for the caller to <code>spill()</code> once it releases the lock.
+	 */
+	private List<Entry> evict() {
+		List<Entry> spills = null;
+		long spillingSize = 0L;
+		Iterator<Entry> lruOrder = entries.values().iterator();
+		while (((residentSize - spillingSize) > heapBudget) && lruOrder.hasNext()) {
+			Entry entry = lruOrder.next();
+			if (entry.pinCount > 0 || !entry.loaded)
+				continue;
+			if (entry.spilling) {
+				spillingSize += entry.estimatedSize;
+				continue;
+			}
+
+			if (entry.dirty) {
+				entry.spilling = true;
+				spillingSize += entry.estimatedSize;
+				if (spills == null)
+					spills = new ArrayList<Entry>();
+				spills.add(entry);
+				continue;
+			}
+
+			lruOrder.remove();
+			residentSize -= entry.estimatedSize;
+			if (entry.graph != null)
+				evictionCount++;
+		}
+		return spills;
+	}
+
+	/**
+	 * Writes each dirty graph to a new spill directory and then evicts it, unless it was acquired again meanwhile (in
+	 * which case it stays resident, and clean until it is acquired for modification again).
+	 */
+	private void spill(List<Entry> spills) throws IOException {
+		if (spills == null)
+			return;
+
+		for (Entry entry : spills) {
+			File directory = null;
+			ModularTraceDataSource spilledSource = null;
+			try {
+				directory = createSpillDirectory();
+				ModularTraceDataSink dataSink = new ModularTraceDirectory(directory);
+				dataSink.addModule(entry.graph.module, "spill.%s.%s.%s");
+				ModuleGraphWriter writer = new ModuleGraphWriter(entry.graph, dataSink);
+				writer.writeGraph();
+				writer.close();
+				spilledSource = new ModularTraceDirectory(directory, ApplicationGraph.MODULAR_GRAPH_STREAM_TYPES)
+						.loadExistingFiles();
+			} finally {
+				File staleDirectory = null;
+				synchronized (this) {
+					entry.spilling = false;
+					if (spilledSource != null) {
+						entry.dirty = false;
+						spilledSources.put(entry.key, spilledSource);
+						staleDirectory = spilledDirectories.put(entry.key, directory);
+						spillCount++;
+
+						if (entry.pinCount == 0) {
+							entries.remove(entry.key);
+							residentSize -= entry.estimatedSize;
+							evictionCount++;
+						}
+					}
+					notifyAll();
+				}
+				if (staleDirectory != null)
+					deleteSpillDirectory(staleDirectory);
+			}
+		}
+	}
+
+	private synchronized File createSpillDirectory() throws IOException {
+		File directory = new File(spillDirectory, String.valueOf(spillDirectoryIndex++));
+		if (!directory.mkdirs())
+			throw new IOException("Failed to create the module graph spill directory " + directory.getAbsolutePath());
+		return directory;
+	}
+
+	private static void deleteSpillDirectory(File directory) {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files)
+				file.delete();
+		}
+		directory.delete();
+	}
+}
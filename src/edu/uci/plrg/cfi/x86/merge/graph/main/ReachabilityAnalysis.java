@@ -0,0 +1,296 @@
+package edu.uci.plrg.cfi.x86.merge.graph.main;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.collect.MapMaker;
+
+import edu.uci.plrg.cfi.common.log.Log;
+import edu.uci.plrg.cfi.x86.graph.data.graph.Edge;
+import edu.uci.plrg.cfi.x86.graph.data.graph.ModuleGraph;
+import edu.uci.plrg.cfi.x86.graph.data.graph.OrdinalEdgeList;
+import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ModuleNode;
+import edu.uci.plrg.cfi.x86.merge.exception.MergedFailedException;
+import edu.uci.plrg.cfi.x86.merge.graph.tag.TagMergeFragment;
+import edu.uci.plrg.cfi.x86.merge.util.GraphModificationStamps;
+import edu.uci.plrg.cfi.x86.merge.util.NodeIdMap;
+
+/**
+ * Finds the nodes of a merged module graph that are not reachable from any of its entry points.
+ *
+ * The <code>SERIAL</code> mode is the graph's own <code>analyzeGraph()</code>. The <code>PARALLEL</code> mode runs a
+ * breadth-first search from all the entry points at once, expanding each frontier on a fork/join pool with a
+ * concurrent bitset of visited node ids, and installs the result as the graph's unreachable nodes.
+ *
+ * The <code>INCREMENTAL</code> mode (the default) applies to a tag merge into a graph that was analyzed here after its
+ * last change, which is the case for every merge into a training dataset after the first. The merge only adds nodes
+ * and edges, so reachability only grows: the added nodes join the unreachable set, and a search from the added edges
+ * that leave reachable nodes (and from any added entry points) removes the nodes that became reachable, in time
+ * proportional to the merge fragment. Whether the graph changed between its analysis and the merge, or after the
+ * merge, is decided by its modification stamp (see <code>GraphModificationStamps</code>). Other merges fall back to
+ * the <code>PARALLEL</code> mode. <code>VALIDATE</code> runs the graph's own analysis and fails the merge if either of
+ * the other results disagrees with it.
+ */
+class ReachabilityAnalysis {
+
+	enum Mode {
+		SERIAL("serial"),
+		PARALLEL("parallel"),
+		INCREMENTAL("incremental"),
+		VALIDATE("validate");
+
+		final String id;
+
+		private Mode(String id) {
+			this.id = id;
+		}
+
+		static Mode forId(String id) {
+			for (Mode mode : Mode.values()) {
+				if (mode.id.equals(id))
+					return mode;
+			}
+			return null;
+		}
+	}
+
+	// frontier slices smaller than this are expanded by a single worker
+	private static final int MINIMUM_SLICE_SIZE = 512;
+
+	private static ForkJoinPool pool = null;
+
+	// modification stamp of each graph as of its last analysis, to find the graphs that an incremental analysis can
+	// extend (MapMaker compares weak keys by identity)
+	private static final ConcurrentMap<ModuleGraph<?>, Long> ANALYZED_STAMPS = new MapMaker().weakKeys().makeMap();
+
+	private static synchronized ForkJoinPool getPool() {
+		if (pool == null)
+			pool = new ForkJoinPool();
+		return pool;
+	}
+
+	/**
+	 * @param mergeFragment
+	 *            the nodes and edges added by a tag merge into <code>graph</code>, or null for other merges. The caller
+	 *            must hold the lock of <code>graph</code>, so no other merge changes it during the analysis.
+	 */
+	static void analyze(ModuleGraph<ModuleNode<?>> graph, Mode mode, TagMergeFragment mergeFragment) {
+		switch (mode) {
+			case SERIAL:
+				graph.resetAnalysis();
+				graph.analyzeGraph(true);
+				break;
+			case PARALLEL:
+				installUnreachableNodes(graph, new ReachabilityAnalysis(graph).findUnreachableNodes());
+				break;
+			case INCREMENTAL:
+				if (isIncremental(graph, mergeFragment)) {
+					extendReachability(graph, mergeFragment, graph.getUnreachableNodes());
+					Log.log("Found %d unreachable nodes in %s after adding %d nodes and %d edges", graph
+							.getUnreachableNodes().size(), graph.module.filename, mergeFragment.getAddedNodes().size(),
+							mergeFragment.getLinkedEdges().size());
+				} else {
+					installUnreachableNodes(graph, new ReachabilityAnalysis(graph).findUnreachableNodes());
+				}
+				break;
+			case VALIDATE:
+				validateUnreachableNodes(graph, mergeFragment);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown reachability mode " + mode);
+		}
+		ANALYZED_STAMPS.put(graph, GraphModificationStamps.getStamp(graph));
+	}
+
+	/**
+	 * @return true if the last change to <code>graph</code> is the merge of <code>mergeFragment</code>, and the graph
+	 *         was analyzed here right before that merge
+	 */
+	private static boolean isIncremental(ModuleGraph<ModuleNode<?>> graph, TagMergeFragment mergeFragment) {
+		if (mergeFragment == null)
+			return false;
+		Long analyzedStamp = ANALYZED_STAMPS.get(graph);
+		return (analyzedStamp != null) && (analyzedStamp == mergeFragment.getBaseStamp())
+				&& (GraphModificationStamps.getStamp(graph) == mergeFragment.getMergedStamp());
+	}
+
+	private static void installUnreachableNodes(ModuleGraph<ModuleNode<?>> graph,
+			Set<ModuleNode<?>> unreachableNodes) {
+		graph.resetAnalysis();
+		graph.getUnreachableNodes().addAll(unreachableNodes);
+		Log.log("Found %d unreachable nodes in %s", unreachableNodes.size(), graph.module.filename);
+	}
+
+	private static void validateUnreachableNodes(ModuleGraph<ModuleNode<?>> graph, TagMergeFragment mergeFragment) {
+		Set<ModuleNode<?>> incrementalUnreachableNodes = null;
+		if (isIncremental(graph, mergeFragment)) {
+			incrementalUnreachableNodes = new HashSet<ModuleNode<?>>(graph.getUnreachableNodes());
+			extendReachability(graph, mergeFragment, incrementalUnreachableNodes);
+		}
+		Set<ModuleNode<?>> parallelUnreachableNodes = new ReachabilityAnalysis(graph).findUnreachableNodes();
+
+		graph.resetAnalysis();
+		graph.analyzeGraph(true);
+		if (!parallelUnreachableNodes.equals(graph.getUnreachableNodes())) {
+			throw new MergedFailedException(
+					"Parallel reachability found %d unreachable nodes in %s, but the graph analysis found %d",
+					parallelUnreachableNodes.size(), graph.module.filename, graph.getUnreachableNodes().size());
+		}
+		if ((incrementalUnreachableNodes != null) && !incrementalUnreachableNodes.equals(graph.getUnreachableNodes())) {
+			throw new MergedFailedException(
+					"Incremental reachability found %d unreachable nodes in %s, but the graph analysis found %d",
+					incrementalUnreachableNodes.size(), graph.module.filename, graph.getUnreachableNodes().size());
+		}
+	}
+
+	/**
+	 * Update <code>unreachableNodes</code>, which holds the unreachable nodes of <code>graph</code> as of its last
+	 * analysis, for the nodes and edges added since then by <code>mergeFragment</code>.
+	 */
+	private static void extendReachability(ModuleGraph<ModuleNode<?>> graph, TagMergeFragment mergeFragment,
+			Set<ModuleNode<?>> unreachableNodes) {
+		unreachableNodes.addAll(mergeFragment.getAddedNodes());
+
+		Queue<ModuleNode<?>> reachedNodes = new ArrayDeque<ModuleNode<?>>();
+		for (ModuleNode<?> node : mergeFragment.getAddedNodes()) {
+			if ((graph.getEntryPoint(node.getHash()) == node) && unreachableNodes.remove(node))
+				reachedNodes.add(node);
+		}
+		for (Edge<ModuleNode<?>> edge : mergeFragment.getLinkedEdges()) {
+			if (!unreachableNodes.contains(edge.getFromNode()) && unreachableNodes.remove(edge.getToNode()))
+				reachedNodes.add(edge.getToNode());
+		}
+
+		while (!reachedNodes.isEmpty()) {
+			OrdinalEdgeList<ModuleNode<?>> edges = reachedNodes.remove().getOutgoingEdges();
+			try {
+				for (Edge<ModuleNode<?>> edge : edges) {
+					if (unreachableNodes.remove(edge.getToNode()))
+						reachedNodes.add(edge.getToNode());
+				}
+			} finally {
+				edges.release();
+			}
+		}
+	}
+
+	/**
+	 * Expands the slice <code>[start, end)</code> of the current frontier, appending the newly visited nodes to the
+	 * end of the visit order.
+	 */
+	private class FrontierExpansion extends RecursiveAction {
+		private final int start;
+		private final int end;
+
+		FrontierExpansion(int start, int end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if ((end - start) > MINIMUM_SLICE_SIZE) {
+				int middle = (start + end) >>> 1;
+				invokeAll(new FrontierExpansion(start, middle), new FrontierExpansion(middle, end));
+				return;
+			}
+
+			int[] discovered = new int[MINIMUM_SLICE_SIZE];
+			int discoveredCount = 0;
+			for (int i = start; i < end; i++) {
+				OrdinalEdgeList<ModuleNode<?>> edges = nodeIds.getObject(visitOrder[i]).getOutgoingEdges();
+				try {
+					for (Edge<ModuleNode<?>> edge : edges) {
+						int id = nodeIds.getId(edge.getToNode());
+						if ((id == NodeIdMap.NONE) || !visit(id))
+							continue;
+						if (discoveredCount == discovered.length)
+							discovered = Arrays.copyOf(discovered, discoveredCount * 2);
+						discovered[discoveredCount++] = id;
+					}
+				} finally {
+					edges.release();
+				}
+			}
+			if (discoveredCount > 0) {
+				int offset = visitCount.getAndAdd(discoveredCount);
+				System.arraycopy(discovered, 0, visitOrder, offset, discoveredCount);
+			}
+		}
+	}
+
+	private final ModuleGraph<ModuleNode<?>> graph;
+
+	private final NodeIdMap<ModuleNode<?>> nodeIds;
+	private final AtomicLongArray visited;
+
+	// the nodes in the order they were visited, so each frontier is the range visited during the previous step
+	private final int[] visitOrder;
+	private final AtomicInteger visitCount = new AtomicInteger();
+
+	private ReachabilityAnalysis(ModuleGraph<ModuleNode<?>> graph) {
+		this.graph = graph;
+
+		nodeIds = new NodeIdMap<ModuleNode<?>>(graph.getNodeCount());
+		for (ModuleNode<?> node : graph.getAllNodes())
+			nodeIds.assignId(node);
+		for (long entryHash : graph.getEntryHashes())
+			nodeIds.assignId(graph.getEntryPoint(entryHash));
+
+		visited = new AtomicLongArray((nodeIds.size() + 63) >> 6);
+		visitOrder = new int[nodeIds.size()];
+	}
+
+	private Set<ModuleNode<?>> findUnreachableNodes() {
+		for (long entryHash : graph.getEntryHashes()) {
+			int id = nodeIds.getId(graph.getEntryPoint(entryHash));
+			if (visit(id))
+				visitOrder[visitCount.getAndIncrement()] = id;
+		}
+
+		int frontierStart = 0;
+		while (frontierStart < visitCount.get()) {
+			int frontierEnd = visitCount.get();
+			FrontierExpansion expansion = new FrontierExpansion(frontierStart, frontierEnd);
+			if ((frontierEnd - frontierStart) > MINIMUM_SLICE_SIZE)
+				getPool().invoke(expansion);
+			else
+				expansion.compute();
+			frontierStart = frontierEnd;
+		}
+
+		Set<ModuleNode<?>> unreachableNodes = new HashSet<ModuleNode<?>>();
+		for (ModuleNode<?> node : graph.getAllNodes()) {
+			if (!isVisited(nodeIds.getId(node)))
+				unreachableNodes.add(node);
+		}
+		return unreachableNodes;
+	}
+
+	/**
+	 * @return true if this call marked the node as visited
+	 */
+	private boolean visit(int id) {
+		int index = id >> 6;
+		long bit = 1L << (id & 0x3f);
+		while (true) {
+			long word = visited.get(index);
+			if ((word & bit) != 0L)
+				return false;
+			if (visited.compareAndSet(index, word, word | bit))
+				return true;
+		}
+	}
+
+	private boolean isVisited(int id) {
+		return (visited.get(id >> 6) & (1L << (id & 0x3f))) != 0L;
+	}
+}
@@ -6,11 +6,18 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import edu.uci.plrg.cfi.common.log.Log;
 import edu.uci.plrg.cfi.common.log.LogFile;
@@ -23,12 +30,20 @@ import edu.uci.plrg.cfi.x86.graph.data.graph.anonymous.ApplicationAnonymousGraph
 import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ApplicationGraph;
 import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ModuleNode;
 import edu.uci.plrg.cfi.x86.graph.data.graph.modular.loader.ModuleGraphLoadSession;
+import edu.uci.plrg.cfi.x86.graph.data.results.Graph;
 import edu.uci.plrg.cfi.x86.graph.io.modular.ModularTraceDataSource;
 import edu.uci.plrg.cfi.x86.graph.io.modular.ModularTraceDirectory;
 import edu.uci.plrg.cfi.x86.graph.main.CommonMergeOptions;
 import edu.uci.plrg.cfi.x86.merge.graph.GraphMergeCandidate;
 import edu.uci.plrg.cfi.x86.merge.graph.GraphMergeStrategy;
+import edu.uci.plrg.cfi.x86.merge.graph.MergeResults;
+import edu.uci.plrg.cfi.x86.merge.graph.ModuleMergeProfile;
 import edu.uci.plrg.cfi.x86.merge.graph.hash.HashMergeDebugLog;
+import edu.uci.plrg.cfi.x86.merge.graph.mapped.ColumnarDataset;
+import edu.uci.plrg.cfi.x86.merge.graph.mapped.ColumnarDatasetCatalog;
+import edu.uci.plrg.cfi.x86.merge.graph.tag.TagMergeSession;
+import edu.uci.plrg.cfi.x86.merge.util.MergeLog;
+import edu.uci.plrg.cfi.x86.merge.util.MinHashSketch;
 
 public class RoundRobinMerge {
 
@@ -36,12 +51,100 @@ public class RoundRobinMerge {
 		final String name;
 		final Map<ApplicationModule, ModuleGraph<ModuleNode<?>>> modules;
 		final ApplicationAnonymousGraphs anonymousGraphs;
+		final ModularTraceDataSource dataSource;
+
+		// node hashes of the merged modules, for the similarity prefilter
+		MinHashSketch sketch;
 
 		public ProcessModuleGraph(String name, Map<ApplicationModule, ModuleGraph<ModuleNode<?>>> modules,
 				ApplicationAnonymousGraphs anonymousGraphs) {
 			this.name = name;
 			this.modules = modules;
 			this.anonymousGraphs = anonymousGraphs;
+			this.dataSource = null;
+		}
+
+		/**
+		 * A process whose module graphs are loaded on demand through the module graph cache.
+		 */
+		public ProcessModuleGraph(String name, ModularTraceDataSource dataSource) {
+			this.name = name;
+			this.modules = null;
+			this.anonymousGraphs = null;
+			this.dataSource = dataSource;
+		}
+	}
+
+	/**
+	 * Candidate that takes its module graphs from the module graph cache, and keeps them pinned until
+	 * <code>releaseModules()</code>.
+	 */
+	private class CachedModules implements GraphMergeCandidate {
+		private final ProcessModuleGraph process;
+		// the right side of a tag merge is merged into in place
+		private final boolean modified;
+		private final List<ApplicationModule> acquiredModules = new ArrayList<ApplicationModule>();
+
+		CachedModules(ProcessModuleGraph process, boolean modified) {
+			this.process = process;
+			this.modified = modified;
+		}
+
+		@Override
+		public void loadData() throws IOException {
+		}
+
+		@Override
+		public String parseTraceName() {
+			return process.name;
+		}
+
+		@Override
+		public void summarizeModule(ApplicationModule module) {
+		}
+
+		@Override
+		public Graph.Process summarizeGraph() {
+			try {
+				return graphCache.summarizeRun(process.name, process.dataSource);
+			} catch (IOException e) {
+				throw new IllegalStateException(String.format("Failed to summarize run %s", process.name), e);
+			}
+		}
+
+		@Override
+		public Collection<ApplicationModule> getRepresentedModules() {
+			return process.dataSource.getReprsentedModules();
+		}
+
+		@Override
+		public ModuleGraph<?> getModuleGraph(ApplicationModule module) throws IOException {
+			ModuleGraph<ModuleNode<?>> graph = graphCache.acquire(process.dataSource, module, modified);
+			acquiredModules.add(module);
+			return graph;
+		}
+
+		@Override
+		public ApplicationAnonymousGraphs getAnonymousGraph() throws IOException {
+			return null;
+		}
+
+		/**
+		 * Releases every acquired module, even if writing back an evicted graph fails for one of them.
+		 */
+		void releaseModules() throws IOException {
+			IOException spillFailure = null;
+			for (ApplicationModule module : acquiredModules) {
+				try {
+					graphCache.release(process.dataSource, module);
+				} catch (IOException e) {
+					if (spillFailure == null)
+						spillFailure = e;
+				}
+			}
+			acquiredModules.clear();
+			if (spillFailure != null)
+				throw spillFailure;
 		}
 	}
 
@@ -49,11 +152,13 @@ public class RoundRobinMerge {
 		final ProcessModuleGraph left;
 		final ProcessModuleGraph right;
 		final String logFilename;
+		final double similarity;
 
-		MergePair(ProcessModuleGraph left, ProcessModuleGraph right, String logFilename) {
+		MergePair(ProcessModuleGraph left, ProcessModuleGraph right, String logFilename, double similarity) {
 			this.left = left;
 			this.right = right;
 			this.logFilename = logFilename;
+			this.similarity = similarity;
 		}
 	}
 
@@ -79,13 +184,8 @@ public class RoundRobinMerge {
 					for (ApplicationModule module : dataSource.getReprsentedModules()) {
 						graphsByModule.put(module, session.loadModuleGraph(module, debugLog));
 					}
-					String graphName = currentGraphPath;
-					if (graphName.endsWith(File.separator))
-						graphName = graphName.substring(0, graphName.length() - 1);
-					int lastSlash = graphName.lastIndexOf(File.separatorChar);
-					if (lastSlash >= 0)
-						graphName = graphName.substring(lastSlash + 1);
-					loadedGraphs.add(new ProcessModuleGraph(graphName, graphsByModule, anonymousGraphs));
+					loadedGraphs.add(new ProcessModuleGraph(getGraphName(currentGraphPath), graphsByModule,
+							anonymousGraphs));
 				}
 			} catch (Throwable t) {
 				fail(t, String.format("\t@@@@ Loading graph '%s' failed with %s @@@@", currentGraphPath, t.getClass()
@@ -94,40 +194,201 @@ public class RoundRobinMerge {
 		}
 	}
 
+	/**
+	 * The merge of one pair, which is completed by one task per module of the left process. The results of the modules
+	 * are assembled into the pair's results file when its last module is merged or has failed; failed modules are
+	 * left out of the results.
+	 */
+	private class PairMerge {
+		final MergePair pair;
+		final String name;
+		final File moduleLogDir;
+		final List<ApplicationModule> modules;
+		final MergeResults[] moduleResults;
+
+		private int remainingModuleCount;
+		private int failedModuleCount = 0;
+		private long startTime = 0L;
+
+		PairMerge(MergePair pair, List<ApplicationModule> modules) {
+			this.pair = pair;
+			this.modules = modules;
+			name = pair.logFilename.substring(0, pair.logFilename.length() - ".merge.log".length());
+			moduleLogDir = new File(logDir, name);
+			moduleResults = new MergeResults[modules.size()];
+			remainingModuleCount = modules.size();
+		}
+
+		synchronized void moduleStarted() {
+			if (startTime == 0L)
+				startTime = System.currentTimeMillis();
+		}
+
+		/**
+		 * @return true if this was the last module of the pair
+		 */
+		synchronized boolean moduleCompleted(int position, MergeResults results) {
+			moduleResults[position] = results;
+			remainingModuleCount--;
+			return remainingModuleCount == 0;
+		}
+
+		/**
+		 * @return true if this was the last module of the pair
+		 */
+		synchronized boolean moduleFailed(int position) {
+			failedModuleCount++;
+			remainingModuleCount--;
+			return remainingModuleCount == 0;
+		}
+
+		/**
+		 * @param modified
+		 *            whether the merge modifies the graphs of the candidate (in a cached candidate, they are written
+		 *            back before they are evicted)
+		 */
+		GraphMergeCandidate createCandidate(ProcessModuleGraph process, HashMergeDebugLog debugLog, boolean modified) {
+			if (graphCache == null)
+				return new GraphMergeCandidate.LoadedModules(process.name, process.modules, process.anonymousGraphs,
+						debugLog);
+			else
+				return new CachedModules(process, modified);
+		}
+
+		void assembleResults(HashMergeDebugLog debugLog) throws IOException {
+			File logFile = new File(logDir, pair.logFilename);
+			Log.clearThreadOutputs();
+			Log.addThreadOutput(logFile);
+
+			MergeResults results = MergeTwoGraphs.createResults(strategy);
+			for (int i = 0; i < moduleResults.length; i++) {
+				if (moduleResults[i] == null) {
+					Log.log("Module %s failed (log in %s)", modules.get(i).name, moduleLogDir.getName());
+					continue;
+				}
+				Log.log("Module %s merged (log in %s)", modules.get(i).name, moduleLogDir.getName());
+				results.appendModuleResults(moduleResults[i]);
+			}
+			if (failedModuleCount > 0)
+				Log.log("Error! %d of %d modules failed and are missing from the results.", failedModuleCount,
+						moduleResults.length);
+
+			Log.log("Summarizing both left and right now.");
+			results.setGraphSummaries(createCandidate(pair.left, debugLog, false).summarizeGraph(),
+					createCandidate(pair.right, debugLog, false).summarizeGraph());
+			MergeTwoGraphs.writeResults(results, MergeTwoGraphs.getCorrespondingResultsFilename(logFile), logFile);
+
+			Log.log("\nClusters merged in %f seconds.", ((System.currentTimeMillis() - startTime) / 1000.));
+		}
+	}
+
+	private static class ModuleMergeTask {
+		final PairMerge pairMerge;
+		final int position;
+
+		int threadIndex;
+		long elapsedMillis;
+
+		ModuleMergeTask(PairMerge pairMerge, int position) {
+			this.pairMerge = pairMerge;
+			this.position = position;
+		}
+
+		ApplicationModule getModule() {
+			return pairMerge.modules.get(position);
+		}
+	}
+
 	private class MergeThread extends Thread {
 		private final int index = THREAD_INDEX++;
 		private final MergeTwoGraphs executor = new MergeTwoGraphs(commonOptions);
 		private final HashMergeDebugLog debugLog = new HashMergeDebugLog();
+		private final MergeTwoGraphs.IgnoreMergeCompletion completion = new MergeTwoGraphs.IgnoreMergeCompletion();
 
 		private String currentMergeName;
 
 		@Override
 		public void run() {
-			try {
-				MergeTwoGraphs.IgnoreMergeCompletion completion = new MergeTwoGraphs.IgnoreMergeCompletion();
+			// merge messages go to the per-module log of this thread
+			MergeLog.setThreadScoped(true);
+			while (true) {
+				ModuleMergeTask task = getNextModuleTask();
+				if (task == null)
+					break;
+
+				currentMergeName = String.format("%s:%s", task.pairMerge.name, task.getModule().name);
+				metrics.mergeStarted(currentMergeName);
+				try {
+					mergeModule(task);
+				} catch (Throwable t) {
+					fail(t, String.format("\t@@@@ Completing merge %s on thread %d failed with %s @@@@",
+							task.pairMerge.name, index, t.getClass().getSimpleName()));
+				}
+			}
+		}
 
-				while (true) {
-					MergePair merge = getNextMergePair();
-					if (merge == null)
-						break;
+		/**
+		 * Merges the module of <code>task</code>. A failure of the module merge is logged and counted, and the module is
+		 * marked failed in its pair, so that the pair still completes and this thread goes on with the next task.
+		 */
+		private void mergeModule(ModuleMergeTask task) throws IOException {
+			PairMerge pairMerge = task.pairMerge;
+			ApplicationModule module = task.getModule();
+			long start = System.currentTimeMillis();
+			pairMerge.moduleStarted();
+
+			// the tag merge merges into the right graph in place
+			boolean rightModified = (strategy == GraphMergeStrategy.TAG);
+			GraphMergeCandidate rightCandidate = pairMerge.createCandidate(pairMerge.pair.right, debugLog,
+					rightModified);
+			GraphMergeCandidate leftCandidate = (pairMerge.pair.left == pairMerge.pair.right) ? rightCandidate
+					: pairMerge.createCandidate(pairMerge.pair.left, debugLog, false);
+			MergeResults moduleResults = MergeTwoGraphs.createResults(strategy);
+			ModuleMergeProfile profile = null;
+			Throwable failure = null;
+			try {
+				File logFile = new File(pairMerge.moduleLogDir, String.format("%s.merge.log", module.name));
+				Log.clearThreadOutputs();
+				Log.addThreadOutput(logFile);
+
+				try {
+					profile = executor.mergeModule(module, leftCandidate, rightCandidate, strategy, moduleResults,
+							completion);
+				} finally {
+					MergeLog.flushThread();
+					if (graphCache != null) {
+						try {
+							((CachedModules) leftCandidate).releaseModules();
+						} finally {
+							if (rightCandidate != leftCandidate)
+								((CachedModules) rightCandidate).releaseModules();
+						}
+					}
+				}
+			} catch (Throwable t) {
+				failure = t;
+			}
 
-					currentMergeName = merge.logFilename.substring(0,
-							merge.logFilename.length() - ".merge.log".length());
-					Log.sharedLog("Thread %d starting merge %s", index, currentMergeName);
+			task.threadIndex = index;
+			task.elapsedMillis = System.currentTimeMillis() - start;
+			moduleTaskCompleted(task);
 
-					File logFile = new File(logDir, merge.logFilename);
-					Log.clearThreadOutputs();
-					Log.addThreadOutput(logFile);
+			boolean pairCompleted;
+			if (failure == null) {
+				metrics.mergeCompleted(profile);
+				Log.sharedLog("Thread %d merged module %s of %s in %f seconds", index, module.name, pairMerge.name,
+						(task.elapsedMillis / 1000.));
+				pairCompleted = pairMerge.moduleCompleted(task.position, moduleResults);
+			} else {
+				metrics.mergeFailed();
+				fail(failure, String.format("\t@@@@ Merge %s on thread %d failed with %s @@@@", currentMergeName,
+						index, failure.getClass().getSimpleName()));
+				pairCompleted = pairMerge.moduleFailed(task.position);
+			}
 
-					GraphMergeCandidate leftCandidate = new GraphMergeCandidate.LoadedModules(merge.left.name,
-							merge.left.modules, merge.left.anonymousGraphs, debugLog);
-					GraphMergeCandidate rightCandidate = new GraphMergeCandidate.LoadedModules(merge.right.name,
-							merge.right.modules, merge.right.anonymousGraphs, debugLog);
-					executor.merge(leftCandidate, rightCandidate, strategy, logFile, completion);
-				}
-			} catch (Throwable t) {
-				fail(t, String.format("\t@@@@ Merge %s on thread %d failed with %s @@@@", currentMergeName, index, t
-						.getClass().getSimpleName()));
+			if (pairCompleted) {
+				pairMerge.assembleResults(debugLog);
+				Log.sharedLog("Thread %d completed merge %s", index, pairMerge.name);
 			}
 		}
 	}
@@ -143,6 +404,10 @@ public class RoundRobinMerge {
 
 	private static final String MAIN_LOG_FILENAME = "rr.log";
 
+	private static final int REPORTED_STRAGGLER_COUNT = 20;
+
+	private static final int SKETCH_SIZE = 256;
+
 	private static int THREAD_INDEX = 0;
 
 	private final OptionArgumentMap.StringOption logPathOption = OptionArgumentMap.createStringOption('l',
@@ -152,20 +417,34 @@ public class RoundRobinMerge {
 	private final OptionArgumentMap.StringOption threadCountOption = OptionArgumentMap.createStringOption('t');
 	private final OptionArgumentMap.BooleanOption unityOption = OptionArgumentMap.createBooleanOption('u');
 	private final OptionArgumentMap.BooleanOption moduleGraphOption = OptionArgumentMap.createBooleanOption('y');
+	private final OptionArgumentMap.StringOption cacheBudgetOption = OptionArgumentMap.createStringOption('m');
+	private final OptionArgumentMap.StringOption tileSizeOption = OptionArgumentMap.createStringOption('b', "8");
+	private final OptionArgumentMap.StringOption metricsOption = OptionArgumentMap.createStringOption('w');
+	private final OptionArgumentMap.StringOption minimumSimilarityOption = OptionArgumentMap.createStringOption('f');
+	private final OptionArgumentMap.BooleanOption deferDissimilarOption = OptionArgumentMap.createBooleanOption('q');
 
 	private File logDir;
 	private final ArgumentStack args;
 	private final CommonMergeOptions commonOptions;
 	private GraphMergeStrategy strategy;
+	private ModuleGraphCache graphCache;
+	private MergeMetrics metrics;
 
 	private final List<String> graphPaths = new ArrayList<String>();
 	private final List<MergePair> mergePairs = new ArrayList<MergePair>();
+	private final List<MergePair> deferredMergePairs = new ArrayList<MergePair>();
+	private double minimumSimilarity = 0.0;
+	private int skippedPairCount = 0;
+	private final List<ModuleMergeTask> moduleTasks = new ArrayList<ModuleMergeTask>();
+	private final List<ModuleMergeTask> completedModuleTasks = new ArrayList<ModuleMergeTask>();
+	private int nextModuleTaskIndex = 0;
 
 	public RoundRobinMerge(ArgumentStack args) {
 		this.args = args;
 		commonOptions = new CommonMergeOptions(args, CommonMergeOptions.crowdSafeCommonDir,
 				CommonMergeOptions.restrictedModuleOption, CommonMergeOptions.unitModuleOption,
-				CommonMergeOptions.excludeModuleOption, logPathOption, threadCountOption, strategyOption, unityOption);
+				CommonMergeOptions.excludeModuleOption, logPathOption, threadCountOption, strategyOption, unityOption,
+				cacheBudgetOption, tileSizeOption, metricsOption, minimumSimilarityOption, deferDissimilarOption);
 	}
 
 	void run() {
@@ -192,7 +471,22 @@ public class RoundRobinMerge {
 
 			strategy = GraphMergeStrategy.forId(strategyOption.getValue());
 			if (strategy == null)
-				Log.log("Unknown merge strategy %s. Exiting now.", strategyOption.getValue());
+				throw new IllegalArgumentException("Unknown merge strategy " + strategyOption.getValue());
+
+			metrics = new MergeMetrics(metricsOption.hasValue() ? new File(metricsOption.getValue()) : null);
+			metrics.addCache("tag_merge_hash_index", new MergeMetrics.CacheCounts() {
+				@Override
+				public long getHitCount() {
+					return TagMergeSession.getHashIndexHitCount();
+				}
+
+				@Override
+				public long getMissCount() {
+					return TagMergeSession.getHashIndexMissCount();
+				}
+			});
+			if (minimumSimilarityOption.hasValue())
+				minimumSimilarity = Double.parseDouble(minimumSimilarityOption.getValue());
 
 			parsingArguments = false;
 
@@ -207,7 +501,21 @@ public class RoundRobinMerge {
 			int partitionSize = graphPaths.size() / threadCount;
 			List<ProcessModuleGraph> graphs = new ArrayList<ProcessModuleGraph>();
 
-			{
+			if (cacheBudgetOption.hasValue()) {
+				long heapBudget = Long.parseLong(cacheBudgetOption.getValue()) * 1024L * 1024L;
+				graphCache = new ModuleGraphCache(heapBudget, new File(logDir, "module-graph-cache"),
+						new HashMergeDebugLog());
+				metrics.addCache("module_graph_cache", graphCache);
+				Log.log("Streaming %d graphs through a module graph cache of %d MB.", graphPaths.size(),
+						heapBudget / (1024 * 1024));
+
+				for (String graphPath : graphPaths) {
+					ModularTraceDataSource dataSource = new ModularTraceDirectory(new File(graphPath),
+							ApplicationGraph.MODULAR_GRAPH_STREAM_TYPES).loadExistingFiles();
+					graphs.add(new ProcessModuleGraph(getGraphName(graphPath), dataSource));
+				}
+				graphPaths.clear();
+			} else {
 				Log.log("Starting %d threads to load %d graphs (~%d each).", threadCount, graphPaths.size(),
 						partitionSize);
 
@@ -227,26 +535,49 @@ public class RoundRobinMerge {
 			long mergeStart = System.currentTimeMillis();
 			Log.log("Loaded %d graphs in %f seconds.", graphs.size(), ((mergeStart - startTime) / 1000.));
 
+			if (minimumSimilarity > 0.0) {
+				long sketchStart = System.currentTimeMillis();
+				sketchGraphs(graphs, threadCount);
+				Log.log("Sketched %d graphs in %f seconds.", graphs.size(),
+						((System.currentTimeMillis() - sketchStart) / 1000.));
+			}
+
 			{
-				expandMergePairs(graphs);
+				if (graphCache == null)
+					expandMergePairs(graphs);
+				else
+					expandTiledMergePairs(graphs, Integer.parseInt(tileSizeOption.getValue()));
+				if (minimumSimilarity > 0.0)
+					addDeferredMergePairs();
 				List<MergeThread> threads = new ArrayList<MergeThread>();
 				int mergeCount = mergePairs.size();
-				partitionSize = mergeCount / threadCount;
-
-				Log.log("Starting %d threads to process %d merges (~%d each)", threadCount, mergeCount, partitionSize);
-
-				for (int i = 0; i < threadCount; i++) {
-					MergeThread thread = new MergeThread();
-					thread.start();
-					threads.add(thread);
-				}
+				expandModuleTasks();
+				partitionSize = moduleTasks.size() / threadCount;
+				metrics.addMerges(moduleTasks.size());
+
+				Log.log("Starting %d threads to process %d merges in %d module tasks (~%d each)", threadCount,
+						mergeCount, moduleTasks.size(), partitionSize);
+
+				metrics.start();
+				try {
+					for (int i = 0; i < threadCount; i++) {
+						MergeThread thread = new MergeThread();
+						thread.start();
+						threads.add(thread);
+					}
 
-				for (MergeThread thread : threads) {
-					thread.join();
+					for (MergeThread thread : threads) {
+						thread.join();
+					}
+				} finally {
+					metrics.stop();
 				}
 
 				Log.log("\nRound-robin merge of %d graphs (%d merges) on %d threads in %f seconds.", graphs.size(),
 						mergeCount, threadCount, ((System.currentTimeMillis() - mergeStart) / 1000.));
+				reportStragglers();
+				if (graphCache != null)
+					graphCache.logStatistics();
 			}
 
 		} catch (Throwable t) {
@@ -260,24 +591,167 @@ public class RoundRobinMerge {
 	}
 
 	private void expandMergePairs(List<ProcessModuleGraph> graphs) {
-		Set<String> logFilenames = new HashSet<String>();
-		boolean includeUnityMerges = unityOption.getValue();
 		NameDisambiguator disambiguator = new NameDisambiguator();
 		for (int i = 0; i < graphs.size(); i++) {
 			for (int j = i; j < graphs.size(); j++) {
-				if ((i == j) && !includeUnityMerges)
-					continue;
+				addMergePair(graphs, i, j, disambiguator);
+			}
+		}
+	}
+
+	/**
+	 * Orders the merge pairs by tiles of the (i, j) matrix, so that the threads work on pairs among the same
+	 * <code>2 * tileSize</code> graphs at any one time. With a cache that holds that many graphs, each graph is loaded
+	 * about once per tile instead of once per pair.
+	 */
+	private void expandTiledMergePairs(List<ProcessModuleGraph> graphs, int tileSize) {
+		NameDisambiguator disambiguator = new NameDisambiguator();
+		for (int tileStart = 0; tileStart < graphs.size(); tileStart += tileSize) {
+			int tileEnd = Math.min(tileStart + tileSize, graphs.size());
+			for (int columnStart = tileStart; columnStart < graphs.size(); columnStart += tileSize) {
+				int columnEnd = Math.min(columnStart + tileSize, graphs.size());
+				for (int i = tileStart; i < tileEnd; i++) {
+					for (int j = Math.max(i, columnStart); j < columnEnd; j++) {
+						addMergePair(graphs, i, j, disambiguator);
+					}
+				}
+			}
+		}
+
+		// pairs are taken from the end of the list
+		Collections.reverse(mergePairs);
+	}
 
-				ProcessModuleGraph left = graphs.get(i);
-				ProcessModuleGraph right = graphs.get(j);
+	private void addMergePair(List<ProcessModuleGraph> graphs, int i, int j, NameDisambiguator disambiguator) {
+		if ((i == j) && !unityOption.getValue())
+			return;
+
+		ProcessModuleGraph left = graphs.get(i);
+		ProcessModuleGraph right = graphs.get(j);
+
+		double similarity = 1.0;
+		if ((minimumSimilarity > 0.0) && (i != j)) {
+			similarity = left.sketch.estimateSimilarity(right.sketch);
+			if ((similarity < minimumSimilarity) && !deferDissimilarOption.getValue()) {
+				Log.log("Skipping merge %s~%s: estimated similarity %.3f is below %.3f", left.name, right.name,
+						similarity, minimumSimilarity);
+				skippedPairCount++;
+				return;
+			}
+		}
+
+		String logfileBasename = String.format("%s~%s", left.name, right.name);
+		String logFilename = String.format("%s.merge.log", disambiguator.disambiguateName(logfileBasename));
+
+		MergePair pair = new MergePair(left, right, logFilename, similarity);
+		if (similarity < minimumSimilarity) {
+			Log.log("Deferring merge %s~%s: estimated similarity %.3f is below %.3f", left.name, right.name,
+					similarity, minimumSimilarity);
+			deferredMergePairs.add(pair);
+		} else {
+			mergePairs.add(pair);
+		}
+	}
+
+	/**
+	 * Queues the deferred pairs after all the others, the more similar ones first (pairs are taken from the end of
+	 * <code>mergePairs</code>).
+	 */
+	private void addDeferredMergePairs() {
+		Collections.sort(deferredMergePairs, new Comparator<MergePair>() {
+			@Override
+			public int compare(MergePair first, MergePair second) {
+				return Double.compare(first.similarity, second.similarity);
+			}
+		});
+		mergePairs.addAll(0, deferredMergePairs);
+
+		Log.log("Similarity prefilter at %.3f: %d merges skipped, %d deferred, %d queued first", minimumSimilarity,
+				skippedPairCount, deferredMergePairs.size(), mergePairs.size() - deferredMergePairs.size());
+		deferredMergePairs.clear();
+	}
+
+	/**
+	 * Sketches the node hashes of the merged modules of each process, on <code>threadCount</code> threads. The hashes of
+	 * a streamed process are read from its columnar datasets where it has them (see <code>MergeTwoGraphs -g</code>),
+	 * and otherwise its module graphs are acquired from the module graph cache one at a time.
+	 */
+	private void sketchGraphs(List<ProcessModuleGraph> graphs, int threadCount) throws IOException {
+		ExecutorService workers = Executors.newFixedThreadPool(threadCount);
+		try {
+			List<Future<MinHashSketch>> sketches = new ArrayList<Future<MinHashSketch>>();
+			for (final ProcessModuleGraph process : graphs) {
+				sketches.add(workers.submit(new Callable<MinHashSketch>() {
+					@Override
+					public MinHashSketch call() throws IOException {
+						return sketchProcess(process);
+					}
+				}));
+			}
+
+			for (int i = 0; i < graphs.size(); i++) {
+				try {
+					graphs.get(i).sketch = sketches.get(i).get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while sketching the graphs", e);
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof IOException)
+						throw (IOException) e.getCause();
+					throw new IllegalStateException(String.format("Failed to sketch graph %s", graphs.get(i).name),
+							e.getCause());
+				}
+			}
+		} finally {
+			workers.shutdownNow();
+		}
+	}
 
-				String logfileBasename = String.format("%s~%s", left.name, right.name);
-				String logFilename = String.format("%s.merge.log", disambiguator.disambiguateName(logfileBasename));
-				logFilenames.add(logFilename);
+	private MinHashSketch sketchProcess(ProcessModuleGraph process) throws IOException {
+		MinHashSketch sketch = new MinHashSketch(SKETCH_SIZE);
+		Collection<ApplicationModule> modules = (process.modules == null) ? process.dataSource
+				.getReprsentedModules() : process.modules.keySet();
+		ColumnarDatasetCatalog catalog = (process.modules == null) ? ColumnarDatasetCatalog.scan(process.dataSource
+				.getDirectory()) : null;
+		for (ApplicationModule module : modules) {
+			if (module.isAnonymous || !commonOptions.includeModule(module))
+				continue;
+
+			// the same block hash in two modules is two different blocks
+			long moduleId = module.name.hashCode();
+
+			if ((catalog != null) && !catalog.isEmpty()) {
+				ColumnarDataset dataset = catalog.open(module);
+				if (dataset != null) {
+					for (int node = 0; node < dataset.getNodeCount(); node++)
+						sketch.add((dataset.getHash(node) * 31L) + moduleId);
+					continue;
+				}
+			}
 
-				mergePairs.add(new MergePair(graphs.get(i), graphs.get(j), logFilename));
+			ModuleGraph<ModuleNode<?>> graph = (process.modules == null) ? graphCache.acquire(process.dataSource,
+					module) : process.modules.get(module);
+			if (graph == null)
+				continue;
+			try {
+				for (Long hash : graph.getGraphData().nodesByHash.keySet())
+					sketch.add((hash * 31L) + moduleId);
+			} finally {
+				if (process.modules == null)
+					graphCache.release(process.dataSource, module);
 			}
 		}
+		return sketch;
+	}
+
+	private static String getGraphName(String graphPath) {
+		String graphName = graphPath;
+		if (graphName.endsWith(File.separator))
+			graphName = graphName.substring(0, graphName.length() - 1);
+		int lastSlash = graphName.lastIndexOf(File.separatorChar);
+		if (lastSlash >= 0)
+			graphName = graphName.substring(lastSlash + 1);
+		return graphName;
 	}
 
 	private Collection<String> loadGraphList(String listPath) throws IOException {
@@ -311,16 +785,70 @@ public class RoundRobinMerge {
 		return graphPaths.remove(graphPaths.size() - 1);
 	}
 
-	private synchronized MergePair getNextMergePair() {
-		if (mergePairs.isEmpty())
+	/**
+	 * Splits each merge pair into one task per module of its left side, keeping the order in which pairs are taken
+	 * from the end of <code>mergePairs</code>. Pairs without any modules to merge are completed right away.
+	 */
+	private void expandModuleTasks() throws IOException {
+		HashMergeDebugLog debugLog = new HashMergeDebugLog();
+		for (int i = mergePairs.size() - 1; i >= 0; i--) {
+			MergePair pair = mergePairs.get(i);
+			Collection<ApplicationModule> leftModules = (pair.left.modules == null) ? pair.left.dataSource
+					.getReprsentedModules() : pair.left.modules.keySet();
+			List<ApplicationModule> modules = new ArrayList<ApplicationModule>();
+			for (ApplicationModule module : leftModules) {
+				if (!module.isAnonymous && commonOptions.includeModule(module))
+					modules.add(module);
+			}
+
+			PairMerge pairMerge = new PairMerge(pair, modules);
+			pairMerge.moduleLogDir.mkdir();
+			if (modules.isEmpty()) {
+				pairMerge.assembleResults(debugLog);
+				Log.clearThreadOutputs();
+			}
+			for (int position = 0; position < modules.size(); position++)
+				moduleTasks.add(new ModuleMergeTask(pairMerge, position));
+		}
+		mergePairs.clear();
+	}
+
+	private synchronized ModuleMergeTask getNextModuleTask() {
+		if (nextModuleTaskIndex == moduleTasks.size())
 			return null;
-		return mergePairs.remove(mergePairs.size() - 1);
+		ModuleMergeTask task = moduleTasks.get(nextModuleTaskIndex);
+		moduleTasks.set(nextModuleTaskIndex++, null);
+		return task;
+	}
+
+	private synchronized void moduleTaskCompleted(ModuleMergeTask task) {
+		completedModuleTasks.add(task);
+	}
+
+	private void reportStragglers() {
+		Collections.sort(completedModuleTasks, new Comparator<ModuleMergeTask>() {
+			@Override
+			public int compare(ModuleMergeTask first, ModuleMergeTask second) {
+				return Long.signum(second.elapsedMillis - first.elapsedMillis);
+			}
+		});
+
+		long totalMillis = 0L;
+		for (ModuleMergeTask task : completedModuleTasks)
+			totalMillis += task.elapsedMillis;
+		Log.log("%d module merges took %f seconds in total. The slowest were:", completedModuleTasks.size(),
+				(totalMillis / 1000.));
+		for (int i = 0; i < Math.min(REPORTED_STRAGGLER_COUNT, completedModuleTasks.size()); i++) {
+			ModuleMergeTask task = completedModuleTasks.get(i);
+			Log.log("\t%f seconds: module %s of %s (thread %d)", (task.elapsedMillis / 1000.), task.getModule().name,
+					task.pairMerge.name, task.threadIndex);
+		}
 	}
 
 	private void printUsageAndExit() {
 		System.out
 				.println(String
-						.format("Usage: %s -l <log-path> [ -c <module-name>,... ]\n\t[ -d <crowd-safe-common-dir> ][ -t <thread-count> ]\n\t[ -u (include unity merge) ] <run-list-file>",
+						.format("Usage: %s -l <log-path> [ -c <module-name>,... ]\n\t[ -d <crowd-safe-common-dir> ][ -t <thread-count> ]\n\t[ -u (include unity merge) ] [ -m <cache-megabytes> [ -b <tile-size> ] ]\n\t[ -f <minimum-similarity> [ -q (defer dissimilar pairs instead of skipping) ] ]\n\t[ -w <metrics-file> ] <run-list-file>",
 								getClass().getSimpleName()));
 		System.exit(1);
 	}
@@ -0,0 +1,327 @@
+package edu.uci.plrg.cfi.x86.merge.graph.mapped;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import edu.uci.plrg.cfi.x86.graph.data.application.ApplicationModule;
+import edu.uci.plrg.cfi.x86.graph.data.graph.Edge;
+import edu.uci.plrg.cfi.x86.graph.data.graph.EdgeType;
+import edu.uci.plrg.cfi.x86.graph.data.graph.MetaNodeType;
+import edu.uci.plrg.cfi.x86.graph.data.graph.ModuleGraph;
+import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ApplicationGraph;
+import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ModuleNode;
+
+/**
+ * Read-only view of one module graph in the columnar dataset format (see <code>ColumnarDatasetFormat</code>). Opening
+ * a dataset maps the file and reads its header, so it takes the same time for any number of nodes. Nodes are found by
+ * hash with a binary search of the persisted hash index, and the outgoing edges of a node are read directly from the
+ * adjacency section, so neither needs a structure on the heap. A client that needs node objects materializes only the
+ * nodes it reaches, for example the fragment of the dataset that an execution can match (see
+ * <code>materializeFragment()</code>).
+ *
+ * The buffer is only read with absolute gets, so a dataset can be shared by concurrent readers.
+ */
+public class ColumnarDataset {
+
+	private static final MetaNodeType[] NODE_TYPES = MetaNodeType.values();
+
+	/**
+	 * Open the dataset in <code>file</code> without checking its source stamp (see
+	 * <code>ColumnarDatasetCatalog</code>).
+	 */
+	public static ColumnarDataset open(ApplicationModule module, File file) throws IOException {
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = in.getChannel();
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new IllegalStateException(String.format("Dataset %s is too large to map (%d bytes)", file, size));
+			if (size < ColumnarDatasetFormat.HEADER_SIZE)
+				throw new IllegalStateException(String.format("Dataset %s is too short for its header (%d bytes)",
+						file, size));
+
+			// the mapping remains valid after the channel is closed
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+			buffer.order(ColumnarDatasetFormat.BYTE_ORDER);
+			if (buffer.getInt(ColumnarDatasetFormat.MAGIC_OFFSET) != ColumnarDatasetFormat.MAGIC)
+				throw new IllegalStateException(String.format("File %s is not a columnar dataset", file));
+			int version = buffer.getInt(ColumnarDatasetFormat.VERSION_OFFSET);
+			if (version != ColumnarDatasetFormat.VERSION)
+				throw new IllegalStateException(String.format("Dataset %s has version %d, but version %d is required",
+						file, version, ColumnarDatasetFormat.VERSION));
+
+			int nodeCount = buffer.getInt(ColumnarDatasetFormat.NODE_COUNT_OFFSET);
+			int edgeCount = buffer.getInt(ColumnarDatasetFormat.EDGE_COUNT_OFFSET);
+			int sscCount = buffer.getInt(ColumnarDatasetFormat.SSC_COUNT_OFFSET);
+			ColumnarDatasetFormat.Sections sections = new ColumnarDatasetFormat.Sections(nodeCount, edgeCount,
+					sscCount);
+			if (sections.size != size)
+				throw new IllegalStateException(String.format(
+						"Dataset %s has %d bytes, but %d nodes, %d edges and %d SSCs require %d bytes", file, size,
+						nodeCount, edgeCount, sscCount, sections.size));
+
+			return new ColumnarDataset(module, buffer, sections, nodeCount, edgeCount, sscCount,
+					buffer.getLong(ColumnarDatasetFormat.SOURCE_STAMP_OFFSET));
+		} finally {
+			in.close();
+		}
+	}
+
+	public final ApplicationModule module;
+
+	private final ByteBuffer buffer;
+	private final ColumnarDatasetFormat.Sections sections;
+	private final int nodeCount;
+	private final int edgeCount;
+	private final int sscCount;
+	private final long sourceStamp;
+
+	private ColumnarDataset(ApplicationModule module, ByteBuffer buffer, ColumnarDatasetFormat.Sections sections,
+			int nodeCount, int edgeCount, int sscCount, long sourceStamp) {
+		this.module = module;
+		this.buffer = buffer;
+		this.sections = sections;
+		this.nodeCount = nodeCount;
+		this.edgeCount = edgeCount;
+		this.sscCount = sscCount;
+		this.sourceStamp = sourceStamp;
+	}
+
+	/**
+	 * @return the stamp of the modular streams that this dataset was written from
+	 */
+	public long getSourceStamp() {
+		return sourceStamp;
+	}
+
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	public long getHash(int node) {
+		return buffer.getLong(sections.hashes + (8 * node));
+	}
+
+	public long getRelativeTag(int node) {
+		return buffer.getInt(sections.relativeTags + (4 * node)) & 0xffffffffL;
+	}
+
+	public int getInstanceId(int node) {
+		return buffer.get(sections.instanceIds + node) & 0xff;
+	}
+
+	public MetaNodeType getType(int node) {
+		return NODE_TYPES[buffer.get(sections.types + node) & 0xff];
+	}
+
+	public int getOutgoingEdgeCount(int node) {
+		return getEdgeStart(node + 1) - getEdgeStart(node);
+	}
+
+	/**
+	 * @return the edge index of the <code>i</code>th outgoing edge of <code>node</code>
+	 */
+	public int getOutgoingEdge(int node, int i) {
+		return getEdgeStart(node) + i;
+	}
+
+	public int getToNode(int edge) {
+		return ColumnarDatasetFormat.getEdgeToNode(getEdgeWord(edge));
+	}
+
+	public EdgeType getEdgeType(int edge) {
+		return ColumnarDatasetFormat.getEdgeType(getEdgeWord(edge));
+	}
+
+	public int getEdgeOrdinal(int edge) {
+		return ColumnarDatasetFormat.getEdgeOrdinal(getEdgeWord(edge));
+	}
+
+	/**
+	 * @return the number of nodes having <code>hash</code>
+	 */
+	public int getHashCount(long hash) {
+		int first = findFirstHashEntry(hash);
+		if (first < 0)
+			return 0;
+		int end = first + 1;
+		while ((end < nodeCount) && (getSortedHash(end) == hash))
+			end++;
+		return end - first;
+	}
+
+	/**
+	 * @return the <code>i</code>th node having <code>hash</code>, in node order
+	 */
+	public int getHashNode(long hash, int i) {
+		int first = findFirstHashEntry(hash);
+		if ((first < 0) || ((first + i) >= nodeCount) || (getSortedHash(first + i) != hash))
+			throw new IllegalArgumentException(String.format("Dataset of %s does not have %d nodes of hash 0x%x",
+					module.filename, i + 1, hash));
+		return getSortedNode(first + i);
+	}
+
+	/**
+	 * @return the first node having <code>hash</code>, or -1 if there is none
+	 */
+	public int findNode(long hash) {
+		int first = findFirstHashEntry(hash);
+		if (first < 0)
+			return -1;
+		return getSortedNode(first);
+	}
+
+	public boolean containsHash(long hash) {
+		return findFirstHashEntry(hash) >= 0;
+	}
+
+	public boolean isMainModule() {
+		return (getMetadataFlags() & ColumnarDatasetFormat.MAIN_MODULE_FLAG) != 0;
+	}
+
+	/**
+	 * @return true if the module's root metadata sequence has a head execution, which the other metadata accessors
+	 *         summarize
+	 */
+	public boolean hasHeadExecution() {
+		return (getMetadataFlags() & ColumnarDatasetFormat.HEAD_EXECUTION_FLAG) != 0;
+	}
+
+	/**
+	 * @return the id of the head execution, or null if there is none
+	 */
+	public UUID getHeadExecutionId() {
+		if (!hasHeadExecution())
+			return null;
+		return new UUID(buffer.getLong(sections.metadata + ColumnarDatasetFormat.METADATA_EXECUTION_ID_OFFSET),
+				buffer.getLong(sections.metadata + ColumnarDatasetFormat.METADATA_EXECUTION_ID_OFFSET + 8));
+	}
+
+	/**
+	 * @return the number of admitted UIBs of the head execution
+	 */
+	public int getUIBCount() {
+		return buffer.getInt(sections.metadata + ColumnarDatasetFormat.METADATA_UIB_COUNT_OFFSET);
+	}
+
+	/**
+	 * @return the number of UIBs of the head execution that were not admitted
+	 */
+	public int getSuspiciousUIBCount() {
+		return buffer.getInt(sections.metadata + ColumnarDatasetFormat.METADATA_SUIB_COUNT_OFFSET);
+	}
+
+	public int getSGECount() {
+		return buffer.getInt(sections.metadata + ColumnarDatasetFormat.METADATA_SGE_COUNT_OFFSET);
+	}
+
+	public int getSSCCount() {
+		return sscCount;
+	}
+
+	public int getSSCSysnum(int i) {
+		return buffer.getInt(sections.sscSysnums + (4 * i));
+	}
+
+	/**
+	 * Add the node at <code>node</code> to <code>graph</code>, which must be a graph of the same module.
+	 */
+	public ModuleNode<?> materializeNode(int node, ApplicationGraph graph) {
+		return graph.addNode(getHash(node), module, getRelativeTag(node), getType(node));
+	}
+
+	/**
+	 * Build the part of the dataset that <code>execution</code> can match: every dataset node that has the hash of an
+	 * execution node, with its outgoing edges and their to nodes. A report only reads dataset nodes that it found by
+	 * the hash of an execution node and the outgoing edges of those nodes, so it reads the same dataset from the
+	 * fragment as from the whole graph, while only these nodes are built on the heap. Incoming edges of the fragment
+	 * nodes are only those from other matched nodes, and instance ids are assigned by the fragment graph.
+	 */
+	public ApplicationGraph materializeFragment(ModuleGraph<ModuleNode<?>> execution) {
+		ApplicationGraph fragment = new ApplicationGraph(String.format("mapped fragment of %s", module.filename),
+				module);
+		Map<Integer, ModuleNode<?>> materializedNodes = new HashMap<Integer, ModuleNode<?>>();
+
+		List<Integer> matchedNodes = new ArrayList<Integer>();
+		for (Long hash : execution.getGraphData().nodesByHash.keySet()) {
+			int first = findFirstHashEntry(hash);
+			if (first < 0)
+				continue;
+			for (int position = first; (position < nodeCount) && (getSortedHash(position) == hash); position++)
+				matchedNodes.add(getSortedNode(position));
+		}
+
+		for (Integer node : matchedNodes)
+			materializeNode(node, fragment, materializedNodes);
+		for (Integer node : matchedNodes) {
+			ModuleNode<?> fromNode = materializedNodes.get(node);
+			for (int edge = getEdgeStart(node); edge < getEdgeStart(node + 1); edge++) {
+				ModuleNode<?> toNode = materializeNode(getToNode(edge), fragment, materializedNodes);
+				Edge<ModuleNode<?>> fragmentEdge = new Edge<ModuleNode<?>>(fromNode, toNode, getEdgeType(edge),
+						getEdgeOrdinal(edge));
+				fromNode.addOutgoingEdge(fragmentEdge);
+				toNode.addIncomingEdge(fragmentEdge);
+			}
+		}
+		return fragment;
+	}
+
+	private ModuleNode<?> materializeNode(int node, ApplicationGraph graph,
+			Map<Integer, ModuleNode<?>> materializedNodes) {
+		ModuleNode<?> materialized = materializedNodes.get(node);
+		if (materialized == null) {
+			materialized = materializeNode(node, graph);
+			materializedNodes.put(node, materialized);
+		}
+		return materialized;
+	}
+
+	/**
+	 * @return the position of the first entry for <code>hash</code> in the hash index, or -1 if there is none
+	 */
+	private int findFirstHashEntry(long hash) {
+		int low = 0, high = nodeCount;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (getSortedHash(middle) < hash)
+				low = middle + 1;
+			else
+				high = middle;
+		}
+		if ((low < nodeCount) && (getSortedHash(low) == hash))
+			return low;
+		return -1;
+	}
+
+	private long getSortedHash(int position) {
+		return buffer.getLong(sections.sortedHashes + (8 * position));
+	}
+
+	private int getSortedNode(int position) {
+		return buffer.getInt(sections.sortedNodes + (4 * position));
+	}
+
+	private int getMetadataFlags() {
+		return buffer.getInt(sections.metadata + ColumnarDatasetFormat.METADATA_FLAGS_OFFSET);
+	}
+
+	private int getEdgeStart(int node) {
+		return buffer.getInt(sections.edgeStart + (4 * node));
+	}
+
+	private long getEdgeWord(int edge) {
+		return buffer.getLong(sections.edgeWords + (8 * edge));
+	}
+}
@@ -0,0 +1,73 @@
+package edu.uci.plrg.cfi.x86.merge.graph.mapped;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.uci.plrg.cfi.common.log.Log;
+import edu.uci.plrg.cfi.x86.graph.data.application.ApplicationModule;
+
+/**
+ * The columnar datasets of one directory, found by a single listing of the directory, so that opening the dataset of
+ * each module does not list it again. A dataset is only opened if its source stamp matches the modular streams of its
+ * module as of the listing (see <code>ColumnarDatasetFormat</code>); a stale dataset is logged and treated as missing,
+ * so that the caller reads the modular streams instead.
+ */
+public class ColumnarDatasetCatalog {
+
+	/**
+	 * @return the catalog of <code>directory</code>, which is empty if the directory cannot be listed
+	 */
+	public static ColumnarDatasetCatalog scan(File directory) {
+		File[] files = directory.listFiles();
+		return new ColumnarDatasetCatalog(directory, (files == null) ? new File[0] : files);
+	}
+
+	private final File directory;
+	private final File[] files;
+
+	// columnar dataset files, with the part of each name before the columnar stream
+	private final List<File> datasetFiles = new ArrayList<File>();
+	private final List<String> datasetPrefixes = new ArrayList<String>();
+
+	private ColumnarDatasetCatalog(File directory, File[] files) {
+		this.directory = directory;
+		this.files = files;
+
+		for (File file : files) {
+			String prefix = ColumnarDatasetFormat.getModulePrefix(file.getName());
+			if (prefix != null) {
+				datasetFiles.add(file);
+				datasetPrefixes.add(prefix);
+			}
+		}
+	}
+
+	public boolean isEmpty() {
+		return datasetFiles.isEmpty();
+	}
+
+	/**
+	 * @return the columnar dataset of <code>module</code>, or null if there is none or it is stale
+	 */
+	public ColumnarDataset open(ApplicationModule module) throws IOException {
+		// named <prefix>.<module>.<stream>.<extension>, where the module is given by its name or its filename
+		for (int i = 0; i < datasetFiles.size(); i++) {
+			String prefix = datasetPrefixes.get(i);
+			if (!(prefix.endsWith("." + module.name) || prefix.endsWith("." + module.filename)))
+				continue;
+
+			ColumnarDataset dataset = ColumnarDataset.open(module, datasetFiles.get(i));
+			long sourceStamp = ColumnarDatasetFormat.computeSourceStamp(prefix, files);
+			if (dataset.getSourceStamp() != sourceStamp) {
+				Log.log("Warning: ignoring the stale columnar dataset %s in %s, which was written from other module "
+						+ "streams (stamp 0x%x, but the streams have 0x%x)", datasetFiles.get(i).getName(),
+						directory.getName(), dataset.getSourceStamp(), sourceStamp);
+				return null;
+			}
+			return dataset;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,193 @@
+package edu.uci.plrg.cfi.x86.merge.graph.mapped;
+
+import java.io.File;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import edu.uci.plrg.cfi.x86.graph.data.graph.EdgeType;
+
+/**
+ * Layout of the columnar dataset stream, which holds one module graph in a form that can be opened by mapping the file
+ * and reading its header. It is shared by <code>ColumnarDatasetWriter</code> and <code>ColumnarDataset</code>.
+ *
+ * <pre>
+ * header:           magic (4) | version (4) | node count (4) | edge count (4) | SSC count (4) | padding (4)
+ *                   | source stamp (8)
+ * node columns:     hash (8 per node), relative tag (4 per node), instance id (1 per node), node type (1 per node)
+ * adjacency (CSR):  first outgoing edge (4 per node, plus 1 for the end), edge word (8 per edge)
+ * hash index:       hashes in ascending order (8 per node), node of each sorted hash (4 per node)
+ * metadata:         flags (4) | UIB count (4) | SUIB count (4) | SGE count (4) | execution id (16)
+ *                   | SSC sysnums (4 per SSC)
+ * </pre>
+ *
+ * Each section starts on an 8 byte boundary. The edge word holds the index of the edge's to node in the low 32 bits,
+ * followed by the edge type (8) and the edge ordinal (8), and the relative tag of a node is stored in 32 bits, so the
+ * writer refuses a graph having an ordinal, relative tag or instance id that does not fit. Nodes are numbered by their
+ * position in the node columns, and the outgoing edges of node n are the edge words from <code>edgeStart[n]</code> to
+ * <code>edgeStart[n + 1]</code>. Nodes with the same hash are listed in node order in the hash index.
+ *
+ * The metadata section summarizes the head execution of the module's root metadata sequence, which is all that the
+ * dataset statistics read from the metadata. The flags tell whether the module is the main module and whether it has
+ * a head execution; the counts and the SSCs are zero and empty without one.
+ *
+ * A columnar dataset is written next to the modular streams of its module, named like them with the stream
+ * <code>STREAM</code>: <code>&lt;prefix&gt;.&lt;module&gt;.&lt;stream&gt;.&lt;extension&gt;</code>. The source stamp
+ * is computed from the names, sizes and modification times of those modular streams when the dataset is written, and
+ * a reader rejects the dataset if the streams no longer have that stamp, since the module was written again without
+ * its columnar dataset.
+ */
+public final class ColumnarDatasetFormat {
+
+	public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+	public static final String STREAM = "graph-columnar";
+	public static final String EXTENSION = "dat";
+
+	public static final int MAGIC = 0x43534344; // "CSCD"
+	public static final int VERSION = 3;
+
+	static final int HEADER_SIZE = 32;
+	static final int MAGIC_OFFSET = 0;
+	static final int VERSION_OFFSET = 4;
+	static final int NODE_COUNT_OFFSET = 8;
+	static final int EDGE_COUNT_OFFSET = 12;
+	static final int SSC_COUNT_OFFSET = 16;
+	static final int SOURCE_STAMP_OFFSET = 24;
+
+	static final int MAXIMUM_EDGE_ORDINAL = 0xff;
+	static final int MAXIMUM_INSTANCE_ID = 0xff;
+	static final long MAXIMUM_RELATIVE_TAG = 0xffffffffL;
+
+	static final int MAIN_MODULE_FLAG = 0x1;
+	static final int HEAD_EXECUTION_FLAG = 0x2;
+
+	static final int METADATA_FLAGS_OFFSET = 0;
+	static final int METADATA_UIB_COUNT_OFFSET = 4;
+	static final int METADATA_SUIB_COUNT_OFFSET = 8;
+	static final int METADATA_SGE_COUNT_OFFSET = 12;
+	static final int METADATA_EXECUTION_ID_OFFSET = 16;
+	static final int METADATA_SUMMARY_SIZE = 32;
+
+	private static final EdgeType[] EDGE_TYPES = EdgeType.values();
+
+	/**
+	 * Byte offsets of the sections for a dataset of a given size.
+	 */
+	static class Sections {
+		final int hashes;
+		final int relativeTags;
+		final int instanceIds;
+		final int types;
+		final int edgeStart;
+		final int edgeWords;
+		final int sortedHashes;
+		final int sortedNodes;
+		final int metadata;
+		final int sscSysnums;
+		final int size;
+
+		Sections(int nodeCount, int edgeCount, int sscCount) {
+			if ((nodeCount < 0) || (edgeCount < 0) || (sscCount < 0))
+				throw new IllegalStateException(String.format(
+						"Columnar dataset has a negative count: %d nodes, %d edges, %d SSCs", nodeCount, edgeCount,
+						sscCount));
+
+			long offset = HEADER_SIZE;
+			hashes = checkOffset(offset);
+			offset += 8L * nodeCount;
+			relativeTags = checkOffset(offset);
+			offset += 4L * nodeCount;
+			instanceIds = checkOffset(offset);
+			offset += nodeCount;
+			types = checkOffset(offset);
+			offset = align(offset + nodeCount);
+			edgeStart = checkOffset(offset);
+			offset = align(offset + (4L * (nodeCount + 1)));
+			edgeWords = checkOffset(offset);
+			offset += 8L * edgeCount;
+			sortedHashes = checkOffset(offset);
+			offset += 8L * nodeCount;
+			sortedNodes = checkOffset(offset);
+			offset = align(offset + (4L * nodeCount));
+			metadata = checkOffset(offset);
+			offset += METADATA_SUMMARY_SIZE;
+			sscSysnums = checkOffset(offset);
+			offset += 4L * sscCount;
+			size = checkOffset(offset);
+		}
+
+		private static long align(long offset) {
+			return (offset + 7L) & ~7L;
+		}
+
+		private static int checkOffset(long offset) {
+			if (offset > Integer.MAX_VALUE)
+				throw new IllegalStateException(String.format(
+						"Columnar dataset is too large to map (%d bytes at least)", offset));
+			return (int) offset;
+		}
+	}
+
+	private ColumnarDatasetFormat() {
+	}
+
+	/**
+	 * @return the part of <code>filename</code> before the columnar stream, or null if it is not a columnar dataset
+	 */
+	static String getModulePrefix(String filename) {
+		int streamStart = filename.indexOf("." + STREAM + ".");
+		if (streamStart < 0)
+			return null;
+		return filename.substring(0, streamStart);
+	}
+
+	/**
+	 * @param modulePrefix
+	 *            the prefix of a columnar dataset (see <code>getModulePrefix()</code>)
+	 * @param files
+	 *            the files of the directory of the dataset
+	 * @return the stamp of the modular streams of the module, which are the other files named
+	 *         <code>&lt;modulePrefix&gt;.&lt;stream&gt;.&lt;extension&gt;</code>
+	 */
+	static long computeSourceStamp(String modulePrefix, File[] files) {
+		List<File> sources = new ArrayList<File>();
+		for (File file : files) {
+			String name = file.getName();
+			if (!name.startsWith(modulePrefix + "."))
+				continue;
+			// a module whose name extends this one has a longer remainder
+			String stream = name.substring(modulePrefix.length() + 1);
+			if ((stream.indexOf('.') < 0) || (stream.indexOf('.') != stream.lastIndexOf('.'))
+					|| stream.startsWith(STREAM + "."))
+				continue;
+			sources.add(file);
+		}
+		Collections.sort(sources);
+
+		long stamp = sources.size();
+		for (File source : sources) {
+			stamp = (31L * stamp) + source.getName().hashCode();
+			stamp = (31L * stamp) + source.length();
+			stamp = (31L * stamp) + source.lastModified();
+		}
+		return stamp;
+	}
+
+	static long packEdge(int toNode, EdgeType type, int ordinal) {
+		return (toNode & 0xffffffffL) | (((long) type.ordinal()) << 0x20) | (((long) ordinal) << 0x28);
+	}
+
+	static int getEdgeToNode(long edgeWord) {
+		return (int) edgeWord;
+	}
+
+	static EdgeType getEdgeType(long edgeWord) {
+		return EDGE_TYPES[(int) ((edgeWord >>> 0x20) & 0xffL)];
+	}
+
+	static int getEdgeOrdinal(long edgeWord) {
+		return (int) ((edgeWord >>> 0x28) & 0xffL);
+	}
+}
@@ -0,0 +1,192 @@
+package edu.uci.plrg.cfi.x86.merge.graph.mapped;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import edu.uci.plrg.cfi.x86.graph.data.graph.Edge;
+import edu.uci.plrg.cfi.x86.graph.data.graph.ModuleGraph;
+import edu.uci.plrg.cfi.x86.graph.data.graph.OrdinalEdgeList;
+import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ModuleNode;
+import edu.uci.plrg.cfi.x86.graph.data.graph.modular.metadata.ModuleMetadataExecution;
+import edu.uci.plrg.cfi.x86.graph.data.graph.modular.metadata.ModuleMetadataSequence;
+import edu.uci.plrg.cfi.x86.graph.data.graph.modular.metadata.ModuleSSC;
+import edu.uci.plrg.cfi.x86.graph.data.graph.modular.metadata.ModuleUIB;
+import edu.uci.plrg.cfi.x86.merge.util.NodeIdMap;
+
+/**
+ * Writes a module graph in the columnar dataset format (see <code>ColumnarDatasetFormat</code>).
+ */
+public class ColumnarDatasetWriter {
+
+	/**
+	 * Write <code>graph</code> to <code>file</code>, which must be named for the format, in the directory where the
+	 * modular streams of the graph were just written. If the graph does not fit the format, the file is deleted and an
+	 * <code>IllegalStateException</code> is thrown.
+	 */
+	public static void write(ModuleGraph<ModuleNode<?>> graph, File file) throws IOException {
+		String modulePrefix = ColumnarDatasetFormat.getModulePrefix(file.getName());
+		if (modulePrefix == null)
+			throw new IllegalArgumentException(String.format("File %s is not named as a columnar dataset", file));
+		File[] files = file.getAbsoluteFile().getParentFile().listFiles();
+		if (files == null)
+			throw new IOException(String.format("Failed to list the directory of %s", file));
+
+		boolean written = false;
+		try {
+			write(graph, file, ColumnarDatasetFormat.computeSourceStamp(modulePrefix, files));
+			written = true;
+		} finally {
+			if (!written)
+				file.delete();
+		}
+	}
+
+	private static void write(ModuleGraph<ModuleNode<?>> graph, File file, long sourceStamp) throws IOException {
+		NodeIdMap<ModuleNode<?>> nodeIds = new NodeIdMap<ModuleNode<?>>(graph.getNodeCount());
+		for (ModuleNode<?> node : graph.getAllNodes())
+			nodeIds.assignId(node);
+		int nodeCount = nodeIds.size();
+
+		int edgeCount = 0;
+		for (int i = 0; i < nodeCount; i++) {
+			OrdinalEdgeList<ModuleNode<?>> edges = nodeIds.getObject(i).getOutgoingEdges();
+			try {
+				edgeCount += edges.size();
+			} finally {
+				edges.release();
+			}
+		}
+
+		ModuleMetadataSequence rootSequence = graph.metadata.getRootSequence();
+		ModuleMetadataExecution headExecution = (rootSequence == null) ? null : rootSequence.getHeadExecution();
+		int sscCount = (headExecution == null) ? 0 : headExecution.sscs.size();
+
+		ColumnarDatasetFormat.Sections sections = new ColumnarDatasetFormat.Sections(nodeCount, edgeCount, sscCount);
+		RandomAccessFile out = new RandomAccessFile(file, "rw");
+		try {
+			out.setLength(sections.size);
+			ByteBuffer buffer = out.getChannel().map(FileChannel.MapMode.READ_WRITE, 0L, sections.size);
+			buffer.order(ColumnarDatasetFormat.BYTE_ORDER);
+
+			buffer.putInt(ColumnarDatasetFormat.MAGIC_OFFSET, ColumnarDatasetFormat.MAGIC);
+			buffer.putInt(ColumnarDatasetFormat.VERSION_OFFSET, ColumnarDatasetFormat.VERSION);
+			buffer.putInt(ColumnarDatasetFormat.NODE_COUNT_OFFSET, nodeCount);
+			buffer.putInt(ColumnarDatasetFormat.EDGE_COUNT_OFFSET, edgeCount);
+			buffer.putInt(ColumnarDatasetFormat.SSC_COUNT_OFFSET, sscCount);
+			buffer.putLong(ColumnarDatasetFormat.SOURCE_STAMP_OFFSET, sourceStamp);
+
+			long[] hashes = new long[nodeCount];
+			int edgeIndex = 0;
+			for (int i = 0; i < nodeCount; i++) {
+				ModuleNode<?> node = nodeIds.getObject(i);
+				if ((node.getRelativeTag() < 0L)
+						|| (node.getRelativeTag() > ColumnarDatasetFormat.MAXIMUM_RELATIVE_TAG))
+					throw new IllegalStateException(String.format(
+							"Node %s of %s has a relative tag that does not fit the columnar format", node,
+							graph.module.filename));
+				if ((node.getInstanceId() < 0) || (node.getInstanceId() > ColumnarDatasetFormat.MAXIMUM_INSTANCE_ID))
+					throw new IllegalStateException(String.format(
+							"Node %s of %s has an instance id that does not fit the columnar format", node,
+							graph.module.filename));
+				hashes[i] = node.getHash();
+				buffer.putLong(sections.hashes + (8 * i), node.getHash());
+				buffer.putInt(sections.relativeTags + (4 * i), (int) node.getRelativeTag());
+				buffer.put(sections.instanceIds + i, (byte) node.getInstanceId());
+				buffer.put(sections.types + i, (byte) node.getType().ordinal());
+
+				buffer.putInt(sections.edgeStart + (4 * i), edgeIndex);
+				OrdinalEdgeList<ModuleNode<?>> edges = node.getOutgoingEdges();
+				try {
+					for (Edge<ModuleNode<?>> edge : edges) {
+						int toNode = nodeIds.getId(edge.getToNode());
+						if (toNode == NodeIdMap.NONE)
+							throw new IllegalStateException(String.format("Edge %s leaves the graph of %s", edge,
+									graph.module.filename));
+						if ((edge.getOrdinal() < 0)
+								|| (edge.getOrdinal() > ColumnarDatasetFormat.MAXIMUM_EDGE_ORDINAL))
+							throw new IllegalStateException(String.format(
+									"Edge %s of %s has an ordinal that does not fit the columnar format", edge,
+									graph.module.filename));
+						buffer.putLong(sections.edgeWords + (8 * edgeIndex++),
+								ColumnarDatasetFormat.packEdge(toNode, edge.getEdgeType(), edge.getOrdinal()));
+					}
+				} finally {
+					edges.release();
+				}
+			}
+			buffer.putInt(sections.edgeStart + (4 * nodeCount), edgeIndex);
+
+			int[] sortedNodes = new int[nodeCount];
+			for (int i = 0; i < nodeCount; i++)
+				sortedNodes[i] = i;
+			sortByHash(hashes, sortedNodes);
+			for (int i = 0; i < nodeCount; i++) {
+				buffer.putLong(sections.sortedHashes + (8 * i), hashes[i]);
+				buffer.putInt(sections.sortedNodes + (4 * i), sortedNodes[i]);
+			}
+
+			writeMetadata(buffer, sections, graph.metadata.isMain(), headExecution);
+		} finally {
+			out.close();
+		}
+	}
+
+	private static void writeMetadata(ByteBuffer buffer, ColumnarDatasetFormat.Sections sections, boolean isMain,
+			ModuleMetadataExecution headExecution) {
+		int flags = isMain ? ColumnarDatasetFormat.MAIN_MODULE_FLAG : 0;
+		if (headExecution != null) {
+			flags |= ColumnarDatasetFormat.HEAD_EXECUTION_FLAG;
+
+			int uibCount = 0, suibCount = 0;
+			for (ModuleUIB uib : headExecution.uibs) {
+				if (uib.isAdmitted)
+					uibCount++;
+				else
+					suibCount++;
+			}
+			buffer.putInt(sections.metadata + ColumnarDatasetFormat.METADATA_UIB_COUNT_OFFSET, uibCount);
+			buffer.putInt(sections.metadata + ColumnarDatasetFormat.METADATA_SUIB_COUNT_OFFSET, suibCount);
+			buffer.putInt(sections.metadata + ColumnarDatasetFormat.METADATA_SGE_COUNT_OFFSET,
+					headExecution.sges.size());
+			buffer.putLong(sections.metadata + ColumnarDatasetFormat.METADATA_EXECUTION_ID_OFFSET,
+					headExecution.id.getMostSignificantBits());
+			buffer.putLong(sections.metadata + ColumnarDatasetFormat.METADATA_EXECUTION_ID_OFFSET + 8,
+					headExecution.id.getLeastSignificantBits());
+
+			int i = 0;
+			for (ModuleSSC ssc : headExecution.sscs)
+				buffer.putInt(sections.sscSysnums + (4 * i++), ssc.sysnum);
+		}
+		buffer.putInt(sections.metadata + ColumnarDatasetFormat.METADATA_FLAGS_OFFSET, flags);
+	}
+
+	/**
+	 * Stable merge sort of <code>nodes</code> by the parallel <code>hashes</code>, so that nodes of the same hash stay
+	 * in node order.
+	 */
+	private static void sortByHash(long[] hashes, int[] nodes) {
+		long[] hashBuffer = new long[hashes.length];
+		int[] nodeBuffer = new int[nodes.length];
+		for (int width = 1; width < hashes.length; width *= 2) {
+			for (int start = 0; start < hashes.length; start += 2 * width) {
+				int middle = Math.min(start + width, hashes.length);
+				int end = Math.min(start + (2 * width), hashes.length);
+				int left = start, right = middle;
+				for (int i = start; i < end; i++) {
+					if ((left < middle) && ((right == end) || (hashes[left] <= hashes[right]))) {
+						hashBuffer[i] = hashes[left];
+						nodeBuffer[i] = nodes[left++];
+					} else {
+						hashBuffer[i] = hashes[right];
+						nodeBuffer[i] = nodes[right++];
+					}
+				}
+			}
+			System.arraycopy(hashBuffer, 0, hashes, 0, hashes.length);
+			System.arraycopy(nodeBuffer, 0, nodes, 0, nodes.length);
+		}
+	}
+}
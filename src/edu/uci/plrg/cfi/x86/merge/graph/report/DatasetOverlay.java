@@ -0,0 +1,99 @@
+package edu.uci.plrg.cfi.x86.merge.graph.report;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.uci.plrg.cfi.x86.graph.data.application.ApplicationModule;
+import edu.uci.plrg.cfi.x86.graph.data.graph.Edge;
+import edu.uci.plrg.cfi.x86.graph.data.graph.MetaNodeType;
+import edu.uci.plrg.cfi.x86.graph.data.graph.Node;
+import edu.uci.plrg.cfi.x86.graph.data.graph.NodeList;
+import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ApplicationGraph;
+import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ModuleNode;
+
+/**
+ * The nodes and edges that one report adds to a dataset module, kept apart from the dataset so that it is never
+ * changed and can be shared by concurrent reports. Added nodes live in a scratch graph of the module, and edges are
+ * only attached to added nodes: an edge from a dataset node is kept in a side list of that node instead, and an edge
+ * to a dataset node is not attached to its to node.
+ */
+class DatasetOverlay {
+
+	private final ApplicationGraph dataset;
+	private final ApplicationGraph added;
+
+	// added edges by their from node, for from nodes in the dataset
+	private final Map<ModuleNode<?>, List<Edge<ModuleNode<?>>>> sideEdges = new HashMap<ModuleNode<?>, List<Edge<ModuleNode<?>>>>();
+
+	DatasetOverlay(ApplicationGraph dataset) {
+		this.dataset = dataset;
+		added = new ApplicationGraph(String.format("report overlay of %s", dataset.graph.name), dataset.graph.module);
+	}
+
+	/**
+	 * @return the dataset or added node that is equivalent to <code>node</code>, or null
+	 */
+	ModuleNode<?> getNode(Node<?> node) {
+		ModuleNode<?> match = getNode(dataset, node);
+		if (match == null)
+			match = getNode(added, node);
+		return match;
+	}
+
+	ModuleNode<?> addNode(long hash, ApplicationModule module, long relativeTag, MetaNodeType type) {
+		return added.addNode(hash, module, relativeTag, type);
+	}
+
+	boolean isAdded(ModuleNode<?> node) {
+		return added.graph.getNode(node.getKey()) == node;
+	}
+
+	/**
+	 * @throws IllegalArgumentException
+	 *             if the from node already has an added edge of the same type and ordinal to the same node
+	 */
+	void addEdge(Edge<ModuleNode<?>> edge) {
+		if (isAdded(edge.getFromNode()))
+			edge.getFromNode().addOutgoingEdge(edge);
+		else
+			addSideEdge(edge);
+
+		if (isAdded(edge.getToNode()))
+			edge.getToNode().addIncomingEdge(edge);
+	}
+
+	private void addSideEdge(Edge<ModuleNode<?>> edge) {
+		List<Edge<ModuleNode<?>>> edges = sideEdges.get(edge.getFromNode());
+		if (edges == null) {
+			edges = new ArrayList<Edge<ModuleNode<?>>>();
+			sideEdges.put(edge.getFromNode(), edges);
+		}
+		for (Edge<ModuleNode<?>> existing : edges) {
+			if ((existing.getToNode() == edge.getToNode()) && (existing.getEdgeType() == edge.getEdgeType())
+					&& (existing.getOrdinal() == edge.getOrdinal()))
+				throw new IllegalArgumentException(String.format("Edge %s was already added to the overlay", edge));
+		}
+		edges.add(edge);
+	}
+
+	private static ModuleNode<?> getNode(ApplicationGraph graph, Node<?> node) {
+		ModuleNode<?> match = graph.graph.getNode(node.getKey());
+		if (match != null && match.getHash() == node.getHash())
+			return match;
+
+		NodeList<ModuleNode<?>> byHash = graph.graph.getGraphData().nodesByHash.get(node.getHash());
+		if (byHash != null) {
+			for (int i = 0; i < byHash.size(); i++) {
+				ModuleNode<?> next = byHash.get(i);
+				if (node.isModuleRelativeEquivalent(next)) {
+					// report a hash match?
+					return next;
+				}
+			}
+		}
+
+		return null;
+	}
+}
@@ -9,6 +9,7 @@ import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import edu.uci.plrg.cfi.common.log.Log;
 import edu.uci.plrg.cfi.x86.graph.data.graph.Edge;
@@ -93,8 +94,43 @@ public class ExecutionReport {
 	private final ProgramEventFrequencies.ProgramPropertyReader programEventFrequencies;
 	private ModuleEventFrequencies.ModulePropertyReader currentModuleEventFrequencies = null;
 
+	// indirect branches of the whole execution, shared with its module reports, which may be generated concurrently
+	private final AtomicInteger uibCount;
+	private final AtomicInteger suibCount;
+
 	public ExecutionReport(ProgramPropertyReader programEventFrequencies) {
+		this(programEventFrequencies, new AtomicInteger(), new AtomicInteger());
+	}
+
+	private ExecutionReport(ProgramPropertyReader programEventFrequencies, AtomicInteger uibCount,
+			AtomicInteger suibCount) {
 		this.programEventFrequencies = programEventFrequencies;
+		this.uibCount = uibCount;
+		this.suibCount = suibCount;
+	}
+
+	/**
+	 * Create a report for one module of this execution, to be appended with <code>appendModuleReport()</code>. Its
+	 * entries are scored against the indirect branch counts of the whole execution.
+	 */
+	public ExecutionReport createModuleReport() {
+		return new ExecutionReport(programEventFrequencies, uibCount, suibCount);
+	}
+
+	void uibReported() {
+		uibCount.incrementAndGet();
+	}
+
+	int getUibCount() {
+		return uibCount.get();
+	}
+
+	void suibReported() {
+		suibCount.incrementAndGet();
+	}
+
+	int getSuibCount() {
+		return suibCount.get();
 	}
 
 	void setCurrentModule(String moduleName) {
@@ -111,15 +147,26 @@ public class ExecutionReport {
 
 	public void print(File outputFile) throws FileNotFoundException {
 		PrintStream out = new PrintStream(outputFile);
-		for (ReportEntry entry : entries) {
-			// if (entry instanceof NewEdgeReport && filteredEdges.contains(((NewEdgeReport) entry).edge))
-			// continue;
-			out.format("%04d ", entry.getRiskIndex());
-			entry.print(out);
-			out.println();
+		try {
+			for (ReportEntry entry : entries) {
+				// if (entry instanceof NewEdgeReport && filteredEdges.contains(((NewEdgeReport) entry).edge))
+				// continue;
+				out.format("%04d ", entry.getRiskIndex());
+				entry.print(out);
+				out.println();
+			}
+		} finally {
+			out.close();
 		}
 	}
 
+	/**
+	 * Add the entries of a report that was generated separately for one module of the same execution.
+	 */
+	public void appendModuleReport(ExecutionReport moduleReport) {
+		entries.addAll(moduleReport.entries);
+	}
+
 	void addEntry(ReportEntry entry) {
 		entries.add(entry);
 
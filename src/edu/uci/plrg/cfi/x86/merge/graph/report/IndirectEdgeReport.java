@@ -12,22 +12,22 @@ import edu.uci.plrg.cfi.x86.merge.graph.report.ProgramEventFrequencies.ProgramPr
 
 public class IndirectEdgeReport implements ReportEntry {
 
-	private static int executionUibCount = 0;
-	
+	private final ExecutionReport report;
 	private final ModuleUIB uib;
 
 	private double alpha = 0.0;
 
 	private double riskScale;
 
-	IndirectEdgeReport(ModuleUIB uib) {
+	IndirectEdgeReport(ExecutionReport report, ModuleUIB uib) {
+		this.report = report;
 		this.uib = uib;
 	}
 
 	@Override
 	public void setEventFrequencies(ProgramPropertyReader programFrequencies, ModulePropertyReader moduleFrequencies) {
 
-		executionUibCount++;
+		report.uibReported();
 
 		double alpha = moduleFrequencies.getAlpha(ModuleEventFrequencies.UIB_COUNT);
 		if (alpha < 2.0) {
@@ -40,7 +40,7 @@ public class IndirectEdgeReport implements ReportEntry {
 	@Override
 	public int getRiskIndex() {
 		if (alpha > 0.0) {
-			double ccdf = 1 - Math.pow(executionUibCount, 1 - alpha);
+			double ccdf = 1 - Math.pow(report.getUibCount(), 1 - alpha);
 			riskScale = ccdf * 0.3;
 		}
 		return (int) (riskScale * 1000.0);
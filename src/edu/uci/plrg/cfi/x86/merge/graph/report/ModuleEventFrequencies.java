@@ -12,6 +12,7 @@ import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ModuleNode;
 import edu.uci.plrg.cfi.x86.graph.data.graph.modular.metadata.ModuleMetadataExecution;
 import edu.uci.plrg.cfi.x86.graph.data.graph.modular.metadata.ModuleMetadataSequence;
 import edu.uci.plrg.cfi.x86.graph.data.graph.modular.metadata.ModuleUIB;
+import edu.uci.plrg.cfi.x86.merge.graph.mapped.ColumnarDataset;
 
 public class ModuleEventFrequencies {
 
@@ -135,6 +136,45 @@ public class ModuleEventFrequencies {
 		}
 	}
 
+	/**
+	 * Same as above, reading the nodes and edges from the mapped columnar dataset, and the metadata from its summary.
+	 */
+	public void extractStatistics(ColumnarDataset dataset, ProgramEventFrequencies programEventFrequencies) {
+		for (int node = 0; node < dataset.getNodeCount(); node++) {
+			int edgeCount = dataset.getOutgoingEdgeCount(node);
+			if ((dataset.getType(node) == MetaNodeType.RETURN) && (edgeCount > 0)) {
+				abnormalReturnCount++;
+				programEventFrequencies.incrementAbnormalReturns();
+			}
+
+			for (int i = 0; i < edgeCount; i++) {
+				int edge = dataset.getOutgoingEdge(node, i);
+				switch (dataset.getEdgeType(edge)) {
+					case UNEXPECTED_RETURN:
+						if (dataset.getType(dataset.getToNode(edge)) == MetaNodeType.MODULE_EXIT)
+							crossModuleUnexpectedReturns++;
+						else
+							intraModuleUnexpectedReturns++;
+						break;
+					case GENCODE_PERM:
+						gencodePermCount++;
+						programEventFrequencies.incrementGencodePerms();
+						break;
+					case GENCODE_WRITE:
+						gencodeWriteCount++;
+						programEventFrequencies.incrementGencodeWrites();
+						break;
+				}
+			}
+		}
+
+		if (dataset.hasHeadExecution()) {
+			metadataId = dataset.getHeadExecutionId();
+			uibCount += dataset.getUIBCount();
+			suibCount += dataset.getSuspiciousUIBCount();
+		}
+	}
+
 	public void extractStatistics(ModuleAnonymousGraphs module, ProgramEventFrequencies programEventFrequencies) {
 		if (module.isJIT()) {
 			isJIT = 1;
@@ -8,7 +8,6 @@ import edu.uci.plrg.cfi.common.util.RiskySystemCall;
 import edu.uci.plrg.cfi.x86.graph.data.graph.Edge;
 import edu.uci.plrg.cfi.x86.graph.data.graph.EdgeType;
 import edu.uci.plrg.cfi.x86.graph.data.graph.Node;
-import edu.uci.plrg.cfi.x86.graph.data.graph.NodeList;
 import edu.uci.plrg.cfi.x86.graph.data.graph.OrdinalEdgeList;
 import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ApplicationGraph;
 import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ModuleNode;
@@ -38,6 +37,9 @@ public class ModuleReportGenerator {
 	final ApplicationGraph execution;
 	final ApplicationGraph dataset;
 
+	// nodes and edges of the execution that are new to the dataset, which itself is not changed
+	final DatasetOverlay overlay;
+
 	// after addMetadataEntries, contains no SUIB
 	List<Edge<ModuleNode<?>>> mergedIndirects = new ArrayList<Edge<ModuleNode<?>>>();
 
@@ -50,6 +52,7 @@ public class ModuleReportGenerator {
 		this.report = report;
 		this.execution = execution;
 		this.dataset = dataset;
+		overlay = (dataset == null) ? null : new DatasetOverlay(dataset);
 
 		// Log.log("Module %s has %d indirects with %d distinct targets", execution.graph.cluster.name,
 		// eventFrequencies.getTotalIndirectCount(), eventFrequencies.getUniqueIndirectTargetCount());
@@ -79,7 +82,7 @@ public class ModuleReportGenerator {
 				if (dataset == null)
 					right = execution.addNode(left.getHash(), left.getModule(), left.getRelativeTag(), left.getType());
 				else
-					right = dataset.addNode(left.getHash(), left.getModule(), left.getRelativeTag(), left.getType());
+					right = overlay.addNode(left.getHash(), left.getModule(), left.getRelativeTag(), left.getType());
 				switch (right.getType()) {
 					case RETURN:
 						OrdinalEdgeList<?> outgoing = right.getOutgoingEdges();
@@ -115,8 +118,7 @@ public class ModuleReportGenerator {
 					leftEdge.getEdgeType(), leftEdge.getOrdinal());
 
 			try {
-				rightFromNode.addOutgoingEdge(newRightEdge);
-				rightToNode.addIncomingEdge(newRightEdge);
+				overlay.addEdge(newRightEdge);
 				if (ExecutionReport.isReportedEdgeType(newRightEdge.getEdgeType()))
 					report.addEntry(new NewEdgeReport(newRightEdge));
 				if (newRightEdge.getEdgeType() == EdgeType.INDIRECT)
@@ -141,9 +143,9 @@ public class ModuleReportGenerator {
 
 		for (ModuleUIB uib : metadata.uibs) {
 			if (uib.isAdmitted) {
-				report.addEntry(new IndirectEdgeReport(uib));
+				report.addEntry(new IndirectEdgeReport(report, uib));
 			} else {
-				report.addEntry(new SuspiciousIndirectEdgeReport(uib));
+				report.addEntry(new SuspiciousIndirectEdgeReport(report, uib));
 				// report.filterEdgeReport(uib.edge);
 			}
 		}
@@ -155,26 +157,14 @@ public class ModuleReportGenerator {
 			report.addEntry(new SuspiciousGencodeReport(sge));
 	}
 
+	/**
+	 * @return the node of the dataset, or added to the overlay, that is equivalent to <code>left</code>
+	 */
 	private ModuleNode<?> getDatasetNode(Node<?> left) {
 		if (dataset == null)
 			return null;
 
-		ModuleNode<?> right = dataset.graph.getNode(left.getKey());
-		if (right != null && right.getHash() == left.getHash())
-			return right;
-
-		NodeList<ModuleNode<?>> byHash = dataset.graph.getGraphData().nodesByHash.get(left.getHash());
-		if (byHash != null) {
-			for (int i = 0; i < byHash.size(); i++) {
-				ModuleNode<?> next = byHash.get(i);
-				if (left.isModuleRelativeEquivalent(next)) {
-					// report a hash match?
-					return next;
-				}
-			}
-		}
-
-		return null;
+		return overlay.getNode(left);
 	}
 
 	private void enqueueLeftEdges(ModuleNode<?> left, ModuleNode<?> right, boolean rightAdded) {
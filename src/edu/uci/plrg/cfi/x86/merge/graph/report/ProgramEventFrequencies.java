@@ -10,6 +10,7 @@ import edu.uci.plrg.cfi.x86.graph.data.graph.modular.metadata.ModuleMetadataExec
 import edu.uci.plrg.cfi.x86.graph.data.graph.modular.metadata.ModuleMetadataSequence;
 import edu.uci.plrg.cfi.x86.graph.data.graph.modular.metadata.ModuleSSC;
 import edu.uci.plrg.cfi.x86.graph.data.graph.modular.metadata.ModuleUIB;
+import edu.uci.plrg.cfi.x86.merge.graph.mapped.ColumnarDataset;
 
 public class ProgramEventFrequencies {
 
@@ -92,6 +93,24 @@ public class ProgramEventFrequencies {
 		}
 	}
 
+	/**
+	 * Same as above, from the metadata summary of a mapped columnar dataset.
+	 */
+	public void countMetadataEvents(ColumnarDataset dataset) {
+		if (!dataset.hasHeadExecution())
+			return;
+
+		sgeCount += dataset.getSGECount();
+
+		for (int i = 0; i < dataset.getSSCCount(); i++) {
+			int sysnum = dataset.getSSCSysnum(i);
+			if (RiskySystemCall.sysnumMap.containsKey(sysnum))
+				sscCountsBySysnum.increment(sysnum);
+		}
+
+		suibCount += dataset.getSuspiciousUIBCount();
+	}
+
 	public void exportTo(Properties properties) {
 		for (Integer id : sscCountsBySysnum.idSet())
 			setInt(properties, SUSPICIOUS_SYSCALL + id, sscCountsBySysnum.get(id));
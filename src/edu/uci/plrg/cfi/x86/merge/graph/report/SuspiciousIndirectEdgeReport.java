@@ -12,8 +12,7 @@ import edu.uci.plrg.cfi.x86.merge.graph.report.ProgramEventFrequencies.ProgramPr
 
 public class SuspiciousIndirectEdgeReport implements ReportEntry {
 
-	private static int executionSuibCount = 0; // hazard? multiple reports in a reporter run?
-
+	private final ExecutionReport report;
 	private final ModuleUIB suib;
 
 	private int programSuspiciousEdges = 0;
@@ -22,7 +21,8 @@ public class SuspiciousIndirectEdgeReport implements ReportEntry {
 
 	private double riskScale;
 
-	SuspiciousIndirectEdgeReport(ModuleUIB suib) {
+	SuspiciousIndirectEdgeReport(ExecutionReport report, ModuleUIB suib) {
+		this.report = report;
 		this.suib = suib;
 	}
 
@@ -32,7 +32,7 @@ public class SuspiciousIndirectEdgeReport implements ReportEntry {
 			moduleSuspiciousEdges = moduleFrequencies.getCount(ModuleEventFrequencies.SUIB_COUNT);
 		programSuspiciousEdges = programFrequencies.getCount(ProgramEventFrequencies.SUIB_COUNT);
 
-		executionSuibCount++;
+		report.suibReported();
 
 		if (suib.edge.getToNode().getType() == MetaNodeType.MODULE_EXIT) {
 			riskScale = 1.0; // should never happen
@@ -71,7 +71,7 @@ public class SuspiciousIndirectEdgeReport implements ReportEntry {
 	@Override
 	public int getRiskIndex() {
 		if (alpha > 0.0) {
-			double ccdf = 1.0 - Math.pow(executionSuibCount, 1.0 - alpha);
+			double ccdf = 1.0 - Math.pow(report.getSuibCount(), 1.0 - alpha);
 			riskScale = 0.1 + (ccdf * 0.7);
 		}
 		return (int) (riskScale * 1000.0);
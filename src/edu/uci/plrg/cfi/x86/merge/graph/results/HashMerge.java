@@ -1195,6 +1195,20 @@ public final class HashMerge {
      */
     edu.uci.plrg.cfi.common.data.results.Statistics.StatisticsTreeOrBuilder getStatisticsOrBuilder(
         int index);
+
+    // optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;
+    /**
+     * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+     */
+    boolean hasPhaseProfile();
+    /**
+     * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+     */
+    edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile getPhaseProfile();
+    /**
+     * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+     */
+    edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfileOrBuilder getPhaseProfileOrBuilder();
   }
   /**
    * Protobuf type {@code cfi_data_analysis.ModuleHashMerge}
@@ -1338,6 +1352,19 @@ public final class HashMerge {
               statistics_.add(input.readMessage(edu.uci.plrg.cfi.common.data.results.Statistics.StatisticsTree.PARSER, extensionRegistry));
               break;
             }
+            case 74: {
+              edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.Builder subBuilder = null;
+              if (((bitField0_ & 0x00000080) == 0x00000080)) {
+                subBuilder = phaseProfile_.toBuilder();
+              }
+              phaseProfile_ = input.readMessage(edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.PARSER, extensionRegistry);
+              if (subBuilder != null) {
+                subBuilder.mergeFrom(phaseProfile_);
+                phaseProfile_ = subBuilder.buildPartial();
+              }
+              bitField0_ |= 0x00000080;
+              break;
+            }
           }
         }
       } catch (com.google.protobuf.InvalidProtocolBufferException e) {
@@ -1592,6 +1619,28 @@ public final class HashMerge {
       return statistics_.get(index);
     }
 
+    // optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;
+    public static final int PHASE_PROFILE_FIELD_NUMBER = 9;
+    private edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile phaseProfile_;
+    /**
+     * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+     */
+    public boolean hasPhaseProfile() {
+      return ((bitField0_ & 0x00000080) == 0x00000080);
+    }
+    /**
+     * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+     */
+    public edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile getPhaseProfile() {
+      return phaseProfile_;
+    }
+    /**
+     * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+     */
+    public edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfileOrBuilder getPhaseProfileOrBuilder() {
+      return phaseProfile_;
+    }
+
     private void initFields() {
       distributionName_ = "";
       leftUnmatched_ = edu.uci.plrg.cfi.x86.merge.graph.results.HashMerge.UnmatchedNodeSummary.getDefaultInstance();
@@ -1601,6 +1650,7 @@ public final class HashMerge {
       graphWithinHashIntersection_ = edu.uci.plrg.cfi.x86.merge.graph.results.HashMerge.TraceCompilationProfile.getDefaultInstance();
       mergeSummary_ = edu.uci.plrg.cfi.x86.merge.graph.results.HashMerge.HashMergeSummary.getDefaultInstance();
       statistics_ = java.util.Collections.emptyList();
+      phaseProfile_ = edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.getDefaultInstance();
     }
     private byte memoizedIsInitialized = -1;
     public final boolean isInitialized() {
@@ -1638,6 +1688,9 @@ public final class HashMerge {
       for (int i = 0; i < statistics_.size(); i++) {
         output.writeMessage(8, statistics_.get(i));
       }
+      if (((bitField0_ & 0x00000080) == 0x00000080)) {
+        output.writeMessage(9, phaseProfile_);
+      }
       getUnknownFields().writeTo(output);
     }
 
@@ -1679,6 +1732,10 @@ public final class HashMerge {
         size += com.google.protobuf.CodedOutputStream
           .computeMessageSize(8, statistics_.get(i));
       }
+      if (((bitField0_ & 0x00000080) == 0x00000080)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(9, phaseProfile_);
+      }
       size += getUnknownFields().getSerializedSize();
       memoizedSerializedSize = size;
       return size;
@@ -1794,6 +1851,7 @@ public final class HashMerge {
           getGraphWithinHashIntersectionFieldBuilder();
           getMergeSummaryFieldBuilder();
           getStatisticsFieldBuilder();
+          getPhaseProfileFieldBuilder();
         }
       }
       private static Builder create() {
@@ -1846,6 +1904,12 @@ public final class HashMerge {
         } else {
           statisticsBuilder_.clear();
         }
+        if (phaseProfileBuilder_ == null) {
+          phaseProfile_ = edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.getDefaultInstance();
+        } else {
+          phaseProfileBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000100);
         return this;
       }
 
@@ -1935,6 +1999,14 @@ public final class HashMerge {
         } else {
           result.statistics_ = statisticsBuilder_.build();
         }
+        if (((from_bitField0_ & 0x00000100) == 0x00000100)) {
+          to_bitField0_ |= 0x00000080;
+        }
+        if (phaseProfileBuilder_ == null) {
+          result.phaseProfile_ = phaseProfile_;
+        } else {
+          result.phaseProfile_ = phaseProfileBuilder_.build();
+        }
         result.bitField0_ = to_bitField0_;
         onBuilt();
         return result;
@@ -2000,6 +2072,9 @@ public final class HashMerge {
             }
           }
         }
+        if (other.hasPhaseProfile()) {
+          mergePhaseProfile(other.getPhaseProfile());
+        }
         this.mergeUnknownFields(other.getUnknownFields());
         return this;
       }
@@ -3043,6 +3118,123 @@ public final class HashMerge {
         return statisticsBuilder_;
       }
 
+      // optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;
+      private edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile phaseProfile_ = edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.getDefaultInstance();
+      private com.google.protobuf.SingleFieldBuilder<
+          edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile, edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.Builder, edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfileOrBuilder> phaseProfileBuilder_;
+      /**
+       * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+       */
+      public boolean hasPhaseProfile() {
+        return ((bitField0_ & 0x00000100) == 0x00000100);
+      }
+      /**
+       * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+       */
+      public edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile getPhaseProfile() {
+        if (phaseProfileBuilder_ == null) {
+          return phaseProfile_;
+        } else {
+          return phaseProfileBuilder_.getMessage();
+        }
+      }
+      /**
+       * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+       */
+      public Builder setPhaseProfile(edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile value) {
+        if (phaseProfileBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          phaseProfile_ = value;
+          onChanged();
+        } else {
+          phaseProfileBuilder_.setMessage(value);
+        }
+        bitField0_ |= 0x00000100;
+        return this;
+      }
+      /**
+       * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+       */
+      public Builder setPhaseProfile(
+          edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.Builder builderForValue) {
+        if (phaseProfileBuilder_ == null) {
+          phaseProfile_ = builderForValue.build();
+          onChanged();
+        } else {
+          phaseProfileBuilder_.setMessage(builderForValue.build());
+        }
+        bitField0_ |= 0x00000100;
+        return this;
+      }
+      /**
+       * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+       */
+      public Builder mergePhaseProfile(edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile value) {
+        if (phaseProfileBuilder_ == null) {
+          if (((bitField0_ & 0x00000100) == 0x00000100) &&
+              phaseProfile_ != edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.getDefaultInstance()) {
+            phaseProfile_ =
+              edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.newBuilder(phaseProfile_).mergeFrom(value).buildPartial();
+          } else {
+            phaseProfile_ = value;
+          }
+          onChanged();
+        } else {
+          phaseProfileBuilder_.mergeFrom(value);
+        }
+        bitField0_ |= 0x00000100;
+        return this;
+      }
+      /**
+       * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+       */
+      public Builder clearPhaseProfile() {
+        if (phaseProfileBuilder_ == null) {
+          phaseProfile_ = edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.getDefaultInstance();
+          onChanged();
+        } else {
+          phaseProfileBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000100);
+        return this;
+      }
+      /**
+       * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+       */
+      public edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.Builder getPhaseProfileBuilder() {
+        bitField0_ |= 0x00000100;
+        onChanged();
+        return getPhaseProfileFieldBuilder().getBuilder();
+      }
+      /**
+       * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+       */
+      public edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfileOrBuilder getPhaseProfileOrBuilder() {
+        if (phaseProfileBuilder_ != null) {
+          return phaseProfileBuilder_.getMessageOrBuilder();
+        } else {
+          return phaseProfile_;
+        }
+      }
+      /**
+       * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+       */
+      private com.google.protobuf.SingleFieldBuilder<
+          edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile, edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.Builder, edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfileOrBuilder> 
+          getPhaseProfileFieldBuilder() {
+        if (phaseProfileBuilder_ == null) {
+          phaseProfileBuilder_ = new com.google.protobuf.SingleFieldBuilder<
+              edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile, edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.Builder, edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfileOrBuilder>(
+                  phaseProfile_,
+                  getParentForChildren(),
+                  isClean());
+          phaseProfile_ = null;
+        }
+        return phaseProfileBuilder_;
+      }
+
       // @@protoc_insertion_point(builder_scope:cfi_data_analysis.ModuleHashMerge)
     }
 
@@ -5406,39 +5598,41 @@ public final class HashMerge {
   static {
     java.lang.String[] descriptorData = {
       "\n\030hash-merge-results.proto\022\021cfi_data_ana" +
-      "lysis\032\013graph.proto\032\020statistics.proto\"\232\001\n" +
-      "\020HashMergeResults\022(\n\004left\030\001 \001(\0132\032.cfi_da" +
-      "ta_analysis.Process\022)\n\005right\030\002 \001(\0132\032.cfi" +
-      "_data_analysis.Process\0221\n\005merge\030\003 \003(\0132\"." +
-      "cfi_data_analysis.ModuleHashMerge\"\373\003\n\017Mo" +
-      "duleHashMerge\022\031\n\021distribution_name\030\001 \001(\t" +
-      "\022?\n\016left_unmatched\030\002 \001(\0132\'.cfi_data_anal" +
-      "ysis.UnmatchedNodeSummary\022@\n\017right_unmat" +
-      "ched\030\003 \001(\0132\'.cfi_data_analysis.Unmatched",
-      "NodeSummary\022@\n\014hash_profile\030\004 \001(\0132*.cfi_" +
-      "data_analysis.TraceCompilationProfile\022A\n" +
-      "\rgraph_profile\030\005 \001(\0132*.cfi_data_analysis" +
-      ".TraceCompilationProfile\022R\n\036graph_within" +
-      "_hash_intersection\030\006 \001(\0132*.cfi_data_anal" +
-      "ysis.TraceCompilationProfile\022:\n\rmerge_su" +
-      "mmary\030\007 \001(\0132#.cfi_data_analysis.HashMerg" +
-      "eSummary\0225\n\nstatistics\030\010 \003(\0132!.cfi_data_" +
-      "analysis.StatisticsTree\"\212\001\n\024UnmatchedNod" +
-      "eSummary\022\022\n\nnode_count\030\001 \001(\005\022\033\n\023eligible",
-      "_node_count\030\002 \001(\005\022\036\n\026unreachable_node_co" +
-      "unt\030\003 \001(\005\022!\n\031hash_exclusive_node_count\030\004" +
-      " \001(\005\"[\n\027TraceCompilationProfile\022\r\n\005union" +
-      "\030\001 \001(\005\022\024\n\014intersection\030\002 \001(\005\022\014\n\004left\030\003 \001" +
-      "(\005\022\r\n\005right\030\004 \001(\005\"\302\002\n\020HashMergeSummary\022\036" +
-      "\n\026indirect_edges_matched\030\001 \001(\005\022\036\n\026pure_h" +
-      "euristic_matches\030\002 \001(\005\022\'\n\037call_continuat" +
-      "ion_edges_matched\030\003 \001(\005\022,\n$exception_con" +
-      "tinuation_edges_matched\030\010 \001(\005\022!\n\031possibl" +
-      "y_rewritten_blocks\030\004 \001(\005\022&\n\036module_relat",
-      "ive_tag_mismatches\030\005 \001(\005\022!\n\031mismatched_s" +
-      "ubgraph_count\030\006 \001(\005\022)\n!largest_mismatche" +
-      "d_subgraphs_size\030\007 \003(\005B5\n(edu.uci.plrg.c" +
-      "fi.x86.merge.graph.resultsB\tHashMerge"
+      "lysis\032\013graph.proto\032\020statistics.proto\032\023me" +
+      "rge-profile.proto\"\232\001\n\020HashMergeResults\022(" +
+      "\n\004left\030\001 \001(\0132\032.cfi_data_analysis.Process" +
+      "\022)\n\005right\030\002 \001(\0132\032.cfi_data_analysis.Proc" +
+      "ess\0221\n\005merge\030\003 \003(\0132\".cfi_data_analysis.M" +
+      "oduleHashMerge\"\270\004\n\017ModuleHashMerge\022\031\n\021di" +
+      "stribution_name\030\001 \001(\t\022?\n\016left_unmatched\030" +
+      "\002 \001(\0132\'.cfi_data_analysis.UnmatchedNodeS" +
+      "ummary\022@\n\017right_unmatched\030\003 \001(\0132\'.cfi_da",
+      "ta_analysis.UnmatchedNodeSummary\022@\n\014hash" +
+      "_profile\030\004 \001(\0132*.cfi_data_analysis.Trace" +
+      "CompilationProfile\022A\n\rgraph_profile\030\005 \001(" +
+      "\0132*.cfi_data_analysis.TraceCompilationPr" +
+      "ofile\022R\n\036graph_within_hash_intersection\030" +
+      "\006 \001(\0132*.cfi_data_analysis.TraceCompilati" +
+      "onProfile\022:\n\rmerge_summary\030\007 \001(\0132#.cfi_d" +
+      "ata_analysis.HashMergeSummary\0225\n\nstatist" +
+      "ics\030\010 \003(\0132!.cfi_data_analysis.Statistics" +
+      "Tree\022;\n\rphase_profile\030\t \001(\0132$.cfi_data_a",
+      "nalysis.MergePhaseProfile\"\212\001\n\024UnmatchedN" +
+      "odeSummary\022\022\n\nnode_count\030\001 \001(\005\022\033\n\023eligib" +
+      "le_node_count\030\002 \001(\005\022\036\n\026unreachable_node_" +
+      "count\030\003 \001(\005\022!\n\031hash_exclusive_node_count" +
+      "\030\004 \001(\005\"[\n\027TraceCompilationProfile\022\r\n\005uni" +
+      "on\030\001 \001(\005\022\024\n\014intersection\030\002 \001(\005\022\014\n\004left\030\003" +
+      " \001(\005\022\r\n\005right\030\004 \001(\005\"\302\002\n\020HashMergeSummary" +
+      "\022\036\n\026indirect_edges_matched\030\001 \001(\005\022\036\n\026pure" +
+      "_heuristic_matches\030\002 \001(\005\022\'\n\037call_continu" +
+      "ation_edges_matched\030\003 \001(\005\022,\n$exception_c",
+      "ontinuation_edges_matched\030\010 \001(\005\022!\n\031possi" +
+      "bly_rewritten_blocks\030\004 \001(\005\022&\n\036module_rel" +
+      "ative_tag_mismatches\030\005 \001(\005\022!\n\031mismatched" +
+      "_subgraph_count\030\006 \001(\005\022)\n!largest_mismatc" +
+      "hed_subgraphs_size\030\007 \003(\005B5\n(edu.uci.plrg" +
+      ".cfi.x86.merge.graph.resultsB\tHashMerge"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
       new com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner() {
@@ -5456,7 +5650,7 @@ public final class HashMerge {
           internal_static_cfi_data_analysis_ModuleHashMerge_fieldAccessorTable = new
             com.google.protobuf.GeneratedMessage.FieldAccessorTable(
               internal_static_cfi_data_analysis_ModuleHashMerge_descriptor,
-              new java.lang.String[] { "DistributionName", "LeftUnmatched", "RightUnmatched", "HashProfile", "GraphProfile", "GraphWithinHashIntersection", "MergeSummary", "Statistics", });
+              new java.lang.String[] { "DistributionName", "LeftUnmatched", "RightUnmatched", "HashProfile", "GraphProfile", "GraphWithinHashIntersection", "MergeSummary", "Statistics", "PhaseProfile", });
           internal_static_cfi_data_analysis_UnmatchedNodeSummary_descriptor =
             getDescriptor().getMessageTypes().get(2);
           internal_static_cfi_data_analysis_UnmatchedNodeSummary_fieldAccessorTable = new
@@ -5483,6 +5677,7 @@ public final class HashMerge {
         new com.google.protobuf.Descriptors.FileDescriptor[] {
           edu.uci.plrg.cfi.x86.graph.data.results.Graph.getDescriptor(),
           edu.uci.plrg.cfi.common.data.results.Statistics.getDescriptor(),
+          edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.getDescriptor(),
         }, assigner);
   }
 
@@ -1393,6 +1393,20 @@ public final class TagMerge {
      */
     edu.uci.plrg.cfi.x86.merge.graph.results.TagMerge.MismatchOrBuilder getEdgeMismatchOrBuilder(
         int index);
+
+    // optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;
+    /**
+     * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+     */
+    boolean hasPhaseProfile();
+    /**
+     * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+     */
+    edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile getPhaseProfile();
+    /**
+     * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+     */
+    edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfileOrBuilder getPhaseProfileOrBuilder();
   }
   /**
    * Protobuf type {@code cfi_data_analysis.ModuleTagMerge}
@@ -1494,6 +1508,19 @@ public final class TagMerge {
               edgeMismatch_.add(input.readMessage(edu.uci.plrg.cfi.x86.merge.graph.results.TagMerge.Mismatch.PARSER, extensionRegistry));
               break;
             }
+            case 74: {
+              edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.Builder subBuilder = null;
+              if (((bitField0_ & 0x00000020) == 0x00000020)) {
+                subBuilder = phaseProfile_.toBuilder();
+              }
+              phaseProfile_ = input.readMessage(edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.PARSER, extensionRegistry);
+              if (subBuilder != null) {
+                subBuilder.mergeFrom(phaseProfile_);
+                phaseProfile_ = subBuilder.buildPartial();
+              }
+              bitField0_ |= 0x00000020;
+              break;
+            }
           }
         }
       } catch (com.google.protobuf.InvalidProtocolBufferException e) {
@@ -1758,6 +1785,28 @@ public final class TagMerge {
       return edgeMismatch_.get(index);
     }
 
+    // optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;
+    public static final int PHASE_PROFILE_FIELD_NUMBER = 9;
+    private edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile phaseProfile_;
+    /**
+     * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+     */
+    public boolean hasPhaseProfile() {
+      return ((bitField0_ & 0x00000020) == 0x00000020);
+    }
+    /**
+     * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+     */
+    public edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile getPhaseProfile() {
+      return phaseProfile_;
+    }
+    /**
+     * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+     */
+    public edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfileOrBuilder getPhaseProfileOrBuilder() {
+      return phaseProfile_;
+    }
+
     private void initFields() {
       distributionName_ = "";
       mergedNodes_ = 0;
@@ -1767,6 +1816,7 @@ public final class TagMerge {
       addedSubgraph_ = java.util.Collections.emptyList();
       hashMismatch_ = java.util.Collections.emptyList();
       edgeMismatch_ = java.util.Collections.emptyList();
+      phaseProfile_ = edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.getDefaultInstance();
     }
     private byte memoizedIsInitialized = -1;
     public final boolean isInitialized() {
@@ -1804,6 +1854,9 @@ public final class TagMerge {
       for (int i = 0; i < edgeMismatch_.size(); i++) {
         output.writeMessage(8, edgeMismatch_.get(i));
       }
+      if (((bitField0_ & 0x00000020) == 0x00000020)) {
+        output.writeMessage(9, phaseProfile_);
+      }
       getUnknownFields().writeTo(output);
     }
 
@@ -1845,6 +1898,10 @@ public final class TagMerge {
         size += com.google.protobuf.CodedOutputStream
           .computeMessageSize(8, edgeMismatch_.get(i));
       }
+      if (((bitField0_ & 0x00000020) == 0x00000020)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeMessageSize(9, phaseProfile_);
+      }
       size += getUnknownFields().getSerializedSize();
       memoizedSerializedSize = size;
       return size;
@@ -1956,6 +2013,7 @@ public final class TagMerge {
           getAddedSubgraphFieldBuilder();
           getHashMismatchFieldBuilder();
           getEdgeMismatchFieldBuilder();
+          getPhaseProfileFieldBuilder();
         }
       }
       private static Builder create() {
@@ -1992,6 +2050,12 @@ public final class TagMerge {
         } else {
           edgeMismatchBuilder_.clear();
         }
+        if (phaseProfileBuilder_ == null) {
+          phaseProfile_ = edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.getDefaultInstance();
+        } else {
+          phaseProfileBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000100);
         return this;
       }
 
@@ -2067,6 +2131,14 @@ public final class TagMerge {
         } else {
           result.edgeMismatch_ = edgeMismatchBuilder_.build();
         }
+        if (((from_bitField0_ & 0x00000100) == 0x00000100)) {
+          to_bitField0_ |= 0x00000020;
+        }
+        if (phaseProfileBuilder_ == null) {
+          result.phaseProfile_ = phaseProfile_;
+        } else {
+          result.phaseProfile_ = phaseProfileBuilder_.build();
+        }
         result.bitField0_ = to_bitField0_;
         onBuilt();
         return result;
@@ -2178,6 +2250,9 @@ public final class TagMerge {
             }
           }
         }
+        if (other.hasPhaseProfile()) {
+          mergePhaseProfile(other.getPhaseProfile());
+        }
         this.mergeUnknownFields(other.getUnknownFields());
         return this;
       }
@@ -3131,6 +3206,123 @@ public final class TagMerge {
         return edgeMismatchBuilder_;
       }
 
+      // optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;
+      private edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile phaseProfile_ = edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.getDefaultInstance();
+      private com.google.protobuf.SingleFieldBuilder<
+          edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile, edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.Builder, edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfileOrBuilder> phaseProfileBuilder_;
+      /**
+       * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+       */
+      public boolean hasPhaseProfile() {
+        return ((bitField0_ & 0x00000100) == 0x00000100);
+      }
+      /**
+       * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+       */
+      public edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile getPhaseProfile() {
+        if (phaseProfileBuilder_ == null) {
+          return phaseProfile_;
+        } else {
+          return phaseProfileBuilder_.getMessage();
+        }
+      }
+      /**
+       * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+       */
+      public Builder setPhaseProfile(edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile value) {
+        if (phaseProfileBuilder_ == null) {
+          if (value == null) {
+            throw new NullPointerException();
+          }
+          phaseProfile_ = value;
+          onChanged();
+        } else {
+          phaseProfileBuilder_.setMessage(value);
+        }
+        bitField0_ |= 0x00000100;
+        return this;
+      }
+      /**
+       * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+       */
+      public Builder setPhaseProfile(
+          edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.Builder builderForValue) {
+        if (phaseProfileBuilder_ == null) {
+          phaseProfile_ = builderForValue.build();
+          onChanged();
+        } else {
+          phaseProfileBuilder_.setMessage(builderForValue.build());
+        }
+        bitField0_ |= 0x00000100;
+        return this;
+      }
+      /**
+       * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+       */
+      public Builder mergePhaseProfile(edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile value) {
+        if (phaseProfileBuilder_ == null) {
+          if (((bitField0_ & 0x00000100) == 0x00000100) &&
+              phaseProfile_ != edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.getDefaultInstance()) {
+            phaseProfile_ =
+              edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.newBuilder(phaseProfile_).mergeFrom(value).buildPartial();
+          } else {
+            phaseProfile_ = value;
+          }
+          onChanged();
+        } else {
+          phaseProfileBuilder_.mergeFrom(value);
+        }
+        bitField0_ |= 0x00000100;
+        return this;
+      }
+      /**
+       * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+       */
+      public Builder clearPhaseProfile() {
+        if (phaseProfileBuilder_ == null) {
+          phaseProfile_ = edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.getDefaultInstance();
+          onChanged();
+        } else {
+          phaseProfileBuilder_.clear();
+        }
+        bitField0_ = (bitField0_ & ~0x00000100);
+        return this;
+      }
+      /**
+       * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+       */
+      public edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.Builder getPhaseProfileBuilder() {
+        bitField0_ |= 0x00000100;
+        onChanged();
+        return getPhaseProfileFieldBuilder().getBuilder();
+      }
+      /**
+       * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+       */
+      public edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfileOrBuilder getPhaseProfileOrBuilder() {
+        if (phaseProfileBuilder_ != null) {
+          return phaseProfileBuilder_.getMessageOrBuilder();
+        } else {
+          return phaseProfile_;
+        }
+      }
+      /**
+       * <code>optional .cfi_data_analysis.MergePhaseProfile phase_profile = 9;</code>
+       */
+      private com.google.protobuf.SingleFieldBuilder<
+          edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile, edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.Builder, edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfileOrBuilder> 
+          getPhaseProfileFieldBuilder() {
+        if (phaseProfileBuilder_ == null) {
+          phaseProfileBuilder_ = new com.google.protobuf.SingleFieldBuilder<
+              edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile, edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfile.Builder, edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.MergePhaseProfileOrBuilder>(
+                  phaseProfile_,
+                  getParentForChildren(),
+                  isClean());
+          phaseProfile_ = null;
+        }
+        return phaseProfileBuilder_;
+      }
+
       // @@protoc_insertion_point(builder_scope:cfi_data_analysis.ModuleTagMerge)
     }
 
@@ -4429,25 +4621,27 @@ public final class TagMerge {
   static {
     java.lang.String[] descriptorData = {
       "\n\027tag-merge-results.proto\022\021cfi_data_anal" +
-      "ysis\032\013graph.proto\032\020statistics.proto\"\314\001\n\017" +
-      "TagMergeResults\022(\n\004left\030\001 \001(\0132\032.cfi_data" +
-      "_analysis.Process\022)\n\005right\030\002 \001(\0132\032.cfi_d" +
-      "ata_analysis.Process\0222\n\016merge_fragment\030\004" +
-      " \001(\0132\032.cfi_data_analysis.Process\0220\n\005merg" +
-      "e\030\003 \003(\0132!.cfi_data_analysis.ModuleTagMer" +
-      "ge\"\236\002\n\016ModuleTagMerge\022\031\n\021distribution_na" +
-      "me\030\001 \001(\t\022\024\n\014merged_nodes\030\002 \001(\005\022\024\n\014merged" +
-      "_edges\030\003 \001(\005\022\023\n\013added_nodes\030\004 \001(\005\022\023\n\013add",
-      "ed_edges\030\005 \001(\005\0223\n\016added_subgraph\030\006 \003(\0132\033" +
-      ".cfi_data_analysis.Subgraph\0222\n\rhash_mism" +
-      "atch\030\007 \003(\0132\033.cfi_data_analysis.Mismatch\022" +
-      "2\n\redge_mismatch\030\010 \003(\0132\033.cfi_data_analys" +
-      "is.Mismatch\"Y\n\010Mismatch\022%\n\004left\030\001 \001(\0132\027." +
-      "cfi_data_analysis.Node\022&\n\005right\030\002 \001(\0132\027." +
-      "cfi_data_analysis.Node\"L\n\010Subgraph\022\022\n\nno" +
-      "de_count\030\001 \001(\005\022\024\n\014bridge_count\030\002 \001(\005\022\026\n\016" +
-      "instance_count\030\003 \001(\005B4\n(edu.uci.plrg.cfi" +
-      ".x86.merge.graph.resultsB\010TagMerge"
+      "ysis\032\013graph.proto\032\020statistics.proto\032\023mer" +
+      "ge-profile.proto\"\314\001\n\017TagMergeResults\022(\n\004" +
+      "left\030\001 \001(\0132\032.cfi_data_analysis.Process\022)" +
+      "\n\005right\030\002 \001(\0132\032.cfi_data_analysis.Proces" +
+      "s\0222\n\016merge_fragment\030\004 \001(\0132\032.cfi_data_ana" +
+      "lysis.Process\0220\n\005merge\030\003 \003(\0132!.cfi_data_" +
+      "analysis.ModuleTagMerge\"\333\002\n\016ModuleTagMer" +
+      "ge\022\031\n\021distribution_name\030\001 \001(\t\022\024\n\014merged_" +
+      "nodes\030\002 \001(\005\022\024\n\014merged_edges\030\003 \001(\005\022\023\n\013add",
+      "ed_nodes\030\004 \001(\005\022\023\n\013added_edges\030\005 \001(\005\0223\n\016a" +
+      "dded_subgraph\030\006 \003(\0132\033.cfi_data_analysis." +
+      "Subgraph\0222\n\rhash_mismatch\030\007 \003(\0132\033.cfi_da" +
+      "ta_analysis.Mismatch\0222\n\redge_mismatch\030\010 " +
+      "\003(\0132\033.cfi_data_analysis.Mismatch\022;\n\rphas" +
+      "e_profile\030\t \001(\0132$.cfi_data_analysis.Merg" +
+      "ePhaseProfile\"Y\n\010Mismatch\022%\n\004left\030\001 \001(\0132" +
+      "\027.cfi_data_analysis.Node\022&\n\005right\030\002 \001(\0132" +
+      "\027.cfi_data_analysis.Node\"L\n\010Subgraph\022\022\n\n" +
+      "node_count\030\001 \001(\005\022\024\n\014bridge_count\030\002 \001(\005\022\026",
+      "\n\016instance_count\030\003 \001(\005B4\n(edu.uci.plrg.c" +
+      "fi.x86.merge.graph.resultsB\010TagMerge"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
       new com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner() {
@@ -4465,7 +4659,7 @@ public final class TagMerge {
           internal_static_cfi_data_analysis_ModuleTagMerge_fieldAccessorTable = new
             com.google.protobuf.GeneratedMessage.FieldAccessorTable(
               internal_static_cfi_data_analysis_ModuleTagMerge_descriptor,
-              new java.lang.String[] { "DistributionName", "MergedNodes", "MergedEdges", "AddedNodes", "AddedEdges", "AddedSubgraph", "HashMismatch", "EdgeMismatch", });
+              new java.lang.String[] { "DistributionName", "MergedNodes", "MergedEdges", "AddedNodes", "AddedEdges", "AddedSubgraph", "HashMismatch", "EdgeMismatch", "PhaseProfile", });
           internal_static_cfi_data_analysis_Mismatch_descriptor =
             getDescriptor().getMessageTypes().get(2);
           internal_static_cfi_data_analysis_Mismatch_fieldAccessorTable = new
@@ -4486,6 +4680,7 @@ public final class TagMerge {
         new com.google.protobuf.Descriptors.FileDescriptor[] {
           edu.uci.plrg.cfi.x86.graph.data.results.Graph.getDescriptor(),
           edu.uci.plrg.cfi.common.data.results.Statistics.getDescriptor(),
+          edu.uci.plrg.cfi.x86.merge.graph.results.MergeProfile.getDescriptor(),
         }, assigner);
   }
 
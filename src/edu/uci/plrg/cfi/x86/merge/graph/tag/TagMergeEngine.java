@@ -7,12 +7,14 @@ import edu.uci.plrg.cfi.common.log.Log;
 import edu.uci.plrg.cfi.x86.graph.data.graph.Edge;
 import edu.uci.plrg.cfi.x86.graph.data.graph.EdgeType;
 import edu.uci.plrg.cfi.x86.graph.data.graph.Node;
-import edu.uci.plrg.cfi.x86.graph.data.graph.NodeList;
 import edu.uci.plrg.cfi.x86.graph.data.graph.OrdinalEdgeList;
 import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ModuleBasicBlock;
 import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ModuleNode;
 import edu.uci.plrg.cfi.x86.graph.data.graph.modular.metadata.ModuleMetadataSequence;
 import edu.uci.plrg.cfi.x86.graph.util.ModuleEdgeCounter;
+import edu.uci.plrg.cfi.x86.merge.graph.ModuleMergeProfile;
+import edu.uci.plrg.cfi.x86.merge.util.MergeLog;
+import edu.uci.plrg.cfi.x86.merge.util.NodeHashIndex;
 
 // TODO: this really only works for ClusterNode graphs on both sides, b/c the hashes will differ with ExecutionNode 
 // and the equals() methods reject other types.
@@ -34,17 +36,32 @@ class TagMergeEngine {
 		}
 		 */
 
-		addLeftNodes();
+		long start = System.nanoTime();
+		long enqueueNanos = addLeftNodes();
+		session.profile.addElapsed(ModuleMergeProfile.Phase.NODE_MATCHING, System.nanoTime() - start - enqueueNanos);
+		session.profile.addElapsed(ModuleMergeProfile.Phase.EDGE_ENQUEUE, enqueueNanos);
+		session.profile.setInputSize(session.left.getNodeCount(), session.statistics.getMatchedEdgeCount()
+				+ session.edgeQueue.size());
+
+		start = System.nanoTime();
 		addLeftEdges();
+		session.profile.phaseCompleted(ModuleMergeProfile.Phase.EDGE_ADD, start);
+
+		start = System.nanoTime();
 		mergeMetadata();
+		session.profile.phaseCompleted(ModuleMergeProfile.Phase.METADATA_MERGE, start);
 
 		// reportUnexpectedCode();
 		// reportAddedSubgraphs();
 	}
 
-	private void addLeftNodes() {
+	/**
+	 * @return the time spent enqueueing the edges of the left nodes, which is profiled apart from the node matching
+	 */
+	private long addLeftNodes() {
 		session.subgraphAnalysisEnabled = true; // (session.left.getAllNodes().size() < 20000);
 		boolean rightAdded;
+		long enqueueNanos = 0L;
 		for (Node<?> left : session.left.getAllNodes()) {
 			rightAdded = false;
 			ModuleNode<?> right = getCorrespondingNode(left);
@@ -54,6 +71,7 @@ class TagMergeEngine {
 			}
 			if (right == null) {
 				right = session.right.addNode(left.getHash(), left.getModule(), left.getRelativeTag(), left.getType());
+				session.rightHashIndex.add(right.getHash(), right);
 				session.statistics.nodeAdded();
 				session.mergeFragment.nodeAdded(right);
 				// Log.log("Merging node %s", right);
@@ -64,10 +82,11 @@ class TagMergeEngine {
 				// } else {
 				// Log.log("Matched node %s", right);
 			}
+			long enqueueStart = System.nanoTime();
 			enqueueLeftEdges(left, right, rightAdded);
+			enqueueNanos += System.nanoTime() - enqueueStart;
 		}
-
-		session.subgraphAnalysisEnabled &= (session.edgeQueue.size() < 30000);
+		return enqueueNanos;
 	}
 
 	private void addLeftEdges() {
@@ -80,6 +99,8 @@ class TagMergeEngine {
 
 			try {
 				rightFromNode.addOutgoingEdge(newRightEdge);
+				// the edge is reachable from here on, even if the incoming side fails
+				session.mergeFragment.edgeLinked(newRightEdge);
 				rightToNode.addIncomingEdge(newRightEdge);
 				session.statistics.edgeAdded();
 				session.mergeFragment.edgeAdded(newRightEdge);
@@ -87,7 +108,7 @@ class TagMergeEngine {
 					session.subgraphs.edgeAdded(newRightEdge);
 
 				if (newRightEdge.getEdgeType() == EdgeType.INDIRECT)
-					Log.log("Added edge %s", newRightEdge);
+					MergeLog.log(MergeLog.Level.INFO, "Added edge %s", newRightEdge);
 
 			} catch (IllegalArgumentException e) {
 				Log.log("Error merging edges! %s", e.getMessage());
@@ -146,16 +167,16 @@ class TagMergeEngine {
 		if ((right != null) && ((right.getHash() == left.getHash()) || isThatWonkyNode(left, right)))
 			return right;
 
-		NodeList<ModuleNode<?>> byHash = session.right.graph.getGraphData().nodesByHash.get(left.getHash());
-		if (byHash != null) {
-			for (int i = 0; i < byHash.size(); i++) {
-				ModuleNode<?> next = byHash.get(i);
-				if (left.isModuleRelativeEquivalent(next) || isThatWonkyNode(left, next)) {
-					Log.log("Module-relative hash match of 0x%x: 0x%x-v%d <-> 0x%x-v%d in %s", next.getHash(),
-							left.getRelativeTag(), left.getInstanceId(), next.getRelativeTag(), next.getInstanceId(),
-							next.getModule().filename);
-					return next;
+		NodeHashIndex<ModuleNode<?>> byHash = session.rightHashIndex;
+		for (int entry = byHash.first(left.getHash()); entry != NodeHashIndex.NONE; entry = byHash.next(entry)) {
+			ModuleNode<?> next = byHash.getNode(entry);
+			if (left.isModuleRelativeEquivalent(next) || isThatWonkyNode(left, next)) {
+				if (MergeLog.isEnabled(MergeLog.Level.INFO)) {
+					MergeLog.log(MergeLog.Level.INFO, "Module-relative hash match of 0x%x: 0x%x-v%d <-> 0x%x-v%d in %s",
+							next.getHash(), left.getRelativeTag(), left.getInstanceId(), next.getRelativeTag(),
+							next.getInstanceId(), next.getModule().filename);
 				}
+				return next;
 			}
 		}
 
@@ -1,7 +1,9 @@
 package edu.uci.plrg.cfi.x86.merge.graph.tag;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import edu.uci.plrg.cfi.x86.graph.data.graph.Edge;
@@ -17,17 +19,41 @@ public class TagMergeFragment {
 
 	private int exeutableNodeCount = 0;
 	private final ModuleEdgeCounter edgeCounter = new ModuleEdgeCounter();
+	private final List<ModuleNode<?>> addedNodes = new ArrayList<ModuleNode<?>>();
 	private final Set<Edge<ModuleNode<?>>> addedEdges = new HashSet<Edge<ModuleNode<?>>>();
+	// also has the edges whose incoming side failed, which are still followed from their from node
+	private final List<Edge<ModuleNode<?>>> linkedEdges = new ArrayList<Edge<ModuleNode<?>>>();
+
+	// modification stamps of the right graph before and after the merge
+	private long baseStamp;
+	private long mergedStamp = -1L;
 
 	TagMergeFragment(TagMergeSession session) {
 		this.session = session;
 	}
 
 	void nodeAdded(ModuleNode<?> node) {
+		addedNodes.add(node);
 		if (!node.isMetaNode())
 			exeutableNodeCount++;
 	}
 
+	void mergeStarted(long baseStamp) {
+		this.baseStamp = baseStamp;
+	}
+
+	void mergeCompleted(long mergedStamp) {
+		this.mergedStamp = mergedStamp;
+	}
+
+	/**
+	 * Record an edge that was added to the outgoing edges of its from node, whether or not it could be added to the
+	 * incoming edges of its to node.
+	 */
+	void edgeLinked(Edge<ModuleNode<?>> edge) {
+		linkedEdges.add(edge);
+	}
+
 	void edgeAdded(Edge<ModuleNode<?>> edge) {
 		addedEdges.add(edge);
 		if ((edge.getFromNode().getType() == MetaNodeType.MODULE_ENTRY)
@@ -37,10 +63,36 @@ public class TagMergeFragment {
 			edgeCounter.tallyIntraEdge(edge.getEdgeType());
 	}
 
+	public Collection<ModuleNode<?>> getAddedNodes() {
+		return addedNodes;
+	}
+
 	public Collection<Edge<ModuleNode<?>>> getAddedEdges() {
 		return addedEdges;
 	}
 
+	/**
+	 * @return the added edges that can be followed from their from node, which includes the edges that could not be
+	 *         added to their to node and so are missing from <code>getAddedEdges()</code>
+	 */
+	public Collection<Edge<ModuleNode<?>>> getLinkedEdges() {
+		return linkedEdges;
+	}
+
+	/**
+	 * @return the modification stamp of the right graph when the merge started
+	 */
+	public long getBaseStamp() {
+		return baseStamp;
+	}
+
+	/**
+	 * @return the modification stamp that the merge gave the right graph, or -1 if the merge did not complete
+	 */
+	public long getMergedStamp() {
+		return mergedStamp;
+	}
+
 	Graph.Module summarizeCurrentCluster() {
 		Graph.Module.Builder clusterBuilder = Graph.Module.newBuilder();
 		Graph.ModuleVersion.Builder moduleVersionBuilder = Graph.ModuleVersion.newBuilder();
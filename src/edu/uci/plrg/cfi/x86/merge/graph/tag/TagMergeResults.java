@@ -9,6 +9,7 @@ import edu.uci.plrg.cfi.x86.graph.data.results.Graph;
 import edu.uci.plrg.cfi.x86.graph.data.results.NodeResultsFactory;
 import edu.uci.plrg.cfi.x86.merge.graph.GraphMergeStrategy;
 import edu.uci.plrg.cfi.x86.merge.graph.MergeResults;
+import edu.uci.plrg.cfi.x86.merge.graph.ModuleMergeProfile;
 import edu.uci.plrg.cfi.x86.merge.graph.results.TagMerge;
 
 public class TagMergeResults implements MergeResults {
@@ -25,6 +26,9 @@ public class TagMergeResults implements MergeResults {
 	private class ClusterResults {
 		TagMergeSession session;
 
+		// position of this module in the merge list of the results, once its merge is completed
+		int mergeIndex = -1;
+
 		ClusterResults(TagMergeSession session) {
 			this.session = session;
 		}
@@ -40,12 +44,14 @@ public class TagMergeResults implements MergeResults {
 			builder.merge.setAddedNodes(session.statistics.getAddedNodeCount());
 			builder.merge.setAddedEdges(session.statistics.getAddedEdgeCount());
 
+			long subgraphStart = System.nanoTime();
 			for (TagMergedSubgraphs.Subgraph subgraph : session.subgraphs.getSubgraphs()) {
 				builder.subgraph.clear().setNodeCount(subgraph.getNodeCount());
 				builder.subgraph.setBridgeCount(subgraph.getBridgeCount());
 				builder.subgraph.setInstanceCount(subgraph.getInstanceCount());
 				builder.merge.addAddedSubgraph(builder.subgraph.build());
 			}
+			session.profile.phaseCompleted(ModuleMergeProfile.Phase.SUBGRAPH_ANALYSIS, subgraphStart);
 
 			for (int i = 0; i < session.statistics.hashMismatches.size(); i++) {
 				builder.mismatch.clear().setLeft(
@@ -63,6 +69,7 @@ public class TagMergeResults implements MergeResults {
 				builder.merge.addEdgeMismatch(builder.mismatch.build());
 			}
 
+			mergeIndex = builder.results.getMergeCount();
 			builder.results.addMerge(builder.merge.build());
 			builder.fragment.addModule(session.mergeFragment.summarizeCurrentCluster());
 			session = null;
@@ -94,6 +101,29 @@ public class TagMergeResults implements MergeResults {
 		return GraphMergeStrategy.TAG;
 	}
 
+	@Override
+	public void appendModuleResults(MergeResults moduleResults) {
+		TagMergeResults other = (TagMergeResults) moduleResults;
+		int mergeOffset = builder.results.getMergeCount();
+		builder.results.addAllMerge(other.builder.results.getMergeList());
+		builder.fragment.addAllModule(other.builder.fragment.getModuleList());
+		for (ClusterResults cluster : other.resultsByCluster.values()) {
+			if (cluster.mergeIndex >= 0)
+				cluster.mergeIndex += mergeOffset;
+		}
+		resultsByCluster.putAll(other.resultsByCluster);
+	}
+
+	@Override
+	public void setPhaseProfile(ApplicationModule module, ModuleMergeProfile profile) {
+		ClusterResults cluster = resultsByCluster.get(module);
+		if ((cluster == null) || (cluster.mergeIndex < 0))
+			return;
+
+		builder.results.setMerge(cluster.mergeIndex, builder.results.getMerge(cluster.mergeIndex).toBuilder()
+				.setPhaseProfile(profile.summarize()));
+	}
+
 	void beginCluster(TagMergeSession session) {
 		currentCluster = new ClusterResults(session);
 		resultsByCluster.put(session.left.module, currentCluster);
@@ -2,14 +2,22 @@ package edu.uci.plrg.cfi.x86.merge.graph.tag;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.collect.MapMaker;
 
 import edu.uci.plrg.cfi.common.log.Log;
 import edu.uci.plrg.cfi.x86.graph.data.graph.Edge;
 import edu.uci.plrg.cfi.x86.graph.data.graph.ModuleGraph;
+import edu.uci.plrg.cfi.x86.graph.data.graph.NodeHashMap;
 import edu.uci.plrg.cfi.x86.graph.data.graph.OrdinalEdgeList;
 import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ApplicationGraph;
 import edu.uci.plrg.cfi.x86.graph.data.graph.modular.ModuleNode;
 import edu.uci.plrg.cfi.x86.graph.data.graph.modular.metadata.ModuleUIB;
+import edu.uci.plrg.cfi.x86.merge.graph.ModuleMergeProfile;
+import edu.uci.plrg.cfi.x86.merge.util.GraphModificationStamps;
+import edu.uci.plrg.cfi.x86.merge.util.NodeHashIndex;
 
 public class TagMergeSession {
 
@@ -22,25 +30,80 @@ public class TagMergeSession {
 		}
 	}
 
+	/**
+	 * Hash index of a graph, valid as long as the graph still has the modification stamp of the index.
+	 */
+	private static class StampedHashIndex {
+		final NodeHashIndex<ModuleNode<?>> index;
+		final long stamp;
+
+		StampedHashIndex(NodeHashIndex<ModuleNode<?>> index, long stamp) {
+			this.index = index;
+			this.stamp = stamp;
+		}
+	}
+
+	/**
+	 * Training merges into the same dataset graph many times, so its hash index is kept for the next session. The
+	 * graphs are keyed by identity (MapMaker compares weak keys by identity), since an equal graph has different nodes.
+	 * A session takes the index out of this map for the duration of its merge and returns it only if the merge
+	 * completes, so an index is never shared between sessions, and one that a failed merge left behind its graph is
+	 * dropped. All of this happens under the lock of the graph (see <code>merge()</code>).
+	 */
+	private static final ConcurrentMap<ModuleGraph<?>, StampedHashIndex> HASH_INDEXES = new MapMaker().weakKeys()
+			.makeMap();
+	private static final AtomicLong HASH_INDEX_HITS = new AtomicLong();
+	private static final AtomicLong HASH_INDEX_MISSES = new AtomicLong();
+
+	/**
+	 * Take the hash index of <code>graph</code> out of the cache, or build it if there is none or the graph was
+	 * modified since the index was checked in (its modification stamp changed, or it no longer has the nodes and
+	 * hashes that were indexed). The caller must hold the lock of <code>graph</code>.
+	 */
+	private static NodeHashIndex<ModuleNode<?>> checkOutHashIndex(ModuleGraph<ModuleNode<?>> graph) {
+		StampedHashIndex cached = HASH_INDEXES.remove(graph);
+		NodeHashMap<ModuleNode<?>> nodesByHash = graph.getGraphData().nodesByHash;
+		if ((cached == null) || (cached.stamp != GraphModificationStamps.getStamp(graph))
+				|| (cached.index.getNodeCount() != nodesByHash.getNodeCount())
+				|| (cached.index.getHashCount() != nodesByHash.keySet().size())) {
+			HASH_INDEX_MISSES.incrementAndGet();
+			return NodeHashIndex.build(nodesByHash);
+		} else {
+			HASH_INDEX_HITS.incrementAndGet();
+			return cached.index;
+		}
+	}
+
+	/**
+	 * @return the number of sessions that reused the hash index of their dataset graph
+	 */
+	public static long getHashIndexHitCount() {
+		return HASH_INDEX_HITS.get();
+	}
+
+	/**
+	 * @return the number of sessions that had to build the hash index of their dataset graph
+	 */
+	public static long getHashIndexMissCount() {
+		return HASH_INDEX_MISSES.get();
+	}
+
 	public static ApplicationGraph mergeTwoGraphs(ModuleGraph<?> left, ModuleGraph<ModuleNode<?>> right,
 			TagMergeResults results) {
-		TagMergeSession session = new TagMergeSession(left, right, results);
-		TagMergeEngine engine = new TagMergeEngine(session);
-
-		engine.mergeGraph();
-		//session.logSuspiciousUIB();
-		session.results.clusterMergeCompleted();
-		return session.right;
+		return new TagMergeSession(left, right, results).merge();
 	}
 
 	final ModuleGraph<?> left;
 	final ApplicationGraph right;
+	// only valid during merge()
+	NodeHashIndex<ModuleNode<?>> rightHashIndex;
 	final TagMergeFragment mergeFragment = new TagMergeFragment(this);
 
 	final TagMergedSubgraphs subgraphs = new TagMergedSubgraphs();
 
 	final TagMergeStatistics statistics = new TagMergeStatistics();
 	final TagMergeResults results;
+	final ModuleMergeProfile profile;
 
 	final PendingEdgeQueue edgeQueue = new PendingEdgeQueue();
 
@@ -48,13 +111,56 @@ public class TagMergeSession {
 
 	public TagMergeSession(ModuleGraph<?> left, ModuleGraph<ModuleNode<?>> right,
 			TagMergeResults results) {
+		this(left, right, results, new ModuleMergeProfile());
+	}
+
+	public TagMergeSession(ModuleGraph<?> left, ModuleGraph<ModuleNode<?>> right,
+			TagMergeResults results, ModuleMergeProfile profile) {
 		this.left = left;
 		this.right = new ApplicationGraph(right);
 		this.results = results;
+		this.profile = profile;
 
 		results.beginCluster(this);
 	}
 
+	/**
+	 * Merges under the lock of the right graph, since concurrent sessions (e.g. of a round-robin run) may merge into the
+	 * same graph, which is modified in place along with its hash index. The modification stamp of the graph is advanced
+	 * whether or not the merge completes.
+	 */
+	public ApplicationGraph merge() {
+		synchronized (right.graph) {
+			boolean merged = false;
+			try {
+				rightHashIndex = checkOutHashIndex(right.graph);
+				mergeFragment.mergeStarted(GraphModificationStamps.getStamp(right.graph));
+				TagMergeEngine engine = new TagMergeEngine(this);
+
+				engine.mergeGraph();
+				//logSuspiciousUIB();
+				long stamp = GraphModificationStamps.modified(right.graph);
+				mergeFragment.mergeCompleted(stamp);
+				HASH_INDEXES.put(right.graph, new StampedHashIndex(rightHashIndex, stamp));
+				merged = true;
+			} finally {
+				if (!merged)
+					GraphModificationStamps.modified(right.graph);
+				rightHashIndex = null;
+			}
+
+			results.clusterMergeCompleted();
+		}
+		return right;
+	}
+
+	/**
+	 * @return the nodes and edges that the merge added to the right graph
+	 */
+	public TagMergeFragment getMergeFragment() {
+		return mergeFragment;
+	}
+
 	public void logSuspiciousUIB() {
 		if (left.metadata.isSingletonExecution()) {
 			for (ModuleUIB uib : left.metadata.getSingletonExecution().uibs) {
@@ -1,13 +1,12 @@
 package edu.uci.plrg.cfi.x86.merge.graph.tag;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import edu.uci.plrg.cfi.common.log.Log;
@@ -16,6 +15,7 @@ import edu.uci.plrg.cfi.x86.graph.data.graph.EdgeType;
 import edu.uci.plrg.cfi.x86.graph.data.graph.MetaNodeType;
 import edu.uci.plrg.cfi.x86.graph.data.graph.Node;
 import edu.uci.plrg.cfi.x86.graph.data.graph.OrdinalEdgeList;
+import edu.uci.plrg.cfi.x86.merge.util.NodeIdMap;
 
 // generalize for splitting a graph into subgraphs? or make a new one based on this?
 class TagMergedSubgraphs {
@@ -31,10 +31,6 @@ class TagMergedSubgraphs {
 		private int maximumPathLength = -1;
 		private int maximumIndirectsInPath = -1;
 
-		public Subgraph() {
-			distinctSubgraphs.add(this);
-		}
-
 		private void analyze() {
 			if (!entries.isEmpty())
 				return;
@@ -229,20 +225,33 @@ class TagMergedSubgraphs {
 		}
 	}
 
+	// parent of an unmatched node that is not yet connected to any edge
+	private static final int ATOM = -1;
+
 	private int unmatchedEdgeCount;
-	private final Set<Node<?>> unmatchedNodes = new HashSet<Node<?>>();
-	private final Set<Node<?>> atoms = new HashSet<Node<?>>();
-	private final Map<Node<?>, Subgraph> subgraphs = new HashMap<Node<?>, Subgraph>();
-	private final List<Subgraph> distinctSubgraphs = new ArrayList<Subgraph>();
 	private final PathAnalyzer pathAnalyzer = new PathAnalyzer();
 	public final UnmatchedIndirectCounts unmatchedIndirectCounts = new UnmatchedIndirectCounts();
 
+	// unmatched nodes by dense id, with a union-find over the ids for the connected subgraphs
+	private final NodeIdMap<Node<?>> unmatchedNodes = new NodeIdMap<Node<?>>(1024);
+	private int[] parents = new int[1024];
+	private int[] nodeCounts = new int[1024]; // by root id
+	private int[] creationOrder = new int[1024]; // by root id
+	private int subgraphsCreated = 0;
+
+	// edges of the subgraphs, each with the id of an unmatched node in the edge's subgraph
+	private final List<Edge<?>> subgraphEdges = new ArrayList<Edge<?>>();
+	private int[] subgraphEdgeOwners = new int[1024];
+
+	// materialized by getSubgraphs(), and dropped when a node or edge is added
+	private List<Subgraph> distinctSubgraphs = null;
+
 	int getSubgraphCount() {
 		return getSubgraphs().size();
 	}
 
 	boolean isMatched(Node<?> node) {
-		return !unmatchedNodes.contains(node);
+		return unmatchedNodes.getId(node) == NodeIdMap.NONE;
 	}
 
 	int getTotalUnmatchedNodes() {
@@ -254,84 +263,65 @@ class TagMergedSubgraphs {
 	}
 
 	void nodeAdded(Node<?> node) {
-		unmatchedNodes.add(node);
-		atoms.add(node);
+		int id = unmatchedNodes.assignId(node);
+		if (id == parents.length) {
+			parents = Arrays.copyOf(parents, id * 2);
+			nodeCounts = Arrays.copyOf(nodeCounts, id * 2);
+			creationOrder = Arrays.copyOf(creationOrder, id * 2);
+		}
+		parents[id] = ATOM;
+		distinctSubgraphs = null;
 	}
 
 	void edgeAdded(Edge<?> edge) {
 		unmatchedEdgeCount++;
 
-		if (atoms.remove(edge.getFromNode())) {
-			if (atoms.remove(edge.getToNode())) {
-				Subgraph subgraph = new Subgraph();
-				subgraph.edges.add(edge);
-				subgraph.nodes.add(edge.getFromNode());
-				subgraph.nodes.add(edge.getToNode());
-				subgraphs.put(edge.getFromNode(), subgraph);
-				subgraphs.put(edge.getToNode(), subgraph);
-			} else {
-				Subgraph subgraph = subgraphs.get(edge.getToNode());
-				if (subgraph != null) {
-					subgraph.nodes.add(edge.getFromNode());
-				} else {
-					subgraph = new Subgraph();
-					subgraph.nodes.add(edge.getFromNode());
-				}
-				subgraph.edges.add(edge);
-				subgraphs.put(edge.getFromNode(), subgraph);
-			}
-		} else if (atoms.remove(edge.getToNode())) {
-			Subgraph subgraph = subgraphs.get(edge.getFromNode());
-			if (subgraph != null) {
-				subgraph.nodes.add(edge.getToNode());
+		int fromId = unmatchedNodes.getId(edge.getFromNode());
+		int toId = unmatchedNodes.getId(edge.getToNode());
+
+		// an atom joins the subgraph of the other node, and two atoms start a new subgraph
+		int owner = NodeIdMap.NONE;
+		if ((fromId != NodeIdMap.NONE) && (parents[fromId] == ATOM)) {
+			if ((toId != NodeIdMap.NONE) && (parents[toId] != ATOM))
+				join(fromId, find(toId));
+			else
+				createSubgraph(fromId);
+			owner = fromId;
+		}
+		if ((toId != NodeIdMap.NONE) && (parents[toId] == ATOM)) {
+			if (fromId != NodeIdMap.NONE)
+				join(toId, find(fromId));
+			else
+				createSubgraph(toId);
+			owner = toId;
+		}
+		if (owner == NodeIdMap.NONE) {
+			if (fromId != NodeIdMap.NONE) {
+				owner = fromId;
+				if (toId != NodeIdMap.NONE)
+					union(fromId, toId);
 			} else {
-				subgraph = new Subgraph();
-				subgraph.nodes.add(edge.getToNode());
-			}
-			subgraph.edges.add(edge);
-			subgraphs.put(edge.getToNode(), subgraph);
-		} else {
-			Subgraph fromSubgraph = subgraphs.get(edge.getFromNode());
-			Subgraph toSubgraph = subgraphs.get(edge.getToNode());
-			if (fromSubgraph != null) {
-				if (toSubgraph != null) {
-					if (fromSubgraph == toSubgraph) {
-						fromSubgraph.edges.add(edge);
-					} else {
-						Subgraph smallSubgraph, largeSubgraph;
-						if (fromSubgraph.nodes.size() < toSubgraph.nodes.size()) {
-							smallSubgraph = fromSubgraph;
-							largeSubgraph = toSubgraph;
-						} else {
-							smallSubgraph = toSubgraph;
-							largeSubgraph = fromSubgraph;
-						}
-						largeSubgraph.nodes.addAll(smallSubgraph.nodes);
-						largeSubgraph.edges.addAll(smallSubgraph.edges);
-						largeSubgraph.edges.add(edge);
-						for (Node<?> node : smallSubgraph.nodes) {
-							subgraphs.put(node, largeSubgraph);
-						}
-						distinctSubgraphs.remove(smallSubgraph);
-					}
-				} else {
-					fromSubgraph.edges.add(edge);
-				}
-			} else if (toSubgraph != null) {
-				toSubgraph.edges.add(edge);
+				owner = toId;
 			}
 		}
+		if (owner != NodeIdMap.NONE) {
+			if (subgraphEdges.size() == subgraphEdgeOwners.length)
+				subgraphEdgeOwners = Arrays.copyOf(subgraphEdgeOwners, subgraphEdgeOwners.length * 2);
+			subgraphEdgeOwners[subgraphEdges.size()] = owner;
+			subgraphEdges.add(edge);
+			distinctSubgraphs = null;
+		}
 
 		if (edge.getEdgeType() == EdgeType.INDIRECT) {
 			unmatchedIndirectCounts.total++;
-			if (unmatchedNodes.contains(edge.getFromNode())) {
-				if (unmatchedNodes.contains(edge.getToNode())) {
+			if (fromId != NodeIdMap.NONE) {
+				if (toId != NodeIdMap.NONE) {
 					unmatchedIndirectCounts.withinUnexpected++;
 				} else {
 					unmatchedIndirectCounts.fromUnexpected++;
 				}
 			} else {
-				if (unmatchedNodes.contains(edge.getToNode())) {
+				if (toId != NodeIdMap.NONE) {
 					unmatchedIndirectCounts.toUnexpected++;
 				} else {
 					unmatchedIndirectCounts.withinExpected++;
@@ -340,21 +330,105 @@ class TagMergedSubgraphs {
 		}
 	}
 
+	private void createSubgraph(int id) {
+		parents[id] = id;
+		nodeCounts[id] = 1;
+		creationOrder[id] = subgraphsCreated++;
+	}
+
+	private void join(int atomId, int root) {
+		parents[atomId] = root;
+		nodeCounts[root]++;
+	}
+
+	/**
+	 * Merge the subgraphs of two connected nodes into the larger one, or into the subgraph of <code>fromId</code> when
+	 * they are the same size.
+	 */
+	private void union(int fromId, int toId) {
+		int fromRoot = find(fromId);
+		int toRoot = find(toId);
+		if (fromRoot == toRoot)
+			return;
+
+		int smallRoot, largeRoot;
+		if (nodeCounts[fromRoot] < nodeCounts[toRoot]) {
+			smallRoot = fromRoot;
+			largeRoot = toRoot;
+		} else {
+			smallRoot = toRoot;
+			largeRoot = fromRoot;
+		}
+		parents[smallRoot] = largeRoot;
+		nodeCounts[largeRoot] += nodeCounts[smallRoot];
+	}
+
+	private int find(int id) {
+		int root = id;
+		while (parents[root] != root)
+			root = parents[root];
+		while (parents[id] != root) {
+			int next = parents[id];
+			parents[id] = root;
+			id = next;
+		}
+		return root;
+	}
+
 	public Collection<Subgraph> getSubgraphs() {
-		if (!distinctSubgraphs.isEmpty()) {
-			Collections.sort(distinctSubgraphs);
-			distinctSubgraphs.get(0).analyze();
-			for (int i = distinctSubgraphs.size() - 1; i >= 1; i--) {
-				Subgraph current = distinctSubgraphs.get(i);
-				Subgraph previous = distinctSubgraphs.get(i - 1);
-				if (current.compareTo(previous) == 0) {
-					previous.instanceCount = current.instanceCount + 1;
-					distinctSubgraphs.remove(i);
-				} else {
-					current.analyze();
+		if (distinctSubgraphs == null) {
+			materializeSubgraphs();
+
+			if (!distinctSubgraphs.isEmpty()) {
+				Collections.sort(distinctSubgraphs);
+				distinctSubgraphs.get(0).analyze();
+
+				// collapse runs of equivalent subgraphs into their first instance
+				List<Subgraph> distinct = new ArrayList<Subgraph>();
+				for (int i = distinctSubgraphs.size() - 1; i >= 1; i--) {
+					Subgraph current = distinctSubgraphs.get(i);
+					Subgraph previous = distinctSubgraphs.get(i - 1);
+					if (current.compareTo(previous) == 0) {
+						previous.instanceCount = current.instanceCount + 1;
+					} else {
+						current.analyze();
+						distinct.add(current);
+					}
 				}
+				distinct.add(distinctSubgraphs.get(0));
+				Collections.reverse(distinct);
+				distinctSubgraphs = distinct;
 			}
 		}
 		return distinctSubgraphs;
 	}
+
+	/**
+	 * Build the node and edge sets of each subgraph, listed in the order the subgraphs were created.
+	 */
+	private void materializeSubgraphs() {
+		Subgraph[] subgraphsByCreation = new Subgraph[subgraphsCreated];
+		Subgraph[] subgraphsByRoot = new Subgraph[unmatchedNodes.size()];
+		for (int id = 0; id < unmatchedNodes.size(); id++) {
+			if (parents[id] == ATOM)
+				continue;
+
+			int root = find(id);
+			Subgraph subgraph = subgraphsByRoot[root];
+			if (subgraph == null) {
+				subgraph = new Subgraph();
+				subgraphsByRoot[root] = subgraph;
+				subgraphsByCreation[creationOrder[root]] = subgraph;
+			}
+			subgraph.nodes.add(unmatchedNodes.getObject(id));
+		}
+		for (int i = 0; i < subgraphEdges.size(); i++)
+			subgraphsByRoot[find(subgraphEdgeOwners[i])].edges.add(subgraphEdges.get(i));
+
+		distinctSubgraphs = new ArrayList<Subgraph>();
+		for (Subgraph subgraph : subgraphsByCreation) {
+			if (subgraph != null)
+				distinctSubgraphs.add(subgraph);
+		}
+	}
 }
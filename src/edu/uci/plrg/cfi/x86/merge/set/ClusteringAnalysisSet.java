@@ -1,22 +1,32 @@
 package edu.uci.plrg.cfi.x86.merge.set;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.FileReader;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import edu.uci.plrg.cfi.common.log.Log;
 import edu.uci.plrg.cfi.x86.merge.util.AnalysisUtil;
 import edu.uci.plrg.cfi.x86.merge.util.DistancePair;
 import edu.uci.plrg.cfi.x86.merge.util.Heap;
+import edu.uci.plrg.cfi.x86.merge.util.LongHashSet;
+import edu.uci.plrg.cfi.x86.merge.util.WeightedMinHashSketch;
 import gnu.getopt.Getopt;
 
 /**
@@ -27,14 +37,25 @@ import gnu.getopt.Getopt;
  * 
  * 
  * 
- * When calculating the distance matrix, we statically distribute the pairwise calculation workload to each thread (by
- * default the number of threads is Tnum = 16).
+ * When calculating the distance matrix, we tile its upper triangle into blocks of <code>TILE_SIZE</code> executions and
+ * compute the tiles on a fork/join pool of <code>numThreads</code> threads, which balances the load as tiles finish.
+ * Only the upper triangle is stored (see <code>TriangularDistanceMatrix</code>).
+ * 
+ * With an error bound, the distances are first estimated from a weighted MinHash sketch of each execution, weighted
+ * like <code>scoreOfSet()</code>. The bound is the relative error of the estimated intersection score of two similar
+ * executions (at about two standard deviations), and sets the sketch size. Less similar pairs share fewer sampled
+ * hashes, so each estimate gets its own error interval from the number of hashes its sample shares, and an estimate
+ * whose sample shares none is always computed exactly. Only the pairs whose error interval reaches the statistics
+ * reported by <code>analyze()</code> (the maximum distance within a program and the closest pairs of different
+ * programs) are then computed exactly, so the averages are of estimates.
  */
 
 public class ClusteringAnalysisSet {
-	private Set<Long>[] hashes;
+	private LongHashSet[] hashes;
+	// 1 / frequency of each hash of each execution, in the order of its hash set
+	private float[][] hashWeights;
 	private Map<Long, Integer> freqTable;
-	private float[][] distMatrix;
+	private TriangularDistanceMatrix distMatrix;
 	private float[] scores;
 	private File[] paths;
 	private String[] progNames;
@@ -43,59 +64,119 @@ public class ClusteringAnalysisSet {
 	private HashMap<Integer, String> index2ProgName;
 
 	private int numThreads = 4;
-	public DistCalculationThread[] distThreads;
+
+	// 0 for exact distances
+	private float errorBound = 0.0f;
+	private WeightedMinHashSketch[] sketches;
+	// relative error of each estimated distance: 0 if exact, and infinite if its sample shares no hash
+	private TriangularDistanceMatrix estimateErrors;
+
+	private static final int NUM_MIN_DIST_DIFF_PROGS = 100;
+
+	private static final int TILE_SIZE = 32;
+	private static final int REFINE_BATCH_SIZE = 16;
 
 	// timing
 	long veryBeginning, veryEnding;
 
-	private class DistCalculationThread implements Runnable {
-		private int fromIndex;
-		private int toIndex;
-		public Thread thread;
-
-		private DistCalculationThread() {
+	/**
+	 * Computes the distances of a range of tiles, in the order of the packed upper triangle of the tile grid, by
+	 * splitting the range down to single tiles for the pool to balance. Within a tile, each row set is compared with the
+	 * same <code>TILE_SIZE</code> column sets, so those stay in cache across the rows.
+	 */
+	private class DistanceTileTask extends RecursiveAction {
+		private final long fromTile;
+		private final long toTile;
 
+		DistanceTileTask(long fromTile, long toTile) {
+			this.fromTile = fromTile;
+			this.toTile = toTile;
 		}
 
-		public DistCalculationThread(int fromIndex, int toIndex) {
-			this.fromIndex = fromIndex;
-			this.toIndex = toIndex;
-			thread = new Thread(this);
+		@Override
+		protected void compute() {
+			if ((toTile - fromTile) > 1) {
+				long middle = (fromTile + toTile) >>> 1;
+				invokeAll(new DistanceTileTask(fromTile, middle), new DistanceTileTask(middle, toTile));
+				return;
+			}
+
+			int N = distMatrix.dimension, tileCount = (N + TILE_SIZE - 1) / TILE_SIZE;
+			int tileRow = tileRowOf(fromTile, tileCount);
+			int tileColumn = (int) (fromTile - tileRowStart(tileRow, tileCount)) + tileRow;
+			int rowEnd = Math.min(N, (tileRow + 1) * TILE_SIZE);
+			int columnStart = tileColumn * TILE_SIZE, columnEnd = Math.min(N, columnStart + TILE_SIZE);
+			for (int i = tileRow * TILE_SIZE; i < rowEnd; i++) {
+				for (int j = Math.max(i, columnStart); j < columnEnd; j++) {
+					if (sketches == null) {
+						distMatrix.set(i, j, computeDist(i, j));
+					} else {
+						distMatrix.set(i, j, estimateDist(i, j));
+						estimateErrors.set(i, j, estimateError(i, j));
+					}
+				}
+			}
 		}
+	}
 
-		public void run() {
-			int count = 0;
-			long beginTime, endTime;
-			beginTime = System.currentTimeMillis();
-			int N = distMatrix[0].length;
+	private class RefineTask extends RecursiveAction {
+		private final int[] pairI, pairJ;
+		private final int fromPair, toPair;
 
-			for (int k = fromIndex; k <= toIndex; k++) {
-				if (count == 1000) {
-					endTime = System.currentTimeMillis();
-					Log.log("Time for 1000 distance computation of " + thread.getName() + " is: "
-							+ (endTime - beginTime) + " miliseconds");
-					beginTime = System.currentTimeMillis();
-					count = 0;
-				}
-				count++;
+		RefineTask(int[] pairI, int[] pairJ, int fromPair, int toPair) {
+			this.pairI = pairI;
+			this.pairJ = pairJ;
+			this.fromPair = fromPair;
+			this.toPair = toPair;
+		}
 
-				int i = (int) ((2 * N + 1 - Math.sqrt((2 * N + 1) * (2 * N + 1) - 8 * k)) / 2), j = k - i
-						* (2 * N - i + 1) / 2 + i;
-				float f = computeDist(i, j);
-				distMatrix[i][j] = f;
+		@Override
+		protected void compute() {
+			if ((toPair - fromPair) > REFINE_BATCH_SIZE) {
+				int middle = (fromPair + toPair) >>> 1;
+				invokeAll(new RefineTask(pairI, pairJ, fromPair, middle), new RefineTask(pairI, pairJ, middle, toPair));
+				return;
 			}
 
+			for (int k = fromPair; k < toPair; k++) {
+				distMatrix.set(pairI[k], pairJ[k], computeDist(pairI[k], pairJ[k]));
+				estimateErrors.set(pairI[k], pairJ[k], 0.0f);
+			}
 		}
+	}
 
+	// first tile of the row in the packed upper triangle of the tile grid
+	private static long tileRowStart(int tileRow, int tileCount) {
+		return ((long) tileRow * ((2L * tileCount) - tileRow + 1)) / 2;
+	}
+
+	private static int tileRowOf(long tile, int tileCount) {
+		double b = (2.0 * tileCount) + 1;
+		int tileRow = (int) ((b - Math.sqrt((b * b) - (8.0 * tile))) / 2);
+		// correct for rounding of the root
+		while ((tileRow > 0) && (tileRowStart(tileRow, tileCount) > tile))
+			tileRow--;
+		while (tileRowStart(tileRow + 1, tileCount) <= tile)
+			tileRow++;
+		return tileRow;
 	}
 
 	public ClusteringAnalysisSet() {
 
 	}
 
-	public ClusteringAnalysisSet(File[] paths, int numThreads) {
+	public ClusteringAnalysisSet(File[] paths, int numThreads) throws IOException {
+		this(paths, numThreads, 0.0f);
+	}
+
+	/**
+	 * @param errorBound
+	 *            relative error of the estimated distances, or 0 to compute them all exactly
+	 */
+	public ClusteringAnalysisSet(File[] paths, int numThreads, float errorBound) throws IOException {
 		this.paths = paths;
 		this.numThreads = numThreads;
+		this.errorBound = errorBound;
 		progNames = new String[paths.length];
 
 		progName2Index = new HashMap<String, Integer>();
@@ -110,33 +191,26 @@ public class ClusteringAnalysisSet {
 		}
 		init();
 
-		int dimension = distMatrix[0].length, interval = dimension * (dimension + 1) / 2 / numThreads, beginIndex = 0, endIndex = dimension
-				* (dimension + 1) / 2 - 1;
-
 		computeScoreOfSets();
-
-		distThreads = new DistCalculationThread[numThreads];
-		for (int i = 0; i < distThreads.length - 1; i++) {
-			distThreads[i] = new DistCalculationThread(beginIndex, beginIndex + interval - 1);
-			beginIndex += interval;
-		}
-		distThreads[distThreads.length - 1] = new DistCalculationThread(beginIndex, endIndex);
+		if (errorBound > 0.0f)
+			buildSketches();
 		// computeAllDist();
 	}
 
 	public void parallelComputeAllDist() {
 		// record the timing when the threads start
 		veryBeginning = System.nanoTime();
-		for (int i = 0; i < distThreads.length; i++) {
-			distThreads[i].thread.setName("Thread" + i);
-			distThreads[i].thread.start();
-		}
-		for (int i = 0; i < distThreads.length; i++) {
-			try {
-				distThreads[i].thread.join();
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
+		ForkJoinPool pool = new ForkJoinPool(numThreads);
+		try {
+			int tileCount = (distMatrix.dimension + TILE_SIZE - 1) / TILE_SIZE;
+			pool.invoke(new DistanceTileTask(0, tileRowStart(tileCount, tileCount)));
+			Log.log("Computed the distances of " + distMatrix.dimension + " executions in "
+					+ (System.nanoTime() - veryBeginning) / 1000000 + " miliseconds"
+					+ (distMatrix.isOffHeap() ? " (matrix off heap)" : ""));
+			if (sketches != null)
+				refineNearThresholds(pool);
+		} finally {
+			pool.shutdown();
 		}
 	}
 
@@ -156,10 +230,30 @@ public class ClusteringAnalysisSet {
 
 	private void computeScoreOfSets() {
 		for (int i = 0; i < scores.length; i++) {
-			scores[i] = scoreOfSet(hashes[i], freqTable);
+			hashWeights[i] = new float[hashes[i].size()];
+			float score = 0.0f;
+			for (int k = 0; k < hashes[i].size(); k++) {
+				hashWeights[i][k] = 1.0f / freqTable.get(hashes[i].get(k));
+				score += hashWeights[i][k];
+			}
+			scores[i] = score;
 		}
 	}
 
+	private void buildSketches() {
+		// the relative error of the intersection score is about 1 / sqrt(size) for similar sets
+		int sketchSize = (int) Math.ceil(4.0 / (errorBound * errorBound));
+		sketches = new WeightedMinHashSketch[hashes.length];
+		for (int i = 0; i < hashes.length; i++) {
+			sketches[i] = new WeightedMinHashSketch(sketchSize);
+			for (int k = 0; k < hashes[i].size(); k++) {
+				sketches[i].add(hashes[i].get(k), hashWeights[i][k]);
+			}
+		}
+		estimateErrors = new TriangularDistanceMatrix(hashes.length);
+		Log.log("Sketched " + hashes.length + " executions with " + sketchSize + " hashes each");
+	}
+
 	public void computeAllDist() {
 		computeScoreOfSets();
 
@@ -176,8 +270,7 @@ public class ClusteringAnalysisSet {
 					count = 0;
 				}
 				count++;
-				distMatrix[i][j] = computeDist(i, j);
-				distMatrix[j][i] = distMatrix[i][j];
+				distMatrix.set(i, j, computeDist(i, j));
 			}
 		}
 		veryEnding = System.currentTimeMillis();
@@ -199,23 +292,23 @@ public class ClusteringAnalysisSet {
 			System.out.printf("%7s", i + progNames[i]);
 			for (int j = 0; j < paths.length; j++) {
 				if (i < j)
-					System.out.printf("% 7.1f", distMatrix[i][j]);
+					System.out.printf("% 7.1f", distMatrix.get(i, j));
 				else
 					System.out.printf("%7s", " ");
-				if (distMatrix[i][j] < 1.5f && j > i) {
+				if (distMatrix.get(i, j) < 1.5f && j > i) {
 					String progName1 = progNames[i], progName2 = progNames[j];
 					String str = "";
 					if (progName1.equals(progName2)) {
-						str = String.format("%d%s %d%s :%.1f\n", i, progName1, j, progName2, distMatrix[i][j]);
+						str = String.format("%d%s %d%s :%.1f\n", i, progName1, j, progName2, distMatrix.get(i, j));
 					} else {
-						str = String.format("*%d%s %d%s :%.1f\n", i, progName1, j, progName2, distMatrix[i][j]);
+						str = String.format("*%d%s %d%s :%.1f\n", i, progName1, j, progName2, distMatrix.get(i, j));
 					}
 					strBuilder.append(str);
-					if (distMatrix[i][j] < min)
-						min = distMatrix[i][j];
+					if (distMatrix.get(i, j) < min)
+						min = distMatrix.get(i, j);
 				}
-				if (distMatrix[i][j] > max)
-					max = distMatrix[i][j];
+				if (distMatrix.get(i, j) > max)
+					max = distMatrix.get(i, j);
 			}
 			Log.log();
 		}
@@ -250,27 +343,27 @@ public class ClusteringAnalysisSet {
 		int[] maxSameProgInstanceIs = new int[numProgs];
 		int[] maxSameProgInstanceJs = new int[numProgs];
 		// store the closest N distances (N = 100) between different programs
-		int numMinDistDiffProgs = 100;
+		int numMinDistDiffProgs = NUM_MIN_DIST_DIFF_PROGS;
 		Heap<DistancePair> minDistDiffProgs = new Heap<DistancePair>(new Comparator<DistancePair>() {
 			public int compare(DistancePair a, DistancePair b) {
 				return a.compareTo(b);
 			}
 		});
 
-		for (int i = 0; i < distMatrix[0].length; i++) {
-			for (int j = i + 1; j < distMatrix[0].length; j++) {
+		for (int i = 0; i < distMatrix.dimension; i++) {
+			for (int j = i + 1; j < distMatrix.dimension; j++) {
 				int indexI = progName2Index.get(progNames[i]), indexJ = progName2Index.get(progNames[j]);
 				// same program
 				if (indexI == indexJ) {
-					sumDistSameProgs[indexI] += distMatrix[i][j];
+					sumDistSameProgs[indexI] += distMatrix.get(i, j);
 					numSameProgs[indexI]++;
-					if (distMatrix[i][j] > maxDistSameProgs[indexI]) {
-						maxDistSameProgs[indexI] = distMatrix[i][j];
+					if (distMatrix.get(i, j) > maxDistSameProgs[indexI]) {
+						maxDistSameProgs[indexI] = distMatrix.get(i, j);
 						maxSameProgInstanceIs[indexI] = i;
 						maxSameProgInstanceJs[indexI] = j;
 					}
-					if (distMatrix[i][j] > maxDistSameProg[indexI]) {
-						maxDistSameProg[indexI] = distMatrix[i][j];
+					if (distMatrix.get(i, j) > maxDistSameProg[indexI]) {
+						maxDistSameProg[indexI] = distMatrix.get(i, j);
 						if (maxSameProg < maxDistSameProg[indexI]) {
 							maxSameProg = maxDistSameProg[indexI];
 							maxIndex = indexI;
@@ -280,15 +373,15 @@ public class ClusteringAnalysisSet {
 				} else {
 					if (minDistDiffProgs.size() < numMinDistDiffProgs) {
 						DistancePair distPair = new DistancePair(index2ProgName.get(indexI),
-								index2ProgName.get(indexJ), paths[i], paths[j], distMatrix[i][j]);
+								index2ProgName.get(indexJ), paths[i], paths[j], distMatrix.get(i, j));
 						minDistDiffProgs.insertElem(distPair);
-					} else if (minDistDiffProgs.getMaxElem().dist > distMatrix[i][j]) {
+					} else if (minDistDiffProgs.getMaxElem().dist > distMatrix.get(i, j)) {
 						DistancePair distPair = new DistancePair(index2ProgName.get(indexI),
-								index2ProgName.get(indexJ), paths[i], paths[j], distMatrix[i][j]);
+								index2ProgName.get(indexJ), paths[i], paths[j], distMatrix.get(i, j));
 						minDistDiffProgs.swapMaxElemWith(distPair);
 					}
-					if (distMatrix[i][j] < minDistDiffProg[indexI][indexJ]) {
-						minDistDiffProg[indexI][indexJ] = distMatrix[i][j];
+					if (distMatrix.get(i, j) < minDistDiffProg[indexI][indexJ]) {
+						minDistDiffProg[indexI][indexJ] = distMatrix.get(i, j);
 						if (minDiffProg > minDistDiffProg[indexI][indexJ]) {
 							minDiffProg = minDistDiffProg[indexI][indexJ];
 							minIndexI = indexI;
@@ -325,21 +418,132 @@ public class ClusteringAnalysisSet {
 	}
 
 	private float computeDist(int i, int j) {
-		Set<Long> inter = AnalysisUtil.intersection(hashes[i], hashes[j]);
-		float interScore = scoreOfSet(inter, freqTable);
+		float interScore = scoreOfIntersection(i, j);
 		return 2 / (interScore / scores[i] + interScore / scores[j]) - 1;
 	}
 
-	@SuppressWarnings("unchecked")
-	private void init() {
-		distMatrix = new float[paths.length][paths.length];
+	// merges the two sorted hash sets, summing the weights of the shared hashes
+	private float scoreOfIntersection(int i, int j) {
+		LongHashSet left = hashes[i], right = hashes[j];
+		float[] weights = hashWeights[i];
+		float score = 0.0f;
+		int l = 0, r = 0;
+		while ((l < left.size()) && (r < right.size())) {
+			long leftHash = left.get(l), rightHash = right.get(r);
+			if (leftHash < rightHash) {
+				l++;
+			} else if (leftHash > rightHash) {
+				r++;
+			} else {
+				score += weights[l];
+				l++;
+				r++;
+			}
+		}
+		return score;
+	}
+
+	private float estimateDist(int i, int j) {
+		float interScore = (float) sketches[i].estimateIntersectionWeight(sketches[j]);
+		return 2 / (interScore / scores[i] + interScore / scores[j]) - 1;
+	}
+
+	// two standard deviations of the Horvitz-Thompson estimate over the shared part of the sample
+	private float estimateError(int i, int j) {
+		if (sketches[i].isExactWith(sketches[j]))
+			return 0.0f;
+		int shared = sketches[i].countSharedSample(sketches[j]);
+		if (shared == 0)
+			return Float.POSITIVE_INFINITY;
+		return (float) (2.0 / Math.sqrt(shared));
+	}
+
+	private boolean isExactDist(int i, int j) {
+		return estimateErrors.get(i, j) == 0.0f;
+	}
+
+	// the distance plus one is inversely proportional to the intersection score
+	private float minDist(int i, int j) {
+		float error = estimateErrors.get(i, j);
+		if (error == 0.0f)
+			return distMatrix.get(i, j);
+		if (Float.isInfinite(error))
+			return 0.0f;
+		return (distMatrix.get(i, j) + 1) / (1 + error) - 1;
+	}
+
+	private float maxDist(int i, int j) {
+		float error = estimateErrors.get(i, j);
+		if (error == 0.0f)
+			return distMatrix.get(i, j);
+		if (error >= 1.0f)
+			return Float.POSITIVE_INFINITY;
+		return (distMatrix.get(i, j) + 1) / (1 - error) - 1;
+	}
+
+	/**
+	 * Compute exactly the estimated distances that could change the result of <code>analyze()</code>: those within a
+	 * program that could be its maximum, those between programs that could be among the closest, and those whose
+	 * sample shares no hash.
+	 */
+	private void refineNearThresholds(ForkJoinPool pool) {
+		long beginTime = System.currentTimeMillis();
+		int N = distMatrix.dimension, numProgs = progName2Index.size();
+
+		float[] maxMinDistSameProg = new float[numProgs];
+		PriorityQueue<Float> closestMaxDistDiffProgs = new PriorityQueue<Float>(NUM_MIN_DIST_DIFF_PROGS + 1,
+				Collections.<Float> reverseOrder());
+		for (int i = 0; i < N; i++) {
+			for (int j = i + 1; j < N; j++) {
+				int indexI = progName2Index.get(progNames[i]), indexJ = progName2Index.get(progNames[j]);
+				if (indexI == indexJ) {
+					maxMinDistSameProg[indexI] = Math.max(maxMinDistSameProg[indexI], minDist(i, j));
+				} else {
+					closestMaxDistDiffProgs.add(maxDist(i, j));
+					if (closestMaxDistDiffProgs.size() > NUM_MIN_DIST_DIFF_PROGS)
+						closestMaxDistDiffProgs.poll();
+				}
+			}
+		}
+		float diffProgThreshold = (closestMaxDistDiffProgs.size() < NUM_MIN_DIST_DIFF_PROGS) ? Float.POSITIVE_INFINITY
+				: closestMaxDistDiffProgs.peek();
+
+		int[] refineI = new int[16], refineJ = new int[16];
+		int refineCount = 0;
+		for (int i = 0; i < N; i++) {
+			for (int j = i + 1; j < N; j++) {
+				if (isExactDist(i, j))
+					continue;
+				int indexI = progName2Index.get(progNames[i]), indexJ = progName2Index.get(progNames[j]);
+				boolean nearThreshold = (indexI == indexJ) ? (maxDist(i, j) >= maxMinDistSameProg[indexI])
+						: (minDist(i, j) <= diffProgThreshold);
+				if (nearThreshold || Float.isInfinite(estimateErrors.get(i, j))) {
+					if (refineCount == refineI.length) {
+						refineI = Arrays.copyOf(refineI, refineCount * 2);
+						refineJ = Arrays.copyOf(refineJ, refineCount * 2);
+					}
+					refineI[refineCount] = i;
+					refineJ[refineCount++] = j;
+				}
+			}
+		}
+
+		pool.invoke(new RefineTask(refineI, refineJ, 0, refineCount));
+		Log.log("Refined " + refineCount + " of " + ((long) N * (N - 1) / 2) + " estimated distances in "
+				+ (System.currentTimeMillis() - beginTime) + " miliseconds");
+	}
+
+	private void init() throws IOException {
+		distMatrix = new TriangularDistanceMatrix(paths.length);
 		scores = new float[paths.length];
-		hashes = new HashSet[paths.length];
+		hashes = new LongHashSet[paths.length];
+		hashWeights = new float[paths.length][];
 		freqTable = new HashMap<Long, Integer>();
 
 		for (int i = 0; i < paths.length; i++) {
-			// hashes[i] = AnalysisUtil.getSetFromPath(paths[i]); TODO: refactor file handling
-			for (Long l : hashes[i]) {
+			hashes[i] = loadHashes(paths[i]);
+			for (int k = 0; k < hashes[i].size(); k++) {
+				Long l = hashes[i].get(k);
 				if (freqTable.keySet().contains(l)) {
 					freqTable.put(l, freqTable.get(l) + 1);
 				} else {
@@ -349,6 +553,24 @@ public class ClusteringAnalysisSet {
 		}
 	}
 
+	/**
+	 * @param path
+	 *            a hash file, or a run directory whose hash files (found as by
+	 *            <code>AnalysisUtil.getAllHashFiles()</code>) are loaded together
+	 */
+	private static LongHashSet loadHashes(File path) throws IOException {
+		if (!path.isDirectory())
+			return LongHashSet.load(path);
+
+		List<String> hashFiles = AnalysisUtil.getAllHashFiles(path.getAbsolutePath());
+		if (hashFiles.isEmpty())
+			throw new IOException("No hash files in run directory " + path.getAbsolutePath());
+		LongHashSet[] runHashes = new LongHashSet[hashFiles.size()];
+		for (int k = 0; k < runHashes.length; k++)
+			runHashes[k] = LongHashSet.load(new File(hashFiles.get(k)));
+		return LongHashSet.unionOf(runHashes);
+	}
+
 	public void storeFreqTableInFile(String fileName) {
 		try {
 			FileOutputStream fileOut = new FileOutputStream(fileName);
@@ -387,9 +609,10 @@ public class ClusteringAnalysisSet {
 
 	public static void main(String[] argvs) {
 
-		Getopt g = new Getopt("ClusteringAnalysis", argvs, "xonf:d:t:m:");
+		Getopt g = new Getopt("ClusteringAnalysis", argvs, "xonf:d:t:m:e:");
 		int c;
 		boolean error = false;
+		float errorBound = 0.0f;
 		String dir4Files = null, dir4Runs = null;
 		while ((c = g.getopt()) != -1) {
 			switch (c) {
@@ -403,6 +626,9 @@ public class ClusteringAnalysisSet {
 					if (dir4Runs.startsWith("-"))
 						error = true;
 					break;
+				case 'e':
+					errorBound = Float.parseFloat(g.getOptarg());
+					break;
 				case '?':
 					error = true;
 					Log.log("parse error for option: -" + (char) g.getOptopt());
@@ -416,7 +642,7 @@ public class ClusteringAnalysisSet {
 			return;
 		int index = g.getOptind();
 		if (index >= argvs.length) {
-			Log.log("Usage: ClusteringAnalysis [-o][-f dir][-d dir] file");
+			Log.log("Usage: ClusteringAnalysis [-o][-f dir][-d dir][-e error-bound] file");
 			return;
 		}
 
@@ -446,20 +672,30 @@ public class ClusteringAnalysisSet {
 			}
 			AnalysisUtil.saveStringPerline(recordFile, listFiles, append);
 		}
-		ArrayList<String> strList = AnalysisUtil.getStringPerline(recordFile);
-		String[] strArray = strList.toArray(new String[strList.size()]);
-
-		if (isAnalyzing) {
-			ClusteringAnalysisSet clusterAnalysis = new ClusteringAnalysisSet(
-					strArray, numThreads);
-			if (freqFile != null) {
-				clusterAnalysis.storeFreqTableInFile(freqFile);
+		 */
+
+		// the record file lists the hash files or run directories of the executions, one per line
+		try {
+			List<File> paths = new ArrayList<File>();
+			BufferedReader in = new BufferedReader(new FileReader(argvs[index]));
+			try {
+				String line;
+				while ((line = in.readLine()) != null) {
+					if (line.length() > 0)
+						paths.add(new File(line));
+				}
+			} finally {
+				in.close();
 			}
+
+			ClusteringAnalysisSet clusterAnalysis = new ClusteringAnalysisSet(paths.toArray(new File[paths.size()]),
+					Runtime.getRuntime().availableProcessors(), errorBound);
 			clusterAnalysis.parallelComputeAllDist();
 			// clusterAnalysis.outputDistMatrix();
 			clusterAnalysis.analyze();
 			clusterAnalysis.timeElapsed();
+		} catch (IOException e) {
+			e.printStackTrace();
 		}
-		 */
 	}
 }
@@ -0,0 +1,78 @@
+package edu.uci.plrg.cfi.x86.merge.set;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Symmetric distance matrix that stores only the upper triangle (with the diagonal), packed row by row: N * (N + 1) / 2
+ * floats instead of N * N. Elements (i, j) and (j, i) are the same element.
+ *
+ * The matrix is kept in a <code>float[]</code> while it fits in one, and otherwise off the heap in direct buffers of
+ * <code>CHUNK_SIZE</code> floats, so that a matrix of many executions neither exceeds the array size limit nor counts
+ * against the heap.
+ *
+ * Concurrent writes to different elements are safe; readers must be ordered after the writers (e.g. by a join).
+ */
+class TriangularDistanceMatrix {
+
+	// a little under the maximum array size of common VMs
+	private static final long MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+	private static final int CHUNK_SHIFT = 28;
+	private static final long CHUNK_SIZE = 1L << CHUNK_SHIFT;
+	private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+	final int dimension;
+	private final long size;
+
+	private final float[] distances;
+	private final FloatBuffer[] chunks;
+
+	TriangularDistanceMatrix(int dimension) {
+		this.dimension = dimension;
+		size = ((long) dimension * (dimension + 1)) / 2;
+
+		if (size <= MAX_ARRAY_SIZE) {
+			distances = new float[(int) size];
+			chunks = null;
+		} else {
+			distances = null;
+			chunks = new FloatBuffer[(int) ((size + CHUNK_MASK) >>> CHUNK_SHIFT)];
+			for (int c = 0; c < chunks.length; c++) {
+				long chunkSize = Math.min(CHUNK_SIZE, size - (c * CHUNK_SIZE));
+				chunks[c] = ByteBuffer.allocateDirect((int) chunkSize * 4).order(ByteOrder.nativeOrder())
+						.asFloatBuffer();
+			}
+		}
+	}
+
+	boolean isOffHeap() {
+		return chunks != null;
+	}
+
+	float get(int i, int j) {
+		long index = indexOf(i, j);
+		if (distances != null)
+			return distances[(int) index];
+		return chunks[(int) (index >>> CHUNK_SHIFT)].get((int) (index & CHUNK_MASK));
+	}
+
+	void set(int i, int j, float distance) {
+		long index = indexOf(i, j);
+		if (distances != null)
+			distances[(int) index] = distance;
+		else
+			chunks[(int) (index >>> CHUNK_SHIFT)].put((int) (index & CHUNK_MASK), distance);
+	}
+
+	private long indexOf(int i, int j) {
+		if (i > j) {
+			int swap = i;
+			i = j;
+			j = swap;
+		}
+		// rows 0 .. i-1 hold N, N-1, ..., N-i+1 elements
+		return (((long) i * ((2L * dimension) - i + 1)) / 2) + (j - i);
+	}
+}
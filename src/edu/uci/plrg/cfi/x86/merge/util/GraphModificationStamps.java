@@ -0,0 +1,43 @@
+package edu.uci.plrg.cfi.x86.merge.util;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.collect.MapMaker;
+
+import edu.uci.plrg.cfi.x86.graph.data.graph.ModuleGraph;
+
+/**
+ * Modification stamp of each module graph, so that state derived from a graph (such as its hash index or its
+ * reachability) can tell whether the graph has changed since the state was computed. Graphs are keyed by identity and
+ * weakly, so a graph that is equal to another one does not share its stamp, and a discarded graph drops its stamp.
+ *
+ * <code>ModuleGraph</code> has no counter of its own, so every code path of the merge that adds nodes or edges to an
+ * existing graph must call <code>modified()</code> on it. A graph that has never been stamped has stamp 0.
+ */
+public class GraphModificationStamps {
+
+	// MapMaker compares weak keys by identity
+	private static final ConcurrentMap<ModuleGraph<?>, AtomicLong> STAMPS = new MapMaker().weakKeys().makeMap();
+
+	public static long getStamp(ModuleGraph<?> graph) {
+		AtomicLong stamp = STAMPS.get(graph);
+		return (stamp == null) ? 0L : stamp.get();
+	}
+
+	/**
+	 * Record a change to <code>graph</code>.
+	 *
+	 * @return the new stamp of the graph
+	 */
+	public static long modified(ModuleGraph<?> graph) {
+		AtomicLong stamp = STAMPS.get(graph);
+		if (stamp == null) {
+			AtomicLong newStamp = new AtomicLong();
+			stamp = STAMPS.putIfAbsent(graph, newStamp);
+			if (stamp == null)
+				stamp = newStamp;
+		}
+		return stamp.incrementAndGet();
+	}
+}
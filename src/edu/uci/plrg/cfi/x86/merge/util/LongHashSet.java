@@ -0,0 +1,238 @@
+package edu.uci.plrg.cfi.x86.merge.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable set of hash codes kept as a sorted <code>long[]</code> without duplicates. Set operations are linear merges
+ * of the two arrays that allocate only the result, and the <code>*Size()</code> variants allocate nothing. Membership
+ * is a binary search, and the hashes are iterated in ascending order by index.
+ */
+public class LongHashSet {
+
+	public static final LongHashSet EMPTY = new LongHashSet(new long[0], 0);
+
+	// sorted and distinct up to size; the array may be longer than the set
+	private final long[] values;
+	private final int size;
+
+	private LongHashSet(long[] values, int size) {
+		this.values = values;
+		this.size = size;
+	}
+
+	/**
+	 * Take ownership of the first <code>length</code> elements of <code>values</code>, sorting them in place.
+	 */
+	public static LongHashSet wrap(long[] values, int length) {
+		Arrays.sort(values, 0, length);
+		int size = 0;
+		for (int i = 0; i < length; i++) {
+			if ((size == 0) || (values[i] != values[size - 1]))
+				values[size++] = values[i];
+		}
+		return new LongHashSet(values, size);
+	}
+
+	public static LongHashSet copyOf(Collection<Long> hashes) {
+		long[] values = new long[hashes.size()];
+		int i = 0;
+		for (Long hash : hashes)
+			values[i++] = hash;
+		return wrap(values, i);
+	}
+
+	/**
+	 * Load a hash file (little-endian 8-byte hash codes) by mapping it and copying the hashes out in bulk. A partial
+	 * hash at the end of the file is ignored.
+	 */
+	public static LongHashSet load(File hashFile) throws IOException {
+		FileInputStream in = new FileInputStream(hashFile);
+		try {
+			FileChannel channel = in.getChannel();
+			long length = channel.size();
+			if ((length / 8) > Integer.MAX_VALUE)
+				throw new IOException(String.format("Hash file %s is too large to load (%d bytes)",
+						hashFile.getAbsolutePath(), length));
+
+			LongBuffer hashes = channel.map(FileChannel.MapMode.READ_ONLY, 0, length)
+					.order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+			long[] values = new long[hashes.remaining()];
+			hashes.get(values);
+			return wrap(values, values.length);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Union of any number of sets, sorting their concatenation once.
+	 */
+	public static LongHashSet unionOf(LongHashSet... sets) {
+		int length = 0;
+		for (LongHashSet set : sets)
+			length += set.size;
+		long[] values = new long[length];
+		int offset = 0;
+		for (LongHashSet set : sets) {
+			System.arraycopy(set.values, 0, values, offset, set.size);
+			offset += set.size;
+		}
+		return wrap(values, length);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * The <code>index</code>th smallest hash.
+	 */
+	public long get(int index) {
+		if (index >= size)
+			throw new IndexOutOfBoundsException(String.format("Index %d in a set of size %d", index, size));
+		return values[index];
+	}
+
+	/**
+	 * Position of <code>hash</code> in ascending order, or a negative value if the set does not contain it.
+	 */
+	public int indexOf(long hash) {
+		int index = Arrays.binarySearch(values, 0, size, hash);
+		return (index < 0) ? -1 : index;
+	}
+
+	public boolean contains(long hash) {
+		return Arrays.binarySearch(values, 0, size, hash) >= 0;
+	}
+
+	public long[] toArray() {
+		return Arrays.copyOf(values, size);
+	}
+
+	public LongHashSet intersection(LongHashSet other) {
+		long[] result = new long[Math.min(size, other.size)];
+		int count = 0;
+		int i = 0;
+		int j = 0;
+		while ((i < size) && (j < other.size)) {
+			if (values[i] < other.values[j]) {
+				i++;
+			} else if (values[i] > other.values[j]) {
+				j++;
+			} else {
+				result[count++] = values[i];
+				i++;
+				j++;
+			}
+		}
+		return new LongHashSet(result, count);
+	}
+
+	public LongHashSet union(LongHashSet other) {
+		long[] result = new long[size + other.size];
+		int count = 0;
+		int i = 0;
+		int j = 0;
+		while ((i < size) && (j < other.size)) {
+			if (values[i] < other.values[j]) {
+				result[count++] = values[i++];
+			} else if (values[i] > other.values[j]) {
+				result[count++] = other.values[j++];
+			} else {
+				result[count++] = values[i];
+				i++;
+				j++;
+			}
+		}
+		while (i < size)
+			result[count++] = values[i++];
+		while (j < other.size)
+			result[count++] = other.values[j++];
+		return new LongHashSet(result, count);
+	}
+
+	/**
+	 * The hashes of this set that are not in <code>other</code>.
+	 */
+	public LongHashSet minus(LongHashSet other) {
+		long[] result = new long[size];
+		int count = 0;
+		int i = 0;
+		int j = 0;
+		while ((i < size) && (j < other.size)) {
+			if (values[i] < other.values[j]) {
+				result[count++] = values[i++];
+			} else if (values[i] > other.values[j]) {
+				j++;
+			} else {
+				i++;
+				j++;
+			}
+		}
+		while (i < size)
+			result[count++] = values[i++];
+		return new LongHashSet(result, count);
+	}
+
+	public int intersectionSize(LongHashSet other) {
+		int count = 0;
+		int i = 0;
+		int j = 0;
+		while ((i < size) && (j < other.size)) {
+			if (values[i] < other.values[j]) {
+				i++;
+			} else if (values[i] > other.values[j]) {
+				j++;
+			} else {
+				count++;
+				i++;
+				j++;
+			}
+		}
+		return count;
+	}
+
+	public int unionSize(LongHashSet other) {
+		return (size + other.size) - intersectionSize(other);
+	}
+
+	public int minusSize(LongHashSet other) {
+		return size - intersectionSize(other);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o)
+			return true;
+		if (!(o instanceof LongHashSet))
+			return false;
+
+		LongHashSet other = (LongHashSet) o;
+		if (size != other.size)
+			return false;
+		for (int i = 0; i < size; i++) {
+			if (values[i] != other.values[i])
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int hash = 1;
+		for (int i = 0; i < size; i++)
+			hash = (31 * hash) + (int) (values[i] ^ (values[i] >>> 32));
+		return hash;
+	}
+}
@@ -0,0 +1,311 @@
+package edu.uci.plrg.cfi.x86.merge.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import edu.uci.plrg.cfi.common.log.Log;
+
+/**
+ * Asynchronous log for messages on the merge hot paths. A message below the current level is dropped before anything
+ * is stored, and callers that pass primitives should check <code>isEnabled()</code> first so that the arguments are not
+ * boxed either. An enabled message is stored unformatted, with its arguments, in a buffer segment of the logging
+ * thread, and it is formatted and written through <code>Log</code> when the segment is drained. So the arguments must
+ * not change after the call (e.g. nodes and edges, whose printed fields are fixed).
+ *
+ * Each thread writes to its current segment without locking. When the segment is full, the thread hands it off to the
+ * background flusher and continues in a recycled segment; it only waits when the flusher is
+ * <code>MAXIMUM_PENDING_SEGMENTS</code> behind. The segments of a thread are drained in order under a lock of that
+ * thread's buffer, which the thread itself never takes while it logs, so a drain only contends with other drains.
+ *
+ * A thread that writes to its own <code>Log</code> thread outputs must call <code>setThreadScoped(true)</code>, so that
+ * the flusher leaves its buffer alone and it drains its full segments itself, and then <code>flushThread()</code>
+ * before it changes or clears those outputs.
+ */
+public class MergeLog {
+
+	public enum Level {
+		ERROR,
+		WARNING,
+		INFO,
+		DEBUG
+	}
+
+	private static final int SEGMENT_CAPACITY = 1 << 12;
+	private static final int MAXIMUM_ARGUMENTS = 6;
+	private static final int MAXIMUM_PENDING_SEGMENTS = 8;
+	private static final long FLUSH_INTERVAL_MILLIS = 100L;
+
+	private static class Segment {
+		final String[] formats = new String[SEGMENT_CAPACITY];
+		final Object[] arguments = new Object[SEGMENT_CAPACITY * MAXIMUM_ARGUMENTS];
+		final byte[] argumentCounts = new byte[SEGMENT_CAPACITY];
+
+		// next slot to write, only advanced by the owner
+		final AtomicInteger head = new AtomicInteger();
+		// next slot to drain, only advanced under the drain lock of the buffer
+		int tail = 0;
+
+		boolean isFull() {
+			return head.get() == SEGMENT_CAPACITY;
+		}
+
+		void publish(int slot, String format, int argumentCount) {
+			formats[slot] = format;
+			argumentCounts[slot] = (byte) argumentCount;
+			head.lazySet(slot + 1);
+		}
+
+		/**
+		 * Write the published messages. The caller must hold the drain lock of the buffer.
+		 */
+		void drain() {
+			int end = head.get();
+			for (; tail < end; tail++) {
+				int start = tail * MAXIMUM_ARGUMENTS;
+				String format = formats[tail];
+				Object[] messageArguments = Arrays.copyOfRange(arguments, start, start + argumentCounts[tail]);
+				formats[tail] = null;
+				Arrays.fill(arguments, start, start + argumentCounts[tail], null);
+
+				try {
+					Log.log(format, messageArguments);
+				} catch (RuntimeException e) {
+					Log.log("Failed to format the merge log message '%s': %s", format, e);
+				}
+			}
+		}
+
+		/**
+		 * Only for a drained segment that its owner no longer writes to.
+		 */
+		void reset() {
+			tail = 0;
+			head.set(0);
+		}
+	}
+
+	private static class Buffer {
+		final Thread owner;
+
+		// only read and replaced by the owner, and read by drains
+		volatile Segment current = new Segment();
+
+		// full segments in the order they were handed off, and drained segments for the owner to reuse
+		final Queue<Segment> handedOff = new ConcurrentLinkedQueue<Segment>();
+		final Queue<Segment> recycled = new ConcurrentLinkedQueue<Segment>();
+		final AtomicInteger pendingCount = new AtomicInteger();
+
+		final ReentrantLock drainLock = new ReentrantLock();
+
+		volatile boolean threadScoped = false;
+
+		Buffer(Thread owner) {
+			this.owner = owner;
+		}
+
+		/**
+		 * @return a segment with room for the next message, handing off the current segment first if it is full
+		 */
+		Segment claim() {
+			Segment segment = current;
+			if (!segment.isFull())
+				return segment;
+
+			handedOff.add(segment);
+			pendingCount.incrementAndGet();
+			Segment next = recycled.poll();
+			current = (next == null) ? new Segment() : next;
+
+			if (threadScoped) {
+				drain();
+			} else {
+				Thread flusher = MergeLog.flusher;
+				while (pendingCount.get() > MAXIMUM_PENDING_SEGMENTS) {
+					LockSupport.unpark(flusher);
+					LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1L));
+				}
+			}
+			return current;
+		}
+
+		/**
+		 * Write the handed off segments and then the current segment, in order.
+		 */
+		void drain() {
+			List<Segment> drainedSegments = new ArrayList<Segment>();
+
+			drainLock.lock();
+			try {
+				// read before the handed off segments, so that no later segment can be drained ahead of them
+				Segment currentSnapshot = current;
+				Segment segment;
+				while ((segment = handedOff.poll()) != null) {
+					segment.drain();
+					drainedSegments.add(segment);
+				}
+				currentSnapshot.drain();
+
+				// recycled only after the snapshot is drained, so the owner cannot refill a segment of this drain
+				for (Segment drained : drainedSegments) {
+					drained.reset();
+					recycled.add(drained);
+					pendingCount.decrementAndGet();
+				}
+			} finally {
+				drainLock.unlock();
+			}
+		}
+	}
+
+	private static final List<Buffer> BUFFERS = new CopyOnWriteArrayList<Buffer>();
+
+	private static final ThreadLocal<Buffer> THREAD_BUFFER = new ThreadLocal<Buffer>() {
+		@Override
+		protected Buffer initialValue() {
+			Buffer buffer = new Buffer(Thread.currentThread());
+			BUFFERS.add(buffer);
+			startFlusher();
+			return buffer;
+		}
+	};
+
+	private static volatile Level level = Level.INFO;
+
+	private static volatile Thread flusher = null;
+
+	public static void setLevel(Level level) {
+		MergeLog.level = level;
+	}
+
+	public static boolean isEnabled(Level messageLevel) {
+		return messageLevel.compareTo(level) <= 0;
+	}
+
+	public static void log(Level messageLevel, String message) {
+		if (!isEnabled(messageLevel))
+			return;
+
+		Segment segment = THREAD_BUFFER.get().claim();
+		segment.publish(segment.head.get(), message, 0);
+	}
+
+	public static void log(Level messageLevel, String format, Object argument) {
+		if (!isEnabled(messageLevel))
+			return;
+
+		Segment segment = THREAD_BUFFER.get().claim();
+		int slot = segment.head.get();
+		segment.arguments[slot * MAXIMUM_ARGUMENTS] = argument;
+		segment.publish(slot, format, 1);
+	}
+
+	public static void log(Level messageLevel, String format, Object first, Object second) {
+		if (!isEnabled(messageLevel))
+			return;
+
+		Segment segment = THREAD_BUFFER.get().claim();
+		int slot = segment.head.get();
+		int start = slot * MAXIMUM_ARGUMENTS;
+		segment.arguments[start] = first;
+		segment.arguments[start + 1] = second;
+		segment.publish(slot, format, 2);
+	}
+
+	public static void log(Level messageLevel, String format, Object first, Object second, Object third) {
+		if (!isEnabled(messageLevel))
+			return;
+
+		Segment segment = THREAD_BUFFER.get().claim();
+		int slot = segment.head.get();
+		int start = slot * MAXIMUM_ARGUMENTS;
+		segment.arguments[start] = first;
+		segment.arguments[start + 1] = second;
+		segment.arguments[start + 2] = third;
+		segment.publish(slot, format, 3);
+	}
+
+	public static void log(Level messageLevel, String format, Object... arguments) {
+		if (!isEnabled(messageLevel))
+			return;
+
+		Segment segment = THREAD_BUFFER.get().claim();
+		int slot = segment.head.get();
+		if (arguments.length > MAXIMUM_ARGUMENTS) {
+			segment.arguments[slot * MAXIMUM_ARGUMENTS] = String.format(format, arguments);
+			segment.publish(slot, "%s", 1);
+		} else {
+			System.arraycopy(arguments, 0, segment.arguments, slot * MAXIMUM_ARGUMENTS, arguments.length);
+			segment.publish(slot, format, arguments.length);
+		}
+	}
+
+	/**
+	 * Write the pending messages of every thread that is not thread scoped (or is no longer alive).
+	 */
+	public static void flush() {
+		for (Buffer buffer : BUFFERS) {
+			if (buffer.threadScoped && buffer.owner.isAlive())
+				continue;
+
+			buffer.drain();
+			if (!buffer.owner.isAlive())
+				BUFFERS.remove(buffer);
+		}
+	}
+
+	/**
+	 * Write the pending messages of the calling thread, on the calling thread.
+	 */
+	public static void flushThread() {
+		THREAD_BUFFER.get().drain();
+	}
+
+	/**
+	 * Determines whether the messages of the calling thread are only written on the calling thread, so that they
+	 * reach its <code>Log</code> thread outputs. Pending messages are written first.
+	 */
+	public static void setThreadScoped(boolean threadScoped) {
+		Buffer buffer = THREAD_BUFFER.get();
+		buffer.drainLock.lock();
+		try {
+			buffer.drain();
+			buffer.threadScoped = threadScoped;
+		} finally {
+			buffer.drainLock.unlock();
+		}
+	}
+
+	private static synchronized void startFlusher() {
+		if (flusher != null)
+			return;
+
+		Thread thread = new Thread("merge-log-flusher") {
+			@Override
+			public void run() {
+				while (!Thread.interrupted()) {
+					// woken early by a thread that is waiting for its handed off segments to be drained
+					LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MILLIS));
+					flush();
+				}
+			}
+		};
+		thread.setDaemon(true);
+		thread.start();
+		flusher = thread;
+
+		Runtime.getRuntime().addShutdownHook(new Thread("merge-log-shutdown") {
+			@Override
+			public void run() {
+				flush();
+			}
+		});
+	}
+}
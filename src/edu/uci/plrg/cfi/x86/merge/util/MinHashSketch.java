@@ -0,0 +1,105 @@
+package edu.uci.plrg.cfi.x86.merge.util;
+
+import java.util.Arrays;
+
+/**
+ * Bottom-k MinHash sketch of a set of <code>long</code> keys: the <code>size</code> smallest values of a mixing
+ * function over the keys. The Jaccard similarity of two sets is estimated from their sketches alone, from the
+ * <code>size</code> smallest values of their union, with an error of about <code>1 / sqrt(size)</code>. Between two
+ * complete sketches (of sets having at most <code>size</code> keys), the whole union is compared and the result is
+ * exact.
+ *
+ * Adding a key is a comparison with the largest kept value, except for the few keys that displace one, so a sketch of
+ * a large graph costs about one pass over its hashes.
+ */
+public class MinHashSketch {
+
+	private final long[] minimums;
+	private int count = 0;
+	// set once a key is dropped for lack of room
+	private boolean overflowed = false;
+
+	public MinHashSketch(int size) {
+		if (size < 1)
+			throw new IllegalArgumentException("The sketch size must be at least 1");
+
+		minimums = new long[size];
+	}
+
+	public void add(long key) {
+		long value = mix(key);
+		if ((count == minimums.length) && (value >= minimums[count - 1])) {
+			if (value > minimums[count - 1])
+				overflowed = true;
+			return;
+		}
+
+		int position = Arrays.binarySearch(minimums, 0, count, value);
+		if (position >= 0)
+			return; // already kept
+
+		position = -(position + 1);
+		if (count < minimums.length)
+			count++;
+		else
+			overflowed = true; // the largest kept value is displaced
+		System.arraycopy(minimums, position, minimums, position + 1, count - 1 - position);
+		minimums[position] = value;
+	}
+
+	public boolean isEmpty() {
+		return count == 0;
+	}
+
+	/**
+	 * True if every key added so far is kept, in which case estimates between complete sketches are exact.
+	 */
+	public boolean isComplete() {
+		return !overflowed;
+	}
+
+	/**
+	 * True if estimates between this sketch and <code>other</code> are exact.
+	 */
+	public boolean isExactWith(MinHashSketch other) {
+		return isComplete() && other.isComplete();
+	}
+
+	/**
+	 * Estimate the Jaccard similarity of the sketched sets from the smallest values of their union: the fraction of
+	 * those that are in both sketches. Two sketches of different sizes are compared at the smaller size, and two
+	 * complete sketches over their whole union. An empty set is not similar to anything.
+	 */
+	public double estimateSimilarity(MinHashSketch other) {
+		if ((count == 0) || (other.count == 0))
+			return 0.0;
+
+		int unionSize = isExactWith(other) ? (count + other.count) : Math.min(minimums.length,
+				other.minimums.length);
+		int union = 0;
+		int shared = 0;
+		int i = 0;
+		int j = 0;
+		while ((union < unionSize) && ((i < count) || (j < other.count))) {
+			if ((j == other.count) || ((i < count) && (minimums[i] < other.minimums[j]))) {
+				i++;
+			} else if ((i == count) || (other.minimums[j] < minimums[i])) {
+				j++;
+			} else {
+				shared++;
+				i++;
+				j++;
+			}
+			union++;
+		}
+		return shared / (double) union;
+	}
+
+	// finalizer of splitmix64, so that similar keys (e.g. nearby hashes) spread over the whole range
+	static long mix(long key) {
+		long value = key;
+		value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+		value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+		return value ^ (value >>> 31);
+	}
+}
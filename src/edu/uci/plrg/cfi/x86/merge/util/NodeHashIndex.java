@@ -0,0 +1,146 @@
+package edu.uci.plrg.cfi.x86.merge.util;
+
+import java.util.Arrays;
+
+import edu.uci.plrg.cfi.x86.graph.data.graph.Node;
+import edu.uci.plrg.cfi.x86.graph.data.graph.NodeHashMap;
+import edu.uci.plrg.cfi.x86.graph.data.graph.NodeList;
+
+/**
+ * Index of nodes by hash, using open addressing on primitive <code>long</code> keys so that a lookup neither boxes the
+ * hash nor allocates. The nodes of each hash are chained in the order they were added, which matches the order of the
+ * <code>NodeList</code> in the <code>NodeHashMap</code> the index was built from.
+ *
+ * <pre>
+ * for (int entry = index.first(hash); entry != NodeHashIndex.NONE; entry = index.next(entry)) {
+ * 	NodeType node = index.getNode(entry);
+ * }
+ * </pre>
+ */
+public class NodeHashIndex<NodeType extends Node<?>> {
+
+	public static final int NONE = -1;
+
+	private static final int MINIMUM_CAPACITY = 16;
+
+	// hash table: slot -> key, and the first and last entry of the key's chain (NONE for an empty slot)
+	private long[] slotHashes;
+	private int[] slotFirstEntries;
+	private int[] slotLastEntries;
+	private int slotMask;
+	private int hashCount = 0;
+
+	// entries in insertion order: node, and the next entry with the same hash
+	private Object[] entryNodes;
+	private int[] entryNext;
+	private int entryCount = 0;
+
+	public NodeHashIndex(int expectedNodeCount) {
+		int slotCount = MINIMUM_CAPACITY;
+		while (slotCount < (expectedNodeCount * 2))
+			slotCount <<= 1;
+		allocateSlots(slotCount);
+
+		int entryCapacity = Math.max(MINIMUM_CAPACITY, expectedNodeCount);
+		entryNodes = new Object[entryCapacity];
+		entryNext = new int[entryCapacity];
+	}
+
+	public static <NodeType extends Node<?>> NodeHashIndex<NodeType> build(NodeHashMap<NodeType> nodesByHash) {
+		NodeHashIndex<NodeType> index = new NodeHashIndex<NodeType>(nodesByHash.getNodeCount());
+		for (Long hash : nodesByHash.keySet()) {
+			NodeList<NodeType> nodes = nodesByHash.get(hash);
+			for (int i = 0; i < nodes.size(); i++)
+				index.add(hash, nodes.get(i));
+		}
+		return index;
+	}
+
+	public void add(long hash, NodeType node) {
+		if (entryCount == entryNodes.length) {
+			entryNodes = Arrays.copyOf(entryNodes, entryCount * 2);
+			entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+		}
+		int entry = entryCount++;
+		entryNodes[entry] = node;
+		entryNext[entry] = NONE;
+
+		int slot = findSlot(hash);
+		if (slotFirstEntries[slot] == NONE) {
+			slotHashes[slot] = hash;
+			slotFirstEntries[slot] = entry;
+			hashCount++;
+		} else {
+			entryNext[slotLastEntries[slot]] = entry;
+		}
+		slotLastEntries[slot] = entry;
+
+		if ((hashCount * 2) > slotHashes.length)
+			allocateSlots(slotHashes.length * 2);
+	}
+
+	/**
+	 * @return the first entry having <code>hash</code>, or <code>NONE</code>
+	 */
+	public int first(long hash) {
+		return slotFirstEntries[findSlot(hash)];
+	}
+
+	/**
+	 * @return the entry following <code>entry</code> with the same hash, or <code>NONE</code>
+	 */
+	public int next(int entry) {
+		return entryNext[entry];
+	}
+
+	@SuppressWarnings("unchecked")
+	public NodeType getNode(int entry) {
+		return (NodeType) entryNodes[entry];
+	}
+
+	public int getNodeCount() {
+		return entryCount;
+	}
+
+	public int getHashCount() {
+		return hashCount;
+	}
+
+	private int findSlot(long hash) {
+		int slot = mix(hash) & slotMask;
+		while ((slotFirstEntries[slot] != NONE) && (slotHashes[slot] != hash))
+			slot = (slot + 1) & slotMask;
+		return slot;
+	}
+
+	private void allocateSlots(int slotCount) {
+		long[] oldHashes = slotHashes;
+		int[] oldFirstEntries = slotFirstEntries;
+		int[] oldLastEntries = slotLastEntries;
+
+		slotHashes = new long[slotCount];
+		slotFirstEntries = new int[slotCount];
+		slotLastEntries = new int[slotCount];
+		Arrays.fill(slotFirstEntries, NONE);
+		slotMask = slotCount - 1;
+
+		if (oldHashes != null) {
+			for (int i = 0; i < oldHashes.length; i++) {
+				if (oldFirstEntries[i] != NONE) {
+					int slot = findSlot(oldHashes[i]);
+					slotHashes[slot] = oldHashes[i];
+					slotFirstEntries[slot] = oldFirstEntries[i];
+					slotLastEntries[slot] = oldLastEntries[i];
+				}
+			}
+		}
+	}
+
+	// the node hashes are not uniform in their low bits, so spread all 64 bits into the slot index
+	private static int mix(long hash) {
+		hash ^= (hash >>> 33);
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= (hash >>> 33);
+		return (int) hash;
+	}
+}
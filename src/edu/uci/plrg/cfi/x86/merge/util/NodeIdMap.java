@@ -0,0 +1,93 @@
+package edu.uci.plrg.cfi.x86.merge.util;
+
+import java.util.Arrays;
+
+/**
+ * Assigns sequential int ids to objects by identity, so that per-node state can be kept in plain arrays indexed by id.
+ * Lookups use open addressing on the identity hash and do not allocate. Ids are never reclaimed.
+ */
+public class NodeIdMap<Type> {
+
+	public static final int NONE = -1;
+
+	private static final int MINIMUM_CAPACITY = 16;
+
+	private Object[] slotObjects;
+	private int[] slotIds;
+	private int slotMask;
+
+	private Object[] objectsById;
+	private int size = 0;
+
+	public NodeIdMap(int expectedSize) {
+		int slotCount = MINIMUM_CAPACITY;
+		while (slotCount < (expectedSize * 2))
+			slotCount <<= 1;
+		allocateSlots(slotCount);
+		objectsById = new Object[Math.max(MINIMUM_CAPACITY, expectedSize)];
+	}
+
+	/**
+	 * @return the id of <code>object</code>, or <code>NONE</code> if it has not been assigned one
+	 */
+	public int getId(Type object) {
+		return slotIds[findSlot(object)];
+	}
+
+	/**
+	 * @return the id of <code>object</code>, assigning the next id if it does not have one yet
+	 */
+	public int assignId(Type object) {
+		int slot = findSlot(object);
+		if (slotIds[slot] != NONE)
+			return slotIds[slot];
+
+		if (size == objectsById.length)
+			objectsById = Arrays.copyOf(objectsById, size * 2);
+		int id = size++;
+		objectsById[id] = object;
+		slotObjects[slot] = object;
+		slotIds[slot] = id;
+
+		if ((size * 2) > slotObjects.length)
+			allocateSlots(slotObjects.length * 2);
+		return id;
+	}
+
+	@SuppressWarnings("unchecked")
+	public Type getObject(int id) {
+		return (Type) objectsById[id];
+	}
+
+	/**
+	 * @return one more than the highest assigned id
+	 */
+	public int size() {
+		return size;
+	}
+
+	private int findSlot(Object object) {
+		int slot = mix(System.identityHashCode(object)) & slotMask;
+		while ((slotIds[slot] != NONE) && (slotObjects[slot] != object))
+			slot = (slot + 1) & slotMask;
+		return slot;
+	}
+
+	private void allocateSlots(int slotCount) {
+		slotObjects = new Object[slotCount];
+		slotIds = new int[slotCount];
+		Arrays.fill(slotIds, NONE);
+		slotMask = slotCount - 1;
+
+		for (int id = 0; id < size; id++) {
+			int slot = findSlot(objectsById[id]);
+			slotObjects[slot] = objectsById[id];
+			slotIds[slot] = id;
+		}
+	}
+
+	private static int mix(int hash) {
+		hash *= 0x9e3779b9;
+		return hash ^ (hash >>> 16);
+	}
+}
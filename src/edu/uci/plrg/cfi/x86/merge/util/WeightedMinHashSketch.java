@@ -0,0 +1,160 @@
+package edu.uci.plrg.cfi.x86.merge.util;
+
+import java.util.Arrays;
+
+/**
+ * Bottom-k sketch of a set of weighted <code>long</code> keys, for estimating the total weight of the intersection of
+ * two sets. Each key is ranked by an exponential variate of rate <code>weight</code> drawn from the hash of the key, so
+ * heavy keys tend to rank low, and the sketch keeps the <code>size + 1</code> lowest ranks with their weights. A key
+ * must have the same weight in every sketch.
+ *
+ * The estimate is the Horvitz-Thompson sum over the keys shared among the <code>size</code> lowest ranks of the union,
+ * each weighted by the inverse of its probability of ranking that low. Its relative error is about
+ * <code>1 / sqrt(k)</code> for <code>k</code> shared keys in that sample (see <code>countSharedSample()</code>), which
+ * is about <code>size * similarity</code>. Between two complete sketches, the whole union is compared and the result is
+ * exact.
+ */
+public class WeightedMinHashSketch {
+
+	private final int size;
+	private final double[] ranks;
+	private final double[] weights;
+	private int count = 0;
+
+	public WeightedMinHashSketch(int size) {
+		if (size < 1)
+			throw new IllegalArgumentException("The sketch size must be at least 1");
+
+		this.size = size;
+		ranks = new double[size + 1];
+		weights = new double[size + 1];
+	}
+
+	/**
+	 * Add a key of weight <code>weight</code>, which must be positive.
+	 */
+	public void add(long key, double weight) {
+		// uniform in (0, 1) from the top 53 bits, so the rank is finite and positive
+		double uniform = ((MinHashSketch.mix(key) >>> 11) + 0.5) * 0x1.0p-53;
+		double rank = -Math.log(uniform) / weight;
+		if ((count == ranks.length) && (rank >= ranks[count - 1]))
+			return;
+
+		int position = Arrays.binarySearch(ranks, 0, count, rank);
+		if (position >= 0)
+			return; // already kept
+
+		position = -(position + 1);
+		if (count < ranks.length)
+			count++;
+		System.arraycopy(ranks, position, ranks, position + 1, count - 1 - position);
+		System.arraycopy(weights, position, weights, position + 1, count - 1 - position);
+		ranks[position] = rank;
+		weights[position] = weight;
+	}
+
+	/**
+	 * True if every key added so far is kept, in which case estimates between complete sketches are exact.
+	 */
+	public boolean isComplete() {
+		return count <= size;
+	}
+
+	/**
+	 * True if estimates between this sketch and <code>other</code> are exact.
+	 */
+	public boolean isExactWith(WeightedMinHashSketch other) {
+		return isComplete() && other.isComplete();
+	}
+
+	/**
+	 * Estimate the total weight of the keys in both sketched sets. Two sketches of different sizes are compared at the
+	 * smaller size.
+	 */
+	public double estimateIntersectionWeight(WeightedMinHashSketch other) {
+		int sampleSize = getSampleSize(other);
+		double threshold = isExactWith(other) ? Double.POSITIVE_INFINITY : sampleThreshold(other, sampleSize);
+
+		double weight = 0.0;
+		int union = 0;
+		int i = 0;
+		int j = 0;
+		while ((union < sampleSize) && ((i < count) || (j < other.count))) {
+			if ((j == other.count) || ((i < count) && (ranks[i] < other.ranks[j]))) {
+				i++;
+			} else if ((i == count) || (other.ranks[j] < ranks[i])) {
+				j++;
+			} else {
+				if (threshold == Double.POSITIVE_INFINITY)
+					weight += weights[i];
+				else
+					weight += weights[i] / -Math.expm1(-weights[i] * threshold);
+				i++;
+				j++;
+			}
+			union++;
+		}
+		return weight;
+	}
+
+	/**
+	 * @return the number of keys of both sets among the sample that <code>estimateIntersectionWeight()</code> sums
+	 */
+	public int countSharedSample(WeightedMinHashSketch other) {
+		int sampleSize = getSampleSize(other);
+		int shared = 0;
+		int union = 0;
+		int i = 0;
+		int j = 0;
+		while ((union < sampleSize) && ((i < count) || (j < other.count))) {
+			if ((j == other.count) || ((i < count) && (ranks[i] < other.ranks[j]))) {
+				i++;
+			} else if ((i == count) || (other.ranks[j] < ranks[i])) {
+				j++;
+			} else {
+				shared++;
+				i++;
+				j++;
+			}
+			union++;
+		}
+		return shared;
+	}
+
+	/**
+	 * The number of lowest ranks of the union to compare: all of them between complete sketches, which is at most the
+	 * size of their union.
+	 */
+	private int getSampleSize(WeightedMinHashSketch other) {
+		if (isExactWith(other))
+			return count + other.count;
+		return Math.min(size, other.size);
+	}
+
+	/**
+	 * The rank following the <code>sampleSize</code> lowest ranks of the union, under which every sampled key fell, or
+	 * infinity if the union has no more keys.
+	 */
+	private double sampleThreshold(WeightedMinHashSketch other, int sampleSize) {
+		int union = 0;
+		int i = 0;
+		int j = 0;
+		while ((union < sampleSize) && ((i < count) || (j < other.count))) {
+			if ((j == other.count) || ((i < count) && (ranks[i] < other.ranks[j]))) {
+				i++;
+			} else if ((i == count) || (other.ranks[j] < ranks[i])) {
+				j++;
+			} else {
+				i++;
+				j++;
+			}
+			union++;
+		}
+
+		if ((i < count) && ((j == other.count) || (ranks[i] <= other.ranks[j])))
+			return ranks[i];
+		if (j < other.count)
+			return other.ranks[j];
+		return Double.POSITIVE_INFINITY;
+	}
+}